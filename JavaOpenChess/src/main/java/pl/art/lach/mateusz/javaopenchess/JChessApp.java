@@ -18,6 +18,7 @@ import Spring.IChessEngine;
 import org.json.simple.JSONObject;
 import pl.art.lach.mateusz.javaopenchess.core.Game;
 import pl.art.lach.mateusz.javaopenchess.core.Square;
+import pl.art.lach.mateusz.javaopenchess.core.ai.tablebase.Tablebases;
 import pl.art.lach.mateusz.javaopenchess.core.moves.Move;
 import java.util.Scanner;
 
@@ -127,6 +128,10 @@ public class JChessApp implements IChessEngine {
                 newGame.setIsEndOfGame(true);
                 System.out.println("Over 300 moves were made, ending game in draw");
             }
+            else if(Tablebases.isDraw(newGame.getChessboard())){
+                newGame.setIsEndOfGame(true);
+                System.out.println("Position is drawn according to endgame tables, ending game in draw");
+            }
         }
     }
 
@@ -182,7 +187,11 @@ public class JChessApp implements IChessEngine {
 
     @Override
     public JSONObject newGame(boolean firstMove, String start, String end) throws Exception {
-        //Create new game with firstMove as input. firstMove changes who is white and who is black
+        //Stop pondering of the previous game, then create new game with firstMove as input.
+        //firstMove changes who is white and who is black
+        if(newGame != null && newGame.getAi() != null){
+            newGame.getAi().stopThinking();
+        }
         newGame = new Game(firstMove);
         newGame.newGame();
         JSONObject obj = new JSONObject();
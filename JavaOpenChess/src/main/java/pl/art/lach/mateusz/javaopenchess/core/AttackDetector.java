@@ -0,0 +1,171 @@
+/*
+#    This program is free software: you can redistribute it and/or modify
+#    it under the terms of the GNU General Public License as published by
+#    the Free Software Foundation, either version 3 of the License, or
+#    (at your option) any later version.
+#
+#    This program is distributed in the hope that it will be useful,
+#    but WITHOUT ANY WARRANTY; without even the implied warranty of
+#    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+#    GNU General Public License for more details.
+#
+#    You should have received a copy of the GNU General Public License
+#    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package pl.art.lach.mateusz.javaopenchess.core;
+
+import pl.art.lach.mateusz.javaopenchess.core.bitboards.Bitboards;
+import pl.art.lach.mateusz.javaopenchess.core.pieces.Piece;
+import pl.art.lach.mateusz.javaopenchess.core.pieces.implementation.King;
+import pl.art.lach.mateusz.javaopenchess.core.pieces.implementation.Rook;
+
+/**
+ * Class to check if square is in range of opponent pieces.
+ * Instead of asking every piece for its squares in range, it starts
+ * from the tested square: sliding pieces are looked up in magic bitboard
+ * tables, knights, kings and pawn captures in precomputed attack tables,
+ * returning at the first attacker found.
+ * Results are the same as in Behavior.getSquaresInRange() of each piece.
+ */
+public final class AttackDetector
+{
+    private AttackDetector()
+    {
+    }
+
+    /**
+     * Method to check if square is in range of any piece of opponent.
+     * @param chessboard chessboard to look at
+     * @param target square to check
+     * @param color color of defending side, pieces of other color are attackers
+     * @return true if at least one opponent piece has target square in range
+     */
+    public static boolean isAttacked(Chessboard chessboard, Square target, Colors color)
+    {
+        Square sq = chessboard.getSquare(target.getPozX(), target.getPozY());
+        BitboardPosition position = chessboard.getBitboardPosition();
+        int square = Chessboard.getBitboardIndex(sq);
+        int enemy = 1 - BitboardPosition.getColor(color);
+        // sliding pieces and king have in range empty squares and squares of other players
+        boolean reachable = 0L == (position.getPieces(enemy) & Bitboards.bit(square));
+        long occupancy = position.getOccupancy();
+        long queens = position.getPieces(enemy, BitboardPosition.QUEEN);
+        long sliders = (Bitboards.getRookAttacks(square, occupancy)
+                    & (position.getPieces(enemy, BitboardPosition.ROOK) | queens))
+                | (Bitboards.getBishopAttacks(square, occupancy)
+                    & (position.getPieces(enemy, BitboardPosition.BISHOP) | queens));
+        if (reachable && 0L != sliders)
+        {
+            return true;
+        }
+        if (0L != (Bitboards.getKnightAttacks(square) & position.getPieces(enemy, BitboardPosition.KNIGHT)))
+        {
+            return true;
+        }
+        if (reachable && 0L != (Bitboards.getKingAttacks(square) & position.getPieces(enemy, BitboardPosition.KING)))
+        {
+            return true;
+        }
+        return isAttackedByPawn(chessboard, position, sq, enemy)
+                || isCastlingTarget(chessboard, sq.getPozX() - 2, sq.getPozY(), color, true)
+                || isCastlingTarget(chessboard, sq.getPozX() + 2, sq.getPozY(), color, false);
+    }
+
+    private static boolean isOpponent(Piece piece, Colors color)
+    {
+        return null != piece && piece.getPlayer().getColor() != color;
+    }
+
+    /**
+     * King which was not moved has in range squares where it could castle.
+     */
+    private static boolean isCastlingTarget(Chessboard chessboard, int kingX, int y, Colors color, boolean shortCastling)
+    {
+        if (isOut(kingX, y))
+        {
+            return false;
+        }
+        Piece piece = chessboard.getSquare(kingX, y).getPiece();
+        if (!(piece instanceof King) || !isOpponent(piece, color) || ((King) piece).getWasMotioned())
+        {
+            return false;
+        }
+        int rookX = shortCastling ? Chessboard.LAST_SQUARE : Chessboard.FIRST_SQUARE;
+        Piece rook = chessboard.getSquare(rookX, y).getPiece();
+        if (!(rook instanceof Rook) || ((Rook) rook).getWasMotioned())
+        {
+            return false;
+        }
+        if (shortCastling)
+        {
+            for (int i = kingX + 1; i < Chessboard.LAST_SQUARE; i++)
+            {
+                if (null != chessboard.getSquare(i, y).getPiece())
+                {
+                    return false;
+                }
+            }
+        }
+        else
+        {
+            for (int i = kingX - 1; i > Chessboard.FIRST_SQUARE; i--)
+            {
+                if (null != chessboard.getSquare(i, y).getPiece())
+                {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Pawns have in range empty squares in front of them (one or two
+     * from start row), squares of other players on diagonals and
+     * diagonal squares next to pawn which moved two squares.
+     */
+    private static boolean isAttackedByPawn(Chessboard chessboard, BitboardPosition position, Square target, int enemy)
+    {
+        int directionY = position.getPawnDirection(enemy);
+        int x = target.getPozX();
+        int pawnY = target.getPozY() - directionY;
+        if (isOut(x, pawnY))
+        {
+            return false;
+        }
+        long pawns = position.getPieces(enemy, BitboardPosition.PAWN);
+        long occupancy = position.getOccupancy();
+        int square = Chessboard.getBitboardIndex(target);
+        if (null == target.getPiece())
+        {
+            int pawnSquare = Bitboards.getSquare(x, pawnY);
+            if (0L != (pawns & Bitboards.bit(pawnSquare)))
+            {
+                return true;
+            }
+            int startY = pawnY - directionY;
+            if (startY == (directionY > 0 ? Chessboard.FIRST_SQUARE + 1 : Chessboard.LAST_SQUARE - 1)
+                    && 0L == (occupancy & Bitboards.bit(pawnSquare))
+                    && 0L != (pawns & Bitboards.bit(Bitboards.getSquare(x, startY))))
+            {
+                return true;
+            }
+        }
+        long attackers = Bitboards.getPawnAttacks(square, -directionY) & pawns;
+        if (0L == attackers)
+        {
+            return false;
+        }
+        if (0L != (occupancy & ~position.getPieces(enemy) & Bitboards.bit(square)))
+        {
+            return true;
+        }
+        Square side = chessboard.getSquare(x, pawnY);
+        return Chessboard.wasEnPassant(side) && BitboardPosition.getColor(side.getPiece()) != enemy;
+    }
+
+    private static boolean isOut(int x, int y)
+    {
+        return x < 0 || x > Chessboard.LAST_SQUARE || y < 0 || y > Chessboard.LAST_SQUARE;
+    }
+}
@@ -0,0 +1,798 @@
+/*
+#    This program is free software: you can redistribute it and/or modify
+#    it under the terms of the GNU General Public License as published by
+#    the Free Software Foundation, either version 3 of the License, or
+#    (at your option) any later version.
+#
+#    This program is distributed in the hope that it will be useful,
+#    but WITHOUT ANY WARRANTY; without even the implied warranty of
+#    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+#    GNU General Public License for more details.
+#
+#    You should have received a copy of the GNU General Public License
+#    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package pl.art.lach.mateusz.javaopenchess.core;
+
+import java.util.Arrays;
+import pl.art.lach.mateusz.javaopenchess.core.bitboards.Bitboards;
+import pl.art.lach.mateusz.javaopenchess.core.bitboards.PieceSquareTables;
+import pl.art.lach.mateusz.javaopenchess.core.bitboards.Zobrist;
+import pl.art.lach.mateusz.javaopenchess.core.pieces.Piece;
+import pl.art.lach.mateusz.javaopenchess.core.pieces.implementation.Bishop;
+import pl.art.lach.mateusz.javaopenchess.core.pieces.implementation.King;
+import pl.art.lach.mateusz.javaopenchess.core.pieces.implementation.Knight;
+import pl.art.lach.mateusz.javaopenchess.core.pieces.implementation.Pawn;
+import pl.art.lach.mateusz.javaopenchess.core.pieces.implementation.Queen;
+import pl.art.lach.mateusz.javaopenchess.core.pieces.implementation.Rook;
+
+/**
+ * Class to represent chessboard position as a set of bitboards:
+ * one 64-bit mask for every type and color of piece, plus side to move,
+ * castling and en passant state.
+ * Chessboard keeps it in sync with its squares, so it can be used
+ * to answer move generation queries without walking Square and Piece objects.
+ * Legal moves follows the same rules as Behavior classes.
+ */
+public class BitboardPosition
+{
+    public static final int WHITE = 0;
+
+    public static final int BLACK = 1;
+
+    public static final int PAWN = 0;
+
+    public static final int KNIGHT = 1;
+
+    public static final int BISHOP = 2;
+
+    public static final int ROOK = 3;
+
+    public static final int QUEEN = 4;
+
+    public static final int KING = 5;
+
+    public static final int NUMBER_OF_PIECE_TYPES = 6;
+
+    public static final int NO_PIECE = -1;
+
+    public static final int NO_SQUARE = -1;
+
+    public static final int SHORT_CASTLING = 0;
+
+    public static final int LONG_CASTLING = 1;
+
+    private static final int DIRECTION_UP = -1;
+
+    private static final int DIRECTION_BOTTOM = 1;
+
+    private static final long RANK_AFTER_BOTTOM_START = 0xFFL << 16;
+
+    private static final long RANK_AFTER_UP_START = 0xFFL << 40;
+
+    /**
+     * piece bitboards indexed by color * 6 + type
+     */
+    private final long[] pieces = new long[2 * NUMBER_OF_PIECE_TYPES];
+
+    private final long[] colors = new long[2];
+
+    /**
+     * piece index for every square, NO_PIECE for empty ones
+     */
+    private final int[] board = new int[Bitboards.NUMBER_OF_SQUARES];
+
+    private int sideToMove = WHITE;
+
+    private int castlingRights = 0;
+
+    /**
+     * Square of pawn which moved two squares in last move.
+     */
+    private int enPassantSquare = NO_SQUARE;
+
+    /**
+     * Y direction of pawn moves for each color.
+     */
+    private final int[] pawnDirections = {DIRECTION_UP, DIRECTION_BOTTOM};
+
+    private long version = 0L;
+
+    /**
+     * Zobrist key updated with every change of pieces, side, castling and en passant state
+     */
+    private long zobristKey = 0L;
+
+    /**
+     * Zobrist key of pawns only, used by pawn structure hash table
+     */
+    private long pawnKey = 0L;
+
+    /**
+     * sums of middlegame and endgame piece-square values (with material)
+     * of each color, updated with every change of pieces
+     */
+    private final int[] midgameScores = new int[2];
+
+    private final int[] endgameScores = new int[2];
+
+    /**
+     * game phase: sum of phase weights of pieces on board
+     */
+    private int phase = 0;
+
+    /**
+     * optional listener of piece changes, e.g. accumulator of neural evaluation
+     */
+    private PieceListener pieceListener = null;
+
+    private final LegalMoveGenerator legalMoveGenerator = new LegalMoveGenerator(this);
+
+    public BitboardPosition()
+    {
+        Arrays.fill(board, NO_PIECE);
+    }
+
+    public static int getPieceIndex(int color, int type)
+    {
+        return color * NUMBER_OF_PIECE_TYPES + type;
+    }
+
+    public static int getColorOfPiece(int piece)
+    {
+        return piece / NUMBER_OF_PIECE_TYPES;
+    }
+
+    public static int getTypeOfPiece(int piece)
+    {
+        return piece % NUMBER_OF_PIECE_TYPES;
+    }
+
+    public static int getColor(Colors color)
+    {
+        return Colors.WHITE == color ? WHITE : BLACK;
+    }
+
+    public static int getColor(Piece piece)
+    {
+        return getColor(piece.getPlayer().getColor());
+    }
+
+    public static int getType(Piece piece)
+    {
+        if (piece instanceof Pawn)
+        {
+            return PAWN;
+        }
+        else if (piece instanceof Knight)
+        {
+            return KNIGHT;
+        }
+        else if (piece instanceof Bishop)
+        {
+            return BISHOP;
+        }
+        else if (piece instanceof Rook)
+        {
+            return ROOK;
+        }
+        else if (piece instanceof Queen)
+        {
+            return QUEEN;
+        }
+        else if (piece instanceof King)
+        {
+            return KING;
+        }
+        return NO_PIECE;
+    }
+
+    public static int getCastlingFlag(int color, int side)
+    {
+        return 1 << (color * 2 + side);
+    }
+
+    /**
+     * Puts piece on square, replacing the previous one.
+     * @param square square index
+     * @param color color of piece
+     * @param type type of piece
+     */
+    public void putPiece(int square, int color, int type)
+    {
+        removePiece(square);
+        int piece = getPieceIndex(color, type);
+        long bit = Bitboards.bit(square);
+        pieces[piece] |= bit;
+        colors[color] |= bit;
+        board[square] = piece;
+        zobristKey ^= Zobrist.getPieceKey(piece, square);
+        if (PAWN == type)
+        {
+            pawnKey ^= Zobrist.getPieceKey(piece, square);
+        }
+        updateScores(color, type, square, 1);
+        if (null != pieceListener)
+        {
+            pieceListener.pieceAdded(piece, square);
+        }
+        version++;
+    }
+
+    public void removePiece(int square)
+    {
+        int piece = board[square];
+        if (NO_PIECE != piece)
+        {
+            long mask = ~Bitboards.bit(square);
+            pieces[piece] &= mask;
+            colors[getColorOfPiece(piece)] &= mask;
+            board[square] = NO_PIECE;
+            zobristKey ^= Zobrist.getPieceKey(piece, square);
+            if (PAWN == getTypeOfPiece(piece))
+            {
+                pawnKey ^= Zobrist.getPieceKey(piece, square);
+            }
+            updateScores(getColorOfPiece(piece), getTypeOfPiece(piece), square, -1);
+            if (null != pieceListener)
+            {
+                pieceListener.pieceRemoved(piece, square);
+            }
+            version++;
+        }
+    }
+
+    public void clear()
+    {
+        Arrays.fill(pieces, 0L);
+        Arrays.fill(colors, 0L);
+        Arrays.fill(board, NO_PIECE);
+        enPassantSquare = NO_SQUARE;
+        castlingRights = 0;
+        resetZobristKey();
+        resetScores();
+        version++;
+        if (null != pieceListener)
+        {
+            pieceListener.positionReset();
+        }
+    }
+
+    private void updateScores(int color, int type, int square, int sign)
+    {
+        boolean pawnsGoUp = DIRECTION_UP == pawnDirections[color];
+        midgameScores[color] += sign * PieceSquareTables.getMidgameValue(type, square, pawnsGoUp);
+        endgameScores[color] += sign * PieceSquareTables.getEndgameValue(type, square, pawnsGoUp);
+        phase += sign * PieceSquareTables.getPhaseWeight(type);
+    }
+
+    /**
+     * Computes piece-square scores and phase from scratch,
+     * needed when pawn direction of a side changes.
+     */
+    private void resetScores()
+    {
+        Arrays.fill(midgameScores, 0);
+        Arrays.fill(endgameScores, 0);
+        phase = 0;
+        for (int square = 0; square < Bitboards.NUMBER_OF_SQUARES; square++)
+        {
+            if (NO_PIECE != board[square])
+            {
+                updateScores(getColorOfPiece(board[square]), getTypeOfPiece(board[square]), square, 1);
+            }
+        }
+    }
+
+    /**
+     * @param color color of side
+     * @return middlegame material and piece-square score of side
+     */
+    public int getMidgameScore(int color)
+    {
+        return midgameScores[color];
+    }
+
+    /**
+     * @param color color of side
+     * @return endgame material and piece-square score of side
+     */
+    public int getEndgameScore(int color)
+    {
+        return endgameScores[color];
+    }
+
+    /**
+     * @return game phase, from 0 (only kings and pawns) to PieceSquareTables.MAX_PHASE
+     * (all pieces), can be greater after promotions
+     */
+    public int getPhase()
+    {
+        return phase;
+    }
+
+    /**
+     * @param square square index
+     * @return piece index on square or NO_PIECE
+     */
+    public int getPiece(int square)
+    {
+        return board[square];
+    }
+
+    public long getPieces(int color, int type)
+    {
+        return pieces[getPieceIndex(color, type)];
+    }
+
+    public long getPieces(int color)
+    {
+        return colors[color];
+    }
+
+    public long getOccupancy()
+    {
+        return colors[WHITE] | colors[BLACK];
+    }
+
+    public int getKingSquare(int color)
+    {
+        long king = pieces[getPieceIndex(color, KING)];
+        return 0L == king ? NO_SQUARE : Bitboards.firstSquare(king);
+    }
+
+    /**
+     * Method returns squares to which piece standing on given square
+     * can legally move. Rules are the same as in piece behaviors.
+     * @param square square index
+     * @return bitboard of destination squares
+     */
+    public long getLegalMoves(int square)
+    {
+        return legalMoveGenerator.getLegalMoves(square);
+    }
+
+    public LegalMoveGenerator getLegalMoveGenerator()
+    {
+        return legalMoveGenerator;
+    }
+
+    /**
+     * Version is changed every time pieces placement, side to move, castling rights
+     * or en passant square are changed,
+     * so data computed for position can be cached.
+     * @return the version
+     */
+    public long getVersion()
+    {
+        return version;
+    }
+
+    /**
+     * Checks if square is attacked by pieces of given color.
+     * @param square square to test
+     * @param color color of attacking side
+     * @param occupancy occupied squares to use for sliding pieces
+     * @param ignored squares with attackers which should be skipped (e.g. captured ones)
+     * @return true if at least one piece attacks the square
+     */
+    public boolean isAttacked(int square, int color, long occupancy, long ignored)
+    {
+        long attackers = colors[color] & ~ignored;
+        if (0L != (Bitboards.getPawnAttacks(square, -pawnDirections[color]) & attackers & getPieces(color, PAWN)))
+        {
+            return true;
+        }
+        if (0L != (Bitboards.getKnightAttacks(square) & attackers & getPieces(color, KNIGHT)))
+        {
+            return true;
+        }
+        if (0L != (Bitboards.getKingAttacks(square) & attackers & getPieces(color, KING)))
+        {
+            return true;
+        }
+        long queens = getPieces(color, QUEEN);
+        if (0L != (Bitboards.getRookAttacks(square, occupancy) & attackers & (getPieces(color, ROOK) | queens)))
+        {
+            return true;
+        }
+        return 0L != (Bitboards.getBishopAttacks(square, occupancy) & attackers & (getPieces(color, BISHOP) | queens));
+    }
+
+    /**
+     * Method returns all squares attacked by pieces of given color.
+     * @param color color of attacking side
+     * @param occupancy occupied squares to use for sliding pieces
+     * @return bitboard of attacked squares
+     */
+    public long getAttacks(int color, long occupancy)
+    {
+        long result = Bitboards.getPawnAttacks(getPieces(color, PAWN), pawnDirections[color])
+                | Bitboards.getKnightAttacks(getPieces(color, KNIGHT))
+                | Bitboards.getKingAttacks(getPieces(color, KING));
+        long queens = getPieces(color, QUEEN);
+        long sliders = getPieces(color, ROOK) | queens;
+        while (0L != sliders)
+        {
+            int square = Bitboards.firstSquare(sliders);
+            sliders &= sliders - 1;
+            result |= Bitboards.getRookAttacks(square, occupancy);
+        }
+        sliders = getPieces(color, BISHOP) | queens;
+        while (0L != sliders)
+        {
+            int square = Bitboards.firstSquare(sliders);
+            sliders &= sliders - 1;
+            result |= Bitboards.getBishopAttacks(square, occupancy);
+        }
+        return result;
+    }
+
+    /**
+     * Method returns pieces of given color attacking square.
+     * @param square square to test
+     * @param color color of attacking side
+     * @param occupancy occupied squares to use for sliding pieces
+     * @return bitboard with attacking pieces
+     */
+    public long getAttackers(int square, int color, long occupancy)
+    {
+        long queens = getPieces(color, QUEEN);
+        return (Bitboards.getPawnAttacks(square, -pawnDirections[color]) & getPieces(color, PAWN))
+                | (Bitboards.getKnightAttacks(square) & getPieces(color, KNIGHT))
+                | (Bitboards.getKingAttacks(square) & getPieces(color, KING))
+                | (Bitboards.getRookAttacks(square, occupancy) & (getPieces(color, ROOK) | queens))
+                | (Bitboards.getBishopAttacks(square, occupancy) & (getPieces(color, BISHOP) | queens));
+    }
+
+    /**
+     * Behaviors treat empty squares in front of pawns and squares where
+     * unmoved king could castle as squares in range of those pieces,
+     * so opponent king is not allowed to step on them.
+     * @param color color of pawns and king
+     * @return bitboard of such squares
+     */
+    public long getGuardedEmptySquares(int color)
+    {
+        long occupancy = getOccupancy();
+        long empty = ~occupancy;
+        long pawns = getPieces(color, PAWN);
+        long result;
+        if (DIRECTION_BOTTOM == pawnDirections[color])
+        {
+            long single = (pawns << 8) & empty;
+            result = single | (((single & RANK_AFTER_BOTTOM_START) << 8) & empty);
+        }
+        else
+        {
+            long single = (pawns >>> 8) & empty;
+            result = single | (((single & RANK_AFTER_UP_START) >>> 8) & empty);
+        }
+        int king = getKingSquare(color);
+        if (NO_SQUARE != king)
+        {
+            if (isCastlingPossible(king, color, SHORT_CASTLING, occupancy))
+            {
+                result |= Bitboards.bit(king + 2) & empty;
+            }
+            if (isCastlingPossible(king, color, LONG_CASTLING, occupancy))
+            {
+                result |= Bitboards.bit(king - 2) & empty;
+            }
+        }
+        return result;
+    }
+
+    boolean isCastlingPossible(int king, int color, int side, long occupancy)
+    {
+        if (0 == (castlingRights & getCastlingFlag(color, side)))
+        {
+            return false;
+        }
+        int kingX = Bitboards.getX(king);
+        int y = Bitboards.getY(king);
+        int fromX = SHORT_CASTLING == side ? kingX + 1 : 1;
+        int toX = SHORT_CASTLING == side ? Chessboard.LAST_SQUARE - 1 : kingX - 1;
+        if (fromX > toX || SHORT_CASTLING == side && kingX + 2 > toX || LONG_CASTLING == side && kingX - 2 < fromX)
+        {
+            return false;
+        }
+        for (int x = fromX; x <= toX; x++)
+        {
+            if (0L != (occupancy & Bitboards.bit(Bitboards.getSquare(x, y))))
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Moves of piece without checking king safety.
+     */
+    long getPseudoLegalMoves(int square, int color, int type, long occupancy)
+    {
+        switch (type)
+        {
+            case PAWN:
+                return getPawnMoves(square, color, occupancy);
+            case KNIGHT:
+                return Bitboards.getKnightAttacks(square);
+            case BISHOP:
+                return Bitboards.getBishopAttacks(square, occupancy);
+            case ROOK:
+                return Bitboards.getRookAttacks(square, occupancy);
+            case QUEEN:
+                return Bitboards.getRookAttacks(square, occupancy) | Bitboards.getBishopAttacks(square, occupancy);
+            case KING:
+                return getKingMoves(square, color, occupancy);
+            default:
+                return 0L;
+        }
+    }
+
+    private long getKingMoves(int square, int color, long occupancy)
+    {
+        long result = Bitboards.getKingAttacks(square);
+        if (isCastlingPossible(square, color, SHORT_CASTLING, occupancy))
+        {
+            result |= Bitboards.bit(square + 2);
+        }
+        if (isCastlingPossible(square, color, LONG_CASTLING, occupancy))
+        {
+            result |= Bitboards.bit(square - 2);
+        }
+        return result;
+    }
+
+    private long getPawnMoves(int square, int color, long occupancy)
+    {
+        int directionY = pawnDirections[color];
+        int x = Bitboards.getX(square);
+        int y = Bitboards.getY(square);
+        int nextY = y + directionY;
+        if (Bitboards.isOut(x, nextY))
+        {
+            return 0L;
+        }
+        long result = 0L;
+        long enemies = colors[1 - color];
+        long forward = Bitboards.bit(Bitboards.getSquare(x, nextY));
+        if (0L == (occupancy & forward))
+        {
+            result |= forward;
+            if (y == getPawnStartRow(directionY))
+            {
+                long twoSquares = Bitboards.bit(Bitboards.getSquare(x, nextY + directionY));
+                if (0L == (occupancy & twoSquares))
+                {
+                    result |= twoSquares;
+                }
+            }
+        }
+        for (int sideX = x - 1; sideX <= x + 1; sideX += 2)
+        {
+            if (Bitboards.isOut(sideX, y))
+            {
+                continue;
+            }
+            long capture = Bitboards.bit(Bitboards.getSquare(sideX, nextY));
+            if (0L != (enemies & capture))
+            {
+                result |= capture;
+            }
+            int side = Bitboards.getSquare(sideX, y);
+            if (side == enPassantSquare && 0L != (enemies & Bitboards.bit(side)))
+            {
+                result |= capture;
+            }
+        }
+        return result;
+    }
+
+    private static int getPawnStartRow(int directionY)
+    {
+        return directionY > 0 ? Chessboard.FIRST_SQUARE + 1 : Chessboard.LAST_SQUARE - 1;
+    }
+
+    /**
+     * @return the sideToMove
+     */
+    public int getSideToMove()
+    {
+        return sideToMove;
+    }
+
+    /**
+     * @param sideToMove the sideToMove to set
+     */
+    public void setSideToMove(int sideToMove)
+    {
+        if (sideToMove != this.sideToMove)
+        {
+            this.sideToMove = sideToMove;
+            zobristKey ^= Zobrist.getSideKey();
+            version++;
+        }
+    }
+
+    /**
+     * @return the castlingRights
+     */
+    public int getCastlingRights()
+    {
+        return castlingRights;
+    }
+
+    /**
+     * @param castlingRights the castlingRights to set
+     */
+    public void setCastlingRights(int castlingRights)
+    {
+        if (castlingRights != this.castlingRights)
+        {
+            zobristKey ^= Zobrist.getCastlingKey(this.castlingRights) ^ Zobrist.getCastlingKey(castlingRights);
+            this.castlingRights = castlingRights;
+            version++;
+        }
+    }
+
+    /**
+     * @return the enPassantSquare
+     */
+    public int getEnPassantSquare()
+    {
+        return enPassantSquare;
+    }
+
+    /**
+     * @param color color of side to move
+     * @return true if pawn of given color stands next to pawn which moved
+     * two squares in last move, so it can be captured en passant
+     */
+    public boolean hasEnPassantCapture(int color)
+    {
+        if (NO_SQUARE == enPassantSquare)
+        {
+            return false;
+        }
+        long row = 0xFFL << Bitboards.getSquare(0, Bitboards.getY(enPassantSquare));
+        return 0L != (Bitboards.getKingAttacks(enPassantSquare) & row & getPieces(color, PAWN));
+    }
+
+    /**
+     * @param enPassantSquare square of pawn which moved two squares in last move
+     */
+    public void setEnPassantSquare(int enPassantSquare)
+    {
+        if (enPassantSquare != this.enPassantSquare)
+        {
+            zobristKey ^= getEnPassantKey(this.enPassantSquare) ^ getEnPassantKey(enPassantSquare);
+            this.enPassantSquare = enPassantSquare;
+            version++;
+        }
+    }
+
+    /**
+     * @return Zobrist key of position
+     */
+    public long getZobristKey()
+    {
+        return zobristKey;
+    }
+
+    /**
+     * Method computes Zobrist key from scratch.
+     * @return key of current position
+     */
+    public long computeZobristKey()
+    {
+        long key = 0L;
+        for (int square = 0; square < Bitboards.NUMBER_OF_SQUARES; square++)
+        {
+            if (NO_PIECE != board[square])
+            {
+                key ^= Zobrist.getPieceKey(board[square], square);
+            }
+        }
+        if (BLACK == sideToMove)
+        {
+            key ^= Zobrist.getSideKey();
+        }
+        return key ^ Zobrist.getCastlingKey(castlingRights) ^ getEnPassantKey(enPassantSquare);
+    }
+
+    /**
+     * Replaces incrementally updated key with key computed from scratch.
+     */
+    public void resetZobristKey()
+    {
+        zobristKey = computeZobristKey();
+        pawnKey = computePawnKey();
+    }
+
+    /**
+     * @return Zobrist key of pawns of both colors, it changes only
+     * with pawn moves, captures of pawns and promotions
+     */
+    public long getPawnKey()
+    {
+        return pawnKey;
+    }
+
+    /**
+     * Method computes pawn key from scratch.
+     * @return key of pawns of current position
+     */
+    public long computePawnKey()
+    {
+        long key = 0L;
+        for (int color = WHITE; color <= BLACK; color++)
+        {
+            int piece = getPieceIndex(color, PAWN);
+            for (long pawns = pieces[piece]; 0L != pawns; pawns &= pawns - 1)
+            {
+                key ^= Zobrist.getPieceKey(piece, Bitboards.firstSquare(pawns));
+            }
+        }
+        return key;
+    }
+
+    private static long getEnPassantKey(int square)
+    {
+        return NO_SQUARE == square ? 0L : Zobrist.getEnPassantKey(Bitboards.getX(square));
+    }
+
+    public int getPawnDirection(int color)
+    {
+        return pawnDirections[color];
+    }
+
+    /**
+     * @param color color of pawns
+     * @param goDown true if pawns are going to higher Y coordinate
+     */
+    public void setPawnDirection(int color, boolean goDown)
+    {
+        int direction = goDown ? DIRECTION_BOTTOM : DIRECTION_UP;
+        if (direction != pawnDirections[color])
+        {
+            pawnDirections[color] = direction;
+            resetScores();
+            version++;
+            if (null != pieceListener)
+            {
+                pieceListener.positionReset();
+            }
+        }
+    }
+
+    public PieceListener getPieceListener()
+    {
+        return pieceListener;
+    }
+
+    /**
+     * @param pieceListener listener of piece changes
+     * @throws IllegalStateException if position has already other listener
+     */
+    public void setPieceListener(PieceListener pieceListener)
+    {
+        if (null != this.pieceListener && pieceListener != this.pieceListener)
+        {
+            throw new IllegalStateException("position has already other piece listener: " + this.pieceListener);
+        }
+        this.pieceListener = pieceListener;
+    }
+
+    /**
+     * @param pieceListener listener to remove, nothing happens if it is not listener of position
+     */
+    public void removePieceListener(PieceListener pieceListener)
+    {
+        if (pieceListener == this.pieceListener)
+        {
+            this.pieceListener = null;
+        }
+    }
+}
@@ -23,10 +23,14 @@ import pl.art.lach.mateusz.javaopenchess.core.pieces.implementation.Pawn;
 import pl.art.lach.mateusz.javaopenchess.core.pieces.implementation.Bishop;
 import pl.art.lach.mateusz.javaopenchess.core.pieces.Piece;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.Set;
 import pl.art.lach.mateusz.javaopenchess.core.moves.Castling;
 import pl.art.lach.mateusz.javaopenchess.core.moves.Move;
+import pl.art.lach.mateusz.javaopenchess.core.moves.MoveList;
 import pl.art.lach.mateusz.javaopenchess.core.moves.MovesHistory;
+import pl.art.lach.mateusz.javaopenchess.core.moves.PackedMove;
+import pl.art.lach.mateusz.javaopenchess.core.pieces.PieceFactory;
 import pl.art.lach.mateusz.javaopenchess.utils.Settings;
 import org.apache.log4j.*;
 import pl.art.lach.mateusz.javaopenchess.utils.GameTypes;
@@ -88,6 +92,35 @@ public class Chessboard
      */
     private int fullMoveCounterAdd = 0;
 
+    /**
+     * Color of player which should make next move.
+     */
+    private Colors sideToMove = Colors.WHITE;
+
+    /**
+     * Bitboard copy of pieces placement, kept in sync with squares.
+     */
+    private final BitboardPosition bitboardPosition = new BitboardPosition();
+
+    /**
+     * All legal moves of one side, generated once per position.
+     */
+    private final MoveList legalMoves = new MoveList();
+
+    /**
+     * Bitboard position version for which legalMoves were generated.
+     */
+    private long legalMovesVersion = -1L;
+
+    private int legalMovesColor = BitboardPosition.WHITE;
+
+    /**
+     * True if pieces or state were changed outside of makeMove() and
+     * unmakeMove(), so side to move, castling rights and en passant square
+     * of bitboard position have to be computed again.
+     */
+    private boolean positionStateChanged = true;
+
     /** 
      * Chessboard class constructor
      * @param settings reference to Settings class object for this chessboard
@@ -106,7 +139,7 @@ public class Chessboard
         {
             for (int y = 0; y < 8; y++)
             {
-                this.squares[i][y] = new Square(i, y, null);
+                this.squares[i][y] = new Square(this, i, y);
             }
         }
         this.movesObject = moves;
@@ -137,6 +170,7 @@ public class Chessboard
         this.setPawns4NewGame(1, player);
         this.setFigures4NewGame(7, player1);
         this.setPawns4NewGame(6, player1);
+        this.sideToMove = plWhite.getColor();
     }
 
     /**  
@@ -277,9 +311,8 @@ public class Chessboard
         Square tempBegin = new Square(begin);//4 moves history
         Square tempEnd = new Square(end);  //4 moves history
 
-        begin.getPiece().setSquare(end);//set square of piece to ending
-        end.piece = begin.piece;//for ending square set piece from beginin square
-        begin.piece = null;//make null piece for begining square
+        end.setPiece(begin.getPiece());//for ending square set piece from beginin square
+        begin.setPiece(null);//make null piece for begining square
 
         if (King.class == end.getPiece().getClass())
         {
@@ -308,11 +341,225 @@ public class Chessboard
             this.unselect();//unselect square
         }
         
+        sideToMove = end.getPiece().getPlayer().getColor().getOpposite();
+        updatePositionState();
         handleHalfMoveCounter(end, takenPiece);
         handleHistory(clearForwardHistory, tempBegin, tempEnd, castling, wasEnPassant, promotedPiece);
         
     }
 
+    /**
+     * Method makes packed move on chessboard without moves history,
+     * notation and checking game state. Only pieces, king references,
+     * two square moved pawn, castling flags, half move counter and side
+     * to move are changed, so move can be taken back by unmakeMove().
+     * @param move packed move, legal in current position
+     * @return saved state needed to unmake the move
+     */
+    public UndoState makeMove(int move)
+    {
+        return makeMove(move, new UndoState());
+    }
+
+    /**
+     * Same as makeMove(int) but fills given state object,
+     * so search can reuse one object per ply.
+     * @param move packed move, legal in current position
+     * @param undo object to fill
+     * @return the undo object
+     */
+    public UndoState makeMove(int move, UndoState undo)
+    {
+        Square begin = getSquare(PackedMove.getFrom(move));
+        Square end = getSquare(PackedMove.getTo(move));
+        Piece piece = begin.getPiece();
+        undo.movedPiece = piece;
+        undo.capturedSquare = end;
+        if (PackedMove.isEnPassant(move))
+        {
+            undo.capturedSquare = squares[end.getPozX()][begin.getPozY()];
+        }
+        undo.capturedPiece = undo.capturedSquare.getPiece();
+        undo.twoSquareMovedPawn = twoSquareMovedPawn;
+        undo.halfCounter = halfCounter;
+        undo.sideToMove = sideToMove;
+        undo.kingWhite = kingWhite;
+        undo.kingBlack = kingBlack;
+        undo.movedPieceWasMotioned = false;
+        savePositionState(undo);
+
+        if (null != undo.capturedPiece)
+        {
+            undo.capturedSquare.setPiece(null);
+            undo.capturedPiece.setSquare(null);
+        }
+        end.setPiece(piece);
+        begin.setPiece(null);
+        twoSquareMovedPawn = null;
+
+        if (piece instanceof King)
+        {
+            King king = (King) piece;
+            undo.movedPieceWasMotioned = king.getWasMotioned();
+            king.setWasMotioned(true);
+            Castling castling = PackedMove.getCastling(move);
+            if (Castling.NONE != castling)
+            {
+                Rook rook = (Rook) getCastlingRookSquare(end, castling).getPiece();
+                undo.rookWasMotioned = rook.getWasMotioned();
+                rook.setWasMotioned(true);
+                getCastlingRookTarget(end, castling).setPiece(rook);
+                getCastlingRookSquare(end, castling).setPiece(null);
+            }
+        }
+        else if (piece instanceof Rook)
+        {
+            undo.movedPieceWasMotioned = ((Rook) piece).getWasMotioned();
+            ((Rook) piece).setWasMotioned(true);
+        }
+        else if (piece instanceof Pawn)
+        {
+            if (PackedMove.isPawnTwoSquaresMove(move))
+            {
+                twoSquareMovedPawn = (Pawn) piece;
+            }
+            if (PackedMove.isPromotion(move))
+            {
+                Player player = piece.getPlayer();
+                end.setPiece(PieceFactory.getPiece(this, player.getColor(), PackedMove.getPromotionName(move), player));
+            }
+        }
+
+        if (piece instanceof Pawn || null != undo.capturedPiece)
+        {
+            halfCounter = 0;
+        }
+        else
+        {
+            halfCounter++;
+        }
+        sideToMove = piece.getPlayer().getColor().getOpposite();
+
+        if (piece instanceof King || piece instanceof Rook || undo.capturedPiece instanceof Rook)
+        {
+            bitboardPosition.setCastlingRights(getCastlingRights());
+        }
+        bitboardPosition.setSideToMove(BitboardPosition.getColor(sideToMove));
+        bitboardPosition.setEnPassantSquare(null == twoSquareMovedPawn ? BitboardPosition.NO_SQUARE : getBitboardIndex(end));
+        positionStateChanged = false;
+        return undo;
+    }
+
+    /**
+     * Method takes back move made by makeMove() and restores
+     * chessboard state saved in undo object.
+     * @param move packed move given to makeMove()
+     * @param undo state returned by makeMove()
+     */
+    public void unmakeMove(int move, UndoState undo)
+    {
+        Square begin = getSquare(PackedMove.getFrom(move));
+        Square end = getSquare(PackedMove.getTo(move));
+        Piece piece = undo.movedPiece;
+        if (piece instanceof King)
+        {
+            ((King) piece).setWasMotioned(undo.movedPieceWasMotioned);
+            Castling castling = PackedMove.getCastling(move);
+            if (Castling.NONE != castling)
+            {
+                Square rookTarget = getCastlingRookTarget(end, castling);
+                Rook rook = (Rook) rookTarget.getPiece();
+                rook.setWasMotioned(undo.rookWasMotioned);
+                getCastlingRookSquare(end, castling).setPiece(rook);
+                rookTarget.setPiece(null);
+            }
+        }
+        else if (piece instanceof Rook)
+        {
+            ((Rook) piece).setWasMotioned(undo.movedPieceWasMotioned);
+        }
+        if (PackedMove.isPromotion(move))
+        {
+            end.getPiece().setSquare(null);
+        }
+        end.setPiece(null);
+        begin.setPiece(piece);
+        if (null != undo.capturedPiece)
+        {
+            undo.capturedSquare.setPiece(undo.capturedPiece);
+        }
+        twoSquareMovedPawn = undo.twoSquareMovedPawn;
+        halfCounter = undo.halfCounter;
+        sideToMove = undo.sideToMove;
+        kingWhite = undo.kingWhite;
+        kingBlack = undo.kingBlack;
+        restorePositionState(undo);
+    }
+
+    /**
+     * Method passes the move to the opponent without moving any piece,
+     * used by null move pruning of search. En passant right is lost.
+     * @param undo object to fill
+     * @return the undo object
+     */
+    public UndoState makeNullMove(UndoState undo)
+    {
+        undo.twoSquareMovedPawn = twoSquareMovedPawn;
+        undo.halfCounter = halfCounter;
+        undo.sideToMove = sideToMove;
+        savePositionState(undo);
+        twoSquareMovedPawn = null;
+        halfCounter++;
+        sideToMove = sideToMove.getOpposite();
+        bitboardPosition.setSideToMove(BitboardPosition.getColor(sideToMove));
+        bitboardPosition.setEnPassantSquare(BitboardPosition.NO_SQUARE);
+        positionStateChanged = false;
+        return undo;
+    }
+
+    /**
+     * Method takes back null move made by makeNullMove().
+     * @param undo state returned by makeNullMove()
+     */
+    public void unmakeNullMove(UndoState undo)
+    {
+        twoSquareMovedPawn = undo.twoSquareMovedPawn;
+        halfCounter = undo.halfCounter;
+        sideToMove = undo.sideToMove;
+        restorePositionState(undo);
+    }
+
+    /**
+     * Saves castling rights and en passant square of bitboard position,
+     * computing them first if they are not up to date.
+     */
+    private void savePositionState(UndoState undo)
+    {
+        BitboardPosition position = getBitboardPosition();
+        undo.castlingRights = position.getCastlingRights();
+        undo.enPassantSquare = position.getEnPassantSquare();
+    }
+
+    private void restorePositionState(UndoState undo)
+    {
+        bitboardPosition.setSideToMove(BitboardPosition.getColor(sideToMove));
+        bitboardPosition.setCastlingRights(undo.castlingRights);
+        bitboardPosition.setEnPassantSquare(undo.enPassantSquare);
+        positionStateChanged = false;
+    }
+
+    private Square getCastlingRookSquare(Square kingTarget, Castling castling)
+    {
+        int x = Castling.SHORT_CASTLING == castling ? LAST_SQUARE : FIRST_SQUARE;
+        return squares[x][kingTarget.getPozY()];
+    }
+
+    private Square getCastlingRookTarget(Square kingTarget, Castling castling)
+    {
+        int x = Castling.SHORT_CASTLING == castling ? kingTarget.getPozX() - 1 : kingTarget.getPozX() + 1;
+        return squares[x][kingTarget.getPozY()];
+    }
+
     private void handleHalfMoveCounter(Square end, Piece takenPiece)
     {
         if (isHalfMove(end, takenPiece))
@@ -353,7 +600,7 @@ public class Chessboard
         {
             tempEnd.piece = getSquares()[end.getPozX()][begin.getPozY()].piece; //ugly hack - put taken pawn in en passant plasty do end square
             
-            squares[end.pozX][begin.pozY].piece = null;
+            squares[end.pozX][begin.pozY].setPiece(null);
             wasEnPassant = true;
         }
         if (begin.getPozY() - end.getPozY() == 2 || end.getPozY() - begin.getPozY() == 2) //moved two square
@@ -376,8 +623,7 @@ public class Chessboard
             {
                 piece.setChessboard(end.getPiece().getChessboard());
                 piece.setPlayer(end.getPiece().getPlayer());
-                piece.setSquare(end.getPiece().getSquare());
-                end.piece = piece;
+                end.setPiece(piece);
                 promotedPiece = end.piece;
             }
         }
@@ -438,9 +684,7 @@ public class Chessboard
                     Pawn pawn = (Pawn) this.getSquares()[to.getPozX()][to.getPozY()].piece;
                     pawn.setSquare(null);
 
-                    this.squares[to.pozX][to.pozY].piece = first.getPromotedPiece();
-                    Piece promoted = this.getSquares()[to.getPozX()][to.getPozY()].piece;
-                    promoted.setSquare(this.getSquares()[to.getPozX()][to.getPozY()]);
+                    this.squares[to.pozX][to.pozY].setPiece(first.getPromotedPiece());
                 }
                 return true;
             }
@@ -477,31 +721,28 @@ public class Chessboard
     {
         Piece promoted = this.getSquares()[end.getPozX()][end.getPozY()].piece;
         promoted.setSquare(null);
-        this.squares[end.pozX][end.pozY].piece = null;
+        this.squares[end.pozX][end.pozY].setPiece(null);
     }
 
     private void handleEnPessant(Move last, Square end, Square begin)
     {
         Pawn pawn = (Pawn) last.getTakenPiece();
-        this.squares[end.pozX][begin.pozY].piece = pawn;
-        pawn.setSquare(this.getSquares()[end.getPozX()][begin.getPozY()]);
+        this.squares[end.pozX][begin.pozY].setPiece(pawn);
     }
 
     private Piece handleLongCastling(Piece rook, Square end, Square begin)
     {
         rook = this.getSquares()[end.getPozX() + 1][end.getPozY()].piece;
-        this.squares[0][begin.pozY].piece = rook;
-        rook.setSquare(this.getSquares()[0][begin.getPozY()]);
-        this.squares[end.pozX + 1][end.pozY].piece = null;
+        this.squares[0][begin.pozY].setPiece(rook);
+        this.squares[end.pozX + 1][end.pozY].setPiece(null);
         return rook;
     }
 
     private Piece handleShortCastling(Piece rook, Square end, Square begin)
     {
         rook = this.getSquares()[end.getPozX() - 1][end.getPozY()].piece;
-        this.squares[7][begin.pozY].piece = rook;
-        rook.setSquare(this.getSquares()[7][begin.getPozY()]);
-        this.squares[end.pozX - 1][end.pozY].piece = null;
+        this.squares[7][begin.pozY].setPiece(rook);
+        this.squares[end.pozX - 1][end.pozY].setPiece(null);
         return rook;
     }
 
@@ -595,12 +836,14 @@ public class Chessboard
     public void setKingWhite(King kingWhite, Square sq)
     {
         this.kingWhite = kingWhite;
+        this.positionStateChanged = true;
         this.getSquare(sq.getPozX(), sq.getPozY()).setPiece(this.kingWhite);
     }
     
     public void setKingBlack(King kingBlack, Square sq)
     {
         this.kingBlack = kingBlack;
+        this.positionStateChanged = true;
         this.getSquare(sq.getPozX(), sq.getPozY()).setPiece(this.kingBlack);
     }
     /**
@@ -709,6 +952,7 @@ public class Chessboard
     public void setTwoSquareMovedPawn(Pawn twoSquareMovedPawn)
     {
         this.twoSquareMovedPawn = twoSquareMovedPawn;
+        this.positionStateChanged = true;
     }
 
     /**
@@ -727,6 +971,255 @@ public class Chessboard
         this.halfCounter = halfCounter;
     }
 
+    /**
+     * @return the sideToMove
+     */
+    public Colors getSideToMove()
+    {
+        return sideToMove;
+    }
+
+    /**
+     * @param sideToMove the sideToMove to set
+     */
+    public void setSideToMove(Colors sideToMove)
+    {
+        this.sideToMove = sideToMove;
+        this.positionStateChanged = true;
+    }
+
+    /**
+     * Method called by squares of this chessboard after piece change,
+     * keeps bitboard position in sync with squares.
+     * @param sq square which has been changed
+     */
+    void pieceChanged(Square sq)
+    {
+        int index = getBitboardIndex(sq);
+        Piece piece = sq.getPiece();
+        positionStateChanged = true;
+        if (null == piece || null == piece.getPlayer())
+        {
+            bitboardPosition.removePiece(index);
+            return;
+        }
+        int color = BitboardPosition.getColor(piece);
+        int type = BitboardPosition.getType(piece);
+        bitboardPosition.putPiece(index, color, type);
+        if (BitboardPosition.PAWN == type)
+        {
+            bitboardPosition.setPawnDirection(color, piece.getPlayer().isGoDown());
+        }
+    }
+
+    /**
+     * Method creates independent chessboard with the same position:
+     * pieces (sharing players with this chessboard), castling flags,
+     * two square moved pawn, counters and side to move. Moves history
+     * is not copied, so copy is meant for searching in other thread.
+     * @return copy of position
+     */
+    public Chessboard createCopy()
+    {
+        Chessboard copy = new Chessboard(settings, null);
+        for (int index = 0; index < NUMBER_OF_SQUARES * NUMBER_OF_SQUARES; index++)
+        {
+            Piece piece = getSquare(index).getPiece();
+            if (null == piece)
+            {
+                continue;
+            }
+            Player player = piece.getPlayer();
+            Square square = copy.getSquare(index);
+            if (piece instanceof King)
+            {
+                King king = new King(copy, player);
+                king.setWasMotioned(((King) piece).getWasMotioned());
+                if (piece == kingWhite)
+                {
+                    copy.setKingWhite(king, square);
+                }
+                else
+                {
+                    copy.setKingBlack(king, square);
+                }
+                continue;
+            }
+            Piece copiedPiece = PieceFactory.getPiece(copy, player.getColor(), piece.getName(), player);
+            if (piece instanceof Rook)
+            {
+                ((Rook) copiedPiece).setWasMotioned(((Rook) piece).getWasMotioned());
+            }
+            square.setPiece(copiedPiece);
+            if (piece == twoSquareMovedPawn)
+            {
+                copy.twoSquareMovedPawn = (Pawn) copiedPiece;
+            }
+        }
+        copy.halfCounter = halfCounter;
+        copy.fullMoveCounterAdd = fullMoveCounterAdd;
+        copy.sideToMove = sideToMove;
+        copy.resetZobristKey();
+        return copy;
+    }
+
+    /**
+     * Method returns bitboard representation of this chessboard
+     * with side to move, castling and en passant state updated.
+     * The state is kept by makeMove(), unmakeMove() and move(),
+     * it is computed here only after pieces or state were set directly.
+     * @return bitboard position
+     */
+    public BitboardPosition getBitboardPosition()
+    {
+        if (positionStateChanged)
+        {
+            updatePositionState();
+        }
+        return bitboardPosition;
+    }
+
+    /**
+     * Method computes side to move, castling rights and en passant square
+     * of bitboard position from pieces of this chessboard.
+     */
+    private void updatePositionState()
+    {
+        bitboardPosition.setSideToMove(BitboardPosition.getColor(sideToMove));
+        bitboardPosition.setCastlingRights(getCastlingRights());
+        Pawn pawn = getTwoSquareMovedPawn();
+        if (null != pawn && null != pawn.getSquare() && pawn == pawn.getSquare().getPiece())
+        {
+            bitboardPosition.setEnPassantSquare(getBitboardIndex(pawn.getSquare()));
+        }
+        else
+        {
+            bitboardPosition.setEnPassantSquare(BitboardPosition.NO_SQUARE);
+        }
+        positionStateChanged = false;
+    }
+
+    /**
+     * @return Zobrist key of current position
+     */
+    public long getZobristKey()
+    {
+        return getBitboardPosition().getZobristKey();
+    }
+
+    /**
+     * Method computes Zobrist key again from all pieces and state,
+     * used after position is set up from outside (e.g. FEN import).
+     */
+    public void resetZobristKey()
+    {
+        updatePositionState();
+        bitboardPosition.resetZobristKey();
+    }
+
+    /**
+     * Method returns legal moves of side to move.
+     * @return cached list of packed moves, must not be modified
+     */
+    public MoveList getLegalMoves()
+    {
+        return getLegalMoves(sideToMove);
+    }
+
+    /**
+     * Method returns all legal moves of given side. Moves are generated
+     * once per position and kept until pieces or state of the position
+     * change, so callers asking about the same position share them.
+     * @param color color of side
+     * @return cached list of packed moves, must not be modified
+     */
+    public MoveList getLegalMoves(Colors color)
+    {
+        BitboardPosition position = getBitboardPosition();
+        int side = BitboardPosition.getColor(color);
+        if (legalMovesVersion != position.getVersion() || legalMovesColor != side)
+        {
+            legalMoves.clear();
+            position.getLegalMoveGenerator().generateLegalMoves(side, legalMoves);
+            legalMovesVersion = position.getVersion();
+            legalMovesColor = side;
+        }
+        return legalMoves;
+    }
+
+    /**
+     * Method returns legal moves of piece standing on given square.
+     * @param sq square with piece
+     * @return set of squares where piece can move
+     */
+    public Set<Square> getLegalMoves(Square sq)
+    {
+        Set<Square> result = new HashSet<>();
+        if (null == sq.getPiece() || null == sq.getPiece().getPlayer())
+        {
+            return result;
+        }
+        int from = getBitboardIndex(sq);
+        MoveList moves = getLegalMoves(sq.getPiece().getPlayer().getColor());
+        for (int i = 0; i < moves.size(); i++)
+        {
+            int move = moves.get(i);
+            if (PackedMove.getFrom(move) == from)
+            {
+                result.add(getSquare(PackedMove.getTo(move)));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @param color color of side
+     * @return true if side has at least one legal move
+     */
+    public boolean hasLegalMoves(Colors color)
+    {
+        return !getLegalMoves(color).isEmpty();
+    }
+
+    public static int getBitboardIndex(Square sq)
+    {
+        return sq.getPozY() * NUMBER_OF_SQUARES + sq.getPozX();
+    }
+
+    public Square getSquare(int bitboardIndex)
+    {
+        return squares[bitboardIndex % NUMBER_OF_SQUARES][bitboardIndex / NUMBER_OF_SQUARES];
+    }
+
+    private int getCastlingRights()
+    {
+        return getCastlingRights(kingWhite, BitboardPosition.WHITE) | getCastlingRights(kingBlack, BitboardPosition.BLACK);
+    }
+
+    private int getCastlingRights(King king, int color)
+    {
+        int result = 0;
+        if (null == king || null == king.getSquare() || king.getWasMotioned())
+        {
+            return result;
+        }
+        int y = king.getSquare().getPozY();
+        if (isUnmovedRook(getSquare(LAST_SQUARE, y).getPiece()))
+        {
+            result |= BitboardPosition.getCastlingFlag(color, BitboardPosition.SHORT_CASTLING);
+        }
+        if (isUnmovedRook(getSquare(FIRST_SQUARE, y).getPiece()))
+        {
+            result |= BitboardPosition.getCastlingFlag(color, BitboardPosition.LONG_CASTLING);
+        }
+        return result;
+    }
+
+    private static boolean isUnmovedRook(Piece piece)
+    {
+        return piece instanceof Rook && !((Rook) piece).getWasMotioned();
+    }
+
     /**
      * @return the fullMoveCounterAdd
      */
@@ -49,7 +49,7 @@ public class Clock
     /** Method to init clock with given value
      *  @param time tell method with how much time init clock
      */
-    public final void init(int time)
+    public final synchronized void init(int time)
     {
         this.timeLeft = time;
     }
@@ -57,7 +57,7 @@ public class Clock
     /** Method to decrement value of left time
      *  @return bool true if time_left > 0, else returns false
      */
-    public boolean decrement()
+    public synchronized boolean decrement()
     {
         if (this.timeLeft > 0)
         {
@@ -67,6 +67,14 @@ public class Clock
         return false;
     }
 
+    /** Method to add time to clock, e.g. increment after move
+     *  @param time seconds to add
+     */
+    public synchronized void addTime(int time)
+    {
+        this.timeLeft = this.timeLeft + time;
+    }
+
     public void pause()
     {
     }
@@ -74,7 +82,7 @@ public class Clock
     /** Method to get left time in seconds
      *  @return Player int integer of seconds
      */
-    public int getLeftTime()
+    public synchronized int getLeftTime()
     {
         return this.timeLeft;
     }
@@ -48,4 +48,9 @@ public enum Colors
         return String.valueOf(symbol);
     }
     
+    public Colors getOpposite()
+    {
+        return WHITE == this ? BLACK : WHITE;
+    }
+    
 }
@@ -98,14 +98,29 @@ public class Game
     
     private boolean isEndOfGame = false;
 
+    /**
+     * Computer player uses level of AI configured in settings.
+     * @param firstMove true if computer plays first
+     */
     public Game(Boolean firstMove)
     {
+        this.settings = SettingsFactory.getInstance();
         init(firstMove);
     }
 
-    protected final void init(boolean firstMove)
+    /**
+     * @param firstMove true if computer plays first
+     * @param computerLevel level of AI used by computer player, overrides settings
+     */
+    public Game(Boolean firstMove, int computerLevel)
     {
         this.settings = SettingsFactory.getInstance();
+        settings.setComputerLevel(computerLevel);
+        init(firstMove);
+    }
+
+    protected final void init(boolean firstMove)
+    {
         settings.setGameType(GameTypes.LOCAL);
         if(firstMove == true){
             Player user = new HumanPlayer("Player", Colors.WHITE);
@@ -122,7 +137,7 @@ public class Game
 
         this.moves = new MovesHistory(this);
         this.chessboard = new Chessboard(this.getSettings(), this.moves);
-        this.ai = AIFactory.getAI(1);
+        this.ai = AIFactory.getAI(settings.getComputerLevel(), settings.getBookFile());
         
         this.setBlockedChessboard(false);
     }
@@ -131,7 +146,7 @@ public class Game
 
 
     /** 
-     * Method to Start new game
+     * Method to Start new game, game clock is started when time limit is set
      */
     public void newGame()
     {
@@ -141,6 +156,11 @@ public class Game
         );
 
         activePlayer = getSettings().getPlayerWhite();
+        if (null != gameClock)
+        {
+            gameClock.stop();
+        }
+        gameClock = getSettings().isTimeLimitSet() ? new GameClock(this) : null;
         if (activePlayer.getPlayerType() != PlayerType.LOCAL_USER)
         {
             this.setBlockedChessboard(true);
@@ -158,6 +178,14 @@ public class Game
     {
         this.setBlockedChessboard(true);
         this.isEndOfGame = true;
+        if (null != gameClock)
+        {
+            gameClock.stop();
+        }
+        if (null != ai)
+        {
+            ai.stopThinking();
+        }
         LOG.debug(message);
     }
 
@@ -174,6 +202,11 @@ public class Game
         {
             activePlayer = getSettings().getPlayerWhite();
         }
+        chessboard.setSideToMove(activePlayer.getColor());
+        if (null != gameClock)
+        {
+            gameClock.switchClocks();
+        }
     }
 
     /**
@@ -188,6 +221,10 @@ public class Game
     public void setActivePlayer(Player player)
     {
         this.activePlayer = player;
+        if (null != player)
+        {
+            chessboard.setSideToMove(player.getColor());
+        }
     }
 
     /**
@@ -463,6 +500,22 @@ public class Game
         ) * Chessboard.NUMBER_OF_SQUARES;
     }
 
+    /**
+     * @return the gameClock, null if game is played without clock
+     */
+    public GameClock getGameClock()
+    {
+        return gameClock;
+    }
+
+    /**
+     * @param gameClock the gameClock to set
+     */
+    public void setGameClock(GameClock gameClock)
+    {
+        this.gameClock = gameClock;
+    }
+
     /**
      * @return the ai
      */
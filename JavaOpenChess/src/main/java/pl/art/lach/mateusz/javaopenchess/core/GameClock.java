@@ -34,7 +34,9 @@ public class GameClock extends JPanel implements Runnable
     
     private Clock clockBlackPlayer;
     
-    private Clock activeClock;
+    private volatile Clock activeClock;
+
+    private volatile boolean running = true;
     
     private Settings settings;
     
@@ -61,9 +63,10 @@ public class GameClock extends JPanel implements Runnable
         int time = this.settings.getTimeForGame();
 
         this.setTimes(time, time);
-        this.setPlayers(this.settings.getPlayerBlack(), this.settings.getPlayerWhite());
+        this.setPlayers(this.settings.getPlayerWhite(), this.settings.getPlayerBlack());
 
         this.thread = new Thread(this);
+        this.thread.setDaemon(true);
         if (this.settings.isTimeLimitSet())
         {
             thread.start();
@@ -79,21 +82,12 @@ public class GameClock extends JPanel implements Runnable
         this.thread.start();
     }
 
-    /** Method to stop game clock
+    /** Method to stop game clock, its thread ends within a second
      */
     public void stop()
     {
         this.activeClock = null;
-
-        try
-        {
-            //block this thread
-            this.thread.wait();
-        }
-        catch (InterruptedException | IllegalMonitorStateException exc)
-        {
-            LOG.error("Error blocking thread: ", exc);
-        }
+        this.running = false;
     }
 
     /** Method of drawing graphical background of clock
@@ -175,6 +169,10 @@ public class GameClock extends JPanel implements Runnable
     {
         /*in documentation this method is called 'switch', but it's restricted name
         to switch block (in pascal called "case") - this've to be repaired in documentation by Wąsu:P*/
+        if (null != this.activeClock)
+        {
+            this.activeClock.addTime(this.settings.getTimeIncrement());
+        }
         if (this.activeClock == this.clockWhitePlayer)
         {
             this.activeClock = this.clockBlackPlayer;
@@ -185,6 +183,19 @@ public class GameClock extends JPanel implements Runnable
         }
     }
 
+    /** Method to get time left on clock of given player
+     * @param player owner of clock
+     * @return seconds left
+     */
+    public int getLeftTime(Player player)
+    {
+        if (this.clockWhitePlayer.getPlayer() == player)
+        {
+            return this.clockWhitePlayer.getLeftTime();
+        }
+        return this.clockBlackPlayer.getLeftTime();
+    }
+
     /** Method with is setting the players clocks time
      * @param t1 Capt the player time
      * @param t2 Capt the player time
@@ -197,22 +208,16 @@ public class GameClock extends JPanel implements Runnable
         this.clockBlackPlayer.init(t2);
     }
 
-    /** Method with is setting the players clocks
-     * @param p1 Capt player information
-     * @param p2 Capt player information
+    /** Method with is setting the players clocks, white clock runs first,
+     * so it belongs to player who starts the game (settings' white player),
+     * even if colors of players are swapped
+     * @param white Capt player information
+     * @param black Capt player information
      */
-    private void setPlayers(Player p1, Player p2)
+    private void setPlayers(Player white, Player black)
     {
-        if (p1.getColor() == Colors.WHITE)
-        {
-            this.clockWhitePlayer.setPlayer(p1);
-            this.clockBlackPlayer.setPlayer(p2);
-        }
-        else
-        {
-            this.clockWhitePlayer.setPlayer(p2);
-            this.clockBlackPlayer.setPlayer(p1);
-        }
+        this.clockWhitePlayer.setPlayer(white);
+        this.clockBlackPlayer.setPlayer(black);
     }
 
     /** 
@@ -221,27 +226,28 @@ public class GameClock extends JPanel implements Runnable
     @Override
     public void run()
     {
-        while (true)
+        while (this.running)
         {
-            if (this.activeClock != null)
+            Clock clock = this.activeClock;
+            if (clock != null)
             {
-                if (this.activeClock.decrement())
+                if (clock.decrement())
                 {
                     repaint();
-                    try
-                    {
-                        thread.sleep(1000);
-                    }
-                    catch (InterruptedException e)
-                    {
-                        LOG.error("Some error in gameClock thread: " + e);
-                    }
                 }
-                if (this.activeClock != null && this.activeClock.getLeftTime() == 0)
+                if (clock == this.activeClock && clock.getLeftTime() == 0)
                 {
                     this.timeOver();
                 }
             }
+            try
+            {
+                Thread.sleep(1000);
+            }
+            catch (InterruptedException e)
+            {
+                LOG.error("Some error in gameClock thread: " + e);
+            }
         }
     }
 
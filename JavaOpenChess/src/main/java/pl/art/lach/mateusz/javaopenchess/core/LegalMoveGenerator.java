@@ -0,0 +1,286 @@
+/*
+#    This program is free software: you can redistribute it and/or modify
+#    it under the terms of the GNU General Public License as published by
+#    the Free Software Foundation, either version 3 of the License, or
+#    (at your option) any later version.
+#
+#    This program is distributed in the hope that it will be useful,
+#    but WITHOUT ANY WARRANTY; without even the implied warranty of
+#    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+#    GNU General Public License for more details.
+#
+#    You should have received a copy of the GNU General Public License
+#    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package pl.art.lach.mateusz.javaopenchess.core;
+
+import pl.art.lach.mateusz.javaopenchess.core.bitboards.Bitboards;
+import pl.art.lach.mateusz.javaopenchess.core.moves.MoveList;
+import pl.art.lach.mateusz.javaopenchess.core.moves.PackedMove;
+
+/**
+ * Class to generate legal moves without trying them on chessboard.
+ * Checking pieces, pinned pieces and squares dangerous for king
+ * are computed once per position and side, then moves of pinned pieces
+ * are limited to their pin ray and in check only moves blocking
+ * or capturing checking piece (or king moves) are returned.
+ */
+public class LegalMoveGenerator
+{
+    private static final long ALL_SQUARES = -1L;
+
+    private static final long PROMOTION_ROWS = 0xFFL | (0xFFL << 56);
+
+    private static final int[] PROMOTION_TYPES = {
+        BitboardPosition.QUEEN, BitboardPosition.ROOK, BitboardPosition.BISHOP, BitboardPosition.KNIGHT
+    };
+
+    private final BitboardPosition position;
+
+    /**
+     * position version for which data of each color has been computed
+     */
+    private final long[] versions = {-1L, -1L};
+
+    private final long[] checkers = new long[2];
+
+    /**
+     * squares to which non king pieces can move: all squares if king
+     * is not checked, checking piece and squares between it and king
+     * in case of single check, none in case of double check
+     */
+    private final long[] checkMasks = new long[2];
+
+    private final long[] pinned = new long[2];
+
+    private final long[][] pinRays = new long[2][Bitboards.NUMBER_OF_SQUARES];
+
+    /**
+     * squares attacked by opponent (with king removed from the board)
+     * or treated as in range of opponent pieces
+     */
+    private final long[] kingDangers = new long[2];
+
+    LegalMoveGenerator(BitboardPosition position)
+    {
+        this.position = position;
+    }
+
+    /**
+     * Method returns squares to which piece standing on given square
+     * can legally move.
+     * @param square square index
+     * @return bitboard of destination squares
+     */
+    public long getLegalMoves(int square)
+    {
+        int piece = position.getPiece(square);
+        if (BitboardPosition.NO_PIECE == piece)
+        {
+            return 0L;
+        }
+        int color = BitboardPosition.getColorOfPiece(piece);
+        int type = BitboardPosition.getTypeOfPiece(piece);
+        update(color);
+        long targets = position.getPseudoLegalMoves(square, color, type, position.getOccupancy())
+                & ~position.getPieces(color)
+                & ~position.getPieces(1 - color, BitboardPosition.KING);
+        if (BitboardPosition.KING == type)
+        {
+            return targets & ~kingDangers[color];
+        }
+        targets &= checkMasks[color];
+        if (0L != (pinned[color] & Bitboards.bit(square)))
+        {
+            targets &= pinRays[color][square];
+        }
+        return targets;
+    }
+
+    /**
+     * @param color color of checked side
+     * @return bitboard of opponent pieces checking king of given color
+     */
+    public long getCheckers(int color)
+    {
+        update(color);
+        return checkers[color];
+    }
+
+    public boolean isInCheck(int color)
+    {
+        return 0L != getCheckers(color);
+    }
+
+    /**
+     * @param color color of pieces
+     * @return bitboard of pieces which cannot leave line between king and attacking piece
+     */
+    public long getPinned(int color)
+    {
+        update(color);
+        return pinned[color];
+    }
+
+    /**
+     * @param color color of side
+     * @return true if at least one piece of given color can move
+     */
+    public boolean hasLegalMoves(int color)
+    {
+        for (long pieces = position.getPieces(color); 0L != pieces; pieces &= pieces - 1)
+        {
+            if (0L != getLegalMoves(Bitboards.firstSquare(pieces)))
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Method adds all legal moves of given side to list as packed moves.
+     * Pawn moves to last row are added once for every promotion piece.
+     * @param color color of side to move
+     * @param moves list to fill, it is not cleared
+     */
+    public void generateLegalMoves(int color, MoveList moves)
+    {
+        generateMoves(color, moves, false);
+    }
+
+    /**
+     * Method adds legal captures (with en passant) and queen promotions
+     * of given side to list, without generating quiet moves.
+     * Captures promoting pawn are added once for every promotion piece.
+     * @param color color of side to move
+     * @param moves list to fill, it is not cleared
+     */
+    public void generateCaptures(int color, MoveList moves)
+    {
+        generateMoves(color, moves, true);
+    }
+
+    private void generateMoves(int color, MoveList moves, boolean capturesOnly)
+    {
+        long enemies = position.getPieces(1 - color);
+        long pawnTargets = enemies | PROMOTION_ROWS;
+        int enPassant = position.getEnPassantSquare();
+        if (BitboardPosition.NO_SQUARE != enPassant)
+        {
+            // en passant square is square of pawn which moved, capturing pawn goes behind it
+            pawnTargets |= Bitboards.bit(Bitboards.getSquare(Bitboards.getX(enPassant),
+                    Bitboards.getY(enPassant) + position.getPawnDirection(color)));
+        }
+        for (long pieces = position.getPieces(color); 0L != pieces; pieces &= pieces - 1)
+        {
+            int from = Bitboards.firstSquare(pieces);
+            int piece = position.getPiece(from);
+            int type = BitboardPosition.getTypeOfPiece(piece);
+            long targets = getLegalMoves(from);
+            if (capturesOnly)
+            {
+                targets &= BitboardPosition.PAWN == type ? pawnTargets : enemies;
+            }
+            for (; 0L != targets; targets &= targets - 1)
+            {
+                int to = Bitboards.firstSquare(targets);
+                int captured = position.getPiece(to);
+                int flags = 0;
+                if (BitboardPosition.PAWN == type)
+                {
+                    int distance = Math.abs(to - from);
+                    if (16 == distance)
+                    {
+                        flags = PackedMove.FLAG_PAWN_TWO_SQUARES;
+                    }
+                    else if (8 != distance && BitboardPosition.NO_PIECE == captured)
+                    {
+                        flags = PackedMove.FLAG_EN_PASSANT;
+                        captured = position.getPiece(Bitboards.getSquare(Bitboards.getX(to), Bitboards.getY(from)));
+                    }
+                    if (0L != (Bitboards.bit(to) & PROMOTION_ROWS))
+                    {
+                        for (int promotion : PROMOTION_TYPES)
+                        {
+                            moves.add(PackedMove.create(from, to, piece, captured, promotion, flags));
+                            // quiet promotion is tactical only to queen
+                            if (capturesOnly && BitboardPosition.NO_PIECE == captured)
+                            {
+                                break;
+                            }
+                        }
+                        continue;
+                    }
+                    if (capturesOnly && BitboardPosition.NO_PIECE == captured)
+                    {
+                        continue;
+                    }
+                }
+                else if (BitboardPosition.KING == type && 2 == Math.abs(to - from))
+                {
+                    flags = to > from ? PackedMove.FLAG_SHORT_CASTLING : PackedMove.FLAG_LONG_CASTLING;
+                }
+                moves.add(PackedMove.create(from, to, piece, captured, BitboardPosition.NO_PIECE, flags));
+            }
+        }
+    }
+
+    private void update(int color)
+    {
+        if (versions[color] == position.getVersion())
+        {
+            return;
+        }
+        versions[color] = position.getVersion();
+        int enemy = 1 - color;
+        int king = position.getKingSquare(color);
+        long occupancy = position.getOccupancy();
+        if (BitboardPosition.NO_SQUARE == king)
+        {
+            checkers[color] = 0L;
+            checkMasks[color] = ALL_SQUARES;
+            pinned[color] = 0L;
+            kingDangers[color] = 0L;
+            return;
+        }
+        long kingBit = Bitboards.bit(king);
+        kingDangers[color] = position.getAttacks(enemy, occupancy & ~kingBit)
+                | position.getGuardedEmptySquares(enemy);
+
+        checkers[color] = position.getAttackers(king, enemy, occupancy);
+        if (0L == checkers[color])
+        {
+            checkMasks[color] = ALL_SQUARES;
+        }
+        else if (0L == (checkers[color] & (checkers[color] - 1)))
+        {
+            int checker = Bitboards.firstSquare(checkers[color]);
+            checkMasks[color] = checkers[color] | Bitboards.getBetween(king, checker);
+        }
+        else
+        {
+            checkMasks[color] = 0L;
+        }
+
+        pinned[color] = 0L;
+        long enemyQueens = position.getPieces(enemy, BitboardPosition.QUEEN);
+        long snipers = (Bitboards.getRookAttacks(king, 0L)
+                    & (position.getPieces(enemy, BitboardPosition.ROOK) | enemyQueens))
+                | (Bitboards.getBishopAttacks(king, 0L)
+                    & (position.getPieces(enemy, BitboardPosition.BISHOP) | enemyQueens));
+        for (; 0L != snipers; snipers &= snipers - 1)
+        {
+            int sniper = Bitboards.firstSquare(snipers);
+            long between = Bitboards.getBetween(king, sniper);
+            long blockers = between & occupancy;
+            if (0L != blockers
+                    && 0L == (blockers & (blockers - 1))
+                    && 0L != (blockers & position.getPieces(color)))
+            {
+                pinned[color] |= blockers;
+                pinRays[color][Bitboards.firstSquare(blockers)] = between | Bitboards.bit(sniper);
+            }
+        }
+    }
+}
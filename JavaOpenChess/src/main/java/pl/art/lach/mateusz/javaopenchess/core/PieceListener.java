@@ -0,0 +1,40 @@
+/*
+#    This program is free software: you can redistribute it and/or modify
+#    it under the terms of the GNU General Public License as published by
+#    the Free Software Foundation, either version 3 of the License, or
+#    (at your option) any later version.
+#
+#    This program is distributed in the hope that it will be useful,
+#    but WITHOUT ANY WARRANTY; without even the implied warranty of
+#    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+#    GNU General Public License for more details.
+#
+#    You should have received a copy of the GNU General Public License
+#    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package pl.art.lach.mateusz.javaopenchess.core;
+
+/**
+ * Listener of piece changes of BitboardPosition, lets evaluators keep
+ * their own incrementally updated state during make and unmake of moves.
+ */
+public interface PieceListener
+{
+    /**
+     * @param piece piece index (color * 6 + type)
+     * @param square square index
+     */
+    void pieceAdded(int piece, int square);
+
+    /**
+     * @param piece piece index (color * 6 + type)
+     * @param square square index
+     */
+    void pieceRemoved(int piece, int square);
+
+    /**
+     * Called when position was cleared or pawn direction of a side
+     * changed, so state has to be computed from scratch.
+     */
+    void positionReset();
+}
@@ -43,6 +43,12 @@ public class Square
      */
     public Piece piece = null;
 
+    /**
+     * chessboard which should be notified about piece changes,
+     * null for squares which are not part of the chessboard (e.g. history copies)
+     */
+    private Chessboard chessboard = null;
+
     public Square(int pozX, int pozY, Piece piece)
     {
         this.pozX = pozX;
@@ -50,6 +56,13 @@ public class Square
         this.piece = piece;
     }/*--endOf-Square--*/
 
+    Square(Chessboard chessboard, int pozX, int pozY)
+    {
+        this.pozX = pozX;
+        this.pozY = pozY;
+        this.chessboard = chessboard;
+    }
+
 
     public Square(Square square)
     {
@@ -70,6 +83,10 @@ public class Square
         {
             this.piece.setSquare(this);
         }
+        if (null != chessboard)
+        {
+            chessboard.pieceChanged(this);
+        }
     }
 
     /**
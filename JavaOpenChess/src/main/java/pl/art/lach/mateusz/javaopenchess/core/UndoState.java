@@ -0,0 +1,73 @@
+/*
+#    This program is free software: you can redistribute it and/or modify
+#    it under the terms of the GNU General Public License as published by
+#    the Free Software Foundation, either version 3 of the License, or
+#    (at your option) any later version.
+#
+#    This program is distributed in the hope that it will be useful,
+#    but WITHOUT ANY WARRANTY; without even the implied warranty of
+#    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+#    GNU General Public License for more details.
+#
+#    You should have received a copy of the GNU General Public License
+#    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package pl.art.lach.mateusz.javaopenchess.core;
+
+import pl.art.lach.mateusz.javaopenchess.core.pieces.Piece;
+import pl.art.lach.mateusz.javaopenchess.core.pieces.implementation.King;
+import pl.art.lach.mateusz.javaopenchess.core.pieces.implementation.Pawn;
+
+/**
+ * State of chessboard saved by Chessboard.makeMove(), which cannot be
+ * recovered from the move itself. Search keeps one object per ply
+ * and passes it again to Chessboard.unmakeMove().
+ */
+public class UndoState
+{
+    Piece movedPiece;
+
+    Piece capturedPiece;
+
+    Square capturedSquare;
+
+    boolean movedPieceWasMotioned;
+
+    boolean rookWasMotioned;
+
+    Pawn twoSquareMovedPawn;
+
+    int halfCounter;
+
+    Colors sideToMove;
+
+    King kingWhite;
+
+    King kingBlack;
+
+    /**
+     * castling rights of bitboard position before move
+     */
+    int castlingRights;
+
+    /**
+     * en passant square of bitboard position before move
+     */
+    int enPassantSquare;
+
+    /**
+     * @return piece captured by the move or null
+     */
+    public Piece getCapturedPiece()
+    {
+        return capturedPiece;
+    }
+
+    /**
+     * @return piece which was moved (pawn in case of promotion)
+     */
+    public Piece getMovedPiece()
+    {
+        return movedPiece;
+    }
+}
@@ -15,6 +15,7 @@
 package pl.art.lach.mateusz.javaopenchess.core.ai;
 
 import pl.art.lach.mateusz.javaopenchess.core.Game;
+import pl.art.lach.mateusz.javaopenchess.core.ai.search.SearchListener;
 import pl.art.lach.mateusz.javaopenchess.core.moves.Move;
 
 /**
@@ -24,5 +25,21 @@ import pl.art.lach.mateusz.javaopenchess.core.moves.Move;
 public interface AI
 {
     public Move getMove(Game game, Move lastMove);
-    
+
+    /**
+     * Stops all work done by AI in background (e.g. pondering),
+     * called when game ends.
+     */
+    public default void stopThinking()
+    {
+    }
+
+    /**
+     * Adds listener of search progress, AI which does not search
+     * ignores it.
+     * @param listener listener notified after every completed iteration
+     */
+    public default void addSearchListener(SearchListener listener)
+    {
+    }
 }
@@ -14,6 +14,10 @@
  */
 package pl.art.lach.mateusz.javaopenchess.core.ai;
 
+import java.io.IOException;
+import org.apache.log4j.Logger;
+import pl.art.lach.mateusz.javaopenchess.core.ai.book.BookAI;
+import pl.art.lach.mateusz.javaopenchess.core.ai.book.PolyglotBook;
 import pl.art.lach.mateusz.javaopenchess.core.ai.joc_ai.*;
 
 /**
@@ -22,6 +26,8 @@ import pl.art.lach.mateusz.javaopenchess.core.ai.joc_ai.*;
  */
 public class AIFactory {
     
+    private static final Logger LOG = Logger.getLogger(AIFactory.class);
+
     public static final AI getAI(int level)
     {
         AI result = new Level1();
@@ -33,6 +39,32 @@ public class AIFactory {
         {
             result = new Level2();
         }
+        else if (3 == level)
+        {
+            result = new Level3();
+        }
+        return result;
+    }
+    
+    /**
+     * @param level level of AI
+     * @param bookPath path of Polyglot opening book or null
+     * @return AI of given level, consulting opening book first if it can be opened
+     */
+    public static final AI getAI(int level, String bookPath)
+    {
+        AI result = getAI(level);
+        if (null != bookPath && !bookPath.isEmpty())
+        {
+            try
+            {
+                result = new BookAI(PolyglotBook.open(bookPath), result);
+            }
+            catch (IOException exc)
+            {
+                LOG.error("cannot open opening book: " + bookPath, exc);
+            }
+        }
         return result;
     }
     
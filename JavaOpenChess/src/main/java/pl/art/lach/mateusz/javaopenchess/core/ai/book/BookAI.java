@@ -0,0 +1,76 @@
+/*
+#    This program is free software: you can redistribute it and/or modify
+#    it under the terms of the GNU General Public License as published by
+#    the Free Software Foundation, either version 3 of the License, or
+#    (at your option) any later version.
+#
+#    This program is distributed in the hope that it will be useful,
+#    but WITHOUT ANY WARRANTY; without even the implied warranty of
+#    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+#    GNU General Public License for more details.
+#
+#    You should have received a copy of the GNU General Public License
+#    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package pl.art.lach.mateusz.javaopenchess.core.ai.book;
+
+import java.util.Random;
+import pl.art.lach.mateusz.javaopenchess.core.Chessboard;
+import pl.art.lach.mateusz.javaopenchess.core.Game;
+import pl.art.lach.mateusz.javaopenchess.core.ai.AI;
+import pl.art.lach.mateusz.javaopenchess.core.ai.search.SearchListener;
+import pl.art.lach.mateusz.javaopenchess.core.moves.Move;
+import pl.art.lach.mateusz.javaopenchess.core.moves.PackedMove;
+
+/**
+ * AI which plays moves from opening book while position is in book
+ * and asks other AI for a move when it is not.
+ */
+public class BookAI implements AI
+{
+    private final PolyglotBook book;
+
+    private final AI fallback;
+
+    private final Random random = new Random();
+
+    /**
+     * @param book opening book
+     * @param fallback AI used for positions out of book
+     */
+    public BookAI(PolyglotBook book, AI fallback)
+    {
+        this.book = book;
+        this.fallback = fallback;
+    }
+
+    @Override
+    public Move getMove(Game game, Move lastMove)
+    {
+        Chessboard chessboard = game.getChessboard();
+        chessboard.setSideToMove(game.getActivePlayer().getColor());
+        int move = book.getMove(chessboard, random);
+        if (PackedMove.NO_MOVE == move)
+        {
+            return fallback.getMove(game, lastMove);
+        }
+        return PackedMove.toMove(move, chessboard);
+    }
+
+    @Override
+    public void stopThinking()
+    {
+        fallback.stopThinking();
+    }
+
+    @Override
+    public void addSearchListener(SearchListener listener)
+    {
+        fallback.addSearchListener(listener);
+    }
+
+    public AI getFallback()
+    {
+        return fallback;
+    }
+}
@@ -0,0 +1,54 @@
+/*
+#    This program is free software: you can redistribute it and/or modify
+#    it under the terms of the GNU General Public License as published by
+#    the Free Software Foundation, either version 3 of the License, or
+#    (at your option) any later version.
+#
+#    This program is distributed in the hope that it will be useful,
+#    but WITHOUT ANY WARRANTY; without even the implied warranty of
+#    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+#    GNU General Public License for more details.
+#
+#    You should have received a copy of the GNU General Public License
+#    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package pl.art.lach.mateusz.javaopenchess.core.ai.book;
+
+/**
+ * One entry of Polyglot opening book: move in Polyglot encoding,
+ * its weight and learn value.
+ */
+public class BookEntry
+{
+    private final int move;
+
+    private final int weight;
+
+    private final int learn;
+
+    public BookEntry(int move, int weight, int learn)
+    {
+        this.move = move;
+        this.weight = weight;
+        this.learn = learn;
+    }
+
+    /**
+     * @return move in Polyglot encoding (to file, to row, from file,
+     * from row, promotion piece - 3 bits each)
+     */
+    public int getMove()
+    {
+        return move;
+    }
+
+    public int getWeight()
+    {
+        return weight;
+    }
+
+    public int getLearn()
+    {
+        return learn;
+    }
+}
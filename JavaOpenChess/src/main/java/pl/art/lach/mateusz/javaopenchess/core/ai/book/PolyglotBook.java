@@ -0,0 +1,237 @@
+/*
+#    This program is free software: you can redistribute it and/or modify
+#    it under the terms of the GNU General Public License as published by
+#    the Free Software Foundation, either version 3 of the License, or
+#    (at your option) any later version.
+#
+#    This program is distributed in the hope that it will be useful,
+#    but WITHOUT ANY WARRANTY; without even the implied warranty of
+#    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+#    GNU General Public License for more details.
+#
+#    You should have received a copy of the GNU General Public License
+#    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package pl.art.lach.mateusz.javaopenchess.core.ai.book;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import pl.art.lach.mateusz.javaopenchess.core.Chessboard;
+import pl.art.lach.mateusz.javaopenchess.core.moves.Castling;
+import pl.art.lach.mateusz.javaopenchess.core.moves.MoveList;
+import pl.art.lach.mateusz.javaopenchess.core.moves.PackedMove;
+
+/**
+ * Reader of Polyglot opening books (.bin files). File is memory-mapped,
+ * its entries (16 bytes: key, move, weight, learn - big endian) are sorted
+ * by key, so moves of position are found by binary search without reading
+ * the whole file. Books are opened once per file and shared by all games,
+ * reading is thread-safe.
+ */
+public class PolyglotBook
+{
+    public static final int ENTRY_SIZE = 16;
+
+    private static final int MOVE_OFFSET = 8;
+
+    private static final int WEIGHT_OFFSET = 10;
+
+    private static final int LEARN_OFFSET = 12;
+
+    private static final int UNSIGNED_SHORT = 0xFFFF;
+
+    private static final int SQUARE_BITS = 3;
+
+    private static final int FIELD_MASK = 0x7;
+
+    private static final int ROWS = 8;
+
+    private static final int FIRST_FILE = 0;
+
+    private static final int LAST_FILE = 7;
+
+    private static final ConcurrentMap<Path, PolyglotBook> BOOKS = new ConcurrentHashMap<>();
+
+    private final ByteBuffer entries;
+
+    private final int size;
+
+    protected PolyglotBook(ByteBuffer entries)
+    {
+        this.entries = entries;
+        this.size = entries.capacity() / ENTRY_SIZE;
+    }
+
+    /**
+     * Returns book for given file, the file is mapped only once.
+     * @param path path of .bin file
+     * @return opened book
+     * @throws IOException if file cannot be read
+     */
+    public static PolyglotBook open(String path) throws IOException
+    {
+        Path file = Paths.get(path).toAbsolutePath().normalize();
+        PolyglotBook book = BOOKS.get(file);
+        if (null == book)
+        {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ))
+            {
+                book = new PolyglotBook(channel.map(FileChannel.MapMode.READ_ONLY, 0L, channel.size()));
+            }
+            PolyglotBook previous = BOOKS.putIfAbsent(file, book);
+            if (null != previous)
+            {
+                book = previous;
+            }
+        }
+        return book;
+    }
+
+    /**
+     * @return number of entries in book
+     */
+    public int getSize()
+    {
+        return size;
+    }
+
+    /**
+     * @param key Polyglot key of position
+     * @return all entries of position, empty if position is not in book
+     */
+    public List<BookEntry> getEntries(long key)
+    {
+        List<BookEntry> result = new ArrayList<>();
+        for (int index = findFirst(key); index < size && getKey(index) == key; index++)
+        {
+            int offset = index * ENTRY_SIZE;
+            result.add(new BookEntry(
+                entries.getShort(offset + MOVE_OFFSET) & UNSIGNED_SHORT,
+                entries.getShort(offset + WEIGHT_OFFSET) & UNSIGNED_SHORT,
+                entries.getInt(offset + LEARN_OFFSET)
+            ));
+        }
+        return result;
+    }
+
+    /**
+     * Chooses one of book moves of chessboard position at random,
+     * with probability proportional to weight of move.
+     * @param chessboard chessboard with position
+     * @param random source of randomness
+     * @return packed legal move or PackedMove.NO_MOVE if position is not in book
+     */
+    public int getMove(Chessboard chessboard, Random random)
+    {
+        List<BookEntry> bookEntries = getEntries(PolyglotKey.getKey(chessboard.getBitboardPosition()));
+        int totalWeight = 0;
+        for (BookEntry entry : bookEntries)
+        {
+            totalWeight += entry.getWeight();
+        }
+        BookEntry chosen = null;
+        if (totalWeight > 0)
+        {
+            int value = random.nextInt(totalWeight);
+            for (BookEntry entry : bookEntries)
+            {
+                value -= entry.getWeight();
+                if (value < 0)
+                {
+                    chosen = entry;
+                    break;
+                }
+            }
+        }
+        else if (!bookEntries.isEmpty())
+        {
+            chosen = bookEntries.get(random.nextInt(bookEntries.size()));
+        }
+        return null == chosen ? PackedMove.NO_MOVE : toPackedMove(chosen.getMove(), chessboard.getLegalMoves());
+    }
+
+    /**
+     * Finds legal move matching move in Polyglot encoding.
+     * Polyglot writes castling as king move to square of rook.
+     * @param polyglotMove move from book entry
+     * @param legalMoves legal moves of position
+     * @return packed move or PackedMove.NO_MOVE if move is not legal
+     */
+    public static int toPackedMove(int polyglotMove, MoveList legalMoves)
+    {
+        int to = getSquare(polyglotMove);
+        int from = getSquare(polyglotMove >>> (2 * SQUARE_BITS));
+        int toFile = polyglotMove & FIELD_MASK;
+        int promotion = (polyglotMove >>> (4 * SQUARE_BITS)) & FIELD_MASK;
+        for (int i = 0; i < legalMoves.size(); i++)
+        {
+            int move = legalMoves.get(i);
+            if (PackedMove.getFrom(move) != from)
+            {
+                continue;
+            }
+            Castling castling = PackedMove.getCastling(move);
+            if (Castling.NONE != castling)
+            {
+                int rookFile = Castling.SHORT_CASTLING == castling ? LAST_FILE : FIRST_FILE;
+                if (toFile == rookFile && from / ROWS == to / ROWS)
+                {
+                    return move;
+                }
+            }
+            if (PackedMove.getTo(move) == to
+                    && (0 == promotion ? !PackedMove.isPromotion(move) : PackedMove.getPromotion(move) == promotion))
+            {
+                return move;
+            }
+        }
+        return PackedMove.NO_MOVE;
+    }
+
+    /**
+     * @param polyglotSquare file in bits 0-2, row (0 for first rank) in bits 3-5
+     * @return bitboard index of square
+     */
+    private static int getSquare(int polyglotSquare)
+    {
+        int file = polyglotSquare & FIELD_MASK;
+        int row = (polyglotSquare >>> SQUARE_BITS) & FIELD_MASK;
+        return (ROWS - 1 - row) * ROWS + file;
+    }
+
+    private long getKey(int index)
+    {
+        return entries.getLong(index * ENTRY_SIZE);
+    }
+
+    /**
+     * @return index of first entry with key not lower than given one (unsigned)
+     */
+    private int findFirst(long key)
+    {
+        int low = 0;
+        int high = size;
+        while (low < high)
+        {
+            int middle = (low + high) >>> 1;
+            if (Long.compareUnsigned(getKey(middle), key) < 0)
+            {
+                low = middle + 1;
+            }
+            else
+            {
+                high = middle;
+            }
+        }
+        return low;
+    }
+}
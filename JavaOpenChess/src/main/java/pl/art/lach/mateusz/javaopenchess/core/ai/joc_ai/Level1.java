@@ -17,13 +17,15 @@ package pl.art.lach.mateusz.javaopenchess.core.ai.joc_ai;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
+import pl.art.lach.mateusz.javaopenchess.core.BitboardPosition;
 import pl.art.lach.mateusz.javaopenchess.core.Chessboard;
 import pl.art.lach.mateusz.javaopenchess.core.Game;
 import pl.art.lach.mateusz.javaopenchess.core.Square;
 import pl.art.lach.mateusz.javaopenchess.core.ai.AI;
 import pl.art.lach.mateusz.javaopenchess.core.moves.Move; 
+import pl.art.lach.mateusz.javaopenchess.core.moves.MoveList;
+import pl.art.lach.mateusz.javaopenchess.core.moves.PackedMove;
 import pl.art.lach.mateusz.javaopenchess.core.pieces.Piece;
-import pl.art.lach.mateusz.javaopenchess.core.pieces.implementation.Pawn;
 import pl.art.lach.mateusz.javaopenchess.core.pieces.implementation.Queen;
 
 /**
@@ -37,34 +39,25 @@ public class Level1 implements AI
     public Move getMove(Game game, Move lastMove)
     {
         Chessboard chessboard = game.getChessboard();
-        List<Piece> pieces = chessboard.getAllPieces(game.getActivePlayer().getColor());
-        List<Piece> moveAblePieces = new ArrayList<>();
-        
-        for (Piece piece : pieces)
+        MoveList moves = chessboard.getLegalMoves(game.getActivePlayer().getColor());
+        List<Integer> candidates = new ArrayList<>();
+        for (int i = 0; i < moves.size(); i++)
         {
-            if (0 < piece.getAllMoves().size())
+            int move = moves.get(i);
+            if (!PackedMove.isPromotion(move) || BitboardPosition.QUEEN == PackedMove.getPromotion(move))
             {
-                moveAblePieces.add(piece);
+                candidates.add(move);
             }
         }
         
-        int size = moveAblePieces.size();
         Random rand = new Random();
-        int random = rand.nextInt(size);
-       
-        Piece piece = moveAblePieces.get(random);
+        int move = candidates.get(rand.nextInt(candidates.size()));
+        Square sq = chessboard.getSquare(PackedMove.getTo(move));
+        Piece piece = chessboard.getSquare(PackedMove.getFrom(move)).getPiece();
         Piece promotedPiece = null;
-        size = piece.getAllMoves().size();
-        random = rand.nextInt(size);
-        
-        List<Square> squares = new ArrayList<>(piece.getAllMoves());
-        Square sq = squares.get(random);
-        if (piece instanceof Pawn)
+        if (PackedMove.isPromotion(move))
         {
-            if (Pawn.canBePromoted(sq)) 
-            {
-                promotedPiece = new Queen(chessboard, game.getActivePlayer());
-            }
+            promotedPiece = new Queen(chessboard, game.getActivePlayer());
         }
         return new Move(piece.getSquare(), sq, piece, sq.getPiece(), promotedPiece);
     }
@@ -17,17 +17,22 @@ package pl.art.lach.mateusz.javaopenchess.core.ai.joc_ai;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
+import pl.art.lach.mateusz.javaopenchess.core.BitboardPosition;
 import pl.art.lach.mateusz.javaopenchess.core.Chessboard;
 import pl.art.lach.mateusz.javaopenchess.core.Game;
 import pl.art.lach.mateusz.javaopenchess.core.Square;
 import pl.art.lach.mateusz.javaopenchess.core.ai.AI;
+import pl.art.lach.mateusz.javaopenchess.core.ai.search.StaticExchange;
 import pl.art.lach.mateusz.javaopenchess.core.moves.Move; 
+import pl.art.lach.mateusz.javaopenchess.core.moves.MoveList;
+import pl.art.lach.mateusz.javaopenchess.core.moves.PackedMove;
 import pl.art.lach.mateusz.javaopenchess.core.pieces.Piece;
-import pl.art.lach.mateusz.javaopenchess.core.pieces.implementation.Pawn;
 import pl.art.lach.mateusz.javaopenchess.core.pieces.implementation.Queen;
 
 /**
- * Basic AI implementation with simple alghoritm.
+ * Basic AI implementation with simple alghoritm:
+ * capture which wins the most material by static exchange evaluation,
+ * or random quiet move if all captures lose material.
  * @author Mateusz  Lach (matlak, msl)
  */
 public class Level2 implements AI
@@ -37,46 +42,40 @@ public class Level2 implements AI
     public Move getMove(Game game, Move lastMove)
     {
         Chessboard chessboard = game.getChessboard();
-        List<Piece> pieces = chessboard.getAllPieces(game.getActivePlayer().getColor());
+        MoveList moves = chessboard.getLegalMoves(game.getActivePlayer().getColor());
         
-        int bestMark = 0;
+        BitboardPosition position = chessboard.getBitboardPosition();
+        int bestMark = Integer.MIN_VALUE;
         List<Move> movesList = new ArrayList<>();
-        for (Piece piece : pieces)
+        for (int i = 0; i < moves.size(); i++)
         {
-            if (0 < piece.getAllMoves().size())
+            int packedMove = moves.get(i);
+            if (PackedMove.isPromotion(packedMove) && BitboardPosition.QUEEN != PackedMove.getPromotion(packedMove))
             {
-                List<Square> squares = new ArrayList<>(piece.getAllMoves());
-                if (squares.size() > 0) 
-                {
-                    for (Square sq : squares) 
-                    {
-                        Piece takenPiece = sq.getPiece();
-                        Piece promotedPiece = null;
-                        if (piece instanceof Pawn)
-                        {
-                            if (Pawn.canBePromoted(sq)) 
-                            {
-                                promotedPiece = new Queen(chessboard, game.getActivePlayer());
-                            }
-                        }
-                        Move move = new Move(piece.getSquare(), sq, piece, sq.getPiece(), promotedPiece);
-                        int currentMark = 0;
-                        if (null != takenPiece)
-                        {
-                            currentMark = takenPiece.getValue();
-                        }
-                        if (currentMark > bestMark)
-                        {
-                            movesList.clear();
-                            movesList.add(move);
-                            bestMark = currentMark;
-                        }
-                        else if (currentMark == bestMark) 
-                        {
-                            movesList.add(move);
-                        }
-                    }
-                }
+                continue;
+            }
+            Piece piece = chessboard.getSquare(PackedMove.getFrom(packedMove)).getPiece();
+            Square sq = chessboard.getSquare(PackedMove.getTo(packedMove));
+            Piece promotedPiece = null;
+            if (PackedMove.isPromotion(packedMove))
+            {
+                promotedPiece = new Queen(chessboard, game.getActivePlayer());
+            }
+            Move move = new Move(piece.getSquare(), sq, piece, sq.getPiece(), promotedPiece);
+            int currentMark = 0;
+            if (PackedMove.isCapture(packedMove))
+            {
+                currentMark = StaticExchange.evaluate(position, packedMove);
+            }
+            if (currentMark > bestMark)
+            {
+                movesList.clear();
+                movesList.add(move);
+                bestMark = currentMark;
+            }
+            else if (currentMark == bestMark) 
+            {
+                movesList.add(move);
             }
         }
         int size = movesList.size();
@@ -0,0 +1,164 @@
+/*
+#    This program is free software: you can redistribute it and/or modify
+#    it under the terms of the GNU General Public License as published by
+#    the Free Software Foundation, either version 3 of the License, or
+#    (at your option) any later version.
+#
+#    This program is distributed in the hope that it will be useful,
+#    but WITHOUT ANY WARRANTY; without even the implied warranty of
+#    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+#    GNU General Public License for more details.
+#
+#    You should have received a copy of the GNU General Public License
+#    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package pl.art.lach.mateusz.javaopenchess.core.ai.joc_ai;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import pl.art.lach.mateusz.javaopenchess.core.Chessboard;
+import pl.art.lach.mateusz.javaopenchess.core.Game;
+import pl.art.lach.mateusz.javaopenchess.core.GameClock;
+import pl.art.lach.mateusz.javaopenchess.core.ai.AI;
+import pl.art.lach.mateusz.javaopenchess.core.ai.search.ParallelSearch;
+import pl.art.lach.mateusz.javaopenchess.core.ai.search.PawnHashTable;
+import pl.art.lach.mateusz.javaopenchess.core.ai.search.Ponder;
+import pl.art.lach.mateusz.javaopenchess.core.ai.search.SearchInfoLogger;
+import pl.art.lach.mateusz.javaopenchess.core.ai.search.SearchListener;
+import pl.art.lach.mateusz.javaopenchess.core.ai.search.TimeManager;
+import pl.art.lach.mateusz.javaopenchess.core.ai.search.TranspositionTable;
+import pl.art.lach.mateusz.javaopenchess.core.ai.tablebase.Tablebases;
+import pl.art.lach.mateusz.javaopenchess.core.moves.Move;
+import pl.art.lach.mateusz.javaopenchess.core.moves.PackedMove;
+
+/**
+ * AI implementation with alpha-beta search and iterative deepening.
+ * Time of search is planned by TimeManager: from clock of computer player
+ * in timed game, from computer move time from game settings otherwise.
+ * Transposition table is kept between moves of the game.
+ * Search runs in number of threads given by computer threads setting.
+ * In endgames covered by loaded tablebases move is taken from tables.
+ * With ponder setting on, predicted opponent reply is searched in background
+ * until next move is requested; if prediction was right and pondering
+ * lasted longer than move time, its move is played without new search.
+ * Progress of every search is written to log by SearchInfoLogger
+ * and reported to added search listeners.
+ */
+public class Level3 implements AI
+{
+    private static final int MAX_DEPTH = 64;
+
+    /**
+     * search after ponder hit gets at least this part of move time
+     */
+    private static final int MIN_TIME_DIVISOR = 4;
+
+    private static final long MILLIS_IN_SECOND = 1000L;
+
+    private TranspositionTable transpositionTable = null;
+
+    /**
+     * pawn hash table of each search thread, kept between moves
+     */
+    private PawnHashTable[] pawnHashTables = null;
+
+    private Ponder ponder = null;
+
+    private final List<SearchListener> searchListeners = new CopyOnWriteArrayList<>();
+
+    public Level3()
+    {
+        searchListeners.add(new SearchInfoLogger());
+    }
+
+    @Override
+    public Move getMove(Game game, Move lastMove)
+    {
+        Chessboard chessboard = game.getChessboard();
+        chessboard.setSideToMove(game.getActivePlayer().getColor());
+        long moveTime = game.getSettings().getComputerMoveTime();
+        if (null != ponder && ponder.isRunning())
+        {
+            ponder.stop();
+            if (null != lastMove && ponder.isHit(PackedMove.fromMove(lastMove)))
+            {
+                int ponderMove = ponder.getBestMove();
+                if (ponder.getElapsedMillis() >= moveTime && chessboard.getLegalMoves().contains(ponderMove))
+                {
+                    startPondering(game, chessboard, ponderMove);
+                    return PackedMove.toMove(ponderMove, chessboard);
+                }
+                moveTime = Math.max(moveTime - ponder.getElapsedMillis(), moveTime / MIN_TIME_DIVISOR);
+            }
+        }
+        int tablebaseMove = Tablebases.getBestMove(chessboard);
+        if (PackedMove.NO_MOVE != tablebaseMove)
+        {
+            return PackedMove.toMove(tablebaseMove, chessboard);
+        }
+        if (null == transpositionTable)
+        {
+            transpositionTable = new TranspositionTable(game.getSettings().getHashSize());
+        }
+        int threads = Math.max(1, game.getSettings().getComputerThreads());
+        if (null == pawnHashTables || pawnHashTables.length != threads)
+        {
+            pawnHashTables = ParallelSearch.createPawnHashTables(threads);
+        }
+        ParallelSearch search = new ParallelSearch(chessboard, transpositionTable, pawnHashTables);
+        for (SearchListener listener : searchListeners)
+        {
+            search.addListener(listener);
+        }
+        int move = search.search(createTimeManager(game, moveTime), MAX_DEPTH);
+        if (PackedMove.NO_MOVE == move)
+        {
+            return null;
+        }
+        startPondering(game, chessboard, move);
+        return PackedMove.toMove(move, chessboard);
+    }
+
+    @Override
+    public void addSearchListener(SearchListener listener)
+    {
+        searchListeners.add(listener);
+    }
+
+    @Override
+    public void stopThinking()
+    {
+        if (null != ponder)
+        {
+            ponder.stop();
+        }
+    }
+
+    private static TimeManager createTimeManager(Game game, long moveTime)
+    {
+        GameClock clock = game.getGameClock();
+        if (game.getSettings().isTimeLimitSet() && null != clock)
+        {
+            return TimeManager.forClock(
+                clock.getLeftTime(game.getActivePlayer()) * MILLIS_IN_SECOND,
+                game.getSettings().getTimeIncrement() * MILLIS_IN_SECOND,
+                game.getMoves().getMoves().size() / 2 + 1,
+                moveTime
+            );
+        }
+        return TimeManager.forMoveTime(moveTime);
+    }
+
+    private void startPondering(Game game, Chessboard chessboard, int move)
+    {
+        if (!game.getSettings().isPonder())
+        {
+            return;
+        }
+        if (null == ponder)
+        {
+            ponder = new Ponder(transpositionTable, pawnHashTables[0]);
+        }
+        ponder.start(chessboard, move, MAX_DEPTH);
+    }
+}
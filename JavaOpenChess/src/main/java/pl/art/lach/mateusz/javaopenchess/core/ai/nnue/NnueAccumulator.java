@@ -0,0 +1,164 @@
+/*
+#    This program is free software: you can redistribute it and/or modify
+#    it under the terms of the GNU General Public License as published by
+#    the Free Software Foundation, either version 3 of the License, or
+#    (at your option) any later version.
+#
+#    This program is distributed in the hope that it will be useful,
+#    but WITHOUT ANY WARRANTY; without even the implied warranty of
+#    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+#    GNU General Public License for more details.
+#
+#    You should have received a copy of the GNU General Public License
+#    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package pl.art.lach.mateusz.javaopenchess.core.ai.nnue;
+
+import pl.art.lach.mateusz.javaopenchess.core.BitboardPosition;
+import pl.art.lach.mateusz.javaopenchess.core.PieceListener;
+import pl.art.lach.mateusz.javaopenchess.core.bitboards.Bitboards;
+
+/**
+ * Hidden layer of network for both perspectives, updated incrementally
+ * by piece changes of position during make and unmake of moves: adding
+ * or removing a piece adds or subtracts one row of weights. When king of
+ * perspective moves all its inputs change, so its accumulator is only
+ * marked and computed from scratch before next evaluation.
+ * Accumulator is updated only while it is attached to position,
+ * detached accumulator is computed from scratch every time.
+ */
+public class NnueAccumulator implements PieceListener
+{
+    private final NnueNetwork network;
+
+    private final BitboardPosition position;
+
+    private final short[][] values;
+
+    private final boolean[] refreshNeeded = {true, true};
+
+    private boolean attached = false;
+
+    /**
+     * @param network network with weights
+     * @param position position to evaluate
+     */
+    public NnueAccumulator(NnueNetwork network, BitboardPosition position)
+    {
+        this.network = network;
+        this.position = position;
+        this.values = new short[2][network.getHiddenSize()];
+    }
+
+    @Override
+    public void pieceAdded(int piece, int square)
+    {
+        update(piece, square, 1);
+    }
+
+    @Override
+    public void pieceRemoved(int piece, int square)
+    {
+        update(piece, square, -1);
+    }
+
+    @Override
+    public void positionReset()
+    {
+        refreshNeeded[BitboardPosition.WHITE] = true;
+        refreshNeeded[BitboardPosition.BLACK] = true;
+    }
+
+    private void update(int piece, int square, int sign)
+    {
+        boolean king = BitboardPosition.KING == BitboardPosition.getTypeOfPiece(piece);
+        for (int perspective = BitboardPosition.WHITE; perspective <= BitboardPosition.BLACK; perspective++)
+        {
+            if (king)
+            {
+                if (BitboardPosition.getColorOfPiece(piece) == perspective)
+                {
+                    refreshNeeded[perspective] = true;
+                }
+            }
+            else if (!refreshNeeded[perspective])
+            {
+                network.update(values[perspective], getFeatureIndex(perspective, piece, square), sign);
+            }
+        }
+    }
+
+    /**
+     * @param perspective color of side
+     * @return values of hidden layer from perspective of side, up to date
+     */
+    public short[] getValues(int perspective)
+    {
+        if (refreshNeeded[perspective] || !attached)
+        {
+            refresh(perspective);
+        }
+        return values[perspective];
+    }
+
+    /**
+     * Computes accumulator of perspective from all pieces on board.
+     * @param perspective color of side
+     */
+    public void refresh(int perspective)
+    {
+        short[] accumulator = values[perspective];
+        network.resetToBiases(accumulator);
+        for (int square = 0; square < Bitboards.NUMBER_OF_SQUARES; square++)
+        {
+            int piece = position.getPiece(square);
+            if (BitboardPosition.NO_PIECE != piece && BitboardPosition.KING != BitboardPosition.getTypeOfPiece(piece))
+            {
+                network.update(accumulator, getFeatureIndex(perspective, piece, square), 1);
+            }
+        }
+        refreshNeeded[perspective] = false;
+    }
+
+    /**
+     * Registers accumulator as piece listener of position, so it is
+     * updated incrementally from now on.
+     * @throws IllegalStateException if position has other listener
+     */
+    public void attach()
+    {
+        if (!attached)
+        {
+            position.setPieceListener(this);
+            attached = true;
+            positionReset();
+        }
+    }
+
+    /**
+     * Stops following position.
+     */
+    public void detach()
+    {
+        if (attached)
+        {
+            position.removePieceListener(this);
+            attached = false;
+        }
+    }
+
+    public boolean isAttached()
+    {
+        return attached;
+    }
+
+    private int getFeatureIndex(int perspective, int piece, int square)
+    {
+        int direction = position.getPawnDirection(perspective);
+        int king = position.getKingSquare(perspective);
+        return NnueNetwork.getFeatureIndex(
+            BitboardPosition.NO_SQUARE == king ? 0 : NnueNetwork.orient(king, direction),
+            piece, NnueNetwork.orient(square, direction), perspective
+        );
+    }
+}
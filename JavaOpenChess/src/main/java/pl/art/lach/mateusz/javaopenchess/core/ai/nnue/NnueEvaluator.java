@@ -0,0 +1,66 @@
+/*
+#    This program is free software: you can redistribute it and/or modify
+#    it under the terms of the GNU General Public License as published by
+#    the Free Software Foundation, either version 3 of the License, or
+#    (at your option) any later version.
+#
+#    This program is distributed in the hope that it will be useful,
+#    but WITHOUT ANY WARRANTY; without even the implied warranty of
+#    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+#    GNU General Public License for more details.
+#
+#    You should have received a copy of the GNU General Public License
+#    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package pl.art.lach.mateusz.javaopenchess.core.ai.nnue;
+
+import pl.art.lach.mateusz.javaopenchess.core.BitboardPosition;
+import pl.art.lach.mateusz.javaopenchess.core.ai.search.Evaluator;
+
+/**
+ * Neural evaluation: output of network for accumulator of side to move
+ * and of other side. Evaluator belongs to one position, so it has to be
+ * used only for position given in constructor. Accumulator follows piece
+ * changes of position only between newSearch() and searchFinished(),
+ * outside of search it is computed from scratch for every evaluation.
+ */
+public class NnueEvaluator implements Evaluator
+{
+    private final NnueNetwork network;
+
+    private final NnueAccumulator accumulator;
+
+    /**
+     * @param network network with weights
+     * @param position position which will be evaluated
+     */
+    public NnueEvaluator(NnueNetwork network, BitboardPosition position)
+    {
+        this.network = network;
+        this.accumulator = new NnueAccumulator(network, position);
+    }
+
+    @Override
+    public int evaluate(BitboardPosition position)
+    {
+        int side = position.getSideToMove();
+        return network.getOutput(accumulator.getValues(side), accumulator.getValues(1 - side));
+    }
+
+    @Override
+    public void newSearch()
+    {
+        accumulator.attach();
+    }
+
+    @Override
+    public void searchFinished()
+    {
+        accumulator.detach();
+    }
+
+    public NnueAccumulator getAccumulator()
+    {
+        return accumulator;
+    }
+}
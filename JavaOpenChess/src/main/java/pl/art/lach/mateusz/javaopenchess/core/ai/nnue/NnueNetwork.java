@@ -0,0 +1,286 @@
+/*
+#    This program is free software: you can redistribute it and/or modify
+#    it under the terms of the GNU General Public License as published by
+#    the Free Software Foundation, either version 3 of the License, or
+#    (at your option) any later version.
+#
+#    This program is distributed in the hope that it will be useful,
+#    but WITHOUT ANY WARRANTY; without even the implied warranty of
+#    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+#    GNU General Public License for more details.
+#
+#    You should have received a copy of the GNU General Public License
+#    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package pl.art.lach.mateusz.javaopenchess.core.ai.nnue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import org.apache.log4j.Logger;
+import pl.art.lach.mateusz.javaopenchess.core.BitboardPosition;
+import pl.art.lach.mateusz.javaopenchess.core.bitboards.Bitboards;
+
+/**
+ * Weights of small HalfKP-style network: inputs are pairs of king square
+ * of perspective and square of one of other ten pieces (kings are not
+ * inputs), seen from the perspective side. Inputs of each perspective are
+ * summed into hidden layer (accumulator, see NnueAccumulator), both
+ * accumulators (side to move first) go through clipped ReLU to linear output.
+ * All weights are int16, output is computed with integer arithmetic.
+ * File format, little endian:
+ * <pre>
+ * int   MAGIC
+ * int   hidden size N
+ * short feature weights [INPUTS][N]
+ * short feature biases [N]
+ * short output weights [2 * N], side to move first
+ * int   output bias
+ * </pre>
+ * Network file can be given by system property javaopenchess.nnue,
+ * then it is used by all searches instead of classical evaluation.
+ */
+public final class NnueNetwork
+{
+    private static final Logger LOG = Logger.getLogger(NnueNetwork.class);
+
+    public static final String FILE_PROPERTY = "javaopenchess.nnue";
+
+    /**
+     * "JNN1"
+     */
+    public static final int MAGIC = 0x4A4E4E31;
+
+    /**
+     * pawn, knight, bishop, rook and queen of own and enemy side
+     */
+    public static final int PIECE_KINDS = 10;
+
+    public static final int INPUTS = Bitboards.NUMBER_OF_SQUARES * PIECE_KINDS * Bitboards.NUMBER_OF_SQUARES;
+
+    /**
+     * activation of hidden neuron is clipped to 0..ACTIVATION_MAX
+     */
+    public static final int ACTIVATION_MAX = 255;
+
+    /**
+     * scale of output weights
+     */
+    public static final int OUTPUT_WEIGHT_SCALE = 64;
+
+    /**
+     * centipawns of network output 1.0
+     */
+    public static final int OUTPUT_SCALE = 400;
+
+    private static final int HEADER_BYTES = 2 * Integer.BYTES;
+
+    private static final int MIRROR_Y = 56;
+
+    private static volatile NnueNetwork defaultNetwork = null;
+
+    static
+    {
+        String file = System.getProperty(FILE_PROPERTY);
+        if (null != file)
+        {
+            try
+            {
+                defaultNetwork = load(Paths.get(file));
+                LOG.info("loaded network with " + defaultNetwork.getHiddenSize() + " hidden neurons from: " + file);
+            }
+            catch (IOException | IllegalArgumentException exc)
+            {
+                LOG.error("cannot load network from: " + file, exc);
+            }
+        }
+    }
+
+    private final int hiddenSize;
+
+    private final short[] featureWeights;
+
+    private final short[] featureBiases;
+
+    private final short[] outputWeights;
+
+    private final int outputBias;
+
+    /**
+     * @param hiddenSize size of accumulator of one perspective
+     * @param featureWeights weights of inputs, INPUTS * hiddenSize, grouped by input
+     * @param featureBiases biases of hidden layer
+     * @param outputWeights weights of side to move and then other side, 2 * hiddenSize
+     * @param outputBias bias of output in ACTIVATION_MAX * OUTPUT_WEIGHT_SCALE units
+     */
+    public NnueNetwork(int hiddenSize, short[] featureWeights, short[] featureBiases, short[] outputWeights,
+            int outputBias)
+    {
+        if (hiddenSize <= 0
+                || featureWeights.length != INPUTS * hiddenSize
+                || featureBiases.length != hiddenSize
+                || outputWeights.length != 2 * hiddenSize)
+        {
+            throw new IllegalArgumentException("invalid sizes of network with hidden size: " + hiddenSize);
+        }
+        this.hiddenSize = hiddenSize;
+        this.featureWeights = featureWeights;
+        this.featureBiases = featureBiases;
+        this.outputWeights = outputWeights;
+        this.outputBias = outputBias;
+    }
+
+    /**
+     * @return network given by system property or set by setDefault(), null if there is none
+     */
+    public static NnueNetwork getDefault()
+    {
+        return defaultNetwork;
+    }
+
+    /**
+     * @param network network used by new searches, null for classical evaluation
+     */
+    public static void setDefault(NnueNetwork network)
+    {
+        defaultNetwork = network;
+    }
+
+    /**
+     * @param file network file
+     * @return loaded network
+     * @throws IOException if file cannot be read
+     * @throws IllegalArgumentException if file is not a valid network
+     */
+    public static NnueNetwork load(Path file) throws IOException
+    {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ))
+        {
+            MappedByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            data.order(ByteOrder.LITTLE_ENDIAN);
+            if (channel.size() < HEADER_BYTES || MAGIC != data.getInt())
+            {
+                throw new IllegalArgumentException("not a network file: " + file);
+            }
+            int hiddenSize = data.getInt();
+            if (hiddenSize <= 0 || channel.size() != getFileSize(hiddenSize))
+            {
+                throw new IllegalArgumentException("invalid size of network file: " + file);
+            }
+            short[] featureWeights = new short[INPUTS * hiddenSize];
+            short[] featureBiases = new short[hiddenSize];
+            short[] outputWeights = new short[2 * hiddenSize];
+            data.asShortBuffer().get(featureWeights).get(featureBiases).get(outputWeights);
+            data.position(data.position() + Short.BYTES * (featureWeights.length + featureBiases.length + outputWeights.length));
+            return new NnueNetwork(hiddenSize, featureWeights, featureBiases, outputWeights, data.getInt());
+        }
+    }
+
+    /**
+     * @param file file to write network to
+     * @throws IOException if file cannot be written
+     */
+    public void save(Path file) throws IOException
+    {
+        ByteBuffer data = ByteBuffer.allocate((int) getFileSize(hiddenSize)).order(ByteOrder.LITTLE_ENDIAN);
+        data.putInt(MAGIC).putInt(hiddenSize);
+        data.asShortBuffer().put(featureWeights).put(featureBiases).put(outputWeights);
+        data.position(data.position() + Short.BYTES * (featureWeights.length + featureBiases.length + outputWeights.length));
+        data.putInt(outputBias);
+        data.flip();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE))
+        {
+            while (data.hasRemaining())
+            {
+                channel.write(data);
+            }
+        }
+    }
+
+    private static long getFileSize(int hiddenSize)
+    {
+        return HEADER_BYTES + Integer.BYTES + (long) Short.BYTES * (INPUTS + 3L) * hiddenSize;
+    }
+
+    /**
+     * @param kingSquare square of king of perspective, already oriented
+     * @param piece piece index of other piece than king
+     * @param square square of piece, already oriented
+     * @param perspective color of perspective
+     * @return index of input
+     */
+    public static int getFeatureIndex(int kingSquare, int piece, int square, int perspective)
+    {
+        int kind = BitboardPosition.getTypeOfPiece(piece);
+        if (BitboardPosition.getColorOfPiece(piece) != perspective)
+        {
+            kind += PIECE_KINDS / 2;
+        }
+        return (kingSquare * PIECE_KINDS + kind) * Bitboards.NUMBER_OF_SQUARES + square;
+    }
+
+    /**
+     * Squares are seen from perspective of side, as if its pawns were going up.
+     * @param square square index
+     * @param pawnDirection pawn direction of perspective side
+     * @return oriented square
+     */
+    public static int orient(int square, int pawnDirection)
+    {
+        return pawnDirection > 0 ? square ^ MIRROR_Y : square;
+    }
+
+    /**
+     * @param us accumulator of side to move
+     * @param them accumulator of other side
+     * @return score for side to move in centipawns
+     */
+    public int getOutput(short[] us, short[] them)
+    {
+        long sum = outputBias;
+        for (int i = 0; i < hiddenSize; i++)
+        {
+            sum += clip(us[i]) * outputWeights[i] + clip(them[i]) * outputWeights[hiddenSize + i];
+        }
+        return (int) (sum * OUTPUT_SCALE / (ACTIVATION_MAX * OUTPUT_WEIGHT_SCALE));
+    }
+
+    private static int clip(short value)
+    {
+        return Math.max(0, Math.min(ACTIVATION_MAX, value));
+    }
+
+    /**
+     * Adds or subtracts weights of one input to accumulator.
+     * @param accumulator values of hidden layer
+     * @param feature index of input
+     * @param sign 1 to add, -1 to subtract
+     */
+    void update(short[] accumulator, int feature, int sign)
+    {
+        int offset = feature * hiddenSize;
+        for (int i = 0; i < hiddenSize; i++)
+        {
+            accumulator[i] += sign * featureWeights[offset + i];
+        }
+    }
+
+    /**
+     * @param accumulator values of hidden layer to set to biases
+     */
+    void resetToBiases(short[] accumulator)
+    {
+        System.arraycopy(featureBiases, 0, accumulator, 0, hiddenSize);
+    }
+
+    public int getHiddenSize()
+    {
+        return hiddenSize;
+    }
+}
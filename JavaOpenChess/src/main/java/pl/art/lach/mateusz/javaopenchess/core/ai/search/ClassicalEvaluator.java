@@ -0,0 +1,58 @@
+/*
+#    This program is free software: you can redistribute it and/or modify
+#    it under the terms of the GNU General Public License as published by
+#    the Free Software Foundation, either version 3 of the License, or
+#    (at your option) any later version.
+#
+#    This program is distributed in the hope that it will be useful,
+#    but WITHOUT ANY WARRANTY; without even the implied warranty of
+#    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+#    GNU General Public License for more details.
+#
+#    You should have received a copy of the GNU General Public License
+#    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package pl.art.lach.mateusz.javaopenchess.core.ai.search;
+
+import pl.art.lach.mateusz.javaopenchess.core.BitboardPosition;
+
+/**
+ * Hand written evaluation (see Evaluation) with its own pawn hash table.
+ */
+public class ClassicalEvaluator implements Evaluator
+{
+    private final PawnHashTable pawnHashTable;
+
+    public ClassicalEvaluator()
+    {
+        this(new PawnHashTable());
+    }
+
+    public ClassicalEvaluator(PawnHashTable pawnHashTable)
+    {
+        this.pawnHashTable = pawnHashTable;
+    }
+
+    @Override
+    public int evaluate(BitboardPosition position)
+    {
+        return Evaluation.evaluate(position, pawnHashTable);
+    }
+
+    @Override
+    public void newSearch()
+    {
+        pawnHashTable.resetStatistics();
+    }
+
+    @Override
+    public int getPawnHashHitRate()
+    {
+        return pawnHashTable.getHitRate();
+    }
+
+    public PawnHashTable getPawnHashTable()
+    {
+        return pawnHashTable;
+    }
+}
@@ -0,0 +1,325 @@
+/*
+#    This program is free software: you can redistribute it and/or modify
+#    it under the terms of the GNU General Public License as published by
+#    the Free Software Foundation, either version 3 of the License, or
+#    (at your option) any later version.
+#
+#    This program is distributed in the hope that it will be useful,
+#    but WITHOUT ANY WARRANTY; without even the implied warranty of
+#    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+#    GNU General Public License for more details.
+#
+#    You should have received a copy of the GNU General Public License
+#    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package pl.art.lach.mateusz.javaopenchess.core.ai.search;
+
+import pl.art.lach.mateusz.javaopenchess.core.BitboardPosition;
+import pl.art.lach.mateusz.javaopenchess.core.bitboards.Bitboards;
+import pl.art.lach.mateusz.javaopenchess.core.bitboards.PieceSquareTables;
+
+/**
+ * Static evaluation of position used by search: tapered evaluation
+ * blending middlegame and endgame piece-square scores (with material)
+ * by game phase, from point of view of side to move.
+ * Scores are updated by BitboardPosition with every piece change,
+ * so evaluation takes constant time.
+ * Pawn structure (doubled, isolated and passed pawns, pawn shields
+ * in front of king) is costly to compute, but changes rarely, so it is
+ * taken from PawnHashTable. Only terms depending on other pieces
+ * (king on its shield, kings near passed pawns) are computed every time.
+ */
+public final class Evaluation
+{
+    private static final int NUMBER_OF_FILES = 8;
+
+    private static final int DOUBLED_MIDGAME = 10;
+
+    private static final int DOUBLED_ENDGAME = 20;
+
+    private static final int ISOLATED_MIDGAME = 10;
+
+    private static final int ISOLATED_ENDGAME = 15;
+
+    /**
+     * bonuses of passed pawn indexed by rows advanced from its starting row
+     */
+    private static final int[] PASSED_MIDGAME = {0, 5, 10, 15, 25, 40};
+
+    private static final int[] PASSED_ENDGAME = {0, 10, 20, 35, 60, 90};
+
+    /**
+     * bonus for each point of shield: pawn right in front of king
+     * row gives two points, pawn one row further gives one point
+     */
+    private static final int SHIELD_BONUS = 6;
+
+    private static final int SHIELD_BITS = 4;
+
+    private static final long SHIELD_MASK = 0xFL;
+
+    /**
+     * endgame bonuses for each square of distance of enemy king
+     * and penalty for distance of own king to square in front of passed pawn
+     */
+    private static final int PASSED_ENEMY_KING_DISTANCE = 5;
+
+    private static final int PASSED_OWN_KING_DISTANCE = 2;
+
+    private static final int UP = 0;
+
+    private static final int DOWN = 1;
+
+    private static final long[] FILES = new long[NUMBER_OF_FILES];
+
+    private static final long[] ADJACENT_FILES = new long[NUMBER_OF_FILES];
+
+    private static final long[] ROWS = new long[NUMBER_OF_FILES];
+
+    /**
+     * squares in front of pawn on its file, indexed by direction and square
+     */
+    private static final long[][] FRONT = new long[2][Bitboards.NUMBER_OF_SQUARES];
+
+    /**
+     * squares in front of pawn on its and adjacent files, pawn is passed
+     * when there is no enemy pawn on them
+     */
+    private static final long[][] PASSED_SPAN = new long[2][Bitboards.NUMBER_OF_SQUARES];
+
+    static
+    {
+        for (int i = 0; i < NUMBER_OF_FILES; i++)
+        {
+            FILES[i] = Bitboards.FILE_A << i;
+            ROWS[i] = 0xFFL << (i * NUMBER_OF_FILES);
+        }
+        for (int x = 0; x < NUMBER_OF_FILES; x++)
+        {
+            ADJACENT_FILES[x] = (x > 0 ? FILES[x - 1] : 0L) | (x < NUMBER_OF_FILES - 1 ? FILES[x + 1] : 0L);
+        }
+        for (int square = 0; square < Bitboards.NUMBER_OF_SQUARES; square++)
+        {
+            int x = Bitboards.getX(square);
+            int y = Bitboards.getY(square);
+            for (int row = 0; row < NUMBER_OF_FILES; row++)
+            {
+                int direction = row < y ? UP : DOWN;
+                if (row != y)
+                {
+                    FRONT[direction][square] |= FILES[x] & ROWS[row];
+                    PASSED_SPAN[direction][square] |= (FILES[x] | ADJACENT_FILES[x]) & ROWS[row];
+                }
+            }
+        }
+    }
+
+    private Evaluation()
+    {
+    }
+
+    /**
+     * Evaluates position without pawn hash table, pawn structure
+     * is computed from scratch.
+     * @param position position to evaluate
+     * @return score for side to move in centipawns
+     */
+    public static int evaluate(BitboardPosition position)
+    {
+        int side = position.getSideToMove();
+        int midgame = position.getMidgameScore(side) - position.getMidgameScore(1 - side)
+                + getStructureScore(position, side, DOUBLED_MIDGAME, ISOLATED_MIDGAME, PASSED_MIDGAME)
+                - getStructureScore(position, 1 - side, DOUBLED_MIDGAME, ISOLATED_MIDGAME, PASSED_MIDGAME)
+                + getShieldBonus(position, getShields(position, side), side)
+                - getShieldBonus(position, getShields(position, 1 - side), 1 - side);
+        int endgame = position.getEndgameScore(side) - position.getEndgameScore(1 - side)
+                + getStructureScore(position, side, DOUBLED_ENDGAME, ISOLATED_ENDGAME, PASSED_ENDGAME)
+                - getStructureScore(position, 1 - side, DOUBLED_ENDGAME, ISOLATED_ENDGAME, PASSED_ENDGAME)
+                + getPassedPawnsBonus(position, getPassedPawns(position, side), side)
+                - getPassedPawnsBonus(position, getPassedPawns(position, 1 - side), 1 - side);
+        return taper(position, midgame, endgame);
+    }
+
+    /**
+     * @param position position to evaluate
+     * @param pawnHashTable table with cached pawn structures
+     * @return score for side to move in centipawns
+     */
+    public static int evaluate(BitboardPosition position, PawnHashTable pawnHashTable)
+    {
+        int side = position.getSideToMove();
+        int midgame = position.getMidgameScore(side) - position.getMidgameScore(1 - side);
+        int endgame = position.getEndgameScore(side) - position.getEndgameScore(1 - side);
+
+        int entry = pawnHashTable.probe(position.getPawnKey());
+        if (PawnHashTable.NOT_FOUND == entry)
+        {
+            entry = evaluatePawnStructure(position, pawnHashTable);
+        }
+        int sign = BitboardPosition.WHITE == side ? 1 : -1;
+        midgame += sign * pawnHashTable.getMidgameScore(entry)
+                + getShieldBonus(position, pawnHashTable.getShields(entry, side), side)
+                - getShieldBonus(position, pawnHashTable.getShields(entry, 1 - side), 1 - side);
+        endgame += sign * pawnHashTable.getEndgameScore(entry)
+                + getPassedPawnsBonus(position, pawnHashTable.getPassedPawns(entry, side), side)
+                - getPassedPawnsBonus(position, pawnHashTable.getPassedPawns(entry, 1 - side), 1 - side);
+        return taper(position, midgame, endgame);
+    }
+
+    private static int taper(BitboardPosition position, int midgame, int endgame)
+    {
+        int phase = Math.min(position.getPhase(), PieceSquareTables.MAX_PHASE);
+        return (midgame * phase + endgame * (PieceSquareTables.MAX_PHASE - phase)) / PieceSquareTables.MAX_PHASE;
+    }
+
+    private static int evaluatePawnStructure(BitboardPosition position, PawnHashTable pawnHashTable)
+    {
+        int white = BitboardPosition.WHITE;
+        int black = BitboardPosition.BLACK;
+        return pawnHashTable.store(
+            position.getPawnKey(),
+            getStructureScore(position, white, DOUBLED_MIDGAME, ISOLATED_MIDGAME, PASSED_MIDGAME)
+                - getStructureScore(position, black, DOUBLED_MIDGAME, ISOLATED_MIDGAME, PASSED_MIDGAME),
+            getStructureScore(position, white, DOUBLED_ENDGAME, ISOLATED_ENDGAME, PASSED_ENDGAME)
+                - getStructureScore(position, black, DOUBLED_ENDGAME, ISOLATED_ENDGAME, PASSED_ENDGAME),
+            getPassedPawns(position, white), getPassedPawns(position, black),
+            getShields(position, white), getShields(position, black)
+        );
+    }
+
+    /**
+     * @param position position to evaluate
+     * @param color color of pawns
+     * @param doubled penalty for each additional pawn on file
+     * @param isolated penalty for each isolated pawn
+     * @param passed bonuses of passed pawn indexed by rows advanced
+     * @return score of pawn structure of given color, positive is good for that color
+     */
+    private static int getStructureScore(BitboardPosition position, int color, int doubled, int isolated,
+            int[] passed)
+    {
+        long ownPawns = position.getPieces(color, BitboardPosition.PAWN);
+        int score = 0;
+        for (int x = 0; x < NUMBER_OF_FILES; x++)
+        {
+            int count = Long.bitCount(ownPawns & FILES[x]);
+            if (count > 1)
+            {
+                score -= doubled * (count - 1);
+            }
+            if (count > 0 && 0L == (ownPawns & ADJACENT_FILES[x]))
+            {
+                score -= isolated * count;
+            }
+        }
+        int direction = getDirection(position, color);
+        for (long pawns = getPassedPawns(position, color); 0L != pawns; pawns &= pawns - 1)
+        {
+            score += passed[getAdvance(Bitboards.getY(Bitboards.firstSquare(pawns)), direction)];
+        }
+        return score;
+    }
+
+    private static long getPassedPawns(BitboardPosition position, int color)
+    {
+        int direction = getDirection(position, color);
+        long ownPawns = position.getPieces(color, BitboardPosition.PAWN);
+        long enemyPawns = position.getPieces(1 - color, BitboardPosition.PAWN);
+        long passed = 0L;
+        for (long pawns = ownPawns; 0L != pawns; pawns &= pawns - 1)
+        {
+            int square = Bitboards.firstSquare(pawns);
+            if (0L == (enemyPawns & PASSED_SPAN[direction][square])
+                    && 0L == (ownPawns & FRONT[direction][square]))
+            {
+                passed |= Bitboards.bit(square);
+            }
+        }
+        return passed;
+    }
+
+    private static long getShields(BitboardPosition position, int color)
+    {
+        return computeShields(position.getPieces(color, BitboardPosition.PAWN), getDirection(position, color));
+    }
+
+    /**
+     * @param pawns pawns of side
+     * @param direction direction of pawns
+     * @return shield values for king standing on each file of its first row,
+     * four bits for each file
+     */
+    private static long computeShields(long pawns, int direction)
+    {
+        int firstRow = getFirstRow(direction);
+        int step = UP == direction ? -1 : 1;
+        long shields = 0L;
+        for (int x = 0; x < NUMBER_OF_FILES; x++)
+        {
+            long files = FILES[x] | ADJACENT_FILES[x];
+            long shield = 2 * Long.bitCount(pawns & files & ROWS[firstRow + step])
+                    + Long.bitCount(pawns & files & ROWS[firstRow + 2 * step]);
+            shields |= shield << (x * SHIELD_BITS);
+        }
+        return shields;
+    }
+
+    private static int getShieldBonus(BitboardPosition position, long shields, int color)
+    {
+        int king = position.getKingSquare(color);
+        if (BitboardPosition.NO_SQUARE == king
+                || Bitboards.getY(king) != getFirstRow(getDirection(position, color)))
+        {
+            return 0;
+        }
+        return SHIELD_BONUS * (int) ((shields >>> (Bitboards.getX(king) * SHIELD_BITS)) & SHIELD_MASK);
+    }
+
+    private static int getPassedPawnsBonus(BitboardPosition position, long passed, int color)
+    {
+        int ownKing = position.getKingSquare(color);
+        int enemyKing = position.getKingSquare(1 - color);
+        if (0L == passed || BitboardPosition.NO_SQUARE == ownKing || BitboardPosition.NO_SQUARE == enemyKing)
+        {
+            return 0;
+        }
+        int step = UP == getDirection(position, color) ? -NUMBER_OF_FILES : NUMBER_OF_FILES;
+        int bonus = 0;
+        for (; 0L != passed; passed &= passed - 1)
+        {
+            int stop = Bitboards.firstSquare(passed) + step;
+            bonus += PASSED_ENEMY_KING_DISTANCE * getDistance(enemyKing, stop)
+                    - PASSED_OWN_KING_DISTANCE * getDistance(ownKing, stop);
+        }
+        return bonus;
+    }
+
+    private static int getDistance(int from, int to)
+    {
+        return Math.max(
+            Math.abs(Bitboards.getX(from) - Bitboards.getX(to)),
+            Math.abs(Bitboards.getY(from) - Bitboards.getY(to))
+        );
+    }
+
+    private static int getDirection(BitboardPosition position, int color)
+    {
+        return position.getPawnDirection(color) < 0 ? UP : DOWN;
+    }
+
+    private static int getFirstRow(int direction)
+    {
+        return UP == direction ? NUMBER_OF_FILES - 1 : 0;
+    }
+
+    /**
+     * @param y row of pawn
+     * @param direction direction of pawn
+     * @return number of rows advanced from starting row
+     */
+    private static int getAdvance(int y, int direction)
+    {
+        int advance = UP == direction ? NUMBER_OF_FILES - 2 - y : y - 1;
+        return Math.max(0, Math.min(PASSED_MIDGAME.length - 1, advance));
+    }
+}
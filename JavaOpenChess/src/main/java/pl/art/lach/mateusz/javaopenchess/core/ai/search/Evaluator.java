@@ -0,0 +1,55 @@
+/*
+#    This program is free software: you can redistribute it and/or modify
+#    it under the terms of the GNU General Public License as published by
+#    the Free Software Foundation, either version 3 of the License, or
+#    (at your option) any later version.
+#
+#    This program is distributed in the hope that it will be useful,
+#    but WITHOUT ANY WARRANTY; without even the implied warranty of
+#    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+#    GNU General Public License for more details.
+#
+#    You should have received a copy of the GNU General Public License
+#    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package pl.art.lach.mateusz.javaopenchess.core.ai.search;
+
+import pl.art.lach.mateusz.javaopenchess.core.BitboardPosition;
+
+/**
+ * Static evaluation used by search. Evaluator may keep state, so every
+ * search thread has its own instance, see EvaluatorFactory.
+ */
+public interface Evaluator
+{
+    /**
+     * @param position position to evaluate
+     * @return score for side to move in centipawns
+     */
+    int evaluate(BitboardPosition position);
+
+    /**
+     * Called when new search starts, resets statistics of evaluator
+     * and lets it start following changes of searched position.
+     */
+    default void newSearch()
+    {
+    }
+
+    /**
+     * Called when search ends (also when it was stopped), evaluator has
+     * to stop following changes of searched position.
+     */
+    default void searchFinished()
+    {
+    }
+
+    /**
+     * @return permill of pawn hash table probes which hit, 0 if evaluator
+     * does not use pawn hash table
+     */
+    default int getPawnHashHitRate()
+    {
+        return 0;
+    }
+}
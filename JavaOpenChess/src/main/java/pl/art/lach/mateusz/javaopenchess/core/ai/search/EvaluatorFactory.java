@@ -0,0 +1,59 @@
+/*
+#    This program is free software: you can redistribute it and/or modify
+#    it under the terms of the GNU General Public License as published by
+#    the Free Software Foundation, either version 3 of the License, or
+#    (at your option) any later version.
+#
+#    This program is distributed in the hope that it will be useful,
+#    but WITHOUT ANY WARRANTY; without even the implied warranty of
+#    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+#    GNU General Public License for more details.
+#
+#    You should have received a copy of the GNU General Public License
+#    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package pl.art.lach.mateusz.javaopenchess.core.ai.search;
+
+import pl.art.lach.mateusz.javaopenchess.core.BitboardPosition;
+import pl.art.lach.mateusz.javaopenchess.core.ai.nnue.NnueEvaluator;
+import pl.art.lach.mateusz.javaopenchess.core.ai.nnue.NnueNetwork;
+
+/**
+ * Creates evaluators for searches: neural evaluator when network is
+ * loaded (see NnueNetwork.FILE_PROPERTY), classical one otherwise.
+ */
+public final class EvaluatorFactory
+{
+    private EvaluatorFactory()
+    {
+    }
+
+    /**
+     * @param position position which will be searched, evaluator may listen to its changes
+     * @return new evaluator for one search thread
+     */
+    public static Evaluator createEvaluator(BitboardPosition position)
+    {
+        return createEvaluator(position, null);
+    }
+
+    /**
+     * @param position position which will be searched, evaluator may listen to its changes
+     * @param pawnHashTable pawn hash table owned by search thread and kept between moves,
+     * when null classical evaluator gets new table
+     * @return new evaluator for one search thread
+     */
+    public static Evaluator createEvaluator(BitboardPosition position, PawnHashTable pawnHashTable)
+    {
+        NnueNetwork network = NnueNetwork.getDefault();
+        if (null != network)
+        {
+            return new NnueEvaluator(network, position);
+        }
+        if (null == pawnHashTable)
+        {
+            return new ClassicalEvaluator();
+        }
+        return new ClassicalEvaluator(pawnHashTable);
+    }
+}
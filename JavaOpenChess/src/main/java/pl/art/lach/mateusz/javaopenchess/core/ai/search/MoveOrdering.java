@@ -0,0 +1,263 @@
+/*
+#    This program is free software: you can redistribute it and/or modify
+#    it under the terms of the GNU General Public License as published by
+#    the Free Software Foundation, either version 3 of the License, or
+#    (at your option) any later version.
+#
+#    This program is distributed in the hope that it will be useful,
+#    but WITHOUT ANY WARRANTY; without even the implied warranty of
+#    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+#    GNU General Public License for more details.
+#
+#    You should have received a copy of the GNU General Public License
+#    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package pl.art.lach.mateusz.javaopenchess.core.ai.search;
+
+import java.util.Arrays;
+import pl.art.lach.mateusz.javaopenchess.core.BitboardPosition;
+import pl.art.lach.mateusz.javaopenchess.core.moves.MoveList;
+import pl.art.lach.mateusz.javaopenchess.core.moves.PackedMove;
+
+/**
+ * Move ordering for alpha-beta search. Moves of one node are scored once
+ * and then picked one by one, best first (so moves after cutoff are never
+ * sorted). Order is: hash move, captures and queen promotions by MVV-LVA
+ * (most valuable victim, least valuable attacker), killer moves of the ply,
+ * countermove of opponent's last move and other quiet moves by history
+ * of piece and destination square. Object is used by one search thread.
+ */
+public class MoveOrdering
+{
+    private static final int HASH_MOVE_SCORE = 1 << 30;
+
+    private static final int CAPTURE_SCORE = 1 << 28;
+
+    private static final int FIRST_KILLER_SCORE = (1 << 27) + 1;
+
+    private static final int SECOND_KILLER_SCORE = 1 << 27;
+
+    private static final int COUNTERMOVE_SCORE = 1 << 26;
+
+    /**
+     * history scores are kept in range [-MAX_HISTORY, MAX_HISTORY],
+     * below score of countermove
+     */
+    private static final int MAX_HISTORY = 1 << 20;
+
+    private static final int PIECES = 2 * BitboardPosition.NUMBER_OF_PIECE_TYPES;
+
+    private static final int SQUARES = 64;
+
+    private static final int KILLERS = 2;
+
+    private static final int INITIAL_MOVES = 64;
+
+    /**
+     * victim values used by MVV-LVA, indexed by piece type
+     */
+    private static final int[] VICTIM_VALUES = {1, 3, 3, 5, 9, 100};
+
+    private final int[][] killers;
+
+    private final int[][] history = new int[PIECES][SQUARES];
+
+    private final int[][] countermoves = new int[PIECES][SQUARES];
+
+    private final int[][] scores;
+
+    public MoveOrdering(int maxPly)
+    {
+        killers = new int[maxPly][KILLERS];
+        scores = new int[maxPly][INITIAL_MOVES];
+    }
+
+    /**
+     * Computes order scores of all moves of node.
+     * @param moves moves of node
+     * @param ply distance from root
+     * @param hashMove move from transposition table or PackedMove.NO_MOVE
+     * @param previousMove move which led to this node or PackedMove.NO_MOVE
+     */
+    public void scoreMoves(MoveList moves, int ply, int hashMove, int previousMove)
+    {
+        if (scores[ply].length < moves.size())
+        {
+            scores[ply] = new int[moves.size()];
+        }
+        int[] plyScores = scores[ply];
+        int countermove = getCountermove(previousMove);
+        for (int i = 0; i < moves.size(); i++)
+        {
+            int move = moves.get(i);
+            if (move == hashMove)
+            {
+                plyScores[i] = HASH_MOVE_SCORE;
+            }
+            else if (isTactical(move))
+            {
+                plyScores[i] = CAPTURE_SCORE + getMvvLva(move);
+            }
+            else if (move == killers[ply][0])
+            {
+                plyScores[i] = FIRST_KILLER_SCORE;
+            }
+            else if (move == killers[ply][1])
+            {
+                plyScores[i] = SECOND_KILLER_SCORE;
+            }
+            else if (move == countermove)
+            {
+                plyScores[i] = COUNTERMOVE_SCORE;
+            }
+            else
+            {
+                plyScores[i] = history[PackedMove.getMovedPiece(move)][PackedMove.getTo(move)];
+            }
+        }
+    }
+
+    /**
+     * Moves best of not yet searched moves to given index.
+     * @param moves moves of node scored by scoreMoves()
+     * @param ply distance from root
+     * @param index index of next move to search
+     * @return move with the highest score from index to end of list
+     */
+    public int next(MoveList moves, int ply, int index)
+    {
+        int[] plyScores = scores[ply];
+        int best = index;
+        for (int i = index + 1; i < moves.size(); i++)
+        {
+            if (plyScores[i] > plyScores[best])
+            {
+                best = i;
+            }
+        }
+        if (best != index)
+        {
+            moves.swap(best, index);
+            int score = plyScores[best];
+            plyScores[best] = plyScores[index];
+            plyScores[index] = score;
+        }
+        return moves.get(index);
+    }
+
+    /**
+     * Updates killers, history and countermoves after move caused beta cutoff.
+     * Quiet moves searched before it (moves from 0 to index - 1) get history malus.
+     * @param moves moves of node in order of searching
+     * @param index index of move which caused cutoff
+     * @param ply distance from root
+     * @param depth remaining depth of node
+     * @param previousMove move which led to this node or PackedMove.NO_MOVE
+     */
+    public void updateCutoff(MoveList moves, int index, int ply, int depth, int previousMove)
+    {
+        int move = moves.get(index);
+        if (isTactical(move))
+        {
+            return;
+        }
+        if (killers[ply][0] != move)
+        {
+            killers[ply][1] = killers[ply][0];
+            killers[ply][0] = move;
+        }
+        if (PackedMove.NO_MOVE != previousMove)
+        {
+            countermoves[PackedMove.getMovedPiece(previousMove)][PackedMove.getTo(previousMove)] = move;
+        }
+        int bonus = Math.min(depth * depth, MAX_HISTORY / 4);
+        updateHistory(move, bonus);
+        for (int i = 0; i < index; i++)
+        {
+            int tried = moves.get(i);
+            if (!isTactical(tried))
+            {
+                updateHistory(tried, -bonus);
+            }
+        }
+    }
+
+    /**
+     * Clears killers, killer moves of previous search
+     * were found for other positions.
+     * History is halved, so newer results are more important.
+     */
+    public void newSearch()
+    {
+        for (int[] plyKillers : killers)
+        {
+            Arrays.fill(plyKillers, PackedMove.NO_MOVE);
+        }
+        for (int[] pieceHistory : history)
+        {
+            for (int square = 0; square < SQUARES; square++)
+            {
+                pieceHistory[square] /= 2;
+            }
+        }
+    }
+
+    public int getHistory(int move)
+    {
+        return history[PackedMove.getMovedPiece(move)][PackedMove.getTo(move)];
+    }
+
+    public boolean isKiller(int move, int ply)
+    {
+        return move == killers[ply][0] || move == killers[ply][1];
+    }
+
+    /**
+     * @param move packed move
+     * @return true for captures and queen promotions
+     */
+    public static boolean isTactical(int move)
+    {
+        return PackedMove.isCapture(move) || BitboardPosition.QUEEN == PackedMove.getPromotion(move);
+    }
+
+    /**
+     * @param move capture or promotion
+     * @return MVV-LVA score, higher for more valuable victim and less valuable attacker
+     */
+    public static int getMvvLva(int move)
+    {
+        int score = 0;
+        if (PackedMove.isCapture(move))
+        {
+            int victim = BitboardPosition.getTypeOfPiece(PackedMove.getCapturedPiece(move));
+            score = VICTIM_VALUES[victim] * PIECES;
+        }
+        if (PackedMove.isPromotion(move))
+        {
+            score += VICTIM_VALUES[PackedMove.getPromotion(move)] * PIECES;
+        }
+        int attacker = BitboardPosition.getTypeOfPiece(PackedMove.getMovedPiece(move));
+        return score + PIECES - 1 - attacker;
+    }
+
+    private int getCountermove(int previousMove)
+    {
+        if (PackedMove.NO_MOVE == previousMove)
+        {
+            return PackedMove.NO_MOVE;
+        }
+        return countermoves[PackedMove.getMovedPiece(previousMove)][PackedMove.getTo(previousMove)];
+    }
+
+    /**
+     * History gravity: value moves towards +/- MAX_HISTORY
+     * slower when it is already big, so it never overflows.
+     */
+    private void updateHistory(int move, int bonus)
+    {
+        int[] pieceHistory = history[PackedMove.getMovedPiece(move)];
+        int to = PackedMove.getTo(move);
+        pieceHistory[to] += bonus - pieceHistory[to] * Math.abs(bonus) / MAX_HISTORY;
+    }
+}
@@ -0,0 +1,324 @@
+/*
+#    This program is free software: you can redistribute it and/or modify
+#    it under the terms of the GNU General Public License as published by
+#    the Free Software Foundation, either version 3 of the License, or
+#    (at your option) any later version.
+#
+#    This program is distributed in the hope that it will be useful,
+#    but WITHOUT ANY WARRANTY; without even the implied warranty of
+#    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+#    GNU General Public License for more details.
+#
+#    You should have received a copy of the GNU General Public License
+#    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package pl.art.lach.mateusz.javaopenchess.core.ai.search;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.log4j.Logger;
+import pl.art.lach.mateusz.javaopenchess.core.Chessboard;
+
+/**
+ * Lazy SMP: position is searched at the same time by main search
+ * (in calling thread) and helper searches running on copies of chessboard.
+ * All of them share one transposition table, so results found by one
+ * thread are used by others. Helpers start from varied depths, so they
+ * do not repeat exactly the same work. Move of the search which completed
+ * the deepest iteration is returned.
+ * Number of helper threads used by all searches in the application
+ * is limited by global cap, read from system property
+ * {@value #MAX_HELPERS_PROPERTY} (default: number of processors - 1).
+ * When cap is reached search runs with fewer helpers.
+ * Each thread has its own pawn hash table, which caller may keep
+ * between moves like transposition table.
+ */
+public class ParallelSearch
+{
+    private static final Logger LOG = Logger.getLogger(ParallelSearch.class);
+
+    public static final String MAX_HELPERS_PROPERTY = "javaopenchess.search.maxHelperThreads";
+
+    private static final int MAX_HELPERS = Integer.getInteger(
+        MAX_HELPERS_PROPERTY, Math.max(0, Runtime.getRuntime().availableProcessors() - 1)
+    );
+
+    private static final Semaphore HELPER_PERMITS = new Semaphore(MAX_HELPERS);
+
+    private static final ExecutorService HELPERS = Executors.newCachedThreadPool(new HelperThreadFactory());
+
+    /**
+     * helper searches start from depth 1 + HELPER_DEPTH_OFFSETS[i % length]
+     */
+    private static final int[] HELPER_DEPTH_OFFSETS = {1, 0, 2, 1};
+
+    private final Chessboard chessboard;
+
+    private final TranspositionTable transpositionTable;
+
+    private final int threads;
+
+    private final PawnHashTable[] pawnHashTables;
+
+    private final Search mainSearch;
+
+    private final List<Search> helperSearches = new ArrayList<>();
+
+    private volatile boolean stopped = false;
+
+    private SearchOptions options = new SearchOptions();
+
+    private long nodes = 0L;
+
+    private int completedDepth = 0;
+
+    private int bestScore = 0;
+
+    /**
+     * @param chessboard chessboard to search, used by main search
+     * @param transpositionTable table shared by all threads
+     * @param threads number of threads including calling one
+     */
+    public ParallelSearch(Chessboard chessboard, TranspositionTable transpositionTable, int threads)
+    {
+        this(chessboard, transpositionTable, createPawnHashTables(threads));
+    }
+
+    /**
+     * @param chessboard chessboard to search, used by main search
+     * @param transpositionTable table shared by all threads
+     * @param pawnHashTables pawn hash table for each thread (first one for
+     * calling thread), number of tables is number of threads
+     */
+    public ParallelSearch(Chessboard chessboard, TranspositionTable transpositionTable,
+            PawnHashTable[] pawnHashTables)
+    {
+        this.chessboard = chessboard;
+        this.transpositionTable = transpositionTable;
+        this.threads = pawnHashTables.length;
+        this.pawnHashTables = pawnHashTables;
+        this.mainSearch = new Search(chessboard, transpositionTable, pawnHashTables[0]);
+    }
+
+    /**
+     * @param threads number of threads including calling one
+     * @return new pawn hash table for each thread
+     */
+    public static PawnHashTable[] createPawnHashTables(int threads)
+    {
+        PawnHashTable[] result = new PawnHashTable[Math.max(1, threads)];
+        for (int i = 0; i < result.length; i++)
+        {
+            result[i] = new PawnHashTable();
+        }
+        return result;
+    }
+
+    /**
+     * Searches position in all threads until time is up or max depth is reached.
+     * @param timeMillis time budget in milliseconds
+     * @param maxDepth max depth of search
+     * @return best move found or PackedMove.NO_MOVE if there is no legal move
+     */
+    public int search(long timeMillis, int maxDepth)
+    {
+        mainSearch.setTimeManager(null);
+        return run(timeMillis, maxDepth);
+    }
+
+    /**
+     * Searches position in all threads until main search reaches soft limit
+     * of time manager after completed iteration, or its hard limit.
+     * @param timeManager time budget of the move
+     * @param maxDepth max depth of search
+     * @return best move found or PackedMove.NO_MOVE if there is no legal move
+     */
+    public int search(TimeManager timeManager, int maxDepth)
+    {
+        mainSearch.setTimeManager(timeManager);
+        return run(timeManager.getRemainingMillis(), maxDepth);
+    }
+
+    private int run(long timeMillis, int maxDepth)
+    {
+        int helpers = acquireHelpers(threads - 1);
+        List<Future<?>> futures = new ArrayList<>(helpers);
+        try
+        {
+            transpositionTable.newSearch();
+            for (int i = 0; i < helpers; i++)
+            {
+                final Search helper = new Search(
+                    chessboard.createCopy(), transpositionTable, pawnHashTables[i + 1]
+                );
+                helper.setOptions(options);
+                final int startDepth = 1 + HELPER_DEPTH_OFFSETS[i % HELPER_DEPTH_OFFSETS.length];
+                synchronized (helperSearches)
+                {
+                    helperSearches.add(helper);
+                    if (stopped)
+                    {
+                        helper.stop();
+                    }
+                }
+                futures.add(HELPERS.submit(() -> helper.iterativeDeepening(timeMillis, startDepth, maxDepth)));
+            }
+            mainSearch.iterativeDeepening(timeMillis, 1, maxDepth);
+        }
+        finally
+        {
+            stopHelpers();
+            waitFor(futures);
+            HELPER_PERMITS.release(helpers);
+        }
+        return selectBestMove();
+    }
+
+    /**
+     * Listener gets progress of main search, with nodes of all threads.
+     * @param listener listener notified after every completed iteration
+     */
+    public void addListener(SearchListener listener)
+    {
+        mainSearch.addListener(info -> listener.iterationCompleted(info.withNodes(countNodes())));
+    }
+
+    /**
+     * @param options switches of selective search techniques, used by all threads
+     */
+    public void setOptions(SearchOptions options)
+    {
+        this.options = options;
+        mainSearch.setOptions(options);
+    }
+
+    /**
+     * Stops all threads of running search.
+     */
+    public void stop()
+    {
+        stopped = true;
+        mainSearch.stop();
+        stopHelpers();
+    }
+
+    private void stopHelpers()
+    {
+        synchronized (helperSearches)
+        {
+            for (Search helper : helperSearches)
+            {
+                helper.stop();
+            }
+        }
+    }
+
+    private long countNodes()
+    {
+        long result = mainSearch.getNodes();
+        synchronized (helperSearches)
+        {
+            for (Search helper : helperSearches)
+            {
+                result += helper.getNodes();
+            }
+        }
+        return result;
+    }
+
+    private int selectBestMove()
+    {
+        Search best = mainSearch;
+        nodes = mainSearch.getNodes();
+        synchronized (helperSearches)
+        {
+            for (Search helper : helperSearches)
+            {
+                nodes += helper.getNodes();
+                if (helper.getCompletedDepth() > best.getCompletedDepth())
+                {
+                    best = helper;
+                }
+            }
+        }
+        completedDepth = best.getCompletedDepth();
+        bestScore = best.getBestScore();
+        return best.getBestMove();
+    }
+
+    private static void waitFor(List<Future<?>> futures)
+    {
+        for (Future<?> future : futures)
+        {
+            try
+            {
+                future.get();
+            }
+            catch (InterruptedException exc)
+            {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            catch (ExecutionException exc)
+            {
+                LOG.error("helper search failed", exc.getCause());
+            }
+        }
+    }
+
+    private static int acquireHelpers(int wanted)
+    {
+        int result = 0;
+        while (result < wanted && HELPER_PERMITS.tryAcquire())
+        {
+            result++;
+        }
+        return result;
+    }
+
+    /**
+     * @return global cap of helper threads
+     */
+    public static int getMaxHelpers()
+    {
+        return MAX_HELPERS;
+    }
+
+    /**
+     * @return nodes searched by all threads in last search
+     */
+    public long getNodes()
+    {
+        return nodes;
+    }
+
+    public int getCompletedDepth()
+    {
+        return completedDepth;
+    }
+
+    public int getBestScore()
+    {
+        return bestScore;
+    }
+
+    private static class HelperThreadFactory implements ThreadFactory
+    {
+        private final AtomicInteger counter = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable)
+        {
+            Thread thread = new Thread(runnable, "search-helper-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,190 @@
+/*
+#    This program is free software: you can redistribute it and/or modify
+#    it under the terms of the GNU General Public License as published by
+#    the Free Software Foundation, either version 3 of the License, or
+#    (at your option) any later version.
+#
+#    This program is distributed in the hope that it will be useful,
+#    but WITHOUT ANY WARRANTY; without even the implied warranty of
+#    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+#    GNU General Public License for more details.
+#
+#    You should have received a copy of the GNU General Public License
+#    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package pl.art.lach.mateusz.javaopenchess.core.ai.search;
+
+import java.util.Arrays;
+import pl.art.lach.mateusz.javaopenchess.core.BitboardPosition;
+
+/**
+ * Small hash table caching evaluation of pawn structure, indexed by
+ * pawn key of position (Zobrist key of pawns only). Pawn structure
+ * changes only with pawn moves, so nearly every probe of search hits
+ * and evaluation of doubled, isolated and passed pawns and of pawn
+ * shields is almost free. Each entry keeps middlegame and endgame
+ * score (white minus black), passed pawns of both colors and shield
+ * values of king on each file.
+ * Table is not thread safe, every search thread has its own one.
+ */
+public final class PawnHashTable
+{
+    public static final int DEFAULT_SIZE = 1 << 14;
+
+    public static final int NOT_FOUND = -1;
+
+    private static final int PERMILL = 1000;
+
+    private final long[] keys;
+
+    private final int[] midgameScores;
+
+    private final int[] endgameScores;
+
+    /**
+     * passed pawns of white and black, two longs per entry
+     */
+    private final long[] passedPawns;
+
+    /**
+     * shields of white and black king, two longs per entry, see getShield()
+     */
+    private final long[] shields;
+
+    private final boolean[] used;
+
+    private final int mask;
+
+    private long probes = 0L;
+
+    private long hits = 0L;
+
+    /**
+     * @param size number of entries, rounded down to power of two
+     */
+    public PawnHashTable(int size)
+    {
+        if (size <= 0)
+        {
+            throw new IllegalArgumentException("size of pawn hash table has to be positive: " + size);
+        }
+        int entries = Integer.highestOneBit(size);
+        this.keys = new long[entries];
+        this.midgameScores = new int[entries];
+        this.endgameScores = new int[entries];
+        this.passedPawns = new long[2 * entries];
+        this.shields = new long[2 * entries];
+        this.used = new boolean[entries];
+        this.mask = entries - 1;
+    }
+
+    public PawnHashTable()
+    {
+        this(DEFAULT_SIZE);
+    }
+
+    /**
+     * @param pawnKey pawn key of position
+     * @return entry index or NOT_FOUND if pawn structure is not stored
+     */
+    public int probe(long pawnKey)
+    {
+        probes++;
+        int entry = (int) pawnKey & mask;
+        if (used[entry] && keys[entry] == pawnKey)
+        {
+            hits++;
+            return entry;
+        }
+        return NOT_FOUND;
+    }
+
+    /**
+     * Stores evaluation of pawn structure, replacing previous entry.
+     * @param pawnKey pawn key of position
+     * @param midgame middlegame score, white minus black
+     * @param endgame endgame score, white minus black
+     * @param whitePassed passed pawns of white
+     * @param blackPassed passed pawns of black
+     * @param whiteShield shield values of white king
+     * @param blackShield shield values of black king
+     * @return index of entry
+     */
+    public int store(long pawnKey, int midgame, int endgame, long whitePassed, long blackPassed,
+            long whiteShield, long blackShield)
+    {
+        int entry = (int) pawnKey & mask;
+        keys[entry] = pawnKey;
+        midgameScores[entry] = midgame;
+        endgameScores[entry] = endgame;
+        passedPawns[2 * entry + BitboardPosition.WHITE] = whitePassed;
+        passedPawns[2 * entry + BitboardPosition.BLACK] = blackPassed;
+        shields[2 * entry + BitboardPosition.WHITE] = whiteShield;
+        shields[2 * entry + BitboardPosition.BLACK] = blackShield;
+        used[entry] = true;
+        return entry;
+    }
+
+    public int getMidgameScore(int entry)
+    {
+        return midgameScores[entry];
+    }
+
+    public int getEndgameScore(int entry)
+    {
+        return endgameScores[entry];
+    }
+
+    /**
+     * @param entry index of entry
+     * @param color color of pawns
+     * @return bitboard of passed pawns
+     */
+    public long getPassedPawns(int entry, int color)
+    {
+        return passedPawns[2 * entry + color];
+    }
+
+    /**
+     * @param entry index of entry
+     * @param color color of king
+     * @return shield values packed by four bits for each file of king
+     */
+    public long getShields(int entry, int color)
+    {
+        return shields[2 * entry + color];
+    }
+
+    public void clear()
+    {
+        Arrays.fill(used, false);
+        resetStatistics();
+    }
+
+    /**
+     * Resets counters of probes and hits, stored entries are kept.
+     */
+    public void resetStatistics()
+    {
+        probes = 0L;
+        hits = 0L;
+    }
+
+    public long getProbes()
+    {
+        return probes;
+    }
+
+    public long getHits()
+    {
+        return hits;
+    }
+
+    /**
+     * @return permill of probes which found stored pawn structure
+     */
+    public int getHitRate()
+    {
+        return 0L == probes ? 0 : (int) (hits * PERMILL / probes);
+    }
+}
@@ -0,0 +1,199 @@
+/*
+#    This program is free software: you can redistribute it and/or modify
+#    it under the terms of the GNU General Public License as published by
+#    the Free Software Foundation, either version 3 of the License, or
+#    (at your option) any later version.
+#
+#    This program is distributed in the hope that it will be useful,
+#    but WITHOUT ANY WARRANTY; without even the implied warranty of
+#    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+#    GNU General Public License for more details.
+#
+#    You should have received a copy of the GNU General Public License
+#    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package pl.art.lach.mateusz.javaopenchess.core.ai.search;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.log4j.Logger;
+import pl.art.lach.mateusz.javaopenchess.core.Chessboard;
+import pl.art.lach.mateusz.javaopenchess.core.moves.MoveList;
+import pl.art.lach.mateusz.javaopenchess.core.moves.PackedMove;
+
+/**
+ * Background search on opponent's time. After computer move is chosen,
+ * opponent reply is predicted from transposition table and position
+ * after both moves is searched in background thread, on copy of chessboard,
+ * until ponder is stopped. Results are stored in shared transposition table,
+ * so search after predicted reply (ponder hit) starts with them.
+ * One ponder belongs to one game and runs at most one task at a time.
+ */
+public class Ponder
+{
+    private static final Logger LOG = Logger.getLogger(Ponder.class);
+
+    /**
+     * ponder stops by itself after this time, so abandoned games do not
+     * keep searching
+     */
+    public static final long MAX_PONDER_TIME = 60000L;
+
+    private static final long NANOS_IN_MILLI = 1000000L;
+
+    private static final ExecutorService PONDER_THREADS = Executors.newCachedThreadPool(new PonderThreadFactory());
+
+    private final TranspositionTable transpositionTable;
+
+    private final PawnHashTable pawnHashTable;
+
+    private Search search = null;
+
+    private Future<?> task = null;
+
+    private int predictedMove = PackedMove.NO_MOVE;
+
+    private long startTime = 0L;
+
+    private long elapsedMillis = 0L;
+
+    /**
+     * @param transpositionTable table shared with searches of the game
+     */
+    public Ponder(TranspositionTable transpositionTable)
+    {
+        this(transpositionTable, new PawnHashTable());
+    }
+
+    /**
+     * @param transpositionTable table shared with searches of the game
+     * @param pawnHashTable pawn hash table kept between ponderings, it may be
+     * table of main search thread, as pondering is stopped before search starts
+     */
+    public Ponder(TranspositionTable transpositionTable, PawnHashTable pawnHashTable)
+    {
+        this.transpositionTable = transpositionTable;
+        this.pawnHashTable = pawnHashTable;
+    }
+
+    /**
+     * Starts pondering, previous pondering is stopped first.
+     * @param chessboard chessboard with position before computer move, not modified
+     * @param move computer move
+     * @param maxDepth max depth of search
+     * @return true if opponent reply was predicted and pondering started
+     */
+    public synchronized boolean start(Chessboard chessboard, int move, int maxDepth)
+    {
+        stop();
+        predictedMove = PackedMove.NO_MOVE;
+        Chessboard copy = chessboard.createCopy();
+        copy.makeMove(move);
+        long entry = transpositionTable.probe(copy.getZobristKey());
+        int reply = TranspositionTable.getMove(entry);
+        MoveList replies = copy.getLegalMoves();
+        if (TranspositionTable.NO_ENTRY == entry || !replies.contains(reply))
+        {
+            return false;
+        }
+        copy.makeMove(reply);
+        predictedMove = reply;
+        final Search ponderSearch = new Search(copy, transpositionTable, pawnHashTable);
+        search = ponderSearch;
+        startTime = System.nanoTime();
+        elapsedMillis = 0L;
+        task = PONDER_THREADS.submit(() -> ponderSearch.search(MAX_PONDER_TIME, maxDepth));
+        LOG.debug("pondering on " + PackedMove.toString(reply));
+        return true;
+    }
+
+    /**
+     * Stops pondering and waits until background search ends.
+     * Results of stopped search stay available.
+     */
+    public synchronized void stop()
+    {
+        if (null == task)
+        {
+            return;
+        }
+        search.stop();
+        try
+        {
+            task.get();
+        }
+        catch (InterruptedException exc)
+        {
+            Thread.currentThread().interrupt();
+        }
+        catch (ExecutionException exc)
+        {
+            LOG.error("ponder search failed", exc.getCause());
+        }
+        elapsedMillis = (System.nanoTime() - startTime) / NANOS_IN_MILLI;
+        task = null;
+    }
+
+    /**
+     * @param move opponent move which was really played
+     * @return true if pondering was done after this move
+     */
+    public synchronized boolean isHit(int move)
+    {
+        return PackedMove.NO_MOVE != predictedMove
+                && PackedMove.getFrom(move) == PackedMove.getFrom(predictedMove)
+                && PackedMove.getTo(move) == PackedMove.getTo(predictedMove)
+                && PackedMove.getPromotion(move) == PackedMove.getPromotion(predictedMove);
+    }
+
+    /**
+     * @return true if pondering was started and not stopped yet
+     */
+    public synchronized boolean isRunning()
+    {
+        return null != task;
+    }
+
+    public synchronized int getPredictedMove()
+    {
+        return predictedMove;
+    }
+
+    /**
+     * @return best move of last pondering or PackedMove.NO_MOVE
+     */
+    public synchronized int getBestMove()
+    {
+        return null == search ? PackedMove.NO_MOVE : search.getBestMove();
+    }
+
+    public synchronized int getCompletedDepth()
+    {
+        return null == search ? 0 : search.getCompletedDepth();
+    }
+
+    /**
+     * @return time of last pondering in milliseconds, known after stop()
+     */
+    public synchronized long getElapsedMillis()
+    {
+        return elapsedMillis;
+    }
+
+    private static class PonderThreadFactory implements ThreadFactory
+    {
+        private final AtomicInteger counter = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable)
+        {
+            Thread thread = new Thread(runnable, "search-ponder-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,945 @@
+/*
+#    This program is free software: you can redistribute it and/or modify
+#    it under the terms of the GNU General Public License as published by
+#    the Free Software Foundation, either version 3 of the License, or
+#    (at your option) any later version.
+#
+#    This program is distributed in the hope that it will be useful,
+#    but WITHOUT ANY WARRANTY; without even the implied warranty of
+#    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+#    GNU General Public License for more details.
+#
+#    You should have received a copy of the GNU General Public License
+#    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package pl.art.lach.mateusz.javaopenchess.core.ai.search;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import pl.art.lach.mateusz.javaopenchess.core.BitboardPosition;
+import pl.art.lach.mateusz.javaopenchess.core.Chessboard;
+import pl.art.lach.mateusz.javaopenchess.core.UndoState;
+import pl.art.lach.mateusz.javaopenchess.core.ai.tablebase.Tablebases;
+import pl.art.lach.mateusz.javaopenchess.core.bitboards.Bitboards;
+import pl.art.lach.mateusz.javaopenchess.core.moves.MoveList;
+import pl.art.lach.mateusz.javaopenchess.core.moves.PackedMove;
+
+/**
+ * Negamax alpha-beta search with iterative deepening. Search is selective:
+ * principal variation search with aspiration windows at root, null move
+ * pruning, late move reductions, futility pruning and razoring near leaves,
+ * check and passed pawn extensions; every technique can be switched off
+ * by SearchOptions.
+ * Moves are made on given chessboard with Chessboard.makeMove()
+ * and taken back with unmakeMove(), so after search the chessboard
+ * is in the same state as before. Search is stopped when time budget
+ * is used up and the best move of last completed iteration is returned.
+ */
+public class Search
+{
+    public static final int MAX_PLY = 128;
+
+    public static final int INFINITY = 1000000;
+
+    public static final int MATE = 100000;
+
+    /**
+     * scores above this value mean mate in some number of moves
+     */
+    public static final int MATE_BOUND = MATE - MAX_PLY;
+
+    public static final int DRAW = 0;
+
+    private static final int FIFTY_MOVES_RULE = 100;
+
+    /**
+     * time is checked every 1024 nodes
+     */
+    private static final long TIME_CHECK_MASK = 1023L;
+
+    private static final long NANOS_IN_MILLI = 1000000L;
+
+    /**
+     * returned by pruning when node cannot be cut
+     */
+    private static final int NO_SCORE = Integer.MIN_VALUE;
+
+    private static final int ASPIRATION_MIN_DEPTH = 5;
+
+    private static final int ASPIRATION_WINDOW = 25;
+
+    private static final int MAX_ASPIRATION_WINDOW = 1000;
+
+    private static final int NULL_MOVE_MIN_DEPTH = 3;
+
+    private static final int NULL_MOVE_REDUCTION = 2;
+
+    private static final int NULL_MOVE_DEPTH_DIVISOR = 6;
+
+    private static final int LMR_MIN_DEPTH = 3;
+
+    private static final int LMR_MIN_MOVES = 3;
+
+    private static final int MAX_REDUCTION_INDEX = 63;
+
+    private static final double LMR_BASE = 0.75;
+
+    private static final double LMR_DIVISOR = 2.25;
+
+    /**
+     * late move reductions by depth and index of move
+     */
+    private static final int[][] REDUCTIONS = new int[MAX_REDUCTION_INDEX + 1][MAX_REDUCTION_INDEX + 1];
+
+    /**
+     * futility margins by remaining depth, pruning is used only for depth 1 and 2
+     */
+    private static final int[] FUTILITY_MARGINS = {0, 200, 350};
+
+    /**
+     * razoring margins by remaining depth, razoring is used only for depth 1 and 2
+     */
+    private static final int[] RAZOR_MARGINS = {0, 300, 500};
+
+    private static final int SECOND_ROW = 1;
+
+    private static final int LAST_BUT_ONE_ROW = 6;
+
+    static
+    {
+        for (int depth = 1; depth <= MAX_REDUCTION_INDEX; depth++)
+        {
+            for (int index = 1; index <= MAX_REDUCTION_INDEX; index++)
+            {
+                REDUCTIONS[depth][index] = (int) (LMR_BASE + Math.log(depth) * Math.log(index) / LMR_DIVISOR);
+            }
+        }
+    }
+
+    private final Chessboard chessboard;
+
+    private final TranspositionTable transpositionTable;
+
+    /**
+     * static evaluation, not shared with other threads
+     */
+    private Evaluator evaluator;
+
+    private final MoveList[] moveLists = new MoveList[MAX_PLY];
+
+    private final UndoState[] undoStates = new UndoState[MAX_PLY];
+
+    /**
+     * moves made on current search path, for countermove heuristic
+     */
+    private final int[] playedMoves = new int[MAX_PLY];
+
+    private final MoveOrdering moveOrdering = new MoveOrdering(MAX_PLY);
+
+    /**
+     * Zobrist keys of positions on current search path, for repetitions
+     */
+    private final long[] keys = new long[MAX_PLY + 1];
+
+    private long nodes = 0L;
+
+    private long deadline = Long.MAX_VALUE;
+
+    private volatile boolean stopped = false;
+
+    private int bestMove = PackedMove.NO_MOVE;
+
+    private int bestScore = 0;
+
+    private int completedDepth = 0;
+
+    /**
+     * score of last root search, may be outside of aspiration window
+     */
+    private int rootScore = 0;
+
+    private SearchOptions options = new SearchOptions();
+
+    private TimeManager timeManager = null;
+
+    /**
+     * triangular table of principal variations: line found at ply
+     * is kept in pvMoves[ply][ply .. pvLengths[ply] - 1]
+     */
+    private final int[][] pvMoves = new int[MAX_PLY + 1][MAX_PLY + 1];
+
+    private final int[] pvLengths = new int[MAX_PLY + 1];
+
+    private int[] principalVariation = new int[0];
+
+    private int selectiveDepth = 0;
+
+    private long startTime = 0L;
+
+    private final List<SearchListener> listeners = new CopyOnWriteArrayList<>();
+
+    public Search(Chessboard chessboard)
+    {
+        this(chessboard, new TranspositionTable());
+    }
+
+    /**
+     * @param chessboard chessboard to search, it is modified during search
+     * @param transpositionTable table which can be shared with other searches
+     */
+    public Search(Chessboard chessboard, TranspositionTable transpositionTable)
+    {
+        this(chessboard, transpositionTable, null);
+    }
+
+    /**
+     * @param chessboard chessboard to search, it is modified during search
+     * @param transpositionTable table which can be shared with other searches
+     * @param pawnHashTable pawn hash table used only by this search thread,
+     * when null new one is created
+     */
+    public Search(Chessboard chessboard, TranspositionTable transpositionTable, PawnHashTable pawnHashTable)
+    {
+        this.chessboard = chessboard;
+        this.transpositionTable = transpositionTable;
+        this.evaluator = EvaluatorFactory.createEvaluator(chessboard.getBitboardPosition(), pawnHashTable);
+        for (int i = 0; i < MAX_PLY; i++)
+        {
+            moveLists[i] = new MoveList();
+            undoStates[i] = new UndoState();
+        }
+    }
+
+    /**
+     * Searches position with increasing depth until time is up
+     * or max depth is reached. Search which has been stopped
+     * cannot be started again.
+     * @param timeMillis time budget in milliseconds
+     * @param maxDepth max depth of search
+     * @return best move found or PackedMove.NO_MOVE if there is no legal move
+     */
+    public int search(long timeMillis, int maxDepth)
+    {
+        transpositionTable.newSearch();
+        return iterativeDeepening(timeMillis, 1, maxDepth);
+    }
+
+    /**
+     * Searches position until soft limit of time manager is reached
+     * after completed iteration, or its hard limit during iteration.
+     * @param timeManager time budget of the move
+     * @param maxDepth max depth of search
+     * @return best move found or PackedMove.NO_MOVE if there is no legal move
+     */
+    public int search(TimeManager timeManager, int maxDepth)
+    {
+        setTimeManager(timeManager);
+        return search(timeManager.getRemainingMillis(), maxDepth);
+    }
+
+    /**
+     * @param timeManager time manager checked after every iteration, null for fixed time
+     */
+    public void setTimeManager(TimeManager timeManager)
+    {
+        this.timeManager = timeManager;
+    }
+
+    /**
+     * Same as search(long, int) but starts from given depth and does not
+     * mark new search in transposition table, used by helper threads
+     * of parallel search.
+     * @param timeMillis time budget in milliseconds
+     * @param startDepth depth of first iteration
+     * @param maxDepth max depth of search
+     * @return best move found or PackedMove.NO_MOVE if there is no legal move
+     */
+    public int iterativeDeepening(long timeMillis, int startDepth, int maxDepth)
+    {
+        evaluator.newSearch();
+        try
+        {
+            return deepen(timeMillis, startDepth, maxDepth);
+        }
+        finally
+        {
+            evaluator.searchFinished();
+        }
+    }
+
+    private int deepen(long timeMillis, int startDepth, int maxDepth)
+    {
+        nodes = 0L;
+        moveOrdering.newSearch();
+        bestMove = PackedMove.NO_MOVE;
+        bestScore = 0;
+        completedDepth = 0;
+        principalVariation = new int[0];
+        startTime = System.nanoTime();
+        deadline = startTime + timeMillis * NANOS_IN_MILLI;
+
+        MoveList rootMoves = generateMoves(0);
+        if (rootMoves.isEmpty())
+        {
+            return PackedMove.NO_MOVE;
+        }
+        bestMove = rootMoves.get(0);
+        int depthLimit = Math.min(maxDepth, MAX_PLY - 1);
+        for (int depth = Math.max(1, startDepth); depth <= depthLimit; depth++)
+        {
+            selectiveDepth = 0;
+            int move = searchRootWithAspiration(depth, rootMoves);
+            if (stopped)
+            {
+                break;
+            }
+            bestMove = move;
+            bestScore = rootScore;
+            completedDepth = depth;
+            principalVariation = Arrays.copyOf(pvMoves[0], pvLengths[0]);
+            notifyListeners();
+            if (Math.abs(bestScore) >= MATE_BOUND)
+            {
+                break;
+            }
+            if (null != timeManager)
+            {
+                timeManager.iterationCompleted(bestMove, bestScore);
+                if (timeManager.isSoftLimitReached())
+                {
+                    break;
+                }
+            }
+        }
+        return bestMove;
+    }
+
+    /**
+     * @param listener listener notified after every completed iteration
+     */
+    public void addListener(SearchListener listener)
+    {
+        listeners.add(listener);
+    }
+
+    public void removeListener(SearchListener listener)
+    {
+        listeners.remove(listener);
+    }
+
+    private void notifyListeners()
+    {
+        if (listeners.isEmpty())
+        {
+            return;
+        }
+        SearchInfo info = new SearchInfo(
+            completedDepth, selectiveDepth, bestScore, nodes,
+            (System.nanoTime() - startTime) / NANOS_IN_MILLI,
+            transpositionTable.getHashfull(), evaluator.getPawnHashHitRate(), principalVariation
+        );
+        for (SearchListener listener : listeners)
+        {
+            listener.iterationCompleted(info);
+        }
+    }
+
+    /**
+     * Stops running search, best move of last completed iteration is returned.
+     */
+    public void stop()
+    {
+        stopped = true;
+    }
+
+    /**
+     * Searches root with aspiration window around score of previous
+     * iteration, window is widened after every fail low or fail high.
+     */
+    private int searchRootWithAspiration(int depth, MoveList rootMoves)
+    {
+        if (!options.isAspirationWindows() || depth < ASPIRATION_MIN_DEPTH || Math.abs(bestScore) >= MATE_BOUND)
+        {
+            return searchRoot(depth, rootMoves, -INFINITY, INFINITY);
+        }
+        int delta = ASPIRATION_WINDOW;
+        int alpha = bestScore - delta;
+        int beta = bestScore + delta;
+        while (true)
+        {
+            int move = searchRoot(depth, rootMoves, alpha, beta);
+            if (stopped || (rootScore > alpha && rootScore < beta))
+            {
+                return move;
+            }
+            delta *= 2;
+            if (delta > MAX_ASPIRATION_WINDOW)
+            {
+                alpha = -INFINITY;
+                beta = INFINITY;
+            }
+            else if (rootScore <= alpha)
+            {
+                alpha = rootScore - delta;
+            }
+            else
+            {
+                beta = rootScore + delta;
+            }
+        }
+    }
+
+    private int searchRoot(int depth, MoveList rootMoves, int alpha, int beta)
+    {
+        BitboardPosition position = chessboard.getBitboardPosition();
+        moveOrdering.scoreMoves(rootMoves, 0, bestMove, PackedMove.NO_MOVE);
+        keys[0] = chessboard.getZobristKey();
+        int originalAlpha = alpha;
+        int best = bestMove;
+        pvLengths[0] = 0;
+        for (int i = 0; i < rootMoves.size(); i++)
+        {
+            int move = moveOrdering.next(rootMoves, 0, i);
+            int newDepth = depth - 1 + getExtension(position, move);
+            playedMoves[0] = move;
+            chessboard.makeMove(move, undoStates[0]);
+            int score = searchMove(newDepth, alpha, beta, 1, 0 == i);
+            chessboard.unmakeMove(move, undoStates[0]);
+            if (stopped && depth > 1)
+            {
+                return best;
+            }
+            if (score > alpha)
+            {
+                alpha = score;
+                best = move;
+                updatePrincipalVariation(0, move);
+                if (score >= beta)
+                {
+                    break;
+                }
+            }
+        }
+        rootScore = alpha;
+        transpositionTable.store(keys[0], best, alpha, depth, getBound(alpha, originalAlpha, beta));
+        return best;
+    }
+
+    /**
+     * Searches move which has been made on chessboard. With principal
+     * variation search only first move gets full window, other moves
+     * are searched with null window and again if they raise alpha.
+     * @return score for side which made the move
+     */
+    private int searchMove(int depth, int alpha, int beta, int ply, boolean firstMove)
+    {
+        if (firstMove || !options.isPrincipalVariationSearch())
+        {
+            return -negamax(depth, -beta, -alpha, ply);
+        }
+        int score = -negamax(depth, -alpha - 1, -alpha, ply);
+        if (score > alpha && score < beta && !stopped)
+        {
+            score = -negamax(depth, -beta, -alpha, ply);
+        }
+        return score;
+    }
+
+    private int negamax(int depth, int alpha, int beta, int ply)
+    {
+        pvLengths[ply] = ply;
+        if (ply > selectiveDepth)
+        {
+            selectiveDepth = ply;
+        }
+        boolean inCheck = isInCheck();
+        if (inCheck && options.isCheckExtension())
+        {
+            depth++;
+        }
+        if (depth <= 0)
+        {
+            return quiescence(alpha, beta, ply);
+        }
+        if (isTimeUp())
+        {
+            return 0;
+        }
+        keys[ply] = chessboard.getZobristKey();
+        if (isDraw(ply))
+        {
+            return DRAW;
+        }
+        if (Tablebases.isAvailable())
+        {
+            int value = Tablebases.probe(chessboard.getBitboardPosition());
+            if (Tablebases.NOT_FOUND != value)
+            {
+                return getTablebaseScore(value, ply);
+            }
+        }
+        long entry = transpositionTable.probe(keys[ply]);
+        int hashMove = PackedMove.NO_MOVE;
+        if (TranspositionTable.NO_ENTRY != entry)
+        {
+            hashMove = TranspositionTable.getMove(entry);
+            if (TranspositionTable.getDepth(entry) >= depth)
+            {
+                int score = scoreFromTable(TranspositionTable.getScore(entry), ply);
+                int bound = TranspositionTable.getBound(entry);
+                if (TranspositionTable.BOUND_EXACT == bound
+                        || (TranspositionTable.BOUND_LOWER == bound && score >= beta)
+                        || (TranspositionTable.BOUND_UPPER == bound && score <= alpha))
+                {
+                    return score;
+                }
+            }
+        }
+        MoveList moves = generateMoves(ply);
+        if (moves.isEmpty())
+        {
+            return inCheck ? -MATE + ply : DRAW;
+        }
+        if (ply >= MAX_PLY - 1)
+        {
+            return evaluator.evaluate(chessboard.getBitboardPosition());
+        }
+        BitboardPosition position = chessboard.getBitboardPosition();
+        boolean pvNode = beta - alpha > 1;
+        boolean prunable = !pvNode && !inCheck && Math.abs(alpha) < MATE_BOUND && Math.abs(beta) < MATE_BOUND;
+        int staticEval = prunable ? evaluator.evaluate(position) : 0;
+        if (prunable)
+        {
+            int score = pruneNode(depth, alpha, beta, ply, position, staticEval);
+            if (NO_SCORE != score)
+            {
+                return score;
+            }
+        }
+        boolean futile = prunable && options.isFutilityPruning() && depth < FUTILITY_MARGINS.length
+                && staticEval + FUTILITY_MARGINS[depth] <= alpha;
+        int previousMove = playedMoves[ply - 1];
+        moveOrdering.scoreMoves(moves, ply, hashMove, previousMove);
+        int originalAlpha = alpha;
+        int best = PackedMove.NO_MOVE;
+        for (int i = 0; i < moves.size(); i++)
+        {
+            int move = moveOrdering.next(moves, ply, i);
+            boolean quiet = !MoveOrdering.isTactical(move);
+            int extension = getExtension(position, move);
+            int newDepth = depth - 1 + extension;
+            playedMoves[ply] = move;
+            chessboard.makeMove(move, undoStates[ply]);
+            boolean late = i > 0 && quiet && 0 == extension && !inCheck && !isInCheck();
+            if (futile && late)
+            {
+                chessboard.unmakeMove(move, undoStates[ply]);
+                continue;
+            }
+            int reduction = 0;
+            if (late && options.isLateMoveReductions() && depth >= LMR_MIN_DEPTH && i >= LMR_MIN_MOVES
+                    && !moveOrdering.isKiller(move, ply))
+            {
+                reduction = REDUCTIONS[Math.min(depth, MAX_REDUCTION_INDEX)][Math.min(i, MAX_REDUCTION_INDEX)];
+                if (pvNode)
+                {
+                    reduction--;
+                }
+                reduction = Math.max(0, Math.min(reduction, newDepth - 1));
+            }
+            int score;
+            if (reduction > 0)
+            {
+                score = -negamax(newDepth - reduction, -alpha - 1, -alpha, ply + 1);
+                if (score > alpha && !stopped)
+                {
+                    score = searchMove(newDepth, alpha, beta, ply + 1, false);
+                }
+            }
+            else
+            {
+                score = searchMove(newDepth, alpha, beta, ply + 1, 0 == i);
+            }
+            chessboard.unmakeMove(move, undoStates[ply]);
+            if (stopped)
+            {
+                return 0;
+            }
+            if (score >= beta)
+            {
+                moveOrdering.updateCutoff(moves, i, ply, depth, previousMove);
+                transpositionTable.store(keys[ply], move, scoreToTable(score, ply), depth, TranspositionTable.BOUND_LOWER);
+                return score;
+            }
+            if (score > alpha)
+            {
+                alpha = score;
+                best = move;
+                updatePrincipalVariation(ply, move);
+            }
+        }
+        int bound = alpha > originalAlpha ? TranspositionTable.BOUND_EXACT : TranspositionTable.BOUND_UPPER;
+        transpositionTable.store(keys[ply], best, scoreToTable(alpha, ply), depth, bound);
+        return alpha;
+    }
+
+    /**
+     * Razoring and null move pruning of node which is not on principal
+     * variation and not in check.
+     * @return score if node can be cut, NO_SCORE otherwise
+     */
+    private int pruneNode(int depth, int alpha, int beta, int ply, BitboardPosition position, int staticEval)
+    {
+        if (options.isRazoring() && depth < RAZOR_MARGINS.length && staticEval + RAZOR_MARGINS[depth] <= alpha)
+        {
+            int razorAlpha = alpha - RAZOR_MARGINS[depth];
+            int score = quiescence(razorAlpha, razorAlpha + 1, ply);
+            if (stopped)
+            {
+                return 0;
+            }
+            if (score <= razorAlpha)
+            {
+                return score;
+            }
+        }
+        if (options.isNullMove() && depth >= NULL_MOVE_MIN_DEPTH && staticEval >= beta
+                && PackedMove.NO_MOVE != playedMoves[ply - 1] && hasPieces(position, position.getSideToMove()))
+        {
+            int reduction = NULL_MOVE_REDUCTION + depth / NULL_MOVE_DEPTH_DIVISOR;
+            playedMoves[ply] = PackedMove.NO_MOVE;
+            chessboard.makeNullMove(undoStates[ply]);
+            int score = -negamax(depth - 1 - reduction, -beta, -beta + 1, ply + 1);
+            chessboard.unmakeNullMove(undoStates[ply]);
+            if (stopped)
+            {
+                return 0;
+            }
+            if (score >= beta)
+            {
+                return score >= MATE_BOUND ? beta : score;
+            }
+        }
+        return NO_SCORE;
+    }
+
+    /**
+     * @return 1 if move should be searched one ply deeper, 0 otherwise
+     */
+    private int getExtension(BitboardPosition position, int move)
+    {
+        return options.isPassedPawnExtension() && isPassedPawnPush(position, move) ? 1 : 0;
+    }
+
+    /**
+     * Pawn move to the last but one rank, such pawn is always passed,
+     * as there are no pawns on the last rank.
+     */
+    private static boolean isPassedPawnPush(BitboardPosition position, int move)
+    {
+        int piece = PackedMove.getMovedPiece(move);
+        if (BitboardPosition.PAWN != BitboardPosition.getTypeOfPiece(piece))
+        {
+            return false;
+        }
+        int direction = position.getPawnDirection(BitboardPosition.getColorOfPiece(piece));
+        int y = Bitboards.getY(PackedMove.getTo(move));
+        return direction < 0 ? SECOND_ROW == y : LAST_BUT_ONE_ROW == y;
+    }
+
+    /**
+     * @return true if side has other pieces than pawns and king
+     */
+    private static boolean hasPieces(BitboardPosition position, int color)
+    {
+        return 0L != (position.getPieces(color)
+                & ~position.getPieces(color, BitboardPosition.PAWN)
+                & ~position.getPieces(color, BitboardPosition.KING));
+    }
+
+    private static int getBound(int score, int alpha, int beta)
+    {
+        if (score >= beta)
+        {
+            return TranspositionTable.BOUND_LOWER;
+        }
+        return score > alpha ? TranspositionTable.BOUND_EXACT : TranspositionTable.BOUND_UPPER;
+    }
+
+    /**
+     * Searches only captures and queen promotions which do not lose
+     * material by static exchange evaluation, until position is quiet.
+     * Side to move can stand pat with static evaluation, unless it is
+     * in check, then all evasions are searched.
+     */
+    private int quiescence(int alpha, int beta, int ply)
+    {
+        pvLengths[ply] = ply;
+        if (ply > selectiveDepth)
+        {
+            selectiveDepth = ply;
+        }
+        if (isTimeUp())
+        {
+            return 0;
+        }
+        keys[ply] = chessboard.getZobristKey();
+        if (isDraw(ply))
+        {
+            return DRAW;
+        }
+        BitboardPosition position = chessboard.getBitboardPosition();
+        MoveList moves;
+        if (isInCheck())
+        {
+            moves = generateMoves(ply);
+            if (moves.isEmpty())
+            {
+                return -MATE + ply;
+            }
+            if (ply >= MAX_PLY - 1)
+            {
+                return evaluator.evaluate(position);
+            }
+        }
+        else
+        {
+            int standPat = evaluator.evaluate(position);
+            if (standPat >= beta || ply >= MAX_PLY - 1)
+            {
+                return standPat;
+            }
+            if (standPat > alpha)
+            {
+                alpha = standPat;
+            }
+            moves = generateCaptures(ply);
+            int count = 0;
+            for (int i = 0; i < moves.size(); i++)
+            {
+                int move = moves.get(i);
+                if (StaticExchange.isAtLeast(position, move, 0))
+                {
+                    moves.set(count++, move);
+                }
+            }
+            moves.truncate(count);
+        }
+        moveOrdering.scoreMoves(moves, ply, PackedMove.NO_MOVE, PackedMove.NO_MOVE);
+        for (int i = 0; i < moves.size(); i++)
+        {
+            int move = moveOrdering.next(moves, ply, i);
+            playedMoves[ply] = move;
+            chessboard.makeMove(move, undoStates[ply]);
+            int score = -quiescence(-beta, -alpha, ply + 1);
+            chessboard.unmakeMove(move, undoStates[ply]);
+            if (stopped)
+            {
+                return 0;
+            }
+            if (score >= beta)
+            {
+                return score;
+            }
+            if (score > alpha)
+            {
+                alpha = score;
+            }
+        }
+        return alpha;
+    }
+
+    /**
+     * Sets line of given ply to move followed by line of next ply.
+     */
+    private void updatePrincipalVariation(int ply, int move)
+    {
+        int[] line = pvMoves[ply];
+        int[] childLine = pvMoves[ply + 1];
+        line[ply] = move;
+        int length = Math.max(pvLengths[ply + 1], ply + 1);
+        System.arraycopy(childLine, ply + 1, line, ply + 1, length - ply - 1);
+        pvLengths[ply] = length;
+    }
+
+    /**
+     * Counts node and checks time every TIME_CHECK_MASK + 1 nodes.
+     * First iteration is always completed, so there is a move to return.
+     * @return true if search has been stopped
+     */
+    private boolean isTimeUp()
+    {
+        nodes++;
+        if (0L == (nodes & TIME_CHECK_MASK) && System.nanoTime() > deadline && completedDepth > 0)
+        {
+            stopped = true;
+        }
+        return stopped;
+    }
+
+    /**
+     * Mate scores are stored in table as distance from stored position,
+     * not from root of search.
+     */
+    private static int scoreToTable(int score, int ply)
+    {
+        if (score >= MATE_BOUND)
+        {
+            return score + ply;
+        }
+        if (score <= -MATE_BOUND)
+        {
+            return score - ply;
+        }
+        return score;
+    }
+
+    private static int scoreFromTable(int score, int ply)
+    {
+        if (score >= MATE_BOUND)
+        {
+            return score - ply;
+        }
+        if (score <= -MATE_BOUND)
+        {
+            return score + ply;
+        }
+        return score;
+    }
+
+    /**
+     * @param value value of position from endgame tables
+     * @param ply distance from root
+     * @return mate score with distance from tables or draw score
+     */
+    private static int getTablebaseScore(int value, int ply)
+    {
+        if (Tablebases.isWin(value))
+        {
+            return MATE - ply - Tablebases.getPlies(value);
+        }
+        if (Tablebases.isLoss(value))
+        {
+            return -MATE + ply + Tablebases.getPlies(value);
+        }
+        return DRAW;
+    }
+
+    private boolean isDraw(int ply)
+    {
+        if (chessboard.getHalfCounter() >= FIFTY_MOVES_RULE)
+        {
+            return true;
+        }
+        for (int i = ply - 2; i >= 0; i -= 2)
+        {
+            if (keys[i] == keys[ply])
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean isInCheck()
+    {
+        BitboardPosition position = chessboard.getBitboardPosition();
+        return position.getLegalMoveGenerator().isInCheck(position.getSideToMove());
+    }
+
+    private MoveList generateMoves(int ply)
+    {
+        MoveList moves = moveLists[ply];
+        moves.clear();
+        BitboardPosition position = chessboard.getBitboardPosition();
+        position.getLegalMoveGenerator().generateLegalMoves(position.getSideToMove(), moves);
+        return moves;
+    }
+
+    private MoveList generateCaptures(int ply)
+    {
+        MoveList moves = moveLists[ply];
+        moves.clear();
+        BitboardPosition position = chessboard.getBitboardPosition();
+        position.getLegalMoveGenerator().generateCaptures(position.getSideToMove(), moves);
+        return moves;
+    }
+
+    public long getNodes()
+    {
+        return nodes;
+    }
+
+    /**
+     * @return permill of pawn hash table probes which hit in current search
+     */
+    public int getPawnHashHitRate()
+    {
+        return evaluator.getPawnHashHitRate();
+    }
+
+    public int getBestMove()
+    {
+        return bestMove;
+    }
+
+    /**
+     * @return score of best move from last completed iteration, for side to move
+     */
+    public int getBestScore()
+    {
+        return bestScore;
+    }
+
+    public TranspositionTable getTranspositionTable()
+    {
+        return transpositionTable;
+    }
+
+    public SearchOptions getOptions()
+    {
+        return options;
+    }
+
+    /**
+     * @return evaluator used by this search
+     */
+    public Evaluator getEvaluator()
+    {
+        return evaluator;
+    }
+
+    /**
+     * @param evaluator evaluator used by this search only, the previous one is finished
+     */
+    public void setEvaluator(Evaluator evaluator)
+    {
+        if (evaluator != this.evaluator)
+        {
+            this.evaluator.searchFinished();
+            this.evaluator = evaluator;
+        }
+    }
+
+    /**
+     * @param options switches of selective search techniques
+     */
+    public void setOptions(SearchOptions options)
+    {
+        this.options = options;
+    }
+
+    public int getCompletedDepth()
+    {
+        return completedDepth;
+    }
+
+    /**
+     * @return best line of last completed iteration as packed moves
+     */
+    public int[] getPrincipalVariation()
+    {
+        return principalVariation.clone();
+    }
+}
@@ -0,0 +1,162 @@
+/*
+#    This program is free software: you can redistribute it and/or modify
+#    it under the terms of the GNU General Public License as published by
+#    the Free Software Foundation, either version 3 of the License, or
+#    (at your option) any later version.
+#
+#    This program is distributed in the hope that it will be useful,
+#    but WITHOUT ANY WARRANTY; without even the implied warranty of
+#    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+#    GNU General Public License for more details.
+#
+#    You should have received a copy of the GNU General Public License
+#    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package pl.art.lach.mateusz.javaopenchess.core.ai.search;
+
+import pl.art.lach.mateusz.javaopenchess.core.moves.PackedMove;
+
+/**
+ * Statistics of one completed iteration of search: depth, selective
+ * depth (longest searched line including quiescence), score for side
+ * to move, nodes, time, transposition table usage, hit rate of pawn
+ * hash table and principal variation.
+ * String form is one line of key=value pairs, easy to parse from logs.
+ */
+public final class SearchInfo
+{
+    private static final long MILLIS_IN_SECOND = 1000L;
+
+    private final int depth;
+
+    private final int selectiveDepth;
+
+    private final int score;
+
+    private final long nodes;
+
+    private final long timeMillis;
+
+    private final int hashfull;
+
+    private final int pawnHashHitRate;
+
+    private final int[] principalVariation;
+
+    /**
+     * @param depth depth of completed iteration
+     * @param selectiveDepth max ply reached in iteration
+     * @param score score of best move for side to move
+     * @param nodes nodes searched from start of search
+     * @param timeMillis time from start of search
+     * @param hashfull usage of transposition table in permille
+     * @param pawnHashHitRate permille of pawn hash table probes which hit
+     * @param principalVariation best line as packed moves
+     */
+    public SearchInfo(int depth, int selectiveDepth, int score, long nodes, long timeMillis, int hashfull,
+            int pawnHashHitRate, int[] principalVariation)
+    {
+        this.depth = depth;
+        this.selectiveDepth = selectiveDepth;
+        this.score = score;
+        this.nodes = nodes;
+        this.timeMillis = timeMillis;
+        this.hashfull = hashfull;
+        this.pawnHashHitRate = pawnHashHitRate;
+        this.principalVariation = principalVariation.clone();
+    }
+
+    /**
+     * @param totalNodes nodes of all threads of search
+     * @return the same info with other number of nodes
+     */
+    public SearchInfo withNodes(long totalNodes)
+    {
+        return new SearchInfo(depth, selectiveDepth, score, totalNodes, timeMillis, hashfull, pawnHashHitRate,
+            principalVariation);
+    }
+
+    public int getDepth()
+    {
+        return depth;
+    }
+
+    public int getSelectiveDepth()
+    {
+        return selectiveDepth;
+    }
+
+    public int getScore()
+    {
+        return score;
+    }
+
+    public long getNodes()
+    {
+        return nodes;
+    }
+
+    public long getTimeMillis()
+    {
+        return timeMillis;
+    }
+
+    /**
+     * @return nodes per second
+     */
+    public long getNodesPerSecond()
+    {
+        return nodes * MILLIS_IN_SECOND / Math.max(1L, timeMillis);
+    }
+
+    /**
+     * @return usage of transposition table in permille
+     */
+    public int getHashfull()
+    {
+        return hashfull;
+    }
+
+    /**
+     * @return permill of pawn hash table probes which hit
+     */
+    public int getPawnHashHitRate()
+    {
+        return pawnHashHitRate;
+    }
+
+    /**
+     * @return best line as packed moves, first move is move of side to move
+     */
+    public int[] getPrincipalVariation()
+    {
+        return principalVariation.clone();
+    }
+
+    /**
+     * @return best line in coordinate notation, moves separated by spaces
+     */
+    public String getPrincipalVariationString()
+    {
+        StringBuilder result = new StringBuilder();
+        for (int move : principalVariation)
+        {
+            if (result.length() > 0)
+            {
+                result.append(' ');
+            }
+            result.append(PackedMove.toString(move));
+        }
+        return result.toString();
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format(
+            "depth=%d seldepth=%d score=%d nodes=%d nps=%d hashfull=%d pawnhits=%d time=%d pv=%s",
+            depth, selectiveDepth, score, nodes, getNodesPerSecond(), hashfull, pawnHashHitRate, timeMillis,
+            getPrincipalVariationString()
+        );
+    }
+}
@@ -0,0 +1,36 @@
+/*
+#    This program is free software: you can redistribute it and/or modify
+#    it under the terms of the GNU General Public License as published by
+#    the Free Software Foundation, either version 3 of the License, or
+#    (at your option) any later version.
+#
+#    This program is distributed in the hope that it will be useful,
+#    but WITHOUT ANY WARRANTY; without even the implied warranty of
+#    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+#    GNU General Public License for more details.
+#
+#    You should have received a copy of the GNU General Public License
+#    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package pl.art.lach.mateusz.javaopenchess.core.ai.search;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Writes progress of search to log, one line of key=value pairs
+ * per iteration, at INFO level of this class category, so the feed
+ * can be switched on and routed separately in log4j configuration.
+ */
+public class SearchInfoLogger implements SearchListener
+{
+    private static final Logger LOG = Logger.getLogger(SearchInfoLogger.class);
+
+    @Override
+    public void iterationCompleted(SearchInfo info)
+    {
+        if (LOG.isInfoEnabled())
+        {
+            LOG.info(info);
+        }
+    }
+}
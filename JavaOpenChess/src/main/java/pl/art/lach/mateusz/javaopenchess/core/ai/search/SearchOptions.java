@@ -0,0 +1,172 @@
+/*
+#    This program is free software: you can redistribute it and/or modify
+#    it under the terms of the GNU General Public License as published by
+#    the Free Software Foundation, either version 3 of the License, or
+#    (at your option) any later version.
+#
+#    This program is distributed in the hope that it will be useful,
+#    but WITHOUT ANY WARRANTY; without even the implied warranty of
+#    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+#    GNU General Public License for more details.
+#
+#    You should have received a copy of the GNU General Public License
+#    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package pl.art.lach.mateusz.javaopenchess.core.ai.search;
+
+/**
+ * Switches of selective search techniques, so their effect on nodes
+ * and strength can be measured separately. All techniques are on
+ * by default; default of every switch can be changed by system property
+ * javaopenchess.search.NAME, e.g. -Djavaopenchess.search.nullMove=false.
+ */
+public class SearchOptions
+{
+    public static final String PROPERTY_PREFIX = "javaopenchess.search.";
+
+    /**
+     * principal variation search: moves after the first one are searched
+     * with null window and searched again only if they may be better
+     */
+    protected boolean principalVariationSearch = getDefault("principalVariationSearch");
+
+    /**
+     * root is searched with narrow window around score of previous iteration
+     */
+    protected boolean aspirationWindows = getDefault("aspirationWindows");
+
+    /**
+     * side to move passes, if reduced search still fails high node is cut;
+     * not used when side to move has only pawns (zugzwang)
+     */
+    protected boolean nullMove = getDefault("nullMove");
+
+    /**
+     * late quiet moves are searched with reduced depth first
+     */
+    protected boolean lateMoveReductions = getDefault("lateMoveReductions");
+
+    /**
+     * quiet moves near leaves are skipped if static evaluation
+     * with margin cannot reach alpha
+     */
+    protected boolean futilityPruning = getDefault("futilityPruning");
+
+    /**
+     * nodes near leaves with static evaluation far below alpha
+     * are resolved by quiescence search
+     */
+    protected boolean razoring = getDefault("razoring");
+
+    /**
+     * positions in check are searched one ply deeper
+     */
+    protected boolean checkExtension = getDefault("checkExtension");
+
+    /**
+     * passed pawn push to the last but one rank is searched one ply deeper
+     */
+    protected boolean passedPawnExtension = getDefault("passedPawnExtension");
+
+    /**
+     * @return options with all selective techniques switched off (plain alpha-beta)
+     */
+    public static SearchOptions fullWidth()
+    {
+        SearchOptions result = new SearchOptions();
+        result.principalVariationSearch = false;
+        result.aspirationWindows = false;
+        result.nullMove = false;
+        result.lateMoveReductions = false;
+        result.futilityPruning = false;
+        result.razoring = false;
+        result.checkExtension = false;
+        result.passedPawnExtension = false;
+        return result;
+    }
+
+    private static boolean getDefault(String name)
+    {
+        return Boolean.parseBoolean(System.getProperty(PROPERTY_PREFIX + name, Boolean.TRUE.toString()));
+    }
+
+    public boolean isPrincipalVariationSearch()
+    {
+        return principalVariationSearch;
+    }
+
+    public void setPrincipalVariationSearch(boolean principalVariationSearch)
+    {
+        this.principalVariationSearch = principalVariationSearch;
+    }
+
+    public boolean isAspirationWindows()
+    {
+        return aspirationWindows;
+    }
+
+    public void setAspirationWindows(boolean aspirationWindows)
+    {
+        this.aspirationWindows = aspirationWindows;
+    }
+
+    public boolean isNullMove()
+    {
+        return nullMove;
+    }
+
+    public void setNullMove(boolean nullMove)
+    {
+        this.nullMove = nullMove;
+    }
+
+    public boolean isLateMoveReductions()
+    {
+        return lateMoveReductions;
+    }
+
+    public void setLateMoveReductions(boolean lateMoveReductions)
+    {
+        this.lateMoveReductions = lateMoveReductions;
+    }
+
+    public boolean isFutilityPruning()
+    {
+        return futilityPruning;
+    }
+
+    public void setFutilityPruning(boolean futilityPruning)
+    {
+        this.futilityPruning = futilityPruning;
+    }
+
+    public boolean isRazoring()
+    {
+        return razoring;
+    }
+
+    public void setRazoring(boolean razoring)
+    {
+        this.razoring = razoring;
+    }
+
+    public boolean isCheckExtension()
+    {
+        return checkExtension;
+    }
+
+    public void setCheckExtension(boolean checkExtension)
+    {
+        this.checkExtension = checkExtension;
+    }
+
+    public boolean isPassedPawnExtension()
+    {
+        return passedPawnExtension;
+    }
+
+    public void setPassedPawnExtension(boolean passedPawnExtension)
+    {
+        this.passedPawnExtension = passedPawnExtension;
+    }
+}
@@ -0,0 +1,150 @@
+/*
+#    This program is free software: you can redistribute it and/or modify
+#    it under the terms of the GNU General Public License as published by
+#    the Free Software Foundation, either version 3 of the License, or
+#    (at your option) any later version.
+#
+#    This program is distributed in the hope that it will be useful,
+#    but WITHOUT ANY WARRANTY; without even the implied warranty of
+#    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+#    GNU General Public License for more details.
+#
+#    You should have received a copy of the GNU General Public License
+#    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package pl.art.lach.mateusz.javaopenchess.core.ai.search;
+
+import pl.art.lach.mateusz.javaopenchess.core.BitboardPosition;
+import pl.art.lach.mateusz.javaopenchess.core.Chessboard;
+import pl.art.lach.mateusz.javaopenchess.core.bitboards.Bitboards;
+import pl.art.lach.mateusz.javaopenchess.core.moves.Move;
+import pl.art.lach.mateusz.javaopenchess.core.moves.PackedMove;
+
+/**
+ * Static exchange evaluation (SEE): material balance of all captures
+ * on destination square of a move, when both sides capture with
+ * the least valuable piece first and may stop capturing at any time.
+ * Pieces behind other pieces on the same line (x-rays) join the exchange
+ * when the front piece has captured. Values are the ones of pieces
+ * (Pawn = 1, Knight = 3, Bishop = 3, Rook = 5, Queen = 9).
+ * Exchange is resolved recursively (one level for each capture, so at most
+ * one for each piece), without allocations, as it is called in every node.
+ */
+public final class StaticExchange
+{
+    /**
+     * values of piece types, indexed by BitboardPosition type
+     */
+    private static final int[] PIECE_VALUES = {1, 3, 3, 5, 9, 99};
+
+    private StaticExchange()
+    {
+    }
+
+    /**
+     * @param type piece type (BitboardPosition.PAWN ... KING)
+     * @return value of piece used by exchange evaluation
+     */
+    public static int getPieceValue(int type)
+    {
+        return PIECE_VALUES[type];
+    }
+
+    /**
+     * Evaluates move given in the form used by AI implementations.
+     * @param chessboard chessboard with move's position
+     * @param move move to evaluate
+     * @return material gained by moving side, negative if material is lost
+     */
+    public static int evaluate(Chessboard chessboard, Move move)
+    {
+        return evaluate(chessboard.getBitboardPosition(), PackedMove.fromMove(move));
+    }
+
+    /**
+     * @param position position before move
+     * @param move packed move
+     * @param threshold minimal gain
+     * @return true if exchange started by move gains at least threshold
+     */
+    public static boolean isAtLeast(BitboardPosition position, int move, int threshold)
+    {
+        return evaluate(position, move) >= threshold;
+    }
+
+    /**
+     * @param position position before move
+     * @param move packed move (capture or quiet)
+     * @return material gained by moving side, negative if material is lost
+     */
+    public static int evaluate(BitboardPosition position, int move)
+    {
+        int from = PackedMove.getFrom(move);
+        int to = PackedMove.getTo(move);
+        int movedPiece = PackedMove.getMovedPiece(move);
+        int side = BitboardPosition.getColorOfPiece(movedPiece);
+        int gain = 0;
+        long occupancy = position.getOccupancy() & ~Bitboards.bit(from);
+        if (PackedMove.isCapture(move))
+        {
+            gain = PIECE_VALUES[BitboardPosition.getTypeOfPiece(PackedMove.getCapturedPiece(move))];
+        }
+        int attackerValue = PIECE_VALUES[BitboardPosition.getTypeOfPiece(movedPiece)];
+        if (PackedMove.isPromotion(move))
+        {
+            int promotionValue = PIECE_VALUES[PackedMove.getPromotion(move)];
+            gain += promotionValue - PIECE_VALUES[BitboardPosition.PAWN];
+            attackerValue = promotionValue;
+        }
+        if (PackedMove.isEnPassant(move))
+        {
+            occupancy &= ~Bitboards.bit(Bitboards.getSquare(Bitboards.getX(to), Bitboards.getY(from)));
+        }
+        long attackers = getAttackers(position, to, occupancy);
+        return gain - getExchangeGain(position, to, occupancy, attackers, 1 - side, attackerValue);
+    }
+
+    /**
+     * @param position position before exchange
+     * @param square square of exchange
+     * @param occupancy occupancy without pieces which already captured
+     * @param attackers attackers of square found so far (including x-rays)
+     * @param side side which may capture now
+     * @param target value of piece standing on square
+     * @return material gained by side, which captures with least valuable
+     * piece or stops capturing when it would lose material
+     */
+    private static int getExchangeGain(BitboardPosition position, int square, long occupancy, long attackers,
+            int side, int target)
+    {
+        long sideAttackers = attackers & position.getPieces(side) & occupancy;
+        if (0L == sideAttackers)
+        {
+            return 0;
+        }
+        int type = getLeastValuableType(position, side, sideAttackers);
+        long attacker = sideAttackers & position.getPieces(side, type);
+        occupancy &= ~(attacker & -attacker);
+        attackers |= getAttackers(position, square, occupancy);
+        int gain = target - getExchangeGain(position, square, occupancy, attackers, 1 - side, PIECE_VALUES[type]);
+        return Math.max(0, gain);
+    }
+
+    private static long getAttackers(BitboardPosition position, int square, long occupancy)
+    {
+        return (position.getAttackers(square, BitboardPosition.WHITE, occupancy)
+                | position.getAttackers(square, BitboardPosition.BLACK, occupancy)) & occupancy;
+    }
+
+    private static int getLeastValuableType(BitboardPosition position, int side, long attackers)
+    {
+        for (int type = BitboardPosition.PAWN; type < BitboardPosition.KING; type++)
+        {
+            if (0L != (attackers & position.getPieces(side, type)))
+            {
+                return type;
+            }
+        }
+        return BitboardPosition.KING;
+    }
+}
@@ -0,0 +1,191 @@
+/*
+#    This program is free software: you can redistribute it and/or modify
+#    it under the terms of the GNU General Public License as published by
+#    the Free Software Foundation, either version 3 of the License, or
+#    (at your option) any later version.
+#
+#    This program is distributed in the hope that it will be useful,
+#    but WITHOUT ANY WARRANTY; without even the implied warranty of
+#    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+#    GNU General Public License for more details.
+#
+#    You should have received a copy of the GNU General Public License
+#    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package pl.art.lach.mateusz.javaopenchess.core.ai.search;
+
+import pl.art.lach.mateusz.javaopenchess.core.moves.PackedMove;
+
+/**
+ * Time budget of one computer move. Soft limit is time after which
+ * no new iteration is started, hard limit is deadline which search never
+ * passes. In timed game both limits come from remaining clock time,
+ * increment and move number and are never longer than move time;
+ * in game without clock soft limit is part of fixed move time and hard
+ * limit is the whole move time.
+ * Soft limit is stretched when best move changes or score drops between
+ * iterations and shrunk when best move stays the same.
+ */
+public class TimeManager
+{
+    /**
+     * time reserved for passing the move and for clock counting whole seconds
+     */
+    public static final long MOVE_OVERHEAD = 100L;
+
+    private static final long MIN_TIME = 10L;
+
+    private static final int MAX_MOVES_TO_GO = 40;
+
+    private static final int MIN_MOVES_TO_GO = 15;
+
+    /**
+     * one move never uses more than this part of remaining time
+     */
+    private static final int MAX_TIME_DIVISOR = 3;
+
+    private static final int HARD_LIMIT_FACTOR = 4;
+
+    private static final int INCREMENT_NUMERATOR = 3;
+
+    private static final int INCREMENT_DENOMINATOR = 4;
+
+    private static final int STABLE_ITERATIONS = 3;
+
+    private static final double STABLE_FACTOR = 0.5;
+
+    private static final double UNSTABLE_FACTOR = 2.0;
+
+    /**
+     * score drop (in centipawns) between iterations which stretches soft limit
+     */
+    private static final int SCORE_DROP = 50;
+
+    private static final long NANOS_IN_MILLI = 1000000L;
+
+    private final long startTime = System.nanoTime();
+
+    private final long softMillis;
+
+    private final long hardMillis;
+
+    private int lastBestMove = PackedMove.NO_MOVE;
+
+    private int lastScore = 0;
+
+    private int iterations = 0;
+
+    private int stableIterations = 0;
+
+    private double factor = 1.0;
+
+    /**
+     * @param softMillis soft limit in milliseconds
+     * @param hardMillis hard limit in milliseconds
+     */
+    public TimeManager(long softMillis, long hardMillis)
+    {
+        this.hardMillis = Math.max(MIN_TIME, hardMillis);
+        this.softMillis = Math.max(MIN_TIME, Math.min(softMillis, this.hardMillis));
+    }
+
+    /**
+     * @param remainingMillis remaining clock time of side to move
+     * @param incrementMillis time added to clock after every move
+     * @param moveNumber number of current move (full moves, from 1)
+     * @return time manager for timed game
+     */
+    public static TimeManager forClock(long remainingMillis, long incrementMillis, int moveNumber)
+    {
+        long available = Math.max(MIN_TIME, remainingMillis - MOVE_OVERHEAD);
+        int movesToGo = Math.max(MIN_MOVES_TO_GO, MAX_MOVES_TO_GO - moveNumber / 2);
+        long soft = available / movesToGo + incrementMillis * INCREMENT_NUMERATOR / INCREMENT_DENOMINATOR;
+        long hard = Math.min(available / MAX_TIME_DIVISOR + incrementMillis, soft * HARD_LIMIT_FACTOR);
+        return new TimeManager(soft, Math.min(hard, available));
+    }
+
+    /**
+     * @param remainingMillis remaining clock time of side to move
+     * @param incrementMillis time added to clock after every move
+     * @param moveNumber number of current move (full moves, from 1)
+     * @param moveTimeMillis max time of move, limits both clock limits
+     * @return time manager for timed game with limited move time
+     */
+    public static TimeManager forClock(long remainingMillis, long incrementMillis, int moveNumber, long moveTimeMillis)
+    {
+        TimeManager clock = forClock(remainingMillis, incrementMillis, moveNumber);
+        TimeManager moveTime = forMoveTime(moveTimeMillis);
+        return new TimeManager(
+            Math.min(clock.softMillis, moveTime.softMillis),
+            Math.min(clock.hardMillis, moveTime.hardMillis)
+        );
+    }
+
+    /**
+     * @param moveTimeMillis max time of move in game without clock
+     * @return time manager which may end search at half of move time
+     */
+    public static TimeManager forMoveTime(long moveTimeMillis)
+    {
+        return new TimeManager(moveTimeMillis / 2, moveTimeMillis);
+    }
+
+    /**
+     * Updates stability of best move after completed iteration.
+     * @param bestMove best move of iteration
+     * @param score score of best move
+     */
+    public void iterationCompleted(int bestMove, int score)
+    {
+        iterations++;
+        stableIterations = bestMove == lastBestMove ? stableIterations + 1 : 0;
+        if (iterations > 1 && (0 == stableIterations || score < lastScore - SCORE_DROP))
+        {
+            factor = UNSTABLE_FACTOR;
+        }
+        else if (stableIterations >= STABLE_ITERATIONS)
+        {
+            factor = STABLE_FACTOR;
+        }
+        else
+        {
+            factor = 1.0;
+        }
+        lastBestMove = bestMove;
+        lastScore = score;
+    }
+
+    /**
+     * @return true if next iteration should not be started
+     */
+    public boolean isSoftLimitReached()
+    {
+        return getElapsedMillis() >= getSoftMillis();
+    }
+
+    /**
+     * @return soft limit adjusted by stability of best move, never above hard limit
+     */
+    public long getSoftMillis()
+    {
+        return Math.min((long) (softMillis * factor), hardMillis);
+    }
+
+    public long getHardMillis()
+    {
+        return hardMillis;
+    }
+
+    /**
+     * @return time left to hard limit
+     */
+    public long getRemainingMillis()
+    {
+        return Math.max(0L, hardMillis - getElapsedMillis());
+    }
+
+    public long getElapsedMillis()
+    {
+        return (System.nanoTime() - startTime) / NANOS_IN_MILLI;
+    }
+}
@@ -0,0 +1,247 @@
+/*
+#    This program is free software: you can redistribute it and/or modify
+#    it under the terms of the GNU General Public License as published by
+#    the Free Software Foundation, either version 3 of the License, or
+#    (at your option) any later version.
+#
+#    This program is distributed in the hope that it will be useful,
+#    but WITHOUT ANY WARRANTY; without even the implied warranty of
+#    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+#    GNU General Public License for more details.
+#
+#    You should have received a copy of the GNU General Public License
+#    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package pl.art.lach.mateusz.javaopenchess.core.ai.search;
+
+import java.util.Arrays;
+
+/**
+ * Transposition table kept in one long array, so it does not create
+ * any objects while searching. Table is divided into buckets of two entries:
+ * first one is replaced only by deeper search (or entry from older search),
+ * second one is always replaced. Every entry takes two longs: position key
+ * xor data and data. Entry is valid only if both longs xor-ed give the key,
+ * so entries written in the same time by other threads (torn entries)
+ * are rejected and table can be shared between searches without locks.
+ * Data of entry is packed as follows:
+ * <pre>
+ * bits  0-27 move (PackedMove)
+ * bits 28-47 score + SCORE_OFFSET
+ * bits 48-55 depth
+ * bits 56-57 bound (LOWER, UPPER, EXACT)
+ * bits 58-63 age of search
+ * </pre>
+ * Scores are kept within MAX_SCORE, which fits the score bits.
+ */
+public final class TranspositionTable
+{
+    public static final long NO_ENTRY = 0L;
+
+    public static final int BOUND_LOWER = 1;
+
+    public static final int BOUND_UPPER = 2;
+
+    public static final int BOUND_EXACT = 3;
+
+    public static final int DEFAULT_SIZE_MB = 16;
+
+    private static final int BYTES_IN_MB = 1024 * 1024;
+
+    /**
+     * longs per bucket: two entries, each with checked key and data
+     */
+    private static final int BUCKET_LONGS = 4;
+
+    private static final int BUCKET_BYTES = BUCKET_LONGS * Long.BYTES;
+
+    private static final int MOVE_BITS = 28;
+
+    private static final int SCORE_SHIFT = 28;
+
+    private static final int SCORE_BITS = 20;
+
+    private static final int SCORE_OFFSET = 1 << (SCORE_BITS - 1);
+
+    /**
+     * largest absolute score stored, mate scores are within MAX_PLY of MATE
+     */
+    public static final int MAX_SCORE = Search.MATE + Search.MAX_PLY;
+
+    private static final int DEPTH_SHIFT = 48;
+
+    private static final int BOUND_SHIFT = 56;
+
+    private static final int AGE_SHIFT = 58;
+
+    private static final int AGE_MASK = 0x3F;
+
+    private static final int DEPTH_MASK = 0xFF;
+
+    private static final int BOUND_MASK = 0x3;
+
+    /**
+     * number of buckets sampled to compute how much of table is used
+     */
+    private static final int HASHFULL_SAMPLE = 500;
+
+    private static final int PERMILL = 1000;
+
+    private final long[] table;
+
+    private final long bucketMask;
+
+    private volatile int age = 0;
+
+    /**
+     * @param sizeMB size of table in megabytes, rounded down to power of two
+     */
+    public TranspositionTable(int sizeMB)
+    {
+        if (sizeMB <= 0)
+        {
+            throw new IllegalArgumentException("size of transposition table has to be positive: " + sizeMB);
+        }
+        long buckets = Long.highestOneBit((long) sizeMB * BYTES_IN_MB / BUCKET_BYTES);
+        if (buckets * BUCKET_LONGS > Integer.MAX_VALUE - BUCKET_LONGS)
+        {
+            buckets = Integer.highestOneBit((Integer.MAX_VALUE - BUCKET_LONGS) / BUCKET_LONGS);
+        }
+        this.table = new long[(int) (buckets * BUCKET_LONGS)];
+        this.bucketMask = buckets - 1;
+    }
+
+    public TranspositionTable()
+    {
+        this(DEFAULT_SIZE_MB);
+    }
+
+    /**
+     * @param key Zobrist key of position
+     * @return data of entry or NO_ENTRY if position is not stored
+     */
+    public long probe(long key)
+    {
+        int index = getIndex(key);
+        for (int entry = index; entry < index + BUCKET_LONGS; entry += 2)
+        {
+            long data = table[entry + 1];
+            if (NO_ENTRY != data && (table[entry] ^ data) == key)
+            {
+                return data;
+            }
+        }
+        return NO_ENTRY;
+    }
+
+    /**
+     * Stores result of search. Entry of the same position is always
+     * replaced, otherwise first entry of bucket is replaced if it is from
+     * older search or not deeper than new one and second entry in other cases.
+     * @param key Zobrist key of position
+     * @param move best move or PackedMove.NO_MOVE
+     * @param score score of position, mate scores relative to this position
+     * @param depth depth of search
+     * @param bound one of BOUND_LOWER, BOUND_UPPER, BOUND_EXACT
+     */
+    public void store(long key, int move, int score, int depth, int bound)
+    {
+        int index = getIndex(key);
+        long first = table[index + 1];
+        int entry = index + 2;
+        if (NO_ENTRY == first
+                || (table[index] ^ first) == key
+                || getAge(first) != age
+                || getDepth(first) <= depth)
+        {
+            entry = index;
+        }
+        assert Math.abs(score) <= MAX_SCORE : "score out of range: " + score;
+        long data = pack(move, Math.max(-MAX_SCORE, Math.min(MAX_SCORE, score)), depth, bound, age);
+        table[entry] = key ^ data;
+        table[entry + 1] = data;
+    }
+
+    /**
+     * Marks start of new search, so entries of older searches
+     * are replaced first.
+     */
+    public void newSearch()
+    {
+        age = (age + 1) & AGE_MASK;
+    }
+
+    public void clear()
+    {
+        Arrays.fill(table, 0L);
+        age = 0;
+    }
+
+    /**
+     * @return permill of entries used by current search, estimated from sample
+     */
+    public int getHashfull()
+    {
+        int buckets = (int) Math.min(HASHFULL_SAMPLE, bucketMask + 1);
+        int used = 0;
+        for (int bucket = 0; bucket < buckets; bucket++)
+        {
+            for (int entry = bucket * BUCKET_LONGS; entry < (bucket + 1) * BUCKET_LONGS; entry += 2)
+            {
+                long data = table[entry + 1];
+                if (NO_ENTRY != data && getAge(data) == age)
+                {
+                    used++;
+                }
+            }
+        }
+        return used * PERMILL / (2 * buckets);
+    }
+
+    /**
+     * @return number of entries in table
+     */
+    public int getCapacity()
+    {
+        return table.length / 2;
+    }
+
+    private int getIndex(long key)
+    {
+        return (int) (key & bucketMask) * BUCKET_LONGS;
+    }
+
+    private static long pack(int move, int score, int depth, int bound, int age)
+    {
+        return (move & ((1L << MOVE_BITS) - 1))
+                | ((long) (score + SCORE_OFFSET) << SCORE_SHIFT)
+                | ((long) (Math.max(0, depth) & DEPTH_MASK) << DEPTH_SHIFT)
+                | ((long) bound << BOUND_SHIFT)
+                | ((long) age << AGE_SHIFT);
+    }
+
+    public static int getMove(long data)
+    {
+        return (int) (data & ((1L << MOVE_BITS) - 1));
+    }
+
+    public static int getScore(long data)
+    {
+        return (int) ((data >>> SCORE_SHIFT) & ((1L << SCORE_BITS) - 1)) - SCORE_OFFSET;
+    }
+
+    public static int getDepth(long data)
+    {
+        return (int) (data >>> DEPTH_SHIFT) & DEPTH_MASK;
+    }
+
+    public static int getBound(long data)
+    {
+        return (int) (data >>> BOUND_SHIFT) & BOUND_MASK;
+    }
+
+    private static int getAge(long data)
+    {
+        return (int) (data >>> AGE_SHIFT) & AGE_MASK;
+    }
+}
@@ -0,0 +1,258 @@
+/*
+#    This program is free software: you can redistribute it and/or modify
+#    it under the terms of the GNU General Public License as published by
+#    the Free Software Foundation, either version 3 of the License, or
+#    (at your option) any later version.
+#
+#    This program is distributed in the hope that it will be useful,
+#    but WITHOUT ANY WARRANTY; without even the implied warranty of
+#    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+#    GNU General Public License for more details.
+#
+#    You should have received a copy of the GNU General Public License
+#    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package pl.art.lach.mateusz.javaopenchess.core.ai.tablebase;
+
+import java.util.Arrays;
+import pl.art.lach.mateusz.javaopenchess.core.BitboardPosition;
+
+/**
+ * Material signature of endgame, e.g. KQvK or KBNvK: pieces of white
+ * and black side, each side starting with king and other pieces ordered
+ * from the most valuable. Order of pieces is order of slots in table index.
+ * Material key packs counts of pieces other than kings into int,
+ * so tables can be found without building the name.
+ */
+public final class Signature
+{
+    public static final String SIDE_SEPARATOR = "v";
+
+    /**
+     * piece letters indexed by BitboardPosition type
+     */
+    private static final String PIECE_LETTERS = "PNBRQK";
+
+    /**
+     * bits of count of one piece kind in material key
+     */
+    private static final int MATERIAL_BITS = 3;
+
+    private static final int MAX_COUNT = (1 << MATERIAL_BITS) - 1;
+
+    /**
+     * bits of material of one side, kings are not counted
+     */
+    private static final int SIDE_MATERIAL_BITS = MATERIAL_BITS * BitboardPosition.KING;
+
+    private static final int SIDE_MATERIAL_MASK = (1 << SIDE_MATERIAL_BITS) - 1;
+
+    private final String name;
+
+    private final int materialKey;
+
+    private final int[] types;
+
+    private final int[] colors;
+
+    private Signature(String name, int[] types, int[] colors)
+    {
+        this.name = name;
+        this.types = types;
+        this.colors = colors;
+        this.materialKey = getMaterialKey(types, colors, types.length);
+    }
+
+    /**
+     * @param name signature like KRvK
+     * @return parsed signature
+     * @throws IllegalArgumentException if name is not valid signature
+     */
+    public static Signature parse(String name)
+    {
+        String[] sides = name.split(SIDE_SEPARATOR);
+        if (2 != sides.length)
+        {
+            throw new IllegalArgumentException("invalid signature: " + name);
+        }
+        int count = sides[0].length() + sides[1].length();
+        int[] types = new int[count];
+        int[] colors = new int[count];
+        int slot = 0;
+        for (int color = BitboardPosition.WHITE; color <= BitboardPosition.BLACK; color++)
+        {
+            int[] sideTypes = new int[sides[color].length()];
+            for (int i = 0; i < sideTypes.length; i++)
+            {
+                sideTypes[i] = PIECE_LETTERS.indexOf(sides[color].charAt(i));
+                if (sideTypes[i] < 0)
+                {
+                    throw new IllegalArgumentException("invalid signature: " + name);
+                }
+            }
+            Arrays.sort(sideTypes);
+            if (0 == sideTypes.length || BitboardPosition.KING != sideTypes[sideTypes.length - 1]
+                    || (sideTypes.length > 1 && BitboardPosition.KING == sideTypes[sideTypes.length - 2]))
+            {
+                throw new IllegalArgumentException("every side needs exactly one king: " + name);
+            }
+            if (sideTypes.length > MAX_COUNT + 1)
+            {
+                throw new IllegalArgumentException("too many pieces: " + name);
+            }
+            for (int i = sideTypes.length - 1; i >= 0; i--, slot++)
+            {
+                types[slot] = sideTypes[i];
+                colors[slot] = color;
+            }
+        }
+        return new Signature(getName(types, colors, count), types, colors);
+    }
+
+    /**
+     * @param types types of pieces
+     * @param colors colors of pieces
+     * @param count number of pieces
+     * @return name of signature of given pieces
+     */
+    public static String getName(int[] types, int[] colors, int count)
+    {
+        StringBuilder result = new StringBuilder();
+        for (int color = BitboardPosition.WHITE; color <= BitboardPosition.BLACK; color++)
+        {
+            if (BitboardPosition.BLACK == color)
+            {
+                result.append(SIDE_SEPARATOR);
+            }
+            for (int type = BitboardPosition.KING; type >= BitboardPosition.PAWN; type--)
+            {
+                for (int i = 0; i < count; i++)
+                {
+                    if (colors[i] == color && types[i] == type)
+                    {
+                        result.append(PIECE_LETTERS.charAt(type));
+                    }
+                }
+            }
+        }
+        return result.toString();
+    }
+
+    /**
+     * @param color color of piece
+     * @param type type of piece other than king
+     * @return position of count of pieces of this kind in material key
+     */
+    public static int getMaterialShift(int color, int type)
+    {
+        return color * SIDE_MATERIAL_BITS + type * MATERIAL_BITS;
+    }
+
+    /**
+     * @param types types of pieces
+     * @param colors colors of pieces
+     * @param count number of pieces
+     * @return material key of given pieces
+     */
+    public static int getMaterialKey(int[] types, int[] colors, int count)
+    {
+        int result = 0;
+        for (int i = 0; i < count; i++)
+        {
+            if (BitboardPosition.KING != types[i])
+            {
+                result += 1 << getMaterialShift(colors[i], types[i]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @param materialKey material key
+     * @return material key with colors swapped
+     */
+    public static int getFlippedKey(int materialKey)
+    {
+        return ((materialKey & SIDE_MATERIAL_MASK) << SIDE_MATERIAL_BITS) | (materialKey >>> SIDE_MATERIAL_BITS);
+    }
+
+    /**
+     * @param materialKey material key
+     * @return true if no side can mate (only kings, or single minor piece)
+     */
+    public static boolean isTriviallyDrawn(int materialKey)
+    {
+        if (0 == materialKey)
+        {
+            return true;
+        }
+        for (int color = BitboardPosition.WHITE; color <= BitboardPosition.BLACK; color++)
+        {
+            if (materialKey == 1 << getMaterialShift(color, BitboardPosition.KNIGHT)
+                    || materialKey == 1 << getMaterialShift(color, BitboardPosition.BISHOP))
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param name signature name
+     * @return name with colors swapped, e.g. KvKQ for KQvK
+     */
+    public static String getFlippedName(String name)
+    {
+        int separator = name.indexOf(SIDE_SEPARATOR);
+        return name.substring(separator + 1) + SIDE_SEPARATOR + name.substring(0, separator);
+    }
+
+    /**
+     * @param name signature name
+     * @return true if no side can mate (only kings, or single minor piece)
+     */
+    public static boolean isTriviallyDrawn(String name)
+    {
+        String pieces = name.replace("K", "").replace(SIDE_SEPARATOR, "");
+        return pieces.isEmpty() || "N".equals(pieces) || "B".equals(pieces);
+    }
+
+    public String getName()
+    {
+        return name;
+    }
+
+    public int getMaterialKey()
+    {
+        return materialKey;
+    }
+
+    public int getPieceCount()
+    {
+        return types.length;
+    }
+
+    public int getType(int slot)
+    {
+        return types[slot];
+    }
+
+    public int getColor(int slot)
+    {
+        return colors[slot];
+    }
+
+    /**
+     * @return number of positions of one side to move: 64 ^ number of pieces
+     */
+    public int getPositionsCount()
+    {
+        return 1 << (Tablebase.SQUARE_BITS * types.length);
+    }
+
+    @Override
+    public String toString()
+    {
+        return name;
+    }
+}
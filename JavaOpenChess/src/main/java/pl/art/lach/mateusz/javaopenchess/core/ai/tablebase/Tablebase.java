@@ -0,0 +1,85 @@
+/*
+#    This program is free software: you can redistribute it and/or modify
+#    it under the terms of the GNU General Public License as published by
+#    the Free Software Foundation, either version 3 of the License, or
+#    (at your option) any later version.
+#
+#    This program is distributed in the hope that it will be useful,
+#    but WITHOUT ANY WARRANTY; without even the implied warranty of
+#    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+#    GNU General Public License for more details.
+#
+#    You should have received a copy of the GNU General Public License
+#    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package pl.art.lach.mateusz.javaopenchess.core.ai.tablebase;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Endgame table of one material signature: one byte for every position,
+ * indexed by side to move and squares of pieces in signature order
+ * (6 bits per square, first piece in the highest bits). Tables assume
+ * that white pawns go up (to Y = 0), no castling and no en passant.
+ * Value of byte: 0 - draw, 255 - illegal position, other values are
+ * distance to mate in plies + 1; odd distance means side to move wins,
+ * even distance means side to move is mated.
+ */
+public class Tablebase
+{
+    public static final int SQUARE_BITS = 6;
+
+    public static final int DRAW = 0;
+
+    public static final int ILLEGAL = 255;
+
+    private static final int BYTE_MASK = 0xFF;
+
+    private final Signature signature;
+
+    private final ByteBuffer data;
+
+    /**
+     * @param signature material signature
+     * @param data values of all positions, 2 * 64 ^ pieces bytes
+     */
+    public Tablebase(Signature signature, ByteBuffer data)
+    {
+        if (data.capacity() != 2L * signature.getPositionsCount())
+        {
+            throw new IllegalArgumentException("invalid size of table " + signature + ": " + data.capacity());
+        }
+        this.signature = signature;
+        this.data = data;
+    }
+
+    /**
+     * @param sideToMove color of side to move
+     * @param squares squares of pieces in signature order
+     * @param count number of pieces
+     * @return index of position in table
+     */
+    public static int getIndex(int sideToMove, int[] squares, int count)
+    {
+        int index = sideToMove;
+        for (int slot = 0; slot < count; slot++)
+        {
+            index = (index << SQUARE_BITS) | squares[slot];
+        }
+        return index;
+    }
+
+    /**
+     * @param index index of position
+     * @return value of position, see class description
+     */
+    public int getValue(int index)
+    {
+        return data.get(index) & BYTE_MASK;
+    }
+
+    public Signature getSignature()
+    {
+        return signature;
+    }
+}
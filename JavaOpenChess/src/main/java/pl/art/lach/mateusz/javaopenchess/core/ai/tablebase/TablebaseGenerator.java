@@ -0,0 +1,583 @@
+/*
+#    This program is free software: you can redistribute it and/or modify
+#    it under the terms of the GNU General Public License as published by
+#    the Free Software Foundation, either version 3 of the License, or
+#    (at your option) any later version.
+#
+#    This program is distributed in the hope that it will be useful,
+#    but WITHOUT ANY WARRANTY; without even the implied warranty of
+#    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+#    GNU General Public License for more details.
+#
+#    You should have received a copy of the GNU General Public License
+#    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package pl.art.lach.mateusz.javaopenchess.core.ai.tablebase;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import org.apache.log4j.Logger;
+import pl.art.lach.mateusz.javaopenchess.core.BitboardPosition;
+import pl.art.lach.mateusz.javaopenchess.core.bitboards.Bitboards;
+
+/**
+ * Retrograde generator of endgame tables. All positions of signature
+ * are enumerated, mates are found and then results are propagated
+ * backwards by unmoves, level by level (level is distance to mate
+ * in plies). Captures and promotions lead to smaller (or other) tables,
+ * which are generated first. Positions which are not resolved
+ * at the end are draws.
+ * Usage from command line:
+ * <pre>TablebaseGenerator directory signature...</pre>
+ */
+public class TablebaseGenerator
+{
+    private static final Logger LOG = Logger.getLogger(TablebaseGenerator.class);
+
+    private static final int NONE = 0xFF;
+
+    private static final int BYTE_MASK = 0xFF;
+
+    private static final int SQUARE_MASK = 0x3F;
+
+    private static final int MAX_LEVEL = Tablebase.ILLEGAL - 3;
+
+    private static final int ROW_UP = -8;
+
+    private static final int WHITE_PROMOTION_Y = 0;
+
+    private static final int BLACK_PROMOTION_Y = 7;
+
+    private static final int WHITE_START_Y = 6;
+
+    private static final int BLACK_START_Y = 1;
+
+    private static final int[] PROMOTIONS = {
+        BitboardPosition.QUEEN, BitboardPosition.ROOK, BitboardPosition.BISHOP, BitboardPosition.KNIGHT
+    };
+
+    private final Path directory;
+
+    private Signature signature;
+
+    private int pieces;
+
+    private byte[] values;
+
+    private byte[] counts;
+
+    private byte[] pendingWins;
+
+    private byte[] conversionLosses;
+
+    /**
+     * @param directory directory where table files are written
+     */
+    public TablebaseGenerator(Path directory)
+    {
+        this.directory = directory;
+    }
+
+    /**
+     * Generates table of given signature, with all tables needed by it
+     * which are not loaded yet, writes it to directory and registers it.
+     * @param name signature, e.g. KRvK
+     * @return generated table
+     * @throws IOException if table cannot be written
+     */
+    public Tablebase generate(String name) throws IOException
+    {
+        Signature target = Signature.parse(name);
+        if (target.getPieceCount() > Tablebases.MAX_PIECES)
+        {
+            throw new IllegalArgumentException("too many pieces: " + name);
+        }
+        generateDependencies(target);
+        long start = System.currentTimeMillis();
+        init(target);
+        int maxLevel = propagate();
+        Path file = directory.resolve(target.getName() + Tablebases.FILE_EXTENSION);
+        Files.write(file, values);
+        release();
+        LOG.info(String.format(
+            "generated %s, longest mate: %d plies, time: %d ms",
+            target, maxLevel, System.currentTimeMillis() - start
+        ));
+        return Tablebases.load(file);
+    }
+
+    private void generateDependencies(Signature target) throws IOException
+    {
+        int count = target.getPieceCount();
+        int[] types = new int[count];
+        int[] colors = new int[count];
+        for (int slot = 0; slot < count; slot++)
+        {
+            types[slot] = target.getType(slot);
+            colors[slot] = target.getColor(slot);
+        }
+        for (int slot = 0; slot < count; slot++)
+        {
+            if (BitboardPosition.KING == types[slot])
+            {
+                continue;
+            }
+            int[] capturedTypes = new int[count - 1];
+            int[] capturedColors = new int[count - 1];
+            for (int i = 0, j = 0; i < count; i++)
+            {
+                if (i != slot)
+                {
+                    capturedTypes[j] = types[i];
+                    capturedColors[j++] = colors[i];
+                }
+            }
+            generateIfMissing(Signature.getName(capturedTypes, capturedColors, count - 1));
+            if (BitboardPosition.PAWN == types[slot])
+            {
+                for (int promotion : PROMOTIONS)
+                {
+                    types[slot] = promotion;
+                    generateIfMissing(Signature.getName(types, colors, count));
+                }
+                types[slot] = BitboardPosition.PAWN;
+            }
+        }
+    }
+
+    private void generateIfMissing(String name) throws IOException
+    {
+        if (!Tablebases.contains(name) && !Tablebases.contains(Signature.getFlippedName(name)))
+        {
+            generate(name);
+        }
+    }
+
+    private void init(Signature target)
+    {
+        signature = target;
+        pieces = target.getPieceCount();
+        int size = 2 * target.getPositionsCount();
+        values = new byte[size];
+        counts = new byte[size];
+        pendingWins = new byte[size];
+        conversionLosses = new byte[size];
+        int[] squares = new int[pieces];
+        for (int index = 0; index < size; index++)
+        {
+            int side = decode(index, squares);
+            pendingWins[index] = (byte) NONE;
+            conversionLosses[index] = (byte) NONE;
+            if (!isLegal(side, squares))
+            {
+                values[index] = (byte) Tablebase.ILLEGAL;
+                continue;
+            }
+            int moves = countMoves(index, side, squares);
+            counts[index] += moves;
+            if (0 == counts[index] && NONE == (pendingWins[index] & BYTE_MASK)
+                    && NONE == (conversionLosses[index] & BYTE_MASK) && isInCheck(side, squares))
+            {
+                values[index] = 1;
+            }
+        }
+    }
+
+    /**
+     * Counts moves which stay in this table and evaluates conversions
+     * (captures and promotions) by probing other tables.
+     */
+    private int countMoves(int index, int side, int[] squares)
+    {
+        int result = 0;
+        long occupancy = getOccupancy(squares, -1);
+        long own = getOccupancy(squares, side);
+        for (int slot = 0; slot < pieces; slot++)
+        {
+            if (signature.getColor(slot) != side)
+            {
+                continue;
+            }
+            int from = squares[slot];
+            long targets = getMoves(slot, from, occupancy, own);
+            for (; 0L != targets; targets &= targets - 1)
+            {
+                int to = Bitboards.firstSquare(targets);
+                int captured = getSlot(squares, to);
+                squares[slot] = to;
+                if (!isAttacked(getKingSquare(side, squares), 1 - side, squares, captured))
+                {
+                    boolean promotion = BitboardPosition.PAWN == signature.getType(slot) && isPromotionRow(side, to);
+                    if (promotion)
+                    {
+                        for (int type : PROMOTIONS)
+                        {
+                            addConversion(index, side, squares, captured, slot, type);
+                        }
+                    }
+                    else if (-1 != captured)
+                    {
+                        addConversion(index, side, squares, captured, slot, signature.getType(slot));
+                    }
+                    else
+                    {
+                        result++;
+                    }
+                }
+                squares[slot] = from;
+            }
+        }
+        return result;
+    }
+
+    private void addConversion(int index, int side, int[] squares, int captured, int movedSlot, int movedType)
+    {
+        int count = -1 == captured ? pieces : pieces - 1;
+        int[] types = new int[count];
+        int[] colors = new int[count];
+        int[] newSquares = new int[count];
+        for (int slot = 0, i = 0; slot < pieces; slot++)
+        {
+            if (slot != captured)
+            {
+                types[i] = slot == movedSlot ? movedType : signature.getType(slot);
+                colors[i] = signature.getColor(slot);
+                newSquares[i++] = squares[slot];
+            }
+        }
+        int value = Tablebases.probe(types, colors, newSquares, count, 1 - side, false);
+        if (Tablebases.NOT_FOUND == value)
+        {
+            throw new IllegalStateException("missing table: " + Signature.getName(types, colors, count));
+        }
+        int level = Tablebases.getPlies(value) + 1;
+        if (Tablebases.isLoss(value))
+        {
+            if (level < (pendingWins[index] & BYTE_MASK))
+            {
+                pendingWins[index] = (byte) level;
+            }
+        }
+        else if (Tablebases.isWin(value))
+        {
+            int loss = conversionLosses[index] & BYTE_MASK;
+            if (NONE == loss || level > loss)
+            {
+                conversionLosses[index] = (byte) level;
+            }
+        }
+        else
+        {
+            // draw by conversion: position can never be lost
+            counts[index]++;
+        }
+    }
+
+    /**
+     * Resolves positions level by level.
+     * @return longest distance to mate in plies
+     */
+    private int propagate()
+    {
+        int size = values.length;
+        int[] squares = new int[pieces];
+        int maxLevel = 0;
+        boolean changed = true;
+        for (int level = 0; level <= MAX_LEVEL && (changed || level <= getMaxPending()); level++)
+        {
+            changed = false;
+            for (int index = 0; index < size; index++)
+            {
+                if (0 == values[index] && isResolvedByConversion(index, level))
+                {
+                    values[index] = (byte) (level + 1);
+                }
+            }
+            for (int index = 0; index < size; index++)
+            {
+                if (level + 1 == (values[index] & BYTE_MASK))
+                {
+                    changed = true;
+                    maxLevel = level;
+                    int side = decode(index, squares);
+                    propagateUnmoves(side, squares, level);
+                }
+            }
+        }
+        return maxLevel;
+    }
+
+    private boolean isResolvedByConversion(int index, int level)
+    {
+        int pendingWin = pendingWins[index] & BYTE_MASK;
+        if (NONE != pendingWin)
+        {
+            return level == pendingWin;
+        }
+        return 0 == counts[index] && level == (conversionLosses[index] & BYTE_MASK);
+    }
+
+    private int getMaxPending()
+    {
+        int result = -1;
+        for (int index = 0; index < values.length; index++)
+        {
+            if (0 == values[index])
+            {
+                int pendingWin = pendingWins[index] & BYTE_MASK;
+                int loss = conversionLosses[index] & BYTE_MASK;
+                if (NONE != pendingWin)
+                {
+                    result = Math.max(result, pendingWin);
+                }
+                else if (0 == counts[index] && NONE != loss)
+                {
+                    result = Math.max(result, loss);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Updates all predecessors of resolved position: if position is lost,
+     * predecessors are won, if position is won and it was the last
+     * unresolved move of predecessor, predecessor is lost.
+     */
+    private void propagateUnmoves(int side, int[] squares, int level)
+    {
+        int mover = 1 - side;
+        long occupancy = getOccupancy(squares, -1);
+        for (int slot = 0; slot < pieces; slot++)
+        {
+            if (signature.getColor(slot) != mover)
+            {
+                continue;
+            }
+            int to = squares[slot];
+            long origins = getUnmoves(slot, to, occupancy);
+            for (; 0L != origins; origins &= origins - 1)
+            {
+                squares[slot] = Bitboards.firstSquare(origins);
+                int predecessor = Tablebase.getIndex(mover, squares, pieces);
+                if (0 == values[predecessor])
+                {
+                    if (0 == level % 2)
+                    {
+                        values[predecessor] = (byte) (level + 2);
+                    }
+                    else if (0 == --counts[predecessor] && NONE == (pendingWins[predecessor] & BYTE_MASK))
+                    {
+                        int loss = conversionLosses[predecessor] & BYTE_MASK;
+                        if (NONE == loss || loss <= level + 1)
+                        {
+                            values[predecessor] = (byte) (level + 2);
+                        }
+                    }
+                }
+            }
+            squares[slot] = to;
+        }
+    }
+
+    private long getMoves(int slot, int from, long occupancy, long own)
+    {
+        int color = signature.getColor(slot);
+        if (BitboardPosition.PAWN != signature.getType(slot))
+        {
+            return getAttacks(signature.getType(slot), color, from, occupancy) & ~own;
+        }
+        long result = Bitboards.getPawnAttacks(from, getDirectionY(color)) & occupancy & ~own;
+        int push = from + getRowOffset(color);
+        if (0L == (Bitboards.bit(push) & occupancy))
+        {
+            result |= Bitboards.bit(push);
+            int doublePush = push + getRowOffset(color);
+            if (getStartY(color) == Bitboards.getY(from) && 0L == (Bitboards.bit(doublePush) & occupancy))
+            {
+                result |= Bitboards.bit(doublePush);
+            }
+        }
+        return result;
+    }
+
+    private long getUnmoves(int slot, int to, long occupancy)
+    {
+        int color = signature.getColor(slot);
+        if (BitboardPosition.PAWN != signature.getType(slot))
+        {
+            return getAttacks(signature.getType(slot), color, to, occupancy) & ~occupancy;
+        }
+        long result = 0L;
+        int origin = to - getRowOffset(color);
+        if (getPromotionY(1 - color) != Bitboards.getY(origin) && 0L == (Bitboards.bit(origin) & occupancy))
+        {
+            result |= Bitboards.bit(origin);
+            int doubleOrigin = origin - getRowOffset(color);
+            if (getStartY(color) == Bitboards.getY(doubleOrigin) && 0L == (Bitboards.bit(doubleOrigin) & occupancy))
+            {
+                result |= Bitboards.bit(doubleOrigin);
+            }
+        }
+        return result;
+    }
+
+    private static long getAttacks(int type, int color, int square, long occupancy)
+    {
+        switch (type)
+        {
+            case BitboardPosition.PAWN:
+                return Bitboards.getPawnAttacks(square, getDirectionY(color));
+            case BitboardPosition.KNIGHT:
+                return Bitboards.getKnightAttacks(square);
+            case BitboardPosition.BISHOP:
+                return Bitboards.getBishopAttacks(square, occupancy);
+            case BitboardPosition.ROOK:
+                return Bitboards.getRookAttacks(square, occupancy);
+            case BitboardPosition.QUEEN:
+                return Bitboards.getQueenAttacks(square, occupancy);
+            default:
+                return Bitboards.getKingAttacks(square);
+        }
+    }
+
+    private boolean isLegal(int side, int[] squares)
+    {
+        long occupancy = 0L;
+        for (int slot = 0; slot < pieces; slot++)
+        {
+            long bit = Bitboards.bit(squares[slot]);
+            if (0L != (occupancy & bit))
+            {
+                return false;
+            }
+            occupancy |= bit;
+            int y = Bitboards.getY(squares[slot]);
+            if (BitboardPosition.PAWN == signature.getType(slot)
+                    && (WHITE_PROMOTION_Y == y || BLACK_PROMOTION_Y == y))
+            {
+                return false;
+            }
+        }
+        return !isAttacked(getKingSquare(1 - side, squares), side, squares, -1);
+    }
+
+    private boolean isInCheck(int side, int[] squares)
+    {
+        return isAttacked(getKingSquare(side, squares), 1 - side, squares, -1);
+    }
+
+    private boolean isAttacked(int square, int color, int[] squares, int ignoredSlot)
+    {
+        long occupancy = getOccupancy(squares, -1);
+        for (int slot = 0; slot < pieces; slot++)
+        {
+            if (slot != ignoredSlot && signature.getColor(slot) == color
+                    && 0L != (getAttacks(signature.getType(slot), color, squares[slot], occupancy) & Bitboards.bit(square)))
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int getKingSquare(int color, int[] squares)
+    {
+        for (int slot = 0; slot < pieces; slot++)
+        {
+            if (signature.getColor(slot) == color && BitboardPosition.KING == signature.getType(slot))
+            {
+                return squares[slot];
+            }
+        }
+        throw new IllegalStateException("no king in " + signature);
+    }
+
+    private int getSlot(int[] squares, int square)
+    {
+        for (int slot = 0; slot < pieces; slot++)
+        {
+            if (squares[slot] == square)
+            {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @param color color of pieces or -1 for all pieces
+     */
+    private long getOccupancy(int[] squares, int color)
+    {
+        long result = 0L;
+        for (int slot = 0; slot < pieces; slot++)
+        {
+            if (-1 == color || signature.getColor(slot) == color)
+            {
+                result |= Bitboards.bit(squares[slot]);
+            }
+        }
+        return result;
+    }
+
+    private int decode(int index, int[] squares)
+    {
+        int rest = index;
+        for (int slot = pieces - 1; slot >= 0; slot--)
+        {
+            squares[slot] = rest & SQUARE_MASK;
+            rest >>>= Tablebase.SQUARE_BITS;
+        }
+        return rest;
+    }
+
+    private void release()
+    {
+        values = null;
+        counts = null;
+        pendingWins = null;
+        conversionLosses = null;
+    }
+
+    private static boolean isPromotionRow(int color, int square)
+    {
+        return getPromotionY(color) == Bitboards.getY(square);
+    }
+
+    private static int getPromotionY(int color)
+    {
+        return BitboardPosition.WHITE == color ? WHITE_PROMOTION_Y : BLACK_PROMOTION_Y;
+    }
+
+    private static int getStartY(int color)
+    {
+        return BitboardPosition.WHITE == color ? WHITE_START_Y : BLACK_START_Y;
+    }
+
+    private static int getRowOffset(int color)
+    {
+        return BitboardPosition.WHITE == color ? ROW_UP : -ROW_UP;
+    }
+
+    private static int getDirectionY(int color)
+    {
+        return BitboardPosition.WHITE == color ? -1 : 1;
+    }
+
+    public static void main(String[] args) throws IOException
+    {
+        if (args.length < 2)
+        {
+            System.out.println("Usage: TablebaseGenerator directory signature...");
+            return;
+        }
+        TablebaseGenerator generator = new TablebaseGenerator(Paths.get(args[0]));
+        for (int i = 1; i < args.length; i++)
+        {
+            generator.generate(args[i]);
+        }
+    }
+}
@@ -0,0 +1,428 @@
+/*
+#    This program is free software: you can redistribute it and/or modify
+#    it under the terms of the GNU General Public License as published by
+#    the Free Software Foundation, either version 3 of the License, or
+#    (at your option) any later version.
+#
+#    This program is distributed in the hope that it will be useful,
+#    but WITHOUT ANY WARRANTY; without even the implied warranty of
+#    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+#    GNU General Public License for more details.
+#
+#    You should have received a copy of the GNU General Public License
+#    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package pl.art.lach.mateusz.javaopenchess.core.ai.tablebase;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import org.apache.log4j.Logger;
+import pl.art.lach.mateusz.javaopenchess.core.BitboardPosition;
+import pl.art.lach.mateusz.javaopenchess.core.Chessboard;
+import pl.art.lach.mateusz.javaopenchess.core.UndoState;
+import pl.art.lach.mateusz.javaopenchess.core.bitboards.Bitboards;
+import pl.art.lach.mateusz.javaopenchess.core.moves.MoveList;
+import pl.art.lach.mateusz.javaopenchess.core.moves.PackedMove;
+
+/**
+ * Registry of endgame tables. Table files (*.jtb) are memory mapped,
+ * so probe costs one index computation and one byte read. Directory
+ * with tables can be given by system property javaopenchess.tablebases,
+ * tables can be generated by TablebaseGenerator.
+ * Probe result is Tablebase value: 0 - draw, otherwise distance to mate
+ * in plies + 1, odd for win of side to move, even for its loss.
+ * Tables are generated under standard chess rules, while the move generator
+ * of the game keeps rules of the original Behaviors: king may not step on
+ * empty squares in front of enemy pawns and en passant square is set after
+ * every double push. So positions with en passant square which no pawn can
+ * capture on are probed as positions without it, and getBestMove picks
+ * only moves legal under getLegalMoves, but distances to mate may differ
+ * from play under the game's rules (in endgames with pawns of both sides).
+ * Tables are indexed by material key of Signature, probing does not
+ * allocate, as it is called in every search node with few pieces.
+ */
+public final class Tablebases
+{
+    private static final Logger LOG = Logger.getLogger(Tablebases.class);
+
+    public static final String DIRECTORY_PROPERTY = "javaopenchess.tablebases";
+
+    public static final String FILE_EXTENSION = ".jtb";
+
+    public static final int MAX_PIECES = 4;
+
+    public static final int NOT_FOUND = -1;
+
+    public static final int DRAW = Tablebase.DRAW;
+
+    private static final int MIRROR_Y = 56;
+
+    private static final int BEST_MOVE_SCORE = 1000;
+
+    /**
+     * registered tables sorted by material key, replaced on every change
+     */
+    private static volatile Tablebase[] tables = new Tablebase[0];
+
+    static
+    {
+        String directory = System.getProperty(DIRECTORY_PROPERTY);
+        if (null != directory)
+        {
+            try
+            {
+                loadDirectory(Paths.get(directory));
+            }
+            catch (IOException exc)
+            {
+                LOG.error("cannot load tablebases from: " + directory, exc);
+            }
+        }
+    }
+
+    private Tablebases()
+    {
+    }
+
+    /**
+     * Maps all table files from given directory.
+     * @param directory directory with *.jtb files
+     * @return number of loaded tables
+     * @throws IOException if directory or file cannot be read
+     */
+    public static int loadDirectory(Path directory) throws IOException
+    {
+        int result = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + FILE_EXTENSION))
+        {
+            for (Path file : files)
+            {
+                load(file);
+                result++;
+            }
+        }
+        LOG.info("loaded " + result + " tablebases from: " + directory);
+        return result;
+    }
+
+    /**
+     * Maps table file, name of file is signature of table, e.g. KQvK.jtb.
+     * @param file table file
+     * @return loaded table
+     * @throws IOException if file cannot be read
+     */
+    public static Tablebase load(Path file) throws IOException
+    {
+        String fileName = file.getFileName().toString();
+        Signature signature = Signature.parse(fileName.substring(0, fileName.length() - FILE_EXTENSION.length()));
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ))
+        {
+            MappedByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            Tablebase table = new Tablebase(signature, data);
+            register(table);
+            return table;
+        }
+    }
+
+    public static synchronized void register(Tablebase table)
+    {
+        int index = findTable(tables, table.getSignature().getMaterialKey());
+        Tablebase[] newTables;
+        if (index >= 0)
+        {
+            newTables = tables.clone();
+        }
+        else
+        {
+            index = -index - 1;
+            newTables = new Tablebase[tables.length + 1];
+            System.arraycopy(tables, 0, newTables, 0, index);
+            System.arraycopy(tables, index, newTables, index + 1, tables.length - index);
+        }
+        newTables[index] = table;
+        tables = newTables;
+    }
+
+    /**
+     * Removes all registered tables.
+     */
+    public static synchronized void clear()
+    {
+        tables = new Tablebase[0];
+    }
+
+    public static boolean isAvailable()
+    {
+        return 0 != tables.length;
+    }
+
+    public static boolean contains(String signature)
+    {
+        return Signature.isTriviallyDrawn(signature)
+                || null != getTable(Signature.parse(signature).getMaterialKey());
+    }
+
+    /**
+     * @param materialKey material key of signature
+     * @return registered table or null
+     */
+    private static Tablebase getTable(int materialKey)
+    {
+        Tablebase[] registered = tables;
+        int index = findTable(registered, materialKey);
+        return index >= 0 ? registered[index] : null;
+    }
+
+    /**
+     * @param sorted tables sorted by material key
+     * @param materialKey material key to find
+     * @return index of table, or (-(insertion point) - 1) like Arrays.binarySearch
+     */
+    private static int findTable(Tablebase[] sorted, int materialKey)
+    {
+        int low = 0;
+        int high = sorted.length - 1;
+        while (low <= high)
+        {
+            int middle = (low + high) >>> 1;
+            int key = sorted[middle].getSignature().getMaterialKey();
+            if (key < materialKey)
+            {
+                low = middle + 1;
+            }
+            else if (key > materialKey)
+            {
+                high = middle - 1;
+            }
+            else
+            {
+                return middle;
+            }
+        }
+        return -(low + 1);
+    }
+
+    /**
+     * Probes tables for pieces given in any order. Table of flipped
+     * signature is used (with colors swapped and board mirrored)
+     * if table of this signature does not exist.
+     * @param types types of pieces
+     * @param colors colors of pieces
+     * @param squares squares of pieces
+     * @param count number of pieces
+     * @param sideToMove color of side to move
+     * @param mirror true if white pawns go down (to higher Y)
+     * @return value of position or NOT_FOUND
+     */
+    public static int probe(int[] types, int[] colors, int[] squares, int count, int sideToMove, boolean mirror)
+    {
+        int materialKey = Signature.getMaterialKey(types, colors, count);
+        if (Signature.isTriviallyDrawn(materialKey))
+        {
+            return DRAW;
+        }
+        Tablebase table = getTable(materialKey);
+        boolean flip = null == table;
+        if (flip)
+        {
+            table = getTable(Signature.getFlippedKey(materialKey));
+        }
+        if (null == table)
+        {
+            return NOT_FOUND;
+        }
+        Signature signature = table.getSignature();
+        int index = flip ? 1 - sideToMove : sideToMove;
+        int used = 0;
+        for (int slot = 0; slot < count; slot++)
+        {
+            int color = flip ? 1 - signature.getColor(slot) : signature.getColor(slot);
+            for (int i = 0; i < count; i++)
+            {
+                if (0 == (used & (1 << i)) && colors[i] == color && types[i] == signature.getType(slot))
+                {
+                    used |= 1 << i;
+                    index = (index << Tablebase.SQUARE_BITS) | (flip != mirror ? squares[i] ^ MIRROR_Y : squares[i]);
+                    break;
+                }
+            }
+        }
+        return getValue(table, index);
+    }
+
+    /**
+     * @param position position to probe
+     * @return value of position or NOT_FOUND if there is no table for it
+     */
+    public static int probe(BitboardPosition position)
+    {
+        long occupancy = position.getOccupancy();
+        if (Long.bitCount(occupancy) > MAX_PIECES
+                || 0 != position.getCastlingRights()
+                || position.hasEnPassantCapture(position.getSideToMove()))
+        {
+            return NOT_FOUND;
+        }
+        int materialKey = 0;
+        for (int color = BitboardPosition.WHITE; color <= BitboardPosition.BLACK; color++)
+        {
+            for (int type = BitboardPosition.PAWN; type < BitboardPosition.KING; type++)
+            {
+                materialKey += Long.bitCount(position.getPieces(color, type)) << Signature.getMaterialShift(color, type);
+            }
+        }
+        if (Signature.isTriviallyDrawn(materialKey))
+        {
+            return DRAW;
+        }
+        Tablebase table = getTable(materialKey);
+        boolean flip = null == table;
+        if (flip)
+        {
+            table = getTable(Signature.getFlippedKey(materialKey));
+        }
+        if (null == table)
+        {
+            return NOT_FOUND;
+        }
+        boolean mirror = position.getPawnDirection(BitboardPosition.WHITE) > 0;
+        int squareMask = flip != mirror ? MIRROR_Y : 0;
+        Signature signature = table.getSignature();
+        int index = flip ? 1 - position.getSideToMove() : position.getSideToMove();
+        long pieces = 0L;
+        for (int slot = 0; slot < signature.getPieceCount(); slot++)
+        {
+            int type = signature.getType(slot);
+            int color = signature.getColor(slot);
+            // pieces of one kind take consecutive slots, they are taken in order of squares
+            if (0 == slot || type != signature.getType(slot - 1) || color != signature.getColor(slot - 1))
+            {
+                pieces = position.getPieces(flip ? 1 - color : color, type);
+            }
+            index = (index << Tablebase.SQUARE_BITS) | (Bitboards.firstSquare(pieces) ^ squareMask);
+            pieces &= pieces - 1;
+        }
+        return getValue(table, index);
+    }
+
+    private static int getValue(Tablebase table, int index)
+    {
+        int value = table.getValue(index);
+        return Tablebase.ILLEGAL == value ? NOT_FOUND : value;
+    }
+
+    public static boolean isWin(int value)
+    {
+        return value > DRAW && 1 == (value - 1) % 2;
+    }
+
+    public static boolean isLoss(int value)
+    {
+        return value > DRAW && 0 == (value - 1) % 2;
+    }
+
+    /**
+     * @param value value of position
+     * @return number of plies to mate
+     */
+    public static int getPlies(int value)
+    {
+        return value - 1;
+    }
+
+    /**
+     * @param chessboard chessboard
+     * @return true if position is known draw
+     */
+    public static boolean isDraw(Chessboard chessboard)
+    {
+        return DRAW == probe(chessboard.getBitboardPosition());
+    }
+
+    /**
+     * Finds move which wins fastest, keeps draw or loses slowest.
+     * Moves to positions which are not in tables (en passant capture possible
+     * after double push) are skipped, unless best of other moves
+     * does not keep the result of position.
+     * @param chessboard chessboard with position to check
+     * @return best move or PackedMove.NO_MOVE if position is not in tables
+     */
+    public static int getBestMove(Chessboard chessboard)
+    {
+        BitboardPosition position = chessboard.getBitboardPosition();
+        int rootValue = probe(position);
+        if (NOT_FOUND == rootValue)
+        {
+            return PackedMove.NO_MOVE;
+        }
+        MoveList moves = new MoveList();
+        position.getLegalMoveGenerator().generateLegalMoves(position.getSideToMove(), moves);
+        UndoState undo = new UndoState();
+        int bestMove = PackedMove.NO_MOVE;
+        int bestScore = Integer.MIN_VALUE;
+        boolean skipped = false;
+        for (int i = 0; i < moves.size(); i++)
+        {
+            int move = moves.get(i);
+            chessboard.makeMove(move, undo);
+            int value = probe(chessboard.getBitboardPosition());
+            chessboard.unmakeMove(move, undo);
+            if (NOT_FOUND == value)
+            {
+                skipped = true;
+                continue;
+            }
+            int score = getScore(value);
+            if (score > bestScore)
+            {
+                bestScore = score;
+                bestMove = move;
+            }
+        }
+        if (skipped && bestScore < getExpectedScore(rootValue))
+        {
+            return PackedMove.NO_MOVE;
+        }
+        return bestMove;
+    }
+
+    /**
+     * @param value value of position after move
+     * @return score of move for side which made it
+     */
+    private static int getScore(int value)
+    {
+        if (isLoss(value))
+        {
+            return BEST_MOVE_SCORE - getPlies(value);
+        }
+        if (isWin(value))
+        {
+            return getPlies(value) - BEST_MOVE_SCORE;
+        }
+        return DRAW;
+    }
+
+    /**
+     * @param value value of position before move
+     * @return score of best move according to tables
+     */
+    private static int getExpectedScore(int value)
+    {
+        if (isWin(value))
+        {
+            return BEST_MOVE_SCORE - (getPlies(value) - 1);
+        }
+        if (isLoss(value))
+        {
+            return getPlies(value) - 1 - BEST_MOVE_SCORE;
+        }
+        return DRAW;
+    }
+}
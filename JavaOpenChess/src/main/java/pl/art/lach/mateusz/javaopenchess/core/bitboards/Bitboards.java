@@ -0,0 +1,296 @@
+/*
+#    This program is free software: you can redistribute it and/or modify
+#    it under the terms of the GNU General Public License as published by
+#    the Free Software Foundation, either version 3 of the License, or
+#    (at your option) any later version.
+#
+#    This program is distributed in the hope that it will be useful,
+#    but WITHOUT ANY WARRANTY; without even the implied warranty of
+#    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+#    GNU General Public License for more details.
+#
+#    You should have received a copy of the GNU General Public License
+#    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package pl.art.lach.mateusz.javaopenchess.core.bitboards;
+
+/**
+ * Helper methods and tables for 64-bit board representation.
+ * Square index is built the same way as chessboard coordinates:
+ * index = pozY * 8 + pozX, so a8 is 0 and h1 is 63.
+ */
+public final class Bitboards
+{
+    public static final int NUMBER_OF_SQUARES = 64;
+
+    public static final long FILE_A = 0x0101010101010101L;
+
+    public static final long FILE_B = FILE_A << 1;
+
+    public static final long FILE_G = FILE_A << 6;
+
+    public static final long FILE_H = FILE_A << 7;
+
+    public static final long NOT_FILE_A = ~FILE_A;
+
+    public static final long NOT_FILE_H = ~FILE_H;
+
+    public static final long NOT_FILES_AB = ~(FILE_A | FILE_B);
+
+    public static final long NOT_FILES_GH = ~(FILE_G | FILE_H);
+
+    public static final int DIRECTION_UP = 0;
+
+    public static final int DIRECTION_BOTTOM = 1;
+
+    public static final int DIRECTION_LEFT = 2;
+
+    public static final int DIRECTION_RIGHT = 3;
+
+    public static final int DIRECTION_UP_LEFT = 4;
+
+    public static final int DIRECTION_UP_RIGHT = 5;
+
+    public static final int DIRECTION_BOTTOM_LEFT = 6;
+
+    public static final int DIRECTION_BOTTOM_RIGHT = 7;
+
+    private static final int[] DIRECTION_X = {0, 0, -1, 1, -1, 1, -1, 1};
+
+    private static final int[] DIRECTION_Y = {-1, 1, 0, 0, -1, -1, 1, 1};
+
+    /**
+     * Squares in given direction from square (square itself excluded),
+     * indexed by [direction][square].
+     */
+    private static final long[][] RAYS = new long[8][NUMBER_OF_SQUARES];
+
+    /**
+     * Squares between two squares on the same line, indexed by [from][to].
+     */
+    private static final long[][] BETWEEN = new long[NUMBER_OF_SQUARES][NUMBER_OF_SQUARES];
+
+    private static final long[] KNIGHT_ATTACKS = new long[NUMBER_OF_SQUARES];
+
+    private static final long[] KING_ATTACKS = new long[NUMBER_OF_SQUARES];
+
+    /**
+     * Pawn captures indexed by [direction][square], direction 0 for pawns
+     * going up (to lower Y), 1 for pawns going down.
+     */
+    private static final long[][] PAWN_ATTACKS = new long[2][NUMBER_OF_SQUARES];
+
+    static
+    {
+        for (int direction = 0; direction < 8; direction++)
+        {
+            for (int square = 0; square < NUMBER_OF_SQUARES; square++)
+            {
+                long ray = 0L;
+                int x = getX(square) + DIRECTION_X[direction];
+                int y = getY(square) + DIRECTION_Y[direction];
+                while (!isOut(x, y))
+                {
+                    ray |= bit(getSquare(x, y));
+                    x += DIRECTION_X[direction];
+                    y += DIRECTION_Y[direction];
+                }
+                RAYS[direction][square] = ray;
+            }
+        }
+        for (int direction = 0; direction < 8; direction++)
+        {
+            for (int from = 0; from < NUMBER_OF_SQUARES; from++)
+            {
+                long ray = RAYS[direction][from];
+                for (long squares = ray; 0L != squares; squares &= squares - 1)
+                {
+                    int to = firstSquare(squares);
+                    BETWEEN[from][to] = ray & ~RAYS[direction][to] & ~bit(to);
+                }
+            }
+        }
+        for (int square = 0; square < NUMBER_OF_SQUARES; square++)
+        {
+            KNIGHT_ATTACKS[square] = getKnightAttacks(bit(square));
+            KING_ATTACKS[square] = getKingAttacks(bit(square));
+            PAWN_ATTACKS[0][square] = getPawnAttacks(bit(square), -1);
+            PAWN_ATTACKS[1][square] = getPawnAttacks(bit(square), 1);
+        }
+    }
+
+    private Bitboards()
+    {
+    }
+
+    public static int getSquare(int x, int y)
+    {
+        return (y << 3) | x;
+    }
+
+    public static int getX(int square)
+    {
+        return square & 7;
+    }
+
+    public static int getY(int square)
+    {
+        return square >>> 3;
+    }
+
+    public static boolean isOut(int x, int y)
+    {
+        return x < 0 || x > 7 || y < 0 || y > 7;
+    }
+
+    public static long bit(int square)
+    {
+        return 1L << square;
+    }
+
+    /**
+     * @param bitboard non empty bitboard
+     * @return index of the lowest set square
+     */
+    public static int firstSquare(long bitboard)
+    {
+        return Long.numberOfTrailingZeros(bitboard);
+    }
+
+    /**
+     * @param bitboard non empty bitboard
+     * @return index of the highest set square
+     */
+    public static int lastSquare(long bitboard)
+    {
+        return 63 - Long.numberOfLeadingZeros(bitboard);
+    }
+
+    public static long getRay(int direction, int square)
+    {
+        return RAYS[direction][square];
+    }
+
+    /**
+     * @return squares between two squares (both excluded), empty if squares are not on one line
+     */
+    public static long getBetween(int from, int to)
+    {
+        return BETWEEN[from][to];
+    }
+
+    /**
+     * Squares reachable in one direction, up to and including the first
+     * occupied square.
+     * @param direction one of DIRECTION_* constants
+     * @param square square where ray starts
+     * @param occupancy all occupied squares
+     * @return bitboard with squares in range
+     */
+    public static long getRayAttacks(int direction, int square, long occupancy)
+    {
+        long ray = RAYS[direction][square];
+        long blockers = ray & occupancy;
+        if (0L != blockers)
+        {
+            int blocker = isPositive(direction) ? firstSquare(blockers) : lastSquare(blockers);
+            ray ^= RAYS[direction][blocker];
+        }
+        return ray;
+    }
+
+    public static long getRookAttacks(int square, long occupancy)
+    {
+        return Magics.getRookAttacks(square, occupancy);
+    }
+
+    public static long getBishopAttacks(int square, long occupancy)
+    {
+        return Magics.getBishopAttacks(square, occupancy);
+    }
+
+    public static long getQueenAttacks(int square, long occupancy)
+    {
+        return Magics.getQueenAttacks(square, occupancy);
+    }
+
+    /**
+     * Set-wise knight attacks of all knights on the bitboard.
+     * @param knights bitboard of knights
+     * @return attacked squares
+     */
+    public static long getKnightAttacks(long knights)
+    {
+        return ((knights << 17) & NOT_FILE_A)
+                | ((knights << 15) & NOT_FILE_H)
+                | ((knights << 10) & NOT_FILES_AB)
+                | ((knights << 6) & NOT_FILES_GH)
+                | ((knights >>> 15) & NOT_FILE_A)
+                | ((knights >>> 17) & NOT_FILE_H)
+                | ((knights >>> 6) & NOT_FILES_AB)
+                | ((knights >>> 10) & NOT_FILES_GH);
+    }
+
+    /**
+     * Set-wise king attacks of all kings on the bitboard.
+     * @param kings bitboard of kings
+     * @return attacked squares
+     */
+    public static long getKingAttacks(long kings)
+    {
+        long sides = ((kings << 1) & NOT_FILE_A) | ((kings >>> 1) & NOT_FILE_H);
+        long row = kings | sides;
+        return sides | (row << 8) | (row >>> 8);
+    }
+
+    /**
+     * Set-wise pawn captures.
+     * @param pawns bitboard of pawns
+     * @param directionY 1 if pawns are going down (to higher Y), -1 otherwise
+     * @return squares attacked by pawns
+     */
+    public static long getPawnAttacks(long pawns, int directionY)
+    {
+        if (directionY > 0)
+        {
+            return ((pawns << 9) & NOT_FILE_A) | ((pawns << 7) & NOT_FILE_H);
+        }
+        return ((pawns >>> 7) & NOT_FILE_A) | ((pawns >>> 9) & NOT_FILE_H);
+    }
+
+    /**
+     * @param square square of knight
+     * @return squares attacked by knight, from precomputed table
+     */
+    public static long getKnightAttacks(int square)
+    {
+        return KNIGHT_ATTACKS[square];
+    }
+
+    /**
+     * @param square square of king
+     * @return squares around king, from precomputed table
+     */
+    public static long getKingAttacks(int square)
+    {
+        return KING_ATTACKS[square];
+    }
+
+    /**
+     * @param square square of pawn
+     * @param directionY 1 if pawn is going down (to higher Y), -1 otherwise
+     * @return squares attacked by pawn, from precomputed table
+     */
+    public static long getPawnAttacks(int square, int directionY)
+    {
+        return PAWN_ATTACKS[directionY > 0 ? 1 : 0][square];
+    }
+
+    static boolean isPositive(int direction)
+    {
+        return DIRECTION_BOTTOM == direction
+                || DIRECTION_RIGHT == direction
+                || DIRECTION_BOTTOM_LEFT == direction
+                || DIRECTION_BOTTOM_RIGHT == direction;
+    }
+}
@@ -0,0 +1,219 @@
+/*
+#    This program is free software: you can redistribute it and/or modify
+#    it under the terms of the GNU General Public License as published by
+#    the Free Software Foundation, either version 3 of the License, or
+#    (at your option) any later version.
+#
+#    This program is distributed in the hope that it will be useful,
+#    but WITHOUT ANY WARRANTY; without even the implied warranty of
+#    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+#    GNU General Public License for more details.
+#
+#    You should have received a copy of the GNU General Public License
+#    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package pl.art.lach.mateusz.javaopenchess.core.bitboards;
+
+/**
+ * Magic bitboard attack tables for sliding pieces ("fancy" magics:
+ * one shared table with offset and shift for every square).
+ * Attack set of rook or bishop is one multiplication, shift and table lookup:
+ * attacks[offset + ((occupancy &amp; mask) * magic &gt;&gt;&gt; shift)].
+ * Magic numbers are searched once when the class is loaded,
+ * with fixed seed so tables are always the same.
+ */
+public final class Magics
+{
+    private static final long SEED = 0x2545F4914F6CDD1DL;
+
+    private static final int[] ROOK_DIRECTIONS = {
+        Bitboards.DIRECTION_UP, Bitboards.DIRECTION_BOTTOM,
+        Bitboards.DIRECTION_LEFT, Bitboards.DIRECTION_RIGHT
+    };
+
+    private static final int[] BISHOP_DIRECTIONS = {
+        Bitboards.DIRECTION_UP_LEFT, Bitboards.DIRECTION_UP_RIGHT,
+        Bitboards.DIRECTION_BOTTOM_LEFT, Bitboards.DIRECTION_BOTTOM_RIGHT
+    };
+
+    private static final Magic[] ROOK_MAGICS = new Magic[Bitboards.NUMBER_OF_SQUARES];
+
+    private static final Magic[] BISHOP_MAGICS = new Magic[Bitboards.NUMBER_OF_SQUARES];
+
+    private static final long[] ROOK_ATTACKS;
+
+    private static final long[] BISHOP_ATTACKS;
+
+    private static long random = SEED;
+
+    static
+    {
+        ROOK_ATTACKS = initTable(ROOK_MAGICS, ROOK_DIRECTIONS);
+        BISHOP_ATTACKS = initTable(BISHOP_MAGICS, BISHOP_DIRECTIONS);
+    }
+
+    private Magics()
+    {
+    }
+
+    /**
+     * @param square square of rook
+     * @param occupancy all occupied squares
+     * @return squares attacked by rook, including first blocker in each direction
+     */
+    public static long getRookAttacks(int square, long occupancy)
+    {
+        Magic magic = ROOK_MAGICS[square];
+        return ROOK_ATTACKS[magic.getIndex(occupancy)];
+    }
+
+    /**
+     * @param square square of bishop
+     * @param occupancy all occupied squares
+     * @return squares attacked by bishop, including first blocker in each direction
+     */
+    public static long getBishopAttacks(int square, long occupancy)
+    {
+        Magic magic = BISHOP_MAGICS[square];
+        return BISHOP_ATTACKS[magic.getIndex(occupancy)];
+    }
+
+    public static long getQueenAttacks(int square, long occupancy)
+    {
+        return getRookAttacks(square, occupancy) | getBishopAttacks(square, occupancy);
+    }
+
+    private static long[] initTable(Magic[] magics, int[] directions)
+    {
+        int size = 0;
+        long[] masks = new long[Bitboards.NUMBER_OF_SQUARES];
+        for (int square = 0; square < Bitboards.NUMBER_OF_SQUARES; square++)
+        {
+            masks[square] = getMask(square, directions);
+            size += 1 << Long.bitCount(masks[square]);
+        }
+        long[] table = new long[size];
+        int offset = 0;
+        for (int square = 0; square < Bitboards.NUMBER_OF_SQUARES; square++)
+        {
+            magics[square] = findMagic(square, masks[square], offset, table, directions);
+            offset += 1 << Long.bitCount(masks[square]);
+        }
+        return table;
+    }
+
+    /**
+     * Relevant occupancy: squares on rays without the last one,
+     * because piece on the edge does not block anything.
+     */
+    private static long getMask(int square, int[] directions)
+    {
+        long mask = 0L;
+        for (int direction : directions)
+        {
+            long ray = Bitboards.getRay(direction, square);
+            if (0L != ray)
+            {
+                int edge = Bitboards.isPositive(direction) ? Bitboards.lastSquare(ray) : Bitboards.firstSquare(ray);
+                mask |= ray & ~Bitboards.bit(edge);
+            }
+        }
+        return mask;
+    }
+
+    private static long getSlowAttacks(int square, long occupancy, int[] directions)
+    {
+        long result = 0L;
+        for (int direction : directions)
+        {
+            result |= Bitboards.getRayAttacks(direction, square, occupancy);
+        }
+        return result;
+    }
+
+    private static Magic findMagic(int square, long mask, int offset, long[] table, int[] directions)
+    {
+        int bits = Long.bitCount(mask);
+        int size = 1 << bits;
+        long[] occupancies = new long[size];
+        long[] attacks = new long[size];
+        long subset = 0L;
+        int count = 0;
+        do
+        {
+            occupancies[count] = subset;
+            attacks[count] = getSlowAttacks(square, subset, directions);
+            count++;
+            subset = (subset - mask) & mask;
+        }
+        while (0L != subset);
+
+        int[] epochs = new int[size];
+        int epoch = 0;
+        while (true)
+        {
+            long magic = nextSparseRandom();
+            if (Long.bitCount((mask * magic) >>> 56) < 6)
+            {
+                continue;
+            }
+            epoch++;
+            Magic candidate = new Magic(mask, magic, 64 - bits, offset);
+            boolean failed = false;
+            for (int i = 0; i < size && !failed; i++)
+            {
+                int index = (int) ((occupancies[i] * magic) >>> candidate.shift);
+                if (epochs[index] != epoch)
+                {
+                    epochs[index] = epoch;
+                    table[offset + index] = attacks[i];
+                }
+                else if (table[offset + index] != attacks[i])
+                {
+                    failed = true;
+                }
+            }
+            if (!failed)
+            {
+                return candidate;
+            }
+        }
+    }
+
+    private static long nextRandom()
+    {
+        random ^= random >>> 12;
+        random ^= random << 25;
+        random ^= random >>> 27;
+        return random * 2685821657736338717L;
+    }
+
+    private static long nextSparseRandom()
+    {
+        return nextRandom() & nextRandom() & nextRandom();
+    }
+
+    private static final class Magic
+    {
+        private final long mask;
+
+        private final long magic;
+
+        private final int shift;
+
+        private final int offset;
+
+        Magic(long mask, long magic, int shift, int offset)
+        {
+            this.mask = mask;
+            this.magic = magic;
+            this.shift = shift;
+            this.offset = offset;
+        }
+
+        int getIndex(long occupancy)
+        {
+            return offset + (int) (((occupancy & mask) * magic) >>> shift);
+        }
+    }
+}
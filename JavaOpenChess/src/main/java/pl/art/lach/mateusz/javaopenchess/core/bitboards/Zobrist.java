@@ -0,0 +1,119 @@
+/*
+#    This program is free software: you can redistribute it and/or modify
+#    it under the terms of the GNU General Public License as published by
+#    the Free Software Foundation, either version 3 of the License, or
+#    (at your option) any later version.
+#
+#    This program is distributed in the hope that it will be useful,
+#    but WITHOUT ANY WARRANTY; without even the implied warranty of
+#    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+#    GNU General Public License for more details.
+#
+#    You should have received a copy of the GNU General Public License
+#    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package pl.art.lach.mateusz.javaopenchess.core.bitboards;
+
+/**
+ * Random keys for Zobrist hashing of positions. Key of position is
+ * xor of keys of every piece on its square, side to move, castling
+ * rights and file of en passant pawn, so it can be updated by xoring
+ * only the keys which changed. Keys are generated with fixed seed,
+ * so the same position always gets the same key.
+ */
+public final class Zobrist
+{
+    private static final long SEED = 0x9E3779B97F4A7C15L;
+
+    private static final int NUMBER_OF_PIECES = 12;
+
+    private static final int NUMBER_OF_CASTLING_STATES = 16;
+
+    private static final int NUMBER_OF_FILES = 8;
+
+    private static final long[][] PIECES = new long[NUMBER_OF_PIECES][Bitboards.NUMBER_OF_SQUARES];
+
+    private static final long[] CASTLING = new long[NUMBER_OF_CASTLING_STATES];
+
+    private static final long[] EN_PASSANT = new long[NUMBER_OF_FILES];
+
+    private static final long SIDE;
+
+    static
+    {
+        long random = SEED;
+        for (int piece = 0; piece < NUMBER_OF_PIECES; piece++)
+        {
+            for (int square = 0; square < Bitboards.NUMBER_OF_SQUARES; square++)
+            {
+                random = next(random);
+                PIECES[piece][square] = scramble(random);
+            }
+        }
+        for (int i = 0; i < NUMBER_OF_CASTLING_STATES; i++)
+        {
+            random = next(random);
+            CASTLING[i] = scramble(random);
+        }
+        CASTLING[0] = 0L;
+        for (int i = 0; i < NUMBER_OF_FILES; i++)
+        {
+            random = next(random);
+            EN_PASSANT[i] = scramble(random);
+        }
+        SIDE = scramble(next(random));
+    }
+
+    private Zobrist()
+    {
+    }
+
+    /**
+     * @param piece piece index (color * 6 + type)
+     * @param square square index
+     * @return key of piece standing on square
+     */
+    public static long getPieceKey(int piece, int square)
+    {
+        return PIECES[piece][square];
+    }
+
+    /**
+     * @param castlingRights castling flags of both sides
+     * @return key of castling state, 0 when nobody can castle
+     */
+    public static long getCastlingKey(int castlingRights)
+    {
+        return CASTLING[castlingRights];
+    }
+
+    /**
+     * @param file x coordinate of pawn which moved two squares
+     * @return key of en passant state
+     */
+    public static long getEnPassantKey(int file)
+    {
+        return EN_PASSANT[file];
+    }
+
+    /**
+     * @return key xored when black side is to move
+     */
+    public static long getSideKey()
+    {
+        return SIDE;
+    }
+
+    private static long next(long random)
+    {
+        random ^= random >>> 12;
+        random ^= random << 25;
+        random ^= random >>> 27;
+        return random;
+    }
+
+    private static long scramble(long random)
+    {
+        return random * 2685821657736338717L;
+    }
+}
@@ -113,6 +113,7 @@ public class FenNotation implements DataImporter, DataExporter
         importCastlingState(fields[CASTLING_STATE_NUM], chessboard);
         importEnPassantState(fields[EN_PASSANT_STATE_NUM], chessboard, game);
         importCounters(fields, game);
+        chessboard.resetZobristKey();
     }
     private static final int NUMBER_OF_FIELDS = 6;
 
@@ -134,6 +135,7 @@ public class FenNotation implements DataImporter, DataExporter
 
     private void importEnPassantState(String enPassantState, Chessboard chessboard, Game game) throws ReadGameError
     {
+        chessboard.setTwoSquareMovedPawn(null);
         if (!FIELD_EMPTY.equals(enPassantState) && enPassantState.length() == 2)
         {
             try
@@ -168,6 +170,17 @@ public class FenNotation implements DataImporter, DataExporter
 
     private void importCastlingState(String castlingState, Chessboard chessboard) throws ReadGameError
     {
+        for (Piece piece : chessboard.getAllPieces(null))
+        {
+            if (piece instanceof King)
+            {
+                ((King) piece).setWasMotioned(true);
+            }
+            else if (piece instanceof Rook)
+            {
+                ((Rook) piece).setWasMotioned(true);
+            }
+        }
         for (int i = 0, size = castlingState.length(); i < size; i++)
         {
             String state = castlingState.substring(i, (i+1));
@@ -279,6 +292,10 @@ public class FenNotation implements DataImporter, DataExporter
                     );
                     Square square = game.getChessboard().getSquare(currentX, currentY);
                     square.setPiece(piece);
+                    if (piece instanceof King)
+                    {
+                        importKing((King) piece, square, game.getChessboard());
+                    }
                     currentX++;
                 }
             }
@@ -286,6 +303,18 @@ public class FenNotation implements DataImporter, DataExporter
         }
     }
     private static final int NUMBER_OF_ROWS = 8;
+
+    private void importKing(King king, Square square, Chessboard chessboard)
+    {
+        if (Colors.WHITE == king.getPlayer().getColor())
+        {
+            chessboard.setKingWhite(king, square);
+        }
+        else
+        {
+            chessboard.setKingBlack(king, square);
+        }
+    }
     
     @Override
     public String exportData(Game game)
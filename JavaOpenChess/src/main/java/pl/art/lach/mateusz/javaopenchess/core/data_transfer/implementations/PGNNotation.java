@@ -18,6 +18,8 @@ import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.StringReader;
 import java.util.Calendar;
+import java.util.Collections;
+import java.util.Map;
 import org.apache.log4j.Logger;
 import pl.art.lach.mateusz.javaopenchess.JChessApp;
 import pl.art.lach.mateusz.javaopenchess.core.Game;
@@ -45,6 +47,8 @@ public class PGNNotation implements DataImporter, DataExporter
     
     private static final String START_MOVES_LINE_INTRO = "1.";
 
+    public static final String RESULT_TAG = "Result";
+
     @Override
     public Game importData(String data) throws ReadGameError
     {
@@ -95,17 +99,38 @@ public class PGNNotation implements DataImporter, DataExporter
 
     @Override
     public String exportData(Game game)
+    {
+        return exportData(game, Collections.<String, String>emptyMap());
+    }
+
+    /**
+     * Exports game with additional tags (e.g. Result, FEN, Round) written
+     * after the standard ones. Value of Result tag also ends the moves.
+     * @param game game to export
+     * @param tags names and values of additional tags, in order of writing
+     * @return game in PGN notation
+     */
+    public String exportData(Game game, Map<String, String> tags)
     {
         Calendar cal = Calendar.getInstance();
         Settings sett = game.getSettings();
         StringBuilder strBuilder = new StringBuilder();
         String header = String.format(
-            "[Event \"Game\"]\n[Date \"%s.%s.%s\"]\n[White \"%s\"]\n[Black \"%s\"]\n\n",
+            "[Event \"Game\"]\n[Date \"%s.%s.%s\"]\n[White \"%s\"]\n[Black \"%s\"]\n",
             cal.get(Calendar.YEAR), cal.get(Calendar.MONTH) + 1, cal.get(Calendar.DAY_OF_MONTH),
             sett.getPlayerWhite().getName(), sett.getPlayerBlack().getName()
         );
         strBuilder.append(header);
+        for (Map.Entry<String, String> tag : tags.entrySet())
+        {
+            strBuilder.append(String.format("[%s \"%s\"]\n", tag.getKey(), tag.getValue()));
+        }
+        strBuilder.append("\n");
         strBuilder.append(game.getMoves().getMovesInString());
+        if (tags.containsKey(RESULT_TAG))
+        {
+            strBuilder.append(tags.get(RESULT_TAG));
+        }
         return strBuilder.toString();
     }
 
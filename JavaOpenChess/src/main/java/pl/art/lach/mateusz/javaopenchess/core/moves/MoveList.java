@@ -0,0 +1,126 @@
+/*
+#    This program is free software: you can redistribute it and/or modify
+#    it under the terms of the GNU General Public License as published by
+#    the Free Software Foundation, either version 3 of the License, or
+#    (at your option) any later version.
+#
+#    This program is distributed in the hope that it will be useful,
+#    but WITHOUT ANY WARRANTY; without even the implied warranty of
+#    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+#    GNU General Public License for more details.
+#
+#    You should have received a copy of the GNU General Public License
+#    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package pl.art.lach.mateusz.javaopenchess.core.moves;
+
+import java.util.Arrays;
+
+/**
+ * Growable list of packed moves kept in int array.
+ * Search keeps one list per ply and calls clear() instead of
+ * creating new list, so after warm up no memory is allocated.
+ */
+public class MoveList
+{
+    private static final int DEFAULT_CAPACITY = 64;
+
+    private int[] moves;
+
+    private int size = 0;
+
+    public MoveList()
+    {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public MoveList(int capacity)
+    {
+        this.moves = new int[Math.max(1, capacity)];
+    }
+
+    public void add(int move)
+    {
+        if (size == moves.length)
+        {
+            moves = Arrays.copyOf(moves, moves.length * 2);
+        }
+        moves[size++] = move;
+    }
+
+    public int get(int index)
+    {
+        return moves[index];
+    }
+
+    public void set(int index, int move)
+    {
+        moves[index] = move;
+    }
+
+    public void swap(int first, int second)
+    {
+        int tmp = moves[first];
+        moves[first] = moves[second];
+        moves[second] = tmp;
+    }
+
+    /**
+     * Removes moves from given index to the end of list.
+     * @param size new size, not greater than current one
+     */
+    public void truncate(int size)
+    {
+        this.size = Math.min(this.size, Math.max(0, size));
+    }
+
+    public boolean contains(int move)
+    {
+        for (int i = 0; i < size; i++)
+        {
+            if (moves[i] == move)
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public int size()
+    {
+        return size;
+    }
+
+    public boolean isEmpty()
+    {
+        return 0 == size;
+    }
+
+    public void clear()
+    {
+        size = 0;
+    }
+
+    /**
+     * @return copy of moves in list
+     */
+    public int[] toArray()
+    {
+        return Arrays.copyOf(moves, size);
+    }
+
+    @Override
+    public String toString()
+    {
+        StringBuilder result = new StringBuilder("[");
+        for (int i = 0; i < size; i++)
+        {
+            if (i > 0)
+            {
+                result.append(", ");
+            }
+            result.append(PackedMove.toString(moves[i]));
+        }
+        return result.append(']').toString();
+    }
+}
@@ -0,0 +1,265 @@
+/*
+#    This program is free software: you can redistribute it and/or modify
+#    it under the terms of the GNU General Public License as published by
+#    the Free Software Foundation, either version 3 of the License, or
+#    (at your option) any later version.
+#
+#    This program is distributed in the hope that it will be useful,
+#    but WITHOUT ANY WARRANTY; without even the implied warranty of
+#    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+#    GNU General Public License for more details.
+#
+#    You should have received a copy of the GNU General Public License
+#    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package pl.art.lach.mateusz.javaopenchess.core.moves;
+
+import pl.art.lach.mateusz.javaopenchess.core.BitboardPosition;
+import pl.art.lach.mateusz.javaopenchess.core.Chessboard;
+import pl.art.lach.mateusz.javaopenchess.core.Square;
+import pl.art.lach.mateusz.javaopenchess.core.bitboards.Bitboards;
+import pl.art.lach.mateusz.javaopenchess.core.pieces.Piece;
+import pl.art.lach.mateusz.javaopenchess.core.pieces.PieceFactory;
+
+/**
+ * Move packed into one int, used by search code instead of Move objects.
+ * <pre>
+ * bits  0- 5 square from (bitboard index)
+ * bits  6-11 square to (bitboard index)
+ * bits 12-15 moved piece (BitboardPosition piece index + 1)
+ * bits 16-19 captured piece (piece index + 1, 0 if nothing was captured)
+ * bits 20-23 type of promotion piece (0 if it is not a promotion)
+ * bits 24-27 flags (en passant, pawn two squares move, castling)
+ * </pre>
+ * Moved piece is never empty, so 0 can be used as NO_MOVE.
+ */
+public final class PackedMove
+{
+    public static final int NO_MOVE = 0;
+
+    public static final int FLAG_EN_PASSANT = 1;
+
+    public static final int FLAG_PAWN_TWO_SQUARES = 2;
+
+    public static final int FLAG_SHORT_CASTLING = 4;
+
+    public static final int FLAG_LONG_CASTLING = 8;
+
+    private static final int SQUARE_MASK = 0x3F;
+
+    private static final int NIBBLE_MASK = 0xF;
+
+    private static final int TO_SHIFT = 6;
+
+    private static final int MOVED_SHIFT = 12;
+
+    private static final int CAPTURED_SHIFT = 16;
+
+    private static final int PROMOTION_SHIFT = 20;
+
+    private static final int FLAGS_SHIFT = 24;
+
+    private static final String[] PIECE_NAMES = {"Pawn", "Knight", "Bishop", "Rook", "Queen", "King"};
+
+    private static final String PIECE_SYMBOLS = "pnbrqk";
+
+    private PackedMove()
+    {
+    }
+
+    /**
+     * @param from square from
+     * @param to square to
+     * @param movedPiece piece index of moved piece
+     * @param capturedPiece piece index of captured piece or BitboardPosition.NO_PIECE
+     * @param promotion type of promotion piece or BitboardPosition.NO_PIECE
+     * @param flags FLAG_* constants
+     * @return packed move
+     */
+    public static int create(int from, int to, int movedPiece, int capturedPiece, int promotion, int flags)
+    {
+        return from
+                | (to << TO_SHIFT)
+                | ((movedPiece + 1) << MOVED_SHIFT)
+                | ((capturedPiece + 1) << CAPTURED_SHIFT)
+                | ((BitboardPosition.NO_PIECE == promotion ? 0 : promotion) << PROMOTION_SHIFT)
+                | (flags << FLAGS_SHIFT);
+    }
+
+    public static int getFrom(int move)
+    {
+        return move & SQUARE_MASK;
+    }
+
+    public static int getTo(int move)
+    {
+        return (move >>> TO_SHIFT) & SQUARE_MASK;
+    }
+
+    public static int getMovedPiece(int move)
+    {
+        return ((move >>> MOVED_SHIFT) & NIBBLE_MASK) - 1;
+    }
+
+    /**
+     * @param move packed move
+     * @return piece index of captured piece or BitboardPosition.NO_PIECE
+     */
+    public static int getCapturedPiece(int move)
+    {
+        return ((move >>> CAPTURED_SHIFT) & NIBBLE_MASK) - 1;
+    }
+
+    /**
+     * @param move packed move
+     * @return type of promotion piece or BitboardPosition.NO_PIECE
+     */
+    public static int getPromotion(int move)
+    {
+        int promotion = (move >>> PROMOTION_SHIFT) & NIBBLE_MASK;
+        return 0 == promotion ? BitboardPosition.NO_PIECE : promotion;
+    }
+
+    public static int getFlags(int move)
+    {
+        return (move >>> FLAGS_SHIFT) & NIBBLE_MASK;
+    }
+
+    public static boolean isCapture(int move)
+    {
+        return 0 != ((move >>> CAPTURED_SHIFT) & NIBBLE_MASK);
+    }
+
+    public static boolean isPromotion(int move)
+    {
+        return 0 != ((move >>> PROMOTION_SHIFT) & NIBBLE_MASK);
+    }
+
+    public static boolean isEnPassant(int move)
+    {
+        return 0 != (getFlags(move) & FLAG_EN_PASSANT);
+    }
+
+    public static boolean isPawnTwoSquaresMove(int move)
+    {
+        return 0 != (getFlags(move) & FLAG_PAWN_TWO_SQUARES);
+    }
+
+    public static Castling getCastling(int move)
+    {
+        int flags = getFlags(move);
+        if (0 != (flags & FLAG_SHORT_CASTLING))
+        {
+            return Castling.SHORT_CASTLING;
+        }
+        if (0 != (flags & FLAG_LONG_CASTLING))
+        {
+            return Castling.LONG_CASTLING;
+        }
+        return Castling.NONE;
+    }
+
+    /**
+     * @param move packed move
+     * @return name of promotion piece, as used by PieceFactory
+     */
+    public static String getPromotionName(int move)
+    {
+        return PIECE_NAMES[getPromotion(move)];
+    }
+
+    /**
+     * Method packs existing Move object.
+     * @param move move to pack
+     * @return packed move
+     */
+    public static int fromMove(Move move)
+    {
+        int flags = 0;
+        if (move.wasEnPassant())
+        {
+            flags |= FLAG_EN_PASSANT;
+        }
+        if (move.wasPawnTwoFieldsMove())
+        {
+            flags |= FLAG_PAWN_TWO_SQUARES;
+        }
+        if (Castling.SHORT_CASTLING == move.getCastlingMove())
+        {
+            flags |= FLAG_SHORT_CASTLING;
+        }
+        else if (Castling.LONG_CASTLING == move.getCastlingMove())
+        {
+            flags |= FLAG_LONG_CASTLING;
+        }
+        return create(
+            Chessboard.getBitboardIndex(move.getFrom()),
+            Chessboard.getBitboardIndex(move.getTo()),
+            getPieceIndex(move.getMovedPiece()),
+            getPieceIndex(move.getTakenPiece()),
+            null == move.getPromotedPiece() ? BitboardPosition.NO_PIECE : BitboardPosition.getType(move.getPromotedPiece()),
+            flags
+        );
+    }
+
+    /**
+     * Method creates Move object for packed move which was not made yet,
+     * moved and captured pieces are taken from chessboard.
+     * @param move packed move
+     * @param chessboard chessboard with position before the move
+     * @return move object
+     */
+    public static Move toMove(int move, Chessboard chessboard)
+    {
+        Square from = chessboard.getSquare(getFrom(move));
+        Square to = chessboard.getSquare(getTo(move));
+        Piece movedPiece = from.getPiece();
+        Piece takenPiece = to.getPiece();
+        if (isEnPassant(move))
+        {
+            takenPiece = chessboard.getSquare(to.getPozX(), from.getPozY()).getPiece();
+        }
+        Piece promotedPiece = null;
+        if (isPromotion(move))
+        {
+            promotedPiece = PieceFactory.getPiece(
+                chessboard, movedPiece.getPlayer().getColor(), getPromotionName(move), movedPiece.getPlayer()
+            );
+        }
+        return new Move(from, to, movedPiece, takenPiece, getCastling(move), isEnPassant(move), promotedPiece);
+    }
+
+    /**
+     * @param move packed move
+     * @return move in coordinate notation, e.g. e2e4 or a7a8q
+     */
+    public static String toString(int move)
+    {
+        if (NO_MOVE == move)
+        {
+            return "0000";
+        }
+        StringBuilder result = new StringBuilder();
+        result.append(getSquareName(getFrom(move))).append(getSquareName(getTo(move)));
+        if (isPromotion(move))
+        {
+            result.append(PIECE_SYMBOLS.charAt(getPromotion(move)));
+        }
+        return result.toString();
+    }
+
+    private static String getSquareName(int square)
+    {
+        return String.valueOf((char) ('a' + Bitboards.getX(square)))
+                + (char) ('8' - Bitboards.getY(square));
+    }
+
+    private static int getPieceIndex(Piece piece)
+    {
+        if (null == piece)
+        {
+            return BitboardPosition.NO_PIECE;
+        }
+        return BitboardPosition.getPieceIndex(BitboardPosition.getColor(piece), BitboardPosition.getType(piece));
+    }
+}
@@ -0,0 +1,428 @@
+/*
+#    This program is free software: you can redistribute it and/or modify
+#    it under the terms of the GNU General Public License as published by
+#    the Free Software Foundation, either version 3 of the License, or
+#    (at your option) any later version.
+#
+#    This program is distributed in the hope that it will be useful,
+#    but WITHOUT ANY WARRANTY; without even the implied warranty of
+#    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+#    GNU General Public License for more details.
+#
+#    You should have received a copy of the GNU General Public License
+#    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package pl.art.lach.mateusz.javaopenchess.core.perft;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.log4j.Logger;
+import pl.art.lach.mateusz.javaopenchess.core.BitboardPosition;
+import pl.art.lach.mateusz.javaopenchess.core.Chessboard;
+import pl.art.lach.mateusz.javaopenchess.core.Colors;
+import pl.art.lach.mateusz.javaopenchess.core.Game;
+import pl.art.lach.mateusz.javaopenchess.core.Square;
+import pl.art.lach.mateusz.javaopenchess.core.UndoState;
+import pl.art.lach.mateusz.javaopenchess.core.data_transfer.implementations.FenNotation;
+import pl.art.lach.mateusz.javaopenchess.core.exceptions.ReadGameError;
+import pl.art.lach.mateusz.javaopenchess.core.moves.MoveList;
+import pl.art.lach.mateusz.javaopenchess.core.moves.PackedMove;
+import pl.art.lach.mateusz.javaopenchess.core.pieces.Piece;
+import pl.art.lach.mateusz.javaopenchess.core.pieces.PieceFactory;
+import pl.art.lach.mateusz.javaopenchess.core.pieces.implementation.King;
+import pl.art.lach.mateusz.javaopenchess.core.pieces.implementation.Pawn;
+import pl.art.lach.mateusz.javaopenchess.core.pieces.implementation.Rook;
+import pl.art.lach.mateusz.javaopenchess.core.players.Player;
+
+/**
+ * Perft (performance test) counts all leaf nodes of move tree
+ * to given depth. Moves are generated as packed moves by
+ * LegalMoveGenerator and made by Chessboard.makeMove(), so the result
+ * checks correctness of move generator and make/unmake, and the time
+ * measures their speed.
+ * perftAllMoves() and divideAllMoves() count the same tree with moves
+ * generated by Piece.getAllMoves() and made by Chessboard.move(),
+ * the path used by the game, so both generators can be compared.
+ * Usage from command line:
+ * <pre>Perft depth [FEN] [divide] [allmoves]</pre>
+ */
+public class Perft
+{
+    private static final Logger LOG = Logger.getLogger(Perft.class);
+
+    private static final String[] PROMOTION_PIECES = {"Queen", "Rook", "Bishop", "Knight"};
+
+    private static final String DIVIDE_OPTION = "divide";
+
+    private static final String ALL_MOVES_OPTION = "allmoves";
+
+    private final Game game;
+
+    private final Chessboard chessboard;
+
+    private MoveList[] moveLists = new MoveList[0];
+
+    private UndoState[] undoStates = new UndoState[0];
+
+    public Perft(Game game)
+    {
+        this.game = game;
+        this.chessboard = game.getChessboard();
+    }
+
+    /**
+     * Creates perft for position given in FEN notation.
+     * @param fen position in FEN notation
+     * @return perft for imported game
+     * @throws ReadGameError if FEN is not valid
+     */
+    public static Perft fromFen(String fen) throws ReadGameError
+    {
+        return new Perft(new FenNotation().importData(fen));
+    }
+
+    /**
+     * @param depth depth of move tree
+     * @return number of leaf nodes
+     */
+    public long perft(int depth)
+    {
+        ensureCapacity(depth);
+        return count(depth, 0);
+    }
+
+    /**
+     * Counts leaf nodes separately for every root move.
+     * @param depth depth of move tree
+     * @return result with number of nodes, time and nodes for each root move
+     */
+    public PerftResult divide(int depth)
+    {
+        long start = System.nanoTime();
+        Map<String, Long> divide = new HashMap<>();
+        long nodes = 0L;
+        if (depth > 0)
+        {
+            ensureCapacity(depth);
+            MoveList moves = generateMoves(0);
+            for (int i = 0; i < moves.size(); i++)
+            {
+                int move = moves.get(i);
+                UndoState undo = chessboard.makeMove(move, undoStates[0]);
+                long moveNodes = count(depth - 1, 1);
+                chessboard.unmakeMove(move, undo);
+                divide.put(PackedMove.toString(move), moveNodes);
+                nodes += moveNodes;
+            }
+        }
+        else
+        {
+            nodes = 1L;
+        }
+        return new PerftResult(depth, nodes, System.nanoTime() - start, divide);
+    }
+
+    private long count(int depth, int ply)
+    {
+        if (0 == depth)
+        {
+            return 1L;
+        }
+        MoveList moves = generateMoves(ply);
+        if (1 == depth)
+        {
+            return moves.size();
+        }
+        long nodes = 0L;
+        for (int i = 0; i < moves.size(); i++)
+        {
+            int move = moves.get(i);
+            UndoState undo = chessboard.makeMove(move, undoStates[ply]);
+            nodes += count(depth - 1, ply + 1);
+            chessboard.unmakeMove(move, undo);
+        }
+        return nodes;
+    }
+
+    private MoveList generateMoves(int ply)
+    {
+        MoveList moves = moveLists[ply];
+        moves.clear();
+        BitboardPosition position = chessboard.getBitboardPosition();
+        position.getLegalMoveGenerator().generateLegalMoves(position.getSideToMove(), moves);
+        return moves;
+    }
+
+    /**
+     * Counts leaf nodes with moves generated by Piece.getAllMoves()
+     * and made by Chessboard.move().
+     * @param depth depth of move tree
+     * @return number of leaf nodes
+     */
+    public long perftAllMoves(int depth)
+    {
+        return countAllMoves(depth);
+    }
+
+    /**
+     * Counts leaf nodes separately for every root move, with moves
+     * generated by Piece.getAllMoves() and made by Chessboard.move().
+     * @param depth depth of move tree
+     * @return result with number of nodes, time and nodes for each root move
+     */
+    public PerftResult divideAllMoves(int depth)
+    {
+        long start = System.nanoTime();
+        Map<String, Long> divide = new HashMap<>();
+        long nodes = 0L;
+        if (depth > 0)
+        {
+            for (Square[] move : getAllMoves())
+            {
+                Square from = move[0];
+                Square to = move[1];
+                String notation = from.getAlgebraicNotation() + to.getAlgebraicNotation();
+                if (isPromotion(from, to))
+                {
+                    for (String promotion : PROMOTION_PIECES)
+                    {
+                        long moveNodes = countMove(from, to, promotion, depth);
+                        divide.put(notation + getPromotionSymbol(promotion), moveNodes);
+                        nodes += moveNodes;
+                    }
+                }
+                else
+                {
+                    long moveNodes = countMove(from, to, null, depth);
+                    divide.put(notation, moveNodes);
+                    nodes += moveNodes;
+                }
+            }
+        }
+        else
+        {
+            nodes = 1L;
+        }
+        return new PerftResult(depth, nodes, System.nanoTime() - start, divide);
+    }
+
+    private long countAllMoves(int depth)
+    {
+        if (0 == depth)
+        {
+            return 1L;
+        }
+        long nodes = 0L;
+        for (Square[] move : getAllMoves())
+        {
+            Square from = move[0];
+            Square to = move[1];
+            if (isPromotion(from, to))
+            {
+                for (String promotion : PROMOTION_PIECES)
+                {
+                    nodes += 1 == depth ? 1L : countMove(from, to, promotion, depth);
+                }
+            }
+            else
+            {
+                nodes += 1 == depth ? 1L : countMove(from, to, null, depth);
+            }
+        }
+        return nodes;
+    }
+
+    private long countMove(Square from, Square to, String promotion, int depth)
+    {
+        BoardState state = new BoardState(chessboard);
+        Player player = from.getPiece().getPlayer();
+        chessboard.move(from, to, false);
+        if (null != promotion)
+        {
+            to.setPiece(PieceFactory.getPiece(chessboard, player.getColor(), promotion, player));
+        }
+        long nodes = countAllMoves(depth - 1);
+        state.restore(chessboard);
+        game.getMoves().undo();
+        return nodes;
+    }
+
+    private List<Square[]> getAllMoves()
+    {
+        List<Square[]> result = new ArrayList<>();
+        for (Piece piece : chessboard.getAllPieces(chessboard.getSideToMove()))
+        {
+            Square from = piece.getSquare();
+            for (Square to : piece.getAllMoves())
+            {
+                result.add(new Square[] {from, to});
+            }
+        }
+        return result;
+    }
+
+    private static boolean isPromotion(Square from, Square to)
+    {
+        return from.getPiece() instanceof Pawn && Pawn.canBePromoted(to);
+    }
+
+    private static String getPromotionSymbol(String promotion)
+    {
+        return "Knight".equals(promotion) ? "n" : promotion.substring(0, 1).toLowerCase();
+    }
+
+    private void ensureCapacity(int depth)
+    {
+        if (moveLists.length < depth)
+        {
+            moveLists = new MoveList[depth];
+            undoStates = new UndoState[depth];
+            for (int i = 0; i < depth; i++)
+            {
+                moveLists[i] = new MoveList();
+                undoStates[i] = new UndoState();
+            }
+        }
+    }
+
+    /**
+     * Copy of chessboard state changed by Chessboard.move().
+     */
+    private static class BoardState
+    {
+        private final Piece[][] pieces = new Piece[Chessboard.NUMBER_OF_SQUARES][Chessboard.NUMBER_OF_SQUARES];
+
+        private final List<Piece> motionedPieces = new ArrayList<>();
+
+        private final List<Piece> notMotionedPieces = new ArrayList<>();
+
+        private final Pawn twoSquareMovedPawn;
+
+        private final int halfCounter;
+
+        private final Colors sideToMove;
+
+        BoardState(Chessboard chessboard)
+        {
+            for (int x = 0; x < Chessboard.NUMBER_OF_SQUARES; x++)
+            {
+                for (int y = 0; y < Chessboard.NUMBER_OF_SQUARES; y++)
+                {
+                    Piece piece = chessboard.getSquare(x, y).getPiece();
+                    pieces[x][y] = piece;
+                    if (isMotioned(piece))
+                    {
+                        motionedPieces.add(piece);
+                    }
+                    else if (piece instanceof King || piece instanceof Rook)
+                    {
+                        notMotionedPieces.add(piece);
+                    }
+                }
+            }
+            twoSquareMovedPawn = chessboard.getTwoSquareMovedPawn();
+            halfCounter = chessboard.getHalfCounter();
+            sideToMove = chessboard.getSideToMove();
+        }
+
+        void restore(Chessboard chessboard)
+        {
+            for (int x = 0; x < Chessboard.NUMBER_OF_SQUARES; x++)
+            {
+                for (int y = 0; y < Chessboard.NUMBER_OF_SQUARES; y++)
+                {
+                    Square sq = chessboard.getSquare(x, y);
+                    if (sq.getPiece() != pieces[x][y])
+                    {
+                        sq.setPiece(pieces[x][y]);
+                    }
+                }
+            }
+            for (Piece piece : notMotionedPieces)
+            {
+                setMotioned(piece, false);
+            }
+            for (Piece piece : motionedPieces)
+            {
+                setMotioned(piece, true);
+            }
+            chessboard.setTwoSquareMovedPawn(twoSquareMovedPawn);
+            chessboard.setHalfCounter(halfCounter);
+            chessboard.setSideToMove(sideToMove);
+        }
+
+        private static boolean isMotioned(Piece piece)
+        {
+            return (piece instanceof King && ((King) piece).getWasMotioned())
+                    || (piece instanceof Rook && ((Rook) piece).getWasMotioned());
+        }
+
+        private static void setMotioned(Piece piece, boolean wasMotioned)
+        {
+            if (piece instanceof King)
+            {
+                ((King) piece).setWasMotioned(wasMotioned);
+            }
+            else
+            {
+                ((Rook) piece).setWasMotioned(wasMotioned);
+            }
+        }
+    }
+
+    public static void main(String[] args)
+    {
+        if (args.length < 1)
+        {
+            System.out.println("Usage: Perft depth [FEN] [" + DIVIDE_OPTION + "] [" + ALL_MOVES_OPTION + "]");
+            return;
+        }
+        int depth = Integer.parseInt(args[0]);
+        String fen = FenNotation.INITIAL_STATE;
+        boolean divide = false;
+        boolean allMoves = false;
+        List<String> fenFields = new ArrayList<>();
+        for (int i = 1; i < args.length; i++)
+        {
+            if (DIVIDE_OPTION.equals(args[i]))
+            {
+                divide = true;
+            }
+            else if (ALL_MOVES_OPTION.equals(args[i]))
+            {
+                allMoves = true;
+            }
+            else
+            {
+                fenFields.add(args[i]);
+            }
+        }
+        if (!fenFields.isEmpty())
+        {
+            fen = String.join(FenNotation.FIELD_SEPARATOR, fenFields);
+        }
+        try
+        {
+            Perft perft = Perft.fromFen(fen);
+            PerftResult result = allMoves ? perft.divideAllMoves(depth) : perft.divide(depth);
+            if (divide)
+            {
+                System.out.println(result);
+            }
+            else
+            {
+                System.out.println(String.format(
+                    "depth: %d nodes: %d time: %d ms nps: %d",
+                    depth, result.getNodes(), result.getMillis(), result.getNodesPerSecond()
+                ));
+            }
+        }
+        catch (ReadGameError exc)
+        {
+            LOG.error("invalid FEN: " + fen, exc);
+            System.out.println("Invalid FEN: " + exc.getMessage());
+        }
+    }
+}
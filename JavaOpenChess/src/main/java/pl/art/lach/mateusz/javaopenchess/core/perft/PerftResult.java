@@ -0,0 +1,101 @@
+/*
+#    This program is free software: you can redistribute it and/or modify
+#    it under the terms of the GNU General Public License as published by
+#    the Free Software Foundation, either version 3 of the License, or
+#    (at your option) any later version.
+#
+#    This program is distributed in the hope that it will be useful,
+#    but WITHOUT ANY WARRANTY; without even the implied warranty of
+#    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+#    GNU General Public License for more details.
+#
+#    You should have received a copy of the GNU General Public License
+#    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package pl.art.lach.mateusz.javaopenchess.core.perft;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Result of perft run: number of leaf nodes, time and nodes
+ * counted for each root move (divide).
+ */
+public class PerftResult
+{
+    private static final long NANOS_IN_SECOND = 1000000000L;
+
+    private final int depth;
+
+    private final long nodes;
+
+    private final long nanos;
+
+    private final Map<String, Long> divide;
+
+    public PerftResult(int depth, long nodes, long nanos, Map<String, Long> divide)
+    {
+        this.depth = depth;
+        this.nodes = nodes;
+        this.nanos = nanos;
+        this.divide = Collections.unmodifiableMap(new TreeMap<>(divide));
+    }
+
+    /**
+     * @return the depth
+     */
+    public int getDepth()
+    {
+        return depth;
+    }
+
+    /**
+     * @return the nodes
+     */
+    public long getNodes()
+    {
+        return nodes;
+    }
+
+    /**
+     * @return time of run in nanoseconds
+     */
+    public long getNanos()
+    {
+        return nanos;
+    }
+
+    public long getMillis()
+    {
+        return nanos / 1000000L;
+    }
+
+    public long getNodesPerSecond()
+    {
+        return 0L == nanos ? 0L : nodes * NANOS_IN_SECOND / nanos;
+    }
+
+    /**
+     * @return number of leaf nodes for every root move, sorted by move
+     */
+    public Map<String, Long> getDivide()
+    {
+        return divide;
+    }
+
+    @Override
+    public String toString()
+    {
+        StringBuilder result = new StringBuilder();
+        for (Map.Entry<String, Long> entry : divide.entrySet())
+        {
+            result.append(entry.getKey()).append(": ").append(entry.getValue()).append('\n');
+        }
+        result.append(String.format(
+            "depth: %d nodes: %d time: %d ms nps: %d",
+            depth, nodes, getMillis(), getNodesPerSecond()
+        ));
+        return result.toString();
+    }
+}
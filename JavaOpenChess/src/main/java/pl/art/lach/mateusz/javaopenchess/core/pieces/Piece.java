@@ -137,12 +137,11 @@ public abstract class Piece
      */
     public Set<Square> getAllMoves()
     {
-        Set<Square> moves = new HashSet<>();
-        for(Behavior behavior: behaviors)
+        if (behaviors.isEmpty() || null == square)
         {
-            moves.addAll(behavior.getLegalMoves());
+            return new HashSet<>();
         }
-        return moves;
+        return chessboard.getLegalMoves(square);
     }
 
     public Set<Square> getSquaresInRange()
@@ -34,6 +34,9 @@ package pl.art.lach.mateusz.javaopenchess.core.pieces.implementation;
         |_|_|_|_|_|_|_|_|0
         0 1 2 3 4 5 6 7
  */
+import pl.art.lach.mateusz.javaopenchess.core.AttackDetector;
+import pl.art.lach.mateusz.javaopenchess.core.BitboardPosition;
+import pl.art.lach.mateusz.javaopenchess.core.bitboards.Bitboards;
 import pl.art.lach.mateusz.javaopenchess.core.pieces.Piece;
 import pl.art.lach.mateusz.javaopenchess.core.Chessboard;
 import pl.art.lach.mateusz.javaopenchess.core.players.Player;
@@ -58,7 +61,8 @@ public class King extends Piece
      */
     public boolean isChecked()
     {
-        return !isSafe(this.square);
+        BitboardPosition position = getChessboard().getBitboardPosition();
+        return position.getLegalMoveGenerator().isInCheck(BitboardPosition.getColor(this));
     }
 
     /** Method to check is the king is checked or stalemated
@@ -69,32 +73,17 @@ public class King extends Piece
         /*
          *returns: 0-nothing, 1-checkmate, 2-stalemate
          */
-        if (this.getAllMoves().isEmpty())
+        if (getChessboard().hasLegalMoves(getPlayer().getColor()))
         {
-            for (int i = 0; i < 8; ++i)
-            {
-                for (int j = 0; j < 8; ++j)
-                {
-                    Piece piece = getChessboard().getSquare(i, j).getPiece();
-                    if (null != piece && piece.getPlayer() == this.getPlayer() && !piece.getAllMoves().isEmpty())
-                    {
-                        return 0;
-                    }
-                }
-            }
-
-            if (this.isChecked())
-            {
-                return 1;
-            }
-            else
-            {
-                return 2;
-            }
+            return 0;
+        }
+        if (this.isChecked())
+        {
+            return 1;
         }
         else
         {
-            return 0;
+            return 2;
         }
     }
     
@@ -113,53 +102,25 @@ public class King extends Piece
      */
     public boolean isSafe(Square s)
     {
-        Square[][] squares = chessboard.getSquares();
-        for (int i=0; i<squares.length; i++)
-        {
-            for (int j=0; j<squares[i].length; j++)
-            {
-                Square sq = squares[i][j];
-                Piece piece = sq.getPiece();
-                if(piece != null) 
-                {
-                    if(piece.getPlayer().getColor() != this.getPlayer().getColor() && piece != this)
-                    {
-                        if(piece.getSquaresInRange().contains(s))
-                        {
-                            return false;
-                        }
-                    }
-                }
-            }
-        }
-        return true;
+        return !AttackDetector.isAttacked(chessboard, s, this.getPlayer().getColor());
     }
 
     /** Method to check will the king be safe when move
+     *  Move is not made on chessboard, attacks are looked up
+     *  in bitboards with occupancy changed as after the move.
      *  @param currentSquare currentSquare object
      *  @param futureSquare futureSquare object
      *  @return bool true if king is save, else returns false
      */
     public boolean willBeSafeAfterMove(Square currentSquare, Square futureSquare)
     {
-        Piece tmp = futureSquare.piece;
-        futureSquare.piece  = currentSquare.piece; // move without redraw
-        currentSquare.piece = null;
-
-        boolean ret = false;
-        if (futureSquare.getPiece().getClass() == King.class)
-        {
-            ret = isSafe(futureSquare);
-        }
-        else
-        {
-            ret = isSafe();
-        }
-
-        currentSquare.piece = futureSquare.piece;
-        futureSquare.piece  = tmp;
-
-        return ret;
+        BitboardPosition position = getChessboard().getBitboardPosition();
+        int from = Chessboard.getBitboardIndex(currentSquare);
+        int to = Chessboard.getBitboardIndex(futureSquare);
+        long occupancy = (position.getOccupancy() & ~Bitboards.bit(from)) | Bitboards.bit(to);
+        int kingSquare = currentSquare.getPiece() instanceof King ? to : Chessboard.getBitboardIndex(getSquare());
+        int enemy = 1 - BitboardPosition.getColor(this);
+        return !position.isAttacked(kingSquare, enemy, occupancy, Bitboards.bit(to));
     }
     
     /** Method to check will the king be safe when move
@@ -14,12 +14,9 @@
  */
 package pl.art.lach.mateusz.javaopenchess.core.pieces.traits.behaviors;
 
-import java.util.HashSet;
 import java.util.Set;
-import pl.art.lach.mateusz.javaopenchess.core.Colors;
 import pl.art.lach.mateusz.javaopenchess.core.Square;
 import pl.art.lach.mateusz.javaopenchess.core.pieces.Piece;
-import pl.art.lach.mateusz.javaopenchess.core.pieces.implementation.King;
 
 /**
  * @author Mateusz  Lach (matlak, msl)
@@ -44,33 +41,13 @@ public abstract class Behavior
     
     /**
      * This method is returning all legal moves of piece. It looks for King safety.
-     * In ususal case it should return filtered result of getSquaresInRange() method.
+     * Moves are taken from legal move generator of chessboard, which knows
+     * about checks and pinned pieces, so no move has to be tried on chessboard.
      * @return list of legal moves. 
      * @see Behavior.getSquaresInRange.
      */
     public Set<Square> getLegalMoves()
     {
-        King ourKing = (piece.getPlayer().getColor() == Colors.WHITE) ? 
-                            piece.getChessboard().getKingWhite() : piece.getChessboard().getKingBlack();
-        
-        King oponentsKing = (piece.getPlayer().getColor() == Colors.WHITE) ? 
-                             piece.getChessboard().getKingBlack() : piece.getChessboard().getKingWhite();     
-        
-        Set<Square> result = new HashSet<>();
-        for (Square sq : getSquaresInRange())
-        {
-            if (canMove(piece, sq, ourKing, oponentsKing))
-            {
-                result.add(sq);
-            }
-        }
-        return result;
-    }
-    
-    private boolean canMove(Piece piece, Square sq, King ourKing, King oponentsKing)
-    {
-        return ourKing.willBeSafeAfterMove(piece.getSquare(), sq) 
-                    && (null == sq.getPiece() || piece.getPlayer() != sq.getPiece().getPlayer())
-                    && sq.getPiece() != oponentsKing;
+        return piece.getChessboard().getLegalMoves(piece.getSquare());
     }
 }
@@ -14,9 +14,9 @@
  */
 package pl.art.lach.mateusz.javaopenchess.core.pieces.traits.behaviors.implementation;
 
-import java.util.HashSet;
 import java.util.Set;
 import pl.art.lach.mateusz.javaopenchess.core.Square;
+import pl.art.lach.mateusz.javaopenchess.core.bitboards.Bitboards;
 import pl.art.lach.mateusz.javaopenchess.core.pieces.Piece;
 
 /**
@@ -38,14 +38,7 @@ public class BishopBehavior extends LongRangePieceBehavior
     @Override
     public Set<Square> getSquaresInRange()
     {
-        Set<Square> list = new HashSet<>();
-        
-        list.addAll(getMovesForDirection(DIRECTION_LEFT,   DIRECTION_UP)); //left-up
-        list.addAll(getMovesForDirection(DIRECTION_LEFT,   DIRECTION_BOTTOM)); //left-down
-        list.addAll(getMovesForDirection(DIRECTION_RIGHT,  DIRECTION_UP)); //right-up
-        list.addAll(getMovesForDirection(DIRECTION_RIGHT,  DIRECTION_BOTTOM)); //right-down
-        
-        return list;
+        return getSquares(Bitboards.getBishopAttacks(getBitboardIndex(), getPosition().getOccupancy()));
     }
     
 }
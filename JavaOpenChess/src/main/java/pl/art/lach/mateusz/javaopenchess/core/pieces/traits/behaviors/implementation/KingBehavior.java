@@ -16,7 +16,10 @@ package pl.art.lach.mateusz.javaopenchess.core.pieces.traits.behaviors.implement
 
 import java.util.HashSet;
 import java.util.Set;
+import pl.art.lach.mateusz.javaopenchess.core.BitboardPosition;
+import pl.art.lach.mateusz.javaopenchess.core.Chessboard;
 import pl.art.lach.mateusz.javaopenchess.core.Square;
+import pl.art.lach.mateusz.javaopenchess.core.bitboards.Bitboards;
 import pl.art.lach.mateusz.javaopenchess.core.pieces.implementation.King;
 import pl.art.lach.mateusz.javaopenchess.core.pieces.implementation.Rook;
 import pl.art.lach.mateusz.javaopenchess.core.pieces.traits.behaviors.Behavior;
@@ -56,23 +59,12 @@ public class KingBehavior extends Behavior
         Square sq1;
         King king = (King)piece;
         
-        for (int i = king.getSquare().getPozX() - 1; i <= king.getSquare().getPozX() + 1; i++)
+        Chessboard chessboard = king.getChessboard();
+        long squares = Bitboards.getKingAttacks(Chessboard.getBitboardIndex(king.getSquare()))
+                & ~chessboard.getBitboardPosition().getPieces(BitboardPosition.getColor(king));
+        for (; 0L != squares; squares &= squares - 1)
         {
-            for (int y = king.getSquare().getPozY() - 1; y <= king.getSquare().getPozY() + 1; y++)
-            {
-                if (!king.isOut(i, y)) //out of bounds protection
-                {
-                    sq = king.getChessboard().getSquare(i, y);
-                    if (king.getSquare() == sq) //if we're checking square on which is King
-                    {
-                        continue;
-                    }
-                    if (null == sq.getPiece() || sq.getPiece().getPlayer() != piece.getPlayer()) //if square is empty or other player
-                    {
-                        list.add(sq);
-                    }
-                }
-            }
+            list.add(chessboard.getSquare(Bitboards.firstSquare(squares)));
         }
 
         if (!king.getWasMotioned()) //check if king was not moved before
@@ -129,19 +121,4 @@ public class KingBehavior extends Behavior
         return list;
     }
     
-    @Override
-    public Set<Square> getLegalMoves()
-    {
-        Set<Square> list   = super.getLegalMoves();
-        Set<Square> result = new HashSet<>();
-        for (Square sq : list)
-        {
-            if (((King)piece).isSafe(sq))
-            {
-                result.add(sq);
-            }
-        }
-        return result;
-    }
-    
 }
@@ -16,7 +16,9 @@ package pl.art.lach.mateusz.javaopenchess.core.pieces.traits.behaviors.implement
 
 import java.util.HashSet;
 import java.util.Set;
+import pl.art.lach.mateusz.javaopenchess.core.Chessboard;
 import pl.art.lach.mateusz.javaopenchess.core.Square;
+import pl.art.lach.mateusz.javaopenchess.core.bitboards.Bitboards;
 import pl.art.lach.mateusz.javaopenchess.core.pieces.Piece;
 import pl.art.lach.mateusz.javaopenchess.core.pieces.traits.behaviors.Behavior;
 
@@ -51,31 +53,12 @@ public class KnightBehavior extends Behavior
     @Override
     public Set<Square> getSquaresInRange()
     {
-        Set<Square> list   = new HashSet<>();
-        Square[][] squares = piece.getChessboard().getSquares();
-        
-        int pozX = piece.getSquare().getPozX();
-        int pozY = piece.getSquare().getPozY();
-        
-        int[][] squaresInRange = {
-            {pozX - 2, pozY + 1}, //1
-            {pozX - 1, pozY + 2}, //2
-            {pozX + 1, pozY + 2}, //3
-            {pozX + 2, pozY + 1}, //4
-            {pozX + 2, pozY - 1}, //5
-            {pozX + 1, pozY - 2}, //6
-            {pozX - 1, pozY - 2}, //7
-            {pozX - 2, pozY - 1}, //8
-        };
-        
-        for(int[] squareCoordinates : squaresInRange)
+        Set<Square> list = new HashSet<>();
+        Chessboard chessboard = piece.getChessboard();
+        long squares = Bitboards.getKnightAttacks(Chessboard.getBitboardIndex(piece.getSquare()));
+        for (; 0L != squares; squares &= squares - 1)
         {
-            int x = squareCoordinates[0];
-            int y = squareCoordinates[1];
-            if (!piece.isOut(x, y))
-            {
-                list.add(squares[x][y]);
-            }
+            list.add(chessboard.getSquare(Bitboards.firstSquare(squares)));
         }
         return list;
     }
@@ -16,7 +16,10 @@ package pl.art.lach.mateusz.javaopenchess.core.pieces.traits.behaviors.implement
 
 import java.util.HashSet;
 import java.util.Set;
+import pl.art.lach.mateusz.javaopenchess.core.BitboardPosition;
+import pl.art.lach.mateusz.javaopenchess.core.Chessboard;
 import pl.art.lach.mateusz.javaopenchess.core.Square;
+import pl.art.lach.mateusz.javaopenchess.core.bitboards.Bitboards;
 import pl.art.lach.mateusz.javaopenchess.core.pieces.Piece;
 import pl.art.lach.mateusz.javaopenchess.core.pieces.traits.behaviors.Behavior;
 
@@ -27,53 +30,36 @@ import pl.art.lach.mateusz.javaopenchess.core.pieces.traits.behaviors.Behavior;
 abstract class LongRangePieceBehavior extends Behavior
 {
     
-    protected static final int DIRECTION_LEFT = -1;
-    
-    protected static final int DIRECTION_RIGHT = 1;
-    
-    protected static final int DIRECTION_UP    = -1;
-    
-    protected static final int DIRECTION_BOTTOM = 1;
-    
-    protected static final int DIRECTION_NILL   = 0;
-    
     public LongRangePieceBehavior(Piece piece)
     {
         super(piece);
     }
     
     /**
-     * Helper method to fetch all moves for given direction.
+     * Helper method to convert attack bitboard of sliding piece to squares.
      * Useful for Bishop, Rook and Queen.
-     * @param moveX X direction to move in
-     * @param moveY Y diretion to move in
-     * @return ArrayList with possible moves
+     * @param attacks attacked squares found in magic tables
+     * @return squares in range, without squares of own pieces
      */
-    protected Set<Square> getMovesForDirection(int moveX, int moveY)
+    protected Set<Square> getSquares(long attacks)
     {
         Set<Square> list = new HashSet<>();
-        
-        for (int h = piece.getSquare().getPozX(), i = piece.getSquare().getPozY(); !piece.isOut(h, i); h += moveX, i += moveY) //right-down
+        Chessboard chessboard = piece.getChessboard();
+        long targets = attacks & ~getPosition().getPieces(BitboardPosition.getColor(piece));
+        for (; 0L != targets; targets &= targets - 1)
         {
-            if(piece.getSquare().getPozX() == h && piece.getSquare().getPozY() == i)
-            {
-                continue; //omit same square
-            }
-            Square sq = piece.getChessboard().getSquare(h, i);
-            if (null == sq.getPiece() || piece.getPlayer() != sq.getPiece().getPlayer()) //if on this sqhuare isn't piece
-            {
-                list.add(piece.getChessboard().getSquare(h, i));
-
-                if (piece.otherOwner(h, i))
-                {
-                    break;
-                }
-            }
-            else
-            {
-                break;//we've to break becouse we cannot go beside other piece!!
-            }
-        }  
+            list.add(chessboard.getSquare(Bitboards.firstSquare(targets)));
+        }
         return list;
-    }        
+    }
+
+    protected BitboardPosition getPosition()
+    {
+        return piece.getChessboard().getBitboardPosition();
+    }
+
+    protected int getBitboardIndex()
+    {
+        return Chessboard.getBitboardIndex(piece.getSquare());
+    }
 }
@@ -14,9 +14,9 @@
  */
 package pl.art.lach.mateusz.javaopenchess.core.pieces.traits.behaviors.implementation;
 
-import java.util.HashSet;
 import java.util.Set;
 import pl.art.lach.mateusz.javaopenchess.core.Square;
+import pl.art.lach.mateusz.javaopenchess.core.bitboards.Bitboards;
 import pl.art.lach.mateusz.javaopenchess.core.pieces.Piece;
 
 /**
@@ -38,14 +38,7 @@ public class RookBehavior extends LongRangePieceBehavior
     @Override
     public Set<Square> getSquaresInRange()
     {
-        Set<Square> list = new HashSet<>();
-        
-        list.addAll(getMovesForDirection(DIRECTION_NILL, DIRECTION_UP));
-        list.addAll(getMovesForDirection(DIRECTION_LEFT, DIRECTION_NILL));
-        list.addAll(getMovesForDirection(DIRECTION_RIGHT, DIRECTION_NILL));
-        list.addAll(getMovesForDirection(DIRECTION_NILL, DIRECTION_BOTTOM));
-        
-        return list;
+        return getSquares(Bitboards.getRookAttacks(getBitboardIndex(), getPosition().getOccupancy()));
     }
     
 }
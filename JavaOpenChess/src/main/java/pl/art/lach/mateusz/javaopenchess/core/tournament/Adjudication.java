@@ -0,0 +1,122 @@
+/*
+#    This program is free software: you can redistribute it and/or modify
+#    it under the terms of the GNU General Public License as published by
+#    the Free Software Foundation, either version 3 of the License, or
+#    (at your option) any later version.
+#
+#    This program is distributed in the hope that it will be useful,
+#    but WITHOUT ANY WARRANTY; without even the implied warranty of
+#    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+#    GNU General Public License for more details.
+#
+#    You should have received a copy of the GNU General Public License
+#    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package pl.art.lach.mateusz.javaopenchess.core.tournament;
+
+/**
+ * Rules for ending tournament games early. Draw is adjudicated when
+ * scores of both engines stay near zero for drawPlies plies after
+ * drawMinPlies, win when scores of both engines agree that one side
+ * is winning by at least winScore for winPlies plies. Game which lasts
+ * maxPlies plies is a draw. Positions covered by loaded tablebases
+ * are adjudicated by tables.
+ */
+public class Adjudication
+{
+    public static final int DEFAULT_MAX_PLIES = 600;
+
+    public static final int DEFAULT_DRAW_MIN_PLIES = 80;
+
+    public static final int DEFAULT_DRAW_PLIES = 8;
+
+    public static final int DEFAULT_DRAW_SCORE = 10;
+
+    public static final int DEFAULT_WIN_PLIES = 6;
+
+    public static final int DEFAULT_WIN_SCORE = 1000;
+
+    protected int maxPlies = DEFAULT_MAX_PLIES;
+
+    protected int drawMinPlies = DEFAULT_DRAW_MIN_PLIES;
+
+    protected int drawPlies = DEFAULT_DRAW_PLIES;
+
+    protected int drawScore = DEFAULT_DRAW_SCORE;
+
+    protected int winPlies = DEFAULT_WIN_PLIES;
+
+    protected int winScore = DEFAULT_WIN_SCORE;
+
+    protected boolean tablebases = true;
+
+    public int getMaxPlies()
+    {
+        return maxPlies;
+    }
+
+    public void setMaxPlies(int maxPlies)
+    {
+        this.maxPlies = maxPlies;
+    }
+
+    public int getDrawMinPlies()
+    {
+        return drawMinPlies;
+    }
+
+    public void setDrawMinPlies(int drawMinPlies)
+    {
+        this.drawMinPlies = drawMinPlies;
+    }
+
+    public int getDrawPlies()
+    {
+        return drawPlies;
+    }
+
+    public void setDrawPlies(int drawPlies)
+    {
+        this.drawPlies = drawPlies;
+    }
+
+    public int getDrawScore()
+    {
+        return drawScore;
+    }
+
+    public void setDrawScore(int drawScore)
+    {
+        this.drawScore = drawScore;
+    }
+
+    public int getWinPlies()
+    {
+        return winPlies;
+    }
+
+    public void setWinPlies(int winPlies)
+    {
+        this.winPlies = winPlies;
+    }
+
+    public int getWinScore()
+    {
+        return winScore;
+    }
+
+    public void setWinScore(int winScore)
+    {
+        this.winScore = winScore;
+    }
+
+    public boolean isTablebases()
+    {
+        return tablebases;
+    }
+
+    public void setTablebases(boolean tablebases)
+    {
+        this.tablebases = tablebases;
+    }
+}
@@ -0,0 +1,175 @@
+/*
+#    This program is free software: you can redistribute it and/or modify
+#    it under the terms of the GNU General Public License as published by
+#    the Free Software Foundation, either version 3 of the License, or
+#    (at your option) any later version.
+#
+#    This program is distributed in the hope that it will be useful,
+#    but WITHOUT ANY WARRANTY; without even the implied warranty of
+#    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+#    GNU General Public License for more details.
+#
+#    You should have received a copy of the GNU General Public License
+#    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package pl.art.lach.mateusz.javaopenchess.core.tournament;
+
+import pl.art.lach.mateusz.javaopenchess.core.ai.AI;
+import pl.art.lach.mateusz.javaopenchess.core.ai.AIFactory;
+import pl.art.lach.mateusz.javaopenchess.utils.Settings;
+
+/**
+ * Configuration of one tournament engine: AI level from AIFactory,
+ * opening book and computer settings used for its moves.
+ * Text form is comma separated list of key=value pairs, e.g.
+ * <pre>name=new,level=3,time=100,threads=1,hash=16,book=book.bin</pre>
+ */
+public class EngineConfig
+{
+    private static final String PAIR_SEPARATOR = ",";
+
+    private static final String VALUE_SEPARATOR = "=";
+
+    private final String name;
+
+    private final int level;
+
+    private final long moveTime;
+
+    private final int threads;
+
+    private final int hashSize;
+
+    private final String bookPath;
+
+    /**
+     * @param name name of engine written to PGN
+     * @param level level of AI
+     * @param moveTime time of computer move in milliseconds
+     * @param threads number of search threads
+     * @param hashSize size of transposition table in megabytes
+     * @param bookPath path of Polyglot opening book or null
+     */
+    public EngineConfig(String name, int level, long moveTime, int threads, int hashSize, String bookPath)
+    {
+        this.name = name;
+        this.level = level;
+        this.moveTime = moveTime;
+        this.threads = threads;
+        this.hashSize = hashSize;
+        this.bookPath = bookPath;
+    }
+
+    /**
+     * @param config configuration in key=value form, missing keys get default settings
+     * @return parsed configuration
+     * @throws IllegalArgumentException if configuration contains unknown key or invalid number
+     */
+    public static EngineConfig parse(String config)
+    {
+        int level = Settings.DEFAULT_COMPUTER_LEVEL;
+        long moveTime = Settings.DEFAULT_COMPUTER_MOVE_TIME;
+        int threads = Settings.DEFAULT_COMPUTER_THREADS;
+        int hashSize = Settings.DEFAULT_HASH_SIZE;
+        String bookPath = null;
+        String name = null;
+        for (String pair : config.split(PAIR_SEPARATOR))
+        {
+            String[] keyValue = pair.trim().split(VALUE_SEPARATOR, 2);
+            if (2 != keyValue.length)
+            {
+                throw new IllegalArgumentException("invalid engine option: " + pair);
+            }
+            String value = keyValue[1].trim();
+            switch (keyValue[0].trim())
+            {
+                case "name":
+                    name = value;
+                    break;
+                case "level":
+                    level = Integer.parseInt(value);
+                    break;
+                case "time":
+                    moveTime = Long.parseLong(value);
+                    break;
+                case "threads":
+                    threads = Integer.parseInt(value);
+                    break;
+                case "hash":
+                    hashSize = Integer.parseInt(value);
+                    break;
+                case "book":
+                    bookPath = value;
+                    break;
+                default:
+                    throw new IllegalArgumentException("unknown engine option: " + keyValue[0]);
+            }
+        }
+        if (null == name)
+        {
+            name = "Level" + level;
+        }
+        return new EngineConfig(name, level, moveTime, threads, hashSize, bookPath);
+    }
+
+    /**
+     * @return new AI instance, every game needs its own one
+     */
+    public AI createAI()
+    {
+        return AIFactory.getAI(level, bookPath);
+    }
+
+    /**
+     * Sets computer settings of game before move of this engine.
+     * @param settings settings of game
+     */
+    public void apply(Settings settings)
+    {
+        settings.setComputerLevel(level);
+        settings.setComputerMoveTime(moveTime);
+        settings.setComputerThreads(threads);
+        settings.setHashSize(hashSize);
+        settings.setBookFile(bookPath);
+        settings.setPonder(false);
+    }
+
+    public String getName()
+    {
+        return name;
+    }
+
+    public int getLevel()
+    {
+        return level;
+    }
+
+    public long getMoveTime()
+    {
+        return moveTime;
+    }
+
+    public int getThreads()
+    {
+        return threads;
+    }
+
+    public int getHashSize()
+    {
+        return hashSize;
+    }
+
+    public String getBookPath()
+    {
+        return bookPath;
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format(
+            "name=%s,level=%d,time=%d,threads=%d,hash=%d,book=%s",
+            name, level, moveTime, threads, hashSize, bookPath
+        );
+    }
+}
@@ -0,0 +1,58 @@
+/*
+#    This program is free software: you can redistribute it and/or modify
+#    it under the terms of the GNU General Public License as published by
+#    the Free Software Foundation, either version 3 of the License, or
+#    (at your option) any later version.
+#
+#    This program is distributed in the hope that it will be useful,
+#    but WITHOUT ANY WARRANTY; without even the implied warranty of
+#    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+#    GNU General Public License for more details.
+#
+#    You should have received a copy of the GNU General Public License
+#    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package pl.art.lach.mateusz.javaopenchess.core.tournament;
+
+/**
+ * Result of tournament game with its PGN notation.
+ */
+public enum GameResult
+{
+    WHITE_WINS("1-0", 1.0),
+    BLACK_WINS("0-1", 0.0),
+    DRAW("1/2-1/2", 0.5);
+
+    private final String notation;
+
+    private final double whiteScore;
+
+    GameResult(String notation, double whiteScore)
+    {
+        this.notation = notation;
+        this.whiteScore = whiteScore;
+    }
+
+    public String getNotation()
+    {
+        return notation;
+    }
+
+    /**
+     * @param white true for white player
+     * @return 1 for win, 0.5 for draw and 0 for loss of player
+     */
+    public double getScore(boolean white)
+    {
+        return white ? whiteScore : 1.0 - whiteScore;
+    }
+
+    /**
+     * @param whiteWins true if white player wins
+     * @return result of game won by one side
+     */
+    public static GameResult win(boolean whiteWins)
+    {
+        return whiteWins ? WHITE_WINS : BLACK_WINS;
+    }
+}
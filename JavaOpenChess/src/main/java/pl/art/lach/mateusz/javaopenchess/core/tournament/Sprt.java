@@ -0,0 +1,254 @@
+/*
+#    This program is free software: you can redistribute it and/or modify
+#    it under the terms of the GNU General Public License as published by
+#    the Free Software Foundation, either version 3 of the License, or
+#    (at your option) any later version.
+#
+#    This program is distributed in the hope that it will be useful,
+#    but WITHOUT ANY WARRANTY; without even the implied warranty of
+#    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+#    GNU General Public License for more details.
+#
+#    You should have received a copy of the GNU General Public License
+#    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package pl.art.lach.mateusz.javaopenchess.core.tournament;
+
+/**
+ * Results of tournament with Elo estimate and sequential probability
+ * ratio test of hypothesis H0: Elo difference is elo0 against
+ * H1: it is elo1. Log-likelihood ratio is approximated from mean and
+ * variance of game scores, test passes (H1 accepted) when it reaches
+ * upper bound log((1 - beta) / alpha) and fails (H0 accepted) when it
+ * reaches lower bound log(beta / (1 - alpha)).
+ * Methods are synchronized, results are added by threads playing games.
+ */
+public class Sprt
+{
+    public enum Status
+    {
+        RUNNING,
+        PASSED,
+        FAILED
+    }
+
+    public static final double DEFAULT_ELO0 = 0.0;
+
+    public static final double DEFAULT_ELO1 = 5.0;
+
+    public static final double DEFAULT_ALPHA = 0.05;
+
+    public static final double DEFAULT_BETA = 0.05;
+
+    /**
+     * quantile of normal distribution for 95% confidence interval
+     */
+    private static final double CONFIDENCE_95 = 1.959964;
+
+    private static final double ELO_SCALE = 400.0;
+
+    private static final double DRAW_SCORE = 0.5;
+
+    /**
+     * score used instead of 0 and 1 when computing Elo, which would be infinite
+     */
+    private static final double MIN_SCORE = 1e-3;
+
+    private final double elo0;
+
+    private final double elo1;
+
+    private final double lowerBound;
+
+    private final double upperBound;
+
+    private int wins = 0;
+
+    private int losses = 0;
+
+    private int draws = 0;
+
+    /**
+     * @param elo0 Elo difference of H0
+     * @param elo1 Elo difference of H1
+     * @param alpha probability of false pass
+     * @param beta probability of false fail
+     */
+    public Sprt(double elo0, double elo1, double alpha, double beta)
+    {
+        if (elo1 <= elo0 || alpha <= 0.0 || alpha >= 1.0 || beta <= 0.0 || beta >= 1.0)
+        {
+            throw new IllegalArgumentException(String.format(
+                "invalid SPRT parameters: elo0=%s elo1=%s alpha=%s beta=%s", elo0, elo1, alpha, beta
+            ));
+        }
+        this.elo0 = elo0;
+        this.elo1 = elo1;
+        this.lowerBound = Math.log(beta / (1.0 - alpha));
+        this.upperBound = Math.log((1.0 - beta) / alpha);
+    }
+
+    public Sprt()
+    {
+        this(DEFAULT_ELO0, DEFAULT_ELO1, DEFAULT_ALPHA, DEFAULT_BETA);
+    }
+
+    /**
+     * @param score 1 for win, 0.5 for draw, 0 for loss
+     */
+    public synchronized void addResult(double score)
+    {
+        if (score > DRAW_SCORE)
+        {
+            wins++;
+        }
+        else if (score < DRAW_SCORE)
+        {
+            losses++;
+        }
+        else
+        {
+            draws++;
+        }
+    }
+
+    public synchronized int getWins()
+    {
+        return wins;
+    }
+
+    public synchronized int getLosses()
+    {
+        return losses;
+    }
+
+    public synchronized int getDraws()
+    {
+        return draws;
+    }
+
+    public synchronized int getGames()
+    {
+        return wins + losses + draws;
+    }
+
+    /**
+     * @return mean score of game, 0.5 when no game was played
+     */
+    public synchronized double getScore()
+    {
+        int games = getGames();
+        return 0 == games ? DRAW_SCORE : (wins + DRAW_SCORE * draws) / games;
+    }
+
+    /**
+     * @return variance of score of one game
+     */
+    private double getVariance()
+    {
+        int games = getGames();
+        if (0 == games)
+        {
+            return 0.0;
+        }
+        double score = getScore();
+        return (wins * square(1.0 - score) + draws * square(DRAW_SCORE - score) + losses * square(score))
+                / games;
+    }
+
+    /**
+     * @return estimated Elo difference
+     */
+    public synchronized double getElo()
+    {
+        return getElo(getScore());
+    }
+
+    /**
+     * @return half of 95% confidence interval of Elo difference
+     */
+    public synchronized double getEloError()
+    {
+        int games = getGames();
+        if (0 == games)
+        {
+            return 0.0;
+        }
+        double margin = CONFIDENCE_95 * Math.sqrt(getVariance() / games);
+        double score = getScore();
+        return (getElo(score + margin) - getElo(score - margin)) / 2.0;
+    }
+
+    /**
+     * @return log-likelihood ratio of H1 against H0, 0 until results differ
+     */
+    public synchronized double getLlr()
+    {
+        double variance = getVariance();
+        if (0.0 == variance)
+        {
+            return 0.0;
+        }
+        double score0 = getExpectedScore(elo0);
+        double score1 = getExpectedScore(elo1);
+        return getGames() * (score1 - score0) * (2.0 * getScore() - score0 - score1) / (2.0 * variance);
+    }
+
+    public synchronized Status getStatus()
+    {
+        double llr = getLlr();
+        if (llr >= upperBound)
+        {
+            return Status.PASSED;
+        }
+        if (llr <= lowerBound)
+        {
+            return Status.FAILED;
+        }
+        return Status.RUNNING;
+    }
+
+    public double getLowerBound()
+    {
+        return lowerBound;
+    }
+
+    public double getUpperBound()
+    {
+        return upperBound;
+    }
+
+    /**
+     * @param elo Elo difference
+     * @return expected score of stronger side
+     */
+    public static double getExpectedScore(double elo)
+    {
+        return 1.0 / (1.0 + Math.pow(10.0, -elo / ELO_SCALE));
+    }
+
+    /**
+     * @param score mean score
+     * @return Elo difference giving this score
+     */
+    public static double getElo(double score)
+    {
+        double clipped = Math.max(MIN_SCORE, Math.min(1.0 - MIN_SCORE, score));
+        return -ELO_SCALE * Math.log10(1.0 / clipped - 1.0);
+    }
+
+    private static double square(double value)
+    {
+        return value * value;
+    }
+
+    @Override
+    public synchronized String toString()
+    {
+        return String.format(
+            "games=%d W=%d L=%d D=%d elo=%.1f +- %.1f llr=%.2f (%.2f, %.2f) [%.1f, %.1f] %s",
+            getGames(), wins, losses, draws, getElo(), getEloError(), getLlr(), lowerBound, upperBound,
+            elo0, elo1, getStatus()
+        );
+    }
+}
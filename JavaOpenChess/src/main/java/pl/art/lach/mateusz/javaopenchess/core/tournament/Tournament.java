@@ -0,0 +1,387 @@
+/*
+#    This program is free software: you can redistribute it and/or modify
+#    it under the terms of the GNU General Public License as published by
+#    the Free Software Foundation, either version 3 of the License, or
+#    (at your option) any later version.
+#
+#    This program is distributed in the hope that it will be useful,
+#    but WITHOUT ANY WARRANTY; without even the implied warranty of
+#    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+#    GNU General Public License for more details.
+#
+#    You should have received a copy of the GNU General Public License
+#    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package pl.art.lach.mateusz.javaopenchess.core.tournament;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.log4j.Logger;
+import pl.art.lach.mateusz.javaopenchess.core.data_transfer.implementations.FenNotation;
+import pl.art.lach.mateusz.javaopenchess.core.exceptions.ReadGameError;
+
+/**
+ * Headless self-play tournament between two engine configurations.
+ * Games are played concurrently by thread pool; every opening is played
+ * twice with swapped colors. Results are collected from point of view
+ * of the first engine in Sprt, which is reported to listeners after
+ * every game; tournament stops scheduling games when SPRT passes or fails.
+ * Finished games are appended to PGN file.
+ * Usage from command line:
+ * <pre>Tournament -first CONFIG -second CONFIG [-games N] [-concurrency N]
+ *     [-openings FILE] [-pgn FILE] [-elo0 ELO] [-elo1 ELO] [-alpha A] [-beta B]
+ *     [-maxplies N]</pre>
+ * CONFIG is engine configuration, see EngineConfig.
+ */
+public class Tournament
+{
+    private static final Logger LOG = Logger.getLogger(Tournament.class);
+
+    public static final int DEFAULT_GAMES = 1000;
+
+    private static final String COMMENT_PREFIX = "#";
+
+    /**
+     * fields of FEN without move counters, EPD lines have them followed by operations
+     */
+    private static final int EPD_FIELDS = 4;
+
+    private static final int FEN_FIELDS = 6;
+
+    private static final String DEFAULT_COUNTERS = " 0 1";
+
+    private final EngineConfig first;
+
+    private final EngineConfig second;
+
+    private final List<String> openings;
+
+    private final int games;
+
+    private final int concurrency;
+
+    private final Sprt statistics;
+
+    private final Adjudication adjudication;
+
+    private final List<TournamentListener> listeners = new CopyOnWriteArrayList<>();
+
+    private Path pgnFile = null;
+
+    private BufferedWriter pgnWriter = null;
+
+    private volatile boolean stopped = false;
+
+    /**
+     * @param first first engine, it plays white in odd games
+     * @param second second engine
+     * @param openings positions in FEN notation, empty list to start all games from initial position
+     * @param games number of games
+     * @param concurrency number of games played in the same time
+     * @param statistics SPRT of results
+     * @param adjudication rules of adjudication
+     */
+    public Tournament(EngineConfig first, EngineConfig second, List<String> openings, int games, int concurrency,
+            Sprt statistics, Adjudication adjudication)
+    {
+        if (games <= 0 || concurrency <= 0)
+        {
+            throw new IllegalArgumentException(
+                "number of games and concurrency have to be positive: " + games + ", " + concurrency
+            );
+        }
+        this.first = first;
+        this.second = second;
+        this.openings = new ArrayList<>(openings);
+        this.games = games;
+        this.concurrency = concurrency;
+        this.statistics = statistics;
+        this.adjudication = adjudication;
+    }
+
+    /**
+     * Reads openings from FEN or EPD file, one position in line.
+     * Empty lines and lines starting with # are skipped.
+     * @param file file with positions
+     * @return positions in FEN notation
+     * @throws IOException if file cannot be read
+     */
+    public static List<String> loadOpenings(Path file) throws IOException
+    {
+        List<String> result = new ArrayList<>();
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8))
+        {
+            String trimmed = line.trim();
+            if (!trimmed.isEmpty() && !trimmed.startsWith(COMMENT_PREFIX))
+            {
+                result.add(toFen(trimmed));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @param line position in FEN or EPD notation
+     * @return position in FEN notation, move counters of EPD are set to 0 1
+     */
+    static String toFen(String line)
+    {
+        String[] fields = line.split("\\s+");
+        if (fields.length >= FEN_FIELDS && isNumber(fields[EPD_FIELDS]) && isNumber(fields[EPD_FIELDS + 1]))
+        {
+            return String.join(FenNotation.FIELD_SEPARATOR, Arrays.copyOf(fields, FEN_FIELDS));
+        }
+        return String.join(FenNotation.FIELD_SEPARATOR, Arrays.copyOf(fields, EPD_FIELDS)) + DEFAULT_COUNTERS;
+    }
+
+    private static boolean isNumber(String field)
+    {
+        return field.matches("\\d+");
+    }
+
+    public void addListener(TournamentListener listener)
+    {
+        listeners.add(listener);
+    }
+
+    public void removeListener(TournamentListener listener)
+    {
+        listeners.remove(listener);
+    }
+
+    /**
+     * @param pgnFile file to write games to, it is overwritten, null to skip writing
+     */
+    public void setPgnFile(Path pgnFile)
+    {
+        this.pgnFile = pgnFile;
+    }
+
+    /**
+     * Plays tournament until all games are played or SPRT finishes.
+     * @return statistics of results
+     * @throws IOException if PGN file cannot be written
+     * @throws InterruptedException if waiting for games was interrupted
+     */
+    public Sprt run() throws IOException, InterruptedException
+    {
+        AtomicInteger threadNumber = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(concurrency, runnable ->
+        {
+            Thread thread = new Thread(runnable, "tournament-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (null != pgnFile)
+        {
+            pgnWriter = Files.newBufferedWriter(pgnFile, StandardCharsets.UTF_8);
+        }
+        try
+        {
+            for (int i = 0; i < games; i++)
+            {
+                final TournamentGame game = createGame(i);
+                executor.execute(() -> play(game));
+            }
+            executor.shutdown();
+            while (!executor.awaitTermination(1L, TimeUnit.SECONDS))
+            {
+                LOG.debug("tournament running: " + statistics);
+            }
+        }
+        finally
+        {
+            executor.shutdownNow();
+            if (null != pgnWriter)
+            {
+                pgnWriter.close();
+            }
+        }
+        LOG.info("tournament finished: " + statistics);
+        return statistics;
+    }
+
+    /**
+     * Stops scheduling new games, games in progress are finished.
+     */
+    public void stop()
+    {
+        stopped = true;
+    }
+
+    /**
+     * @param index index of game from 0
+     * @return game with colors swapped for every second game of the same opening
+     */
+    private TournamentGame createGame(int index)
+    {
+        String opening = openings.isEmpty() ? null : openings.get((index / 2) % openings.size());
+        boolean firstIsWhite = 0 == index % 2;
+        return new TournamentGame(
+            index + 1, opening,
+            firstIsWhite ? first : second,
+            firstIsWhite ? second : first,
+            adjudication
+        );
+    }
+
+    private void play(TournamentGame game)
+    {
+        if (stopped)
+        {
+            return;
+        }
+        try
+        {
+            GameResult result = game.play();
+            statistics.addResult(result.getScore(game.getWhite() == first));
+        }
+        catch (ReadGameError | RuntimeException exc)
+        {
+            LOG.error("game " + game.getNumber() + " failed, opening: " + game.getOpening(), exc);
+            return;
+        }
+        writePgn(game);
+        for (TournamentListener listener : listeners)
+        {
+            listener.gameFinished(game, statistics);
+        }
+        if (Sprt.Status.RUNNING != statistics.getStatus())
+        {
+            stop();
+        }
+    }
+
+    private synchronized void writePgn(TournamentGame game)
+    {
+        if (null == pgnWriter)
+        {
+            return;
+        }
+        try
+        {
+            pgnWriter.write(game.getPgn());
+            pgnWriter.newLine();
+            pgnWriter.newLine();
+            pgnWriter.flush();
+        }
+        catch (IOException exc)
+        {
+            LOG.error("cannot write game " + game.getNumber() + " to: " + pgnFile, exc);
+        }
+    }
+
+    public Sprt getStatistics()
+    {
+        return statistics;
+    }
+
+    public List<String> getOpenings()
+    {
+        return Collections.unmodifiableList(openings);
+    }
+
+    public static void main(String[] args)
+    {
+        EngineConfig first = null;
+        EngineConfig second = null;
+        int games = DEFAULT_GAMES;
+        int concurrency = Runtime.getRuntime().availableProcessors();
+        Path openingsFile = null;
+        Path pgn = null;
+        double elo0 = Sprt.DEFAULT_ELO0;
+        double elo1 = Sprt.DEFAULT_ELO1;
+        double alpha = Sprt.DEFAULT_ALPHA;
+        double beta = Sprt.DEFAULT_BETA;
+        Adjudication adjudication = new Adjudication();
+        try
+        {
+            for (int i = 0; i + 1 < args.length; i += 2)
+            {
+                String value = args[i + 1];
+                switch (args[i])
+                {
+                    case "-first":
+                        first = EngineConfig.parse(value);
+                        break;
+                    case "-second":
+                        second = EngineConfig.parse(value);
+                        break;
+                    case "-games":
+                        games = Integer.parseInt(value);
+                        break;
+                    case "-concurrency":
+                        concurrency = Integer.parseInt(value);
+                        break;
+                    case "-openings":
+                        openingsFile = Paths.get(value);
+                        break;
+                    case "-pgn":
+                        pgn = Paths.get(value);
+                        break;
+                    case "-elo0":
+                        elo0 = Double.parseDouble(value);
+                        break;
+                    case "-elo1":
+                        elo1 = Double.parseDouble(value);
+                        break;
+                    case "-alpha":
+                        alpha = Double.parseDouble(value);
+                        break;
+                    case "-beta":
+                        beta = Double.parseDouble(value);
+                        break;
+                    case "-maxplies":
+                        adjudication.setMaxPlies(Integer.parseInt(value));
+                        break;
+                    default:
+                        throw new IllegalArgumentException("unknown option: " + args[i]);
+                }
+            }
+            if (null == first || null == second)
+            {
+                System.out.println(
+                    "Usage: Tournament -first CONFIG -second CONFIG [-games N] [-concurrency N]"
+                    + " [-openings FILE] [-pgn FILE] [-elo0 ELO] [-elo1 ELO] [-alpha A] [-beta B] [-maxplies N]"
+                );
+                System.out.println("CONFIG: name=NAME,level=N,time=MILLIS,threads=N,hash=MB,book=FILE");
+                return;
+            }
+            List<String> openings = null == openingsFile
+                    ? Collections.<String>emptyList() : loadOpenings(openingsFile);
+            Tournament tournament = new Tournament(
+                first, second, openings, games, concurrency, new Sprt(elo0, elo1, alpha, beta), adjudication
+            );
+            tournament.setPgnFile(pgn);
+            tournament.addListener((game, statistics) -> System.out.println(String.format(
+                "game %d %s - %s: %s (%s) | %s",
+                game.getNumber(), game.getWhite().getName(), game.getBlack().getName(),
+                game.getResult().getNotation(), game.getTermination(), statistics
+            )));
+            Sprt result = tournament.run();
+            System.out.println("Finished: " + result);
+        }
+        catch (IllegalArgumentException | IOException exc)
+        {
+            LOG.error("tournament failed", exc);
+            System.out.println("Tournament failed: " + exc.getMessage());
+        }
+        catch (InterruptedException exc)
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,342 @@
+/*
+#    This program is free software: you can redistribute it and/or modify
+#    it under the terms of the GNU General Public License as published by
+#    the Free Software Foundation, either version 3 of the License, or
+#    (at your option) any later version.
+#
+#    This program is distributed in the hope that it will be useful,
+#    but WITHOUT ANY WARRANTY; without even the implied warranty of
+#    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+#    GNU General Public License for more details.
+#
+#    You should have received a copy of the GNU General Public License
+#    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package pl.art.lach.mateusz.javaopenchess.core.tournament;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import pl.art.lach.mateusz.javaopenchess.core.BitboardPosition;
+import pl.art.lach.mateusz.javaopenchess.core.Game;
+import pl.art.lach.mateusz.javaopenchess.core.ai.AI;
+import pl.art.lach.mateusz.javaopenchess.core.ai.search.SearchInfo;
+import pl.art.lach.mateusz.javaopenchess.core.ai.search.SearchListener;
+import pl.art.lach.mateusz.javaopenchess.core.ai.tablebase.Tablebases;
+import pl.art.lach.mateusz.javaopenchess.core.data_transfer.implementations.FenNotation;
+import pl.art.lach.mateusz.javaopenchess.core.data_transfer.implementations.PGNNotation;
+import pl.art.lach.mateusz.javaopenchess.core.exceptions.ReadGameError;
+import pl.art.lach.mateusz.javaopenchess.core.moves.Move;
+import pl.art.lach.mateusz.javaopenchess.utils.Settings;
+
+/**
+ * One headless game between two engines, started from given opening.
+ * Game ends with mate or stalemate, fifty moves rule, threefold
+ * repetition, insufficient material or by Adjudication rules.
+ * Every game creates its own AI instances, so games can be played
+ * in parallel.
+ */
+public class TournamentGame
+{
+    private static final int FIFTY_MOVES_RULE = 100;
+
+    private static final int REPETITIONS = 3;
+
+    /**
+     * kings and one minor piece
+     */
+    private static final int MAX_INSUFFICIENT_PIECES = 3;
+
+    private static final int NO_SCORE = Integer.MIN_VALUE;
+
+    private final int number;
+
+    private final String opening;
+
+    private final EngineConfig white;
+
+    private final EngineConfig black;
+
+    private final Adjudication adjudication;
+
+    private GameResult result = null;
+
+    private String termination = null;
+
+    private int plies = 0;
+
+    private String pgn = null;
+
+    /**
+     * @param number number of game in tournament, from 1
+     * @param opening position in FEN notation or null for initial position
+     * @param white engine playing white pieces
+     * @param black engine playing black pieces
+     * @param adjudication rules of adjudication
+     */
+    public TournamentGame(int number, String opening, EngineConfig white, EngineConfig black,
+            Adjudication adjudication)
+    {
+        this.number = number;
+        this.opening = opening;
+        this.white = white;
+        this.black = black;
+        this.adjudication = adjudication;
+    }
+
+    /**
+     * Plays game to the end and exports it to PGN.
+     * @return result of game
+     * @throws ReadGameError if opening is not valid FEN
+     */
+    public GameResult play() throws ReadGameError
+    {
+        Game game;
+        if (null == opening)
+        {
+            game = new Game(false, white.getLevel());
+            game.newGame();
+        }
+        else
+        {
+            game = new FenNotation().importData(opening);
+        }
+        Settings settings = game.getSettings();
+        settings.getPlayerWhite().setName(white.getName());
+        settings.getPlayerBlack().setName(black.getName());
+        AI whiteAI = white.createAI();
+        AI blackAI = black.createAI();
+        ScoreListener whiteScores = new ScoreListener();
+        ScoreListener blackScores = new ScoreListener();
+        whiteAI.addSearchListener(whiteScores);
+        blackAI.addSearchListener(blackScores);
+        try
+        {
+            playMoves(game, whiteAI, blackAI, whiteScores, blackScores);
+        }
+        finally
+        {
+            whiteAI.stopThinking();
+            blackAI.stopThinking();
+        }
+        game.endGame(termination);
+        pgn = exportPgn(game);
+        return result;
+    }
+
+    private void playMoves(Game game, AI whiteAI, AI blackAI, ScoreListener whiteScores, ScoreListener blackScores)
+    {
+        Settings settings = game.getSettings();
+        Map<Long, Integer> repetitions = new HashMap<>();
+        int drawCount = 0;
+        int winCount = 0;
+        while (true)
+        {
+            boolean whiteToMove = game.getActivePlayer() == settings.getPlayerWhite();
+            if (isFinished(game, whiteToMove, repetitions))
+            {
+                return;
+            }
+            EngineConfig engine = whiteToMove ? white : black;
+            ScoreListener scores = whiteToMove ? whiteScores : blackScores;
+            engine.apply(settings);
+            game.setAi(whiteToMove ? whiteAI : blackAI);
+            scores.reset();
+            Move move = game.doComputerMove();
+            if (null == move)
+            {
+                finish(GameResult.win(!whiteToMove), "engine returned no move");
+                return;
+            }
+            plies++;
+
+            int score = scores.getScore();
+            if (NO_SCORE == score)
+            {
+                drawCount = 0;
+                winCount = 0;
+                continue;
+            }
+            int whiteScore = whiteToMove ? score : -score;
+            drawCount = Math.abs(whiteScore) <= adjudication.getDrawScore() ? drawCount + 1 : 0;
+            if (whiteScore >= adjudication.getWinScore())
+            {
+                winCount = Math.max(winCount, 0) + 1;
+            }
+            else if (whiteScore <= -adjudication.getWinScore())
+            {
+                winCount = Math.min(winCount, 0) - 1;
+            }
+            else
+            {
+                winCount = 0;
+            }
+            if (plies >= adjudication.getDrawMinPlies() && drawCount >= adjudication.getDrawPlies())
+            {
+                finish(GameResult.DRAW, "adjudication: draw score");
+                return;
+            }
+            if (Math.abs(winCount) >= adjudication.getWinPlies())
+            {
+                finish(GameResult.win(winCount > 0), "adjudication: win score");
+                return;
+            }
+        }
+    }
+
+    private boolean isFinished(Game game, boolean whiteToMove, Map<Long, Integer> repetitions)
+    {
+        BitboardPosition position = game.getChessboard().getBitboardPosition();
+        int side = position.getSideToMove();
+        if (game.getChessboard().getLegalMoves().isEmpty())
+        {
+            int king = position.getKingSquare(side);
+            if (BitboardPosition.NO_SQUARE != king && position.isAttacked(king, 1 - side, position.getOccupancy(), 0L))
+            {
+                return finish(GameResult.win(!whiteToMove), "checkmate");
+            }
+            return finish(GameResult.DRAW, "stalemate");
+        }
+        if (game.getChessboard().getHalfCounter() >= FIFTY_MOVES_RULE)
+        {
+            return finish(GameResult.DRAW, "fifty moves rule");
+        }
+        if (repetitions.merge(game.getChessboard().getZobristKey(), 1, Integer::sum) >= REPETITIONS)
+        {
+            return finish(GameResult.DRAW, "threefold repetition");
+        }
+        if (isInsufficientMaterial(position))
+        {
+            return finish(GameResult.DRAW, "insufficient material");
+        }
+        if (plies >= adjudication.getMaxPlies())
+        {
+            return finish(GameResult.DRAW, "adjudication: max plies");
+        }
+        if (adjudication.isTablebases())
+        {
+            int value = Tablebases.probe(position);
+            if (Tablebases.DRAW == value)
+            {
+                return finish(GameResult.DRAW, "adjudication: tablebases");
+            }
+            if (Tablebases.isWin(value) || Tablebases.isLoss(value))
+            {
+                return finish(GameResult.win(Tablebases.isWin(value) == whiteToMove), "adjudication: tablebases");
+            }
+        }
+        return false;
+    }
+
+    private static boolean isInsufficientMaterial(BitboardPosition position)
+    {
+        if (Long.bitCount(position.getOccupancy()) > MAX_INSUFFICIENT_PIECES)
+        {
+            return false;
+        }
+        for (int color = BitboardPosition.WHITE; color <= BitboardPosition.BLACK; color++)
+        {
+            if (0L != (position.getPieces(color, BitboardPosition.PAWN)
+                    | position.getPieces(color, BitboardPosition.ROOK)
+                    | position.getPieces(color, BitboardPosition.QUEEN)))
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean finish(GameResult result, String termination)
+    {
+        this.result = result;
+        this.termination = termination;
+        return true;
+    }
+
+    private String exportPgn(Game game)
+    {
+        Map<String, String> tags = new LinkedHashMap<>();
+        tags.put("Round", String.valueOf(number));
+        if (null != opening)
+        {
+            tags.put("SetUp", "1");
+            tags.put("FEN", opening);
+        }
+        tags.put("Termination", termination);
+        tags.put(PGNNotation.RESULT_TAG, result.getNotation());
+        return new PGNNotation().exportData(game, tags);
+    }
+
+    public int getNumber()
+    {
+        return number;
+    }
+
+    public String getOpening()
+    {
+        return opening;
+    }
+
+    public EngineConfig getWhite()
+    {
+        return white;
+    }
+
+    public EngineConfig getBlack()
+    {
+        return black;
+    }
+
+    /**
+     * @return result of game or null if game was not played yet
+     */
+    public GameResult getResult()
+    {
+        return result;
+    }
+
+    /**
+     * @return reason of end of game
+     */
+    public String getTermination()
+    {
+        return termination;
+    }
+
+    public int getPlies()
+    {
+        return plies;
+    }
+
+    /**
+     * @return game in PGN notation or null if game was not played yet
+     */
+    public String getPgn()
+    {
+        return pgn;
+    }
+
+    /**
+     * Keeps score of last completed iteration of engine search.
+     */
+    private static class ScoreListener implements SearchListener
+    {
+        private volatile int score = NO_SCORE;
+
+        @Override
+        public void iterationCompleted(SearchInfo info)
+        {
+            score = info.getScore();
+        }
+
+        public void reset()
+        {
+            score = NO_SCORE;
+        }
+
+        public int getScore()
+        {
+            return score;
+        }
+    }
+}
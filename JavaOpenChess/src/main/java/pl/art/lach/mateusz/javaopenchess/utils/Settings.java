@@ -36,10 +36,29 @@ public class Settings implements Serializable
     private static final Logger LOG = Logger.getLogger(Settings.class);
     
     private static final String RESOURCES_I18N_MAIN = ".resources.i18n.main";
+
+    public static final int DEFAULT_COMPUTER_LEVEL = 1;
+
+    public static final long DEFAULT_COMPUTER_MOVE_TIME = 1000L;
+
+    public static final int DEFAULT_HASH_SIZE = 16;
+
+    public static final int DEFAULT_COMPUTER_THREADS = 1;
+
+    public static final String BOOK_FILE_PROPERTY = "javaopenchess.book";
+
+    public static final String PONDER_PROPERTY = "javaopenchess.ponder";
+
+    public static final String COMPUTER_LEVEL_PROPERTY = "javaopenchess.computerLevel";
     
     private static ResourceBundle loc = null;
     
     protected int timeForGame;
+
+    /**
+     * seconds added to clock of player after every move
+     */
+    protected int timeIncrement = 0;
     
     protected boolean runningChat;
     
@@ -64,6 +83,37 @@ public class Settings implements Serializable
     
     protected boolean renderLabels = true;
 
+    /**
+     * level of AI used by computer player, see AIFactory
+     */
+    protected int computerLevel = Integer.getInteger(COMPUTER_LEVEL_PROPERTY, DEFAULT_COMPUTER_LEVEL);
+
+    /**
+     * time in milliseconds which computer player can spend on one move
+     */
+    protected long computerMoveTime = DEFAULT_COMPUTER_MOVE_TIME;
+
+    /**
+     * size of transposition table of computer player in megabytes
+     */
+    protected int hashSize = DEFAULT_HASH_SIZE;
+
+    /**
+     * number of threads used by search of computer player,
+     * limited by global cap of ParallelSearch
+     */
+    protected int computerThreads = DEFAULT_COMPUTER_THREADS;
+
+    /**
+     * path of Polyglot opening book used by computer player, null for none
+     */
+    protected String bookFile = System.getProperty(BOOK_FILE_PROPERTY);
+
+    /**
+     * true if computer player searches on opponent's time
+     */
+    protected boolean ponder = Boolean.getBoolean(PONDER_PROPERTY);
+
     public Settings()
     {
         this(
@@ -214,6 +264,22 @@ public class Settings implements Serializable
         this.displayLegalMovesEnabled = displayLegalMovesEnabled;
     }
 
+    /**
+     * @return the timeIncrement
+     */
+    public int getTimeIncrement()
+    {
+        return timeIncrement;
+    }
+
+    /**
+     * @param timeIncrement the timeIncrement to set
+     */
+    public void setTimeIncrement(int timeIncrement)
+    {
+        this.timeIncrement = timeIncrement;
+    }
+
     /**
      *  Method to get game time set by player
      *  @return timeFofGame int with how long the game will leasts
@@ -223,6 +289,102 @@ public class Settings implements Serializable
         return this.timeForGame;
     }
     
+    /**
+     * @return the computerLevel
+     */
+    public int getComputerLevel()
+    {
+        return computerLevel;
+    }
+
+    /**
+     * @param computerLevel the computerLevel to set
+     */
+    public void setComputerLevel(int computerLevel)
+    {
+        this.computerLevel = computerLevel;
+    }
+
+    /**
+     * @return the computerMoveTime in milliseconds
+     */
+    public long getComputerMoveTime()
+    {
+        return computerMoveTime;
+    }
+
+    /**
+     * @param computerMoveTime the computerMoveTime in milliseconds to set
+     */
+    public void setComputerMoveTime(long computerMoveTime)
+    {
+        this.computerMoveTime = computerMoveTime;
+    }
+
+    /**
+     * @return the hashSize in megabytes
+     */
+    public int getHashSize()
+    {
+        return hashSize;
+    }
+
+    /**
+     * @param hashSize the hashSize in megabytes to set
+     */
+    public void setHashSize(int hashSize)
+    {
+        this.hashSize = hashSize;
+    }
+
+    /**
+     * @return the computerThreads
+     */
+    public int getComputerThreads()
+    {
+        return computerThreads;
+    }
+
+    /**
+     * @param computerThreads the computerThreads to set
+     */
+    public void setComputerThreads(int computerThreads)
+    {
+        this.computerThreads = computerThreads;
+    }
+
+    /**
+     * @return the bookFile
+     */
+    public String getBookFile()
+    {
+        return bookFile;
+    }
+
+    /**
+     * @param bookFile the bookFile to set
+     */
+    public void setBookFile(String bookFile)
+    {
+        this.bookFile = bookFile;
+    }
+
+    /**
+     * @return the ponder
+     */
+    public boolean isPonder()
+    {
+        return ponder;
+    }
+
+    /**
+     * @param ponder the ponder to set
+     */
+    public void setPonder(boolean ponder)
+    {
+        this.ponder = ponder;
+    }
+
     public boolean isGameAgainstComputer()
     {
         return playerBlack.getPlayerType() == PlayerType.COMPUTER
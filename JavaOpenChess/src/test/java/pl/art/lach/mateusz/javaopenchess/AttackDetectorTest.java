@@ -0,0 +1,116 @@
+/*
+#    This program is free software: you can redistribute it and/or modify
+#    it under the terms of the GNU General Public License as published by
+#    the Free Software Foundation, either version 3 of the License, or
+#    (at your option) any later version.
+#
+#    This program is distributed in the hope that it will be useful,
+#    but WITHOUT ANY WARRANTY; without even the implied warranty of
+#    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+#    GNU General Public License for more details.
+#
+#    You should have received a copy of the GNU General Public License
+#    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package pl.art.lach.mateusz.javaopenchess;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import pl.art.lach.mateusz.javaopenchess.core.AttackDetector;
+import pl.art.lach.mateusz.javaopenchess.core.Chessboard;
+import pl.art.lach.mateusz.javaopenchess.core.Colors;
+import pl.art.lach.mateusz.javaopenchess.core.Game;
+import pl.art.lach.mateusz.javaopenchess.core.Square;
+import pl.art.lach.mateusz.javaopenchess.core.pieces.Piece;
+import pl.art.lach.mateusz.javaopenchess.utils.GameModes;
+import pl.art.lach.mateusz.javaopenchess.utils.GameTypes;
+import org.junit.Test;
+import org.junit.Before;
+
+import static org.junit.Assert.*;
+
+/**
+ * Compares AttackDetector with squares in range of every opponent piece.
+ */
+public class AttackDetectorTest
+{
+    private static final int NUMBER_OF_GAMES = 8;
+
+    private static final int MAX_PLIES = 200;
+
+    private Game game;
+
+    private Chessboard chessboard;
+
+    @Before
+    public void setup()
+    {
+        game = new Game(true);
+        game.getSettings().setGameMode(GameModes.NEW_GAME);
+        game.getSettings().setGameType(GameTypes.LOCAL);
+        chessboard = game.getChessboard();
+    }
+
+    @Test
+    public void checkRandomGames()
+    {
+        Random random = new Random(1410);
+        for (int i = 0; i < NUMBER_OF_GAMES; i++)
+        {
+            setup();
+            game.newGame();
+            Colors sideToMove = chessboard.getSideToMove();
+            for (int ply = 0; ply < MAX_PLIES; ply++)
+            {
+                checkPosition();
+                List<Square[]> moves = new ArrayList<>();
+                for (Piece piece : chessboard.getAllPieces(sideToMove))
+                {
+                    for (Square to : piece.getAllMoves())
+                    {
+                        moves.add(new Square[] {piece.getSquare(), to});
+                    }
+                }
+                if (moves.isEmpty())
+                {
+                    break;
+                }
+                Square[] move = moves.get(random.nextInt(moves.size()));
+                chessboard.move(move[0], move[1], false);
+                sideToMove = sideToMove.getOpposite();
+            }
+        }
+    }
+
+    private void checkPosition()
+    {
+        for (Colors color : Colors.values())
+        {
+            for (int x = 0; x < Chessboard.NUMBER_OF_SQUARES; x++)
+            {
+                for (int y = 0; y < Chessboard.NUMBER_OF_SQUARES; y++)
+                {
+                    Square sq = chessboard.getSquare(x, y);
+                    assertEquals(
+                        color + " " + sq.getAlgebraicNotation(),
+                        isInRangeOfOpponent(sq, color),
+                        AttackDetector.isAttacked(chessboard, sq, color)
+                    );
+                }
+            }
+        }
+    }
+
+    private boolean isInRangeOfOpponent(Square sq, Colors color)
+    {
+        for (Piece piece : chessboard.getAllPieces(color.getOpposite()))
+        {
+            if (piece.getSquaresInRange().contains(sq))
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,205 @@
+/*
+#    This program is free software: you can redistribute it and/or modify
+#    it under the terms of the GNU General Public License as published by
+#    the Free Software Foundation, either version 3 of the License, or
+#    (at your option) any later version.
+#
+#    This program is distributed in the hope that it will be useful,
+#    but WITHOUT ANY WARRANTY; without even the implied warranty of
+#    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+#    GNU General Public License for more details.
+#
+#    You should have received a copy of the GNU General Public License
+#    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package pl.art.lach.mateusz.javaopenchess;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import pl.art.lach.mateusz.javaopenchess.core.BitboardPosition;
+import pl.art.lach.mateusz.javaopenchess.core.Chessboard;
+import pl.art.lach.mateusz.javaopenchess.core.Colors;
+import pl.art.lach.mateusz.javaopenchess.core.Game;
+import pl.art.lach.mateusz.javaopenchess.core.Square;
+import pl.art.lach.mateusz.javaopenchess.core.moves.MoveList;
+import pl.art.lach.mateusz.javaopenchess.core.moves.PackedMove;
+import pl.art.lach.mateusz.javaopenchess.core.pieces.Piece;
+import pl.art.lach.mateusz.javaopenchess.core.pieces.implementation.King;
+import pl.art.lach.mateusz.javaopenchess.utils.GameModes;
+import pl.art.lach.mateusz.javaopenchess.utils.GameTypes;
+import pl.art.lach.mateusz.javaopenchess.utils.Settings;
+import org.junit.Test;
+import org.junit.Before;
+
+import static org.junit.Assert.*;
+
+/**
+ * Plays random games and compares bitboard position with squares
+ * and legal moves with moves found by trying them on chessboard.
+ */
+public class BitboardPositionTest
+{
+    private static final int NUMBER_OF_GAMES = 8;
+
+    private static final int MAX_PLIES = 200;
+
+    private Game game;
+
+    private Chessboard chessboard;
+
+    @Before
+    public void setup()
+    {
+        game = new Game(false);
+        Settings sett = game.getSettings();
+        chessboard = game.getChessboard();
+        sett.setGameMode(GameModes.NEW_GAME);
+        sett.setGameType(GameTypes.LOCAL);
+    }
+
+    @Test
+    public void checkNewGamePosition()
+    {
+        game.newGame();
+        BitboardPosition position = chessboard.getBitboardPosition();
+        assertEquals(0xFFFF00000000FFFFL, position.getOccupancy());
+        assertEquals(
+            0x00FF00000000FF00L,
+            position.getPieces(BitboardPosition.WHITE, BitboardPosition.PAWN)
+                | position.getPieces(BitboardPosition.BLACK, BitboardPosition.PAWN)
+        );
+        assertEquals(
+            0x1000000000000010L,
+            position.getPieces(BitboardPosition.WHITE, BitboardPosition.KING)
+                | position.getPieces(BitboardPosition.BLACK, BitboardPosition.KING)
+        );
+        assertEquals(
+            BitboardPosition.getColor(game.getSettings().getPlayerWhite().getColor()),
+            position.getSideToMove()
+        );
+        assertEquals(0xF, position.getCastlingRights());
+        assertEquals(BitboardPosition.NO_SQUARE, position.getEnPassantSquare());
+        checkPosition();
+    }
+
+    @Test
+    public void checkLegalMovesCache()
+    {
+        game.newGame();
+        MoveList moves = chessboard.getLegalMoves();
+        assertEquals(20, moves.size());
+        long version = chessboard.getBitboardPosition().getVersion();
+        for (Piece piece : chessboard.getAllPieces(chessboard.getSideToMove()))
+        {
+            piece.getAllMoves();
+        }
+        assertFalse(chessboard.getKingWhite().isChecked());
+        assertEquals(0, chessboard.getKingWhite().isCheckmatedOrStalemated());
+        assertEquals(version, chessboard.getBitboardPosition().getVersion());
+        assertSame(moves, chessboard.getLegalMoves());
+        assertEquals(20, moves.size());
+
+        int move = moves.get(0);
+        chessboard.move(
+            chessboard.getSquare(PackedMove.getFrom(move)), chessboard.getSquare(PackedMove.getTo(move)), false, false
+        );
+        assertEquals(20, chessboard.getLegalMoves().size());
+        assertNotEquals(
+            BitboardPosition.getColorOfPiece(PackedMove.getMovedPiece(move)),
+            BitboardPosition.getColorOfPiece(PackedMove.getMovedPiece(chessboard.getLegalMoves().get(0)))
+        );
+    }
+
+    @Test
+    public void checkRandomGames()
+    {
+        Random random = new Random(2016);
+        for (int i = 0; i < NUMBER_OF_GAMES; i++)
+        {
+            setup();
+            game.newGame();
+            for (int ply = 0; ply < MAX_PLIES; ply++)
+            {
+                List<Square[]> moves = checkPosition();
+                if (moves.isEmpty())
+                {
+                    break;
+                }
+                Square[] move = moves.get(random.nextInt(moves.size()));
+                chessboard.move(move[0], move[1], false);
+            }
+        }
+    }
+
+    private List<Square[]> checkPosition()
+    {
+        BitboardPosition position = chessboard.getBitboardPosition();
+        int sideToMove = position.getSideToMove();
+        List<Square[]> result = new ArrayList<>();
+        for (int index = 0; index < 64; index++)
+        {
+            Square sq = chessboard.getSquare(index);
+            Piece piece = sq.getPiece();
+            if (null == piece)
+            {
+                assertEquals(BitboardPosition.NO_PIECE, position.getPiece(index));
+                continue;
+            }
+            int expectedPiece = BitboardPosition.getPieceIndex(
+                BitboardPosition.getColor(piece), BitboardPosition.getType(piece)
+            );
+            assertEquals(expectedPiece, position.getPiece(index));
+            long expected = 0L;
+            for (Square to : getMovesByTrying(piece))
+            {
+                expected |= 1L << Chessboard.getBitboardIndex(to);
+                if (BitboardPosition.getColor(piece) == sideToMove)
+                {
+                    result.add(new Square[] {sq, to});
+                }
+            }
+            assertEquals(sq.getAlgebraicNotation(), expected, position.getLegalMoves(index));
+            assertEquals(sq.getAlgebraicNotation(), moves(expected), piece.getAllMoves());
+        }
+        return result;
+    }
+
+    private Set<Square> moves(long bitboard)
+    {
+        Set<Square> result = new HashSet<>();
+        for (int index = 0; index < 64; index++)
+        {
+            if (0L != (bitboard & (1L << index)))
+            {
+                result.add(chessboard.getSquare(index));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Legal moves found the old way: every square in range is tried on chessboard
+     * and king safety is checked after such move.
+     */
+    private Set<Square> getMovesByTrying(Piece piece)
+    {
+        boolean white = Colors.WHITE == piece.getPlayer().getColor();
+        King ourKing = white ? chessboard.getKingWhite() : chessboard.getKingBlack();
+        King oponentsKing = white ? chessboard.getKingBlack() : chessboard.getKingWhite();
+        Set<Square> result = new HashSet<>();
+        for (Square sq : piece.getSquaresInRange())
+        {
+            if (ourKing.willBeSafeAfterMove(piece.getSquare(), sq)
+                    && (null == sq.getPiece() || piece.getPlayer() != sq.getPiece().getPlayer())
+                    && sq.getPiece() != oponentsKing
+                    && (piece != ourKing || ourKing.isSafe(sq)))
+            {
+                result.add(sq);
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,69 @@
+/*
+#    This program is free software: you can redistribute it and/or modify
+#    it under the terms of the GNU General Public License as published by
+#    the Free Software Foundation, either version 3 of the License, or
+#    (at your option) any later version.
+#
+#    This program is distributed in the hope that it will be useful,
+#    but WITHOUT ANY WARRANTY; without even the implied warranty of
+#    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+#    GNU General Public License for more details.
+#
+#    You should have received a copy of the GNU General Public License
+#    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package pl.art.lach.mateusz.javaopenchess;
+
+import java.util.Random;
+import org.junit.Test;
+import pl.art.lach.mateusz.javaopenchess.core.bitboards.Bitboards;
+import pl.art.lach.mateusz.javaopenchess.core.bitboards.Magics;
+
+import static org.junit.Assert.*;
+
+/**
+ * Compares magic bitboard lookups with attacks computed ray by ray.
+ */
+public class MagicsTest
+{
+    private static final int OCCUPANCIES_PER_SQUARE = 500;
+
+    @Test
+    public void checkSliderAttacks()
+    {
+        Random random = new Random(7L);
+        for (int square = 0; square < Bitboards.NUMBER_OF_SQUARES; square++)
+        {
+            for (int i = 0; i < OCCUPANCIES_PER_SQUARE; i++)
+            {
+                long occupancy = random.nextLong() & random.nextLong();
+                long rook = getRayAttacks(square, occupancy, Bitboards.DIRECTION_UP, Bitboards.DIRECTION_BOTTOM,
+                        Bitboards.DIRECTION_LEFT, Bitboards.DIRECTION_RIGHT);
+                long bishop = getRayAttacks(square, occupancy, Bitboards.DIRECTION_UP_LEFT, Bitboards.DIRECTION_UP_RIGHT,
+                        Bitboards.DIRECTION_BOTTOM_LEFT, Bitboards.DIRECTION_BOTTOM_RIGHT);
+                assertEquals(rook, Magics.getRookAttacks(square, occupancy));
+                assertEquals(bishop, Magics.getBishopAttacks(square, occupancy));
+                assertEquals(rook | bishop, Magics.getQueenAttacks(square, occupancy));
+            }
+        }
+    }
+
+    @Test
+    public void checkEmptyBoard()
+    {
+        int d4 = Bitboards.getSquare(3, 4);
+        assertEquals(14, Long.bitCount(Magics.getRookAttacks(d4, 0L)));
+        assertEquals(13, Long.bitCount(Magics.getBishopAttacks(d4, 0L)));
+        assertEquals(7, Long.bitCount(Magics.getBishopAttacks(0, 0L)));
+    }
+
+    private static long getRayAttacks(int square, long occupancy, int... directions)
+    {
+        long result = 0L;
+        for (int direction : directions)
+        {
+            result |= Bitboards.getRayAttacks(direction, square, occupancy);
+        }
+        return result;
+    }
+}
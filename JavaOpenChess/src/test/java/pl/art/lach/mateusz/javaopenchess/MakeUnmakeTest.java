@@ -0,0 +1,154 @@
+/*
+#    This program is free software: you can redistribute it and/or modify
+#    it under the terms of the GNU General Public License as published by
+#    the Free Software Foundation, either version 3 of the License, or
+#    (at your option) any later version.
+#
+#    This program is distributed in the hope that it will be useful,
+#    but WITHOUT ANY WARRANTY; without even the implied warranty of
+#    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+#    GNU General Public License for more details.
+#
+#    You should have received a copy of the GNU General Public License
+#    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package pl.art.lach.mateusz.javaopenchess;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+import pl.art.lach.mateusz.javaopenchess.core.BitboardPosition;
+import pl.art.lach.mateusz.javaopenchess.core.Chessboard;
+import pl.art.lach.mateusz.javaopenchess.core.UndoState;
+import pl.art.lach.mateusz.javaopenchess.core.data_transfer.implementations.FenNotation;
+import pl.art.lach.mateusz.javaopenchess.core.exceptions.ReadGameError;
+import pl.art.lach.mateusz.javaopenchess.core.moves.MoveList;
+import pl.art.lach.mateusz.javaopenchess.core.pieces.Piece;
+import pl.art.lach.mateusz.javaopenchess.core.pieces.implementation.King;
+import pl.art.lach.mateusz.javaopenchess.core.pieces.implementation.Rook;
+
+import static org.junit.Assert.*;
+
+/**
+ * Plays random moves with Chessboard.makeMove() and checks that
+ * unmakeMove() restores chessboard state exactly.
+ */
+public class MakeUnmakeTest
+{
+    private static final int MAX_PLIES = 120;
+
+    private static final String[] POSITIONS = {
+        FenNotation.INITIAL_STATE,
+        "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+        "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1"
+    };
+
+    @Test
+    public void checkRandomGames() throws ReadGameError
+    {
+        Random random = new Random(11L);
+        for (String fen : POSITIONS)
+        {
+            Chessboard chessboard = new FenNotation().importData(fen).getChessboard();
+            BoardSnapshot start = new BoardSnapshot(chessboard);
+            List<Integer> played = new ArrayList<>();
+            List<UndoState> undos = new ArrayList<>();
+            MoveList moves = new MoveList();
+            for (int ply = 0; ply < MAX_PLIES; ply++)
+            {
+                moves.clear();
+                BitboardPosition position = chessboard.getBitboardPosition();
+                position.getLegalMoveGenerator().generateLegalMoves(position.getSideToMove(), moves);
+                if (moves.isEmpty())
+                {
+                    break;
+                }
+                BoardSnapshot before = new BoardSnapshot(chessboard);
+                for (int i = 0; i < moves.size(); i++)
+                {
+                    UndoState undo = chessboard.makeMove(moves.get(i));
+                    chessboard.unmakeMove(moves.get(i), undo);
+                    before.assertSame(chessboard);
+                }
+                int move = moves.get(random.nextInt(moves.size()));
+                played.add(move);
+                undos.add(chessboard.makeMove(move));
+            }
+            for (int i = played.size() - 1; i >= 0; i--)
+            {
+                chessboard.unmakeMove(played.get(i), undos.get(i));
+            }
+            start.assertSame(chessboard);
+        }
+    }
+
+    /**
+     * Copy of everything changed by makeMove().
+     */
+    private static class BoardSnapshot
+    {
+        private final Piece[] pieces = new Piece[64];
+
+        private final boolean[] motioned = new boolean[64];
+
+        private final long[] bitboards = new long[12];
+
+        private final Piece twoSquareMovedPawn;
+
+        private final int halfCounter;
+
+        private final Object sideToMove;
+
+        private final King kingWhite;
+
+        private final King kingBlack;
+
+        BoardSnapshot(Chessboard chessboard)
+        {
+            for (int i = 0; i < 64; i++)
+            {
+                pieces[i] = chessboard.getSquare(i).getPiece();
+                motioned[i] = isMotioned(pieces[i]);
+            }
+            BitboardPosition position = chessboard.getBitboardPosition();
+            for (int i = 0; i < 12; i++)
+            {
+                bitboards[i] = position.getPieces(
+                    BitboardPosition.getColorOfPiece(i), BitboardPosition.getTypeOfPiece(i)
+                );
+            }
+            twoSquareMovedPawn = chessboard.getTwoSquareMovedPawn();
+            halfCounter = chessboard.getHalfCounter();
+            sideToMove = chessboard.getSideToMove();
+            kingWhite = chessboard.getKingWhite();
+            kingBlack = chessboard.getKingBlack();
+        }
+
+        void assertSame(Chessboard chessboard)
+        {
+            BoardSnapshot other = new BoardSnapshot(chessboard);
+            for (int i = 0; i < 64; i++)
+            {
+                assertTrue(pieces[i] == other.pieces[i]);
+                assertEquals(motioned[i], other.motioned[i]);
+                if (null != pieces[i])
+                {
+                    assertTrue(chessboard.getSquare(i) == pieces[i].getSquare());
+                }
+            }
+            assertArrayEquals(bitboards, other.bitboards);
+            assertTrue(twoSquareMovedPawn == other.twoSquareMovedPawn);
+            assertEquals(halfCounter, other.halfCounter);
+            assertEquals(sideToMove, other.sideToMove);
+            assertTrue(kingWhite == other.kingWhite);
+            assertTrue(kingBlack == other.kingBlack);
+        }
+
+        private static boolean isMotioned(Piece piece)
+        {
+            return (piece instanceof King && ((King) piece).getWasMotioned())
+                    || (piece instanceof Rook && ((Rook) piece).getWasMotioned());
+        }
+    }
+}
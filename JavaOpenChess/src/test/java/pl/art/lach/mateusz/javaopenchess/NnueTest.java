@@ -0,0 +1,186 @@
+/*
+#    This program is free software: you can redistribute it and/or modify
+#    it under the terms of the GNU General Public License as published by
+#    the Free Software Foundation, either version 3 of the License, or
+#    (at your option) any later version.
+#
+#    This program is distributed in the hope that it will be useful,
+#    but WITHOUT ANY WARRANTY; without even the implied warranty of
+#    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+#    GNU General Public License for more details.
+#
+#    You should have received a copy of the GNU General Public License
+#    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package pl.art.lach.mateusz.javaopenchess;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Random;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import pl.art.lach.mateusz.javaopenchess.core.BitboardPosition;
+import pl.art.lach.mateusz.javaopenchess.core.Chessboard;
+import pl.art.lach.mateusz.javaopenchess.core.UndoState;
+import pl.art.lach.mateusz.javaopenchess.core.ai.nnue.NnueAccumulator;
+import pl.art.lach.mateusz.javaopenchess.core.ai.nnue.NnueEvaluator;
+import pl.art.lach.mateusz.javaopenchess.core.ai.nnue.NnueNetwork;
+import pl.art.lach.mateusz.javaopenchess.core.ai.search.ClassicalEvaluator;
+import pl.art.lach.mateusz.javaopenchess.core.ai.search.EvaluatorFactory;
+import pl.art.lach.mateusz.javaopenchess.core.ai.search.Search;
+import pl.art.lach.mateusz.javaopenchess.core.ai.search.TranspositionTable;
+import pl.art.lach.mateusz.javaopenchess.core.data_transfer.implementations.FenNotation;
+import pl.art.lach.mateusz.javaopenchess.core.exceptions.ReadGameError;
+import pl.art.lach.mateusz.javaopenchess.core.moves.MoveList;
+import pl.art.lach.mateusz.javaopenchess.core.moves.PackedMove;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks neural evaluation with random network: loading of network file
+ * and incremental updates of accumulator.
+ */
+public class NnueTest
+{
+    private static final String KIWIPETE = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1";
+
+    private static final String INITIAL_BLACK_TO_MOVE = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR b KQkq - 0 1";
+
+    private static final int HIDDEN_SIZE = 8;
+
+    private static final int MAX_WEIGHT = 64;
+
+    private static final int MAX_PLIES = 60;
+
+    private static final long TIME = 5000L;
+
+    private static final int SEARCH_DEPTH = 3;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @After
+    public void clearDefaultNetwork()
+    {
+        NnueNetwork.setDefault(null);
+    }
+
+    @Test
+    public void checkSaveAndLoad() throws IOException, ReadGameError
+    {
+        NnueNetwork network = createRandomNetwork();
+        Path file = folder.newFile("test.jnn").toPath();
+        network.save(file);
+        NnueNetwork loaded = NnueNetwork.load(file);
+        assertEquals(HIDDEN_SIZE, loaded.getHiddenSize());
+
+        BitboardPosition position = new FenNotation().importData(KIWIPETE).getChessboard().getBitboardPosition();
+        int score = new NnueEvaluator(network, position).evaluate(position);
+        assertEquals(score, new NnueEvaluator(loaded, position).evaluate(position));
+
+        BitboardPosition white = new FenNotation().importData(FenNotation.INITIAL_STATE).getChessboard()
+                .getBitboardPosition();
+        BitboardPosition black = new FenNotation().importData(INITIAL_BLACK_TO_MOVE).getChessboard()
+                .getBitboardPosition();
+        assertEquals(
+            new NnueEvaluator(network, white).evaluate(white), new NnueEvaluator(network, black).evaluate(black)
+        );
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void checkInvalidFile() throws IOException
+    {
+        NnueNetwork.load(folder.newFile("empty.jnn").toPath());
+    }
+
+    @Test
+    public void checkIncrementalAccumulator() throws ReadGameError
+    {
+        NnueNetwork network = createRandomNetwork();
+        Random random = new Random(11L);
+        Chessboard chessboard = new FenNotation().importData(KIWIPETE).getChessboard();
+        NnueEvaluator evaluator = new NnueEvaluator(network, chessboard.getBitboardPosition());
+        evaluator.newSearch();
+        assertSame(evaluator.getAccumulator(), chessboard.getBitboardPosition().getPieceListener());
+        MoveList moves = new MoveList();
+        for (int ply = 0; ply < MAX_PLIES; ply++)
+        {
+            BitboardPosition position = chessboard.getBitboardPosition();
+            int score = evaluator.evaluate(position);
+            moves.clear();
+            position.getLegalMoveGenerator().generateLegalMoves(position.getSideToMove(), moves);
+            if (moves.isEmpty())
+            {
+                break;
+            }
+            for (int i = 0; i < moves.size(); i++)
+            {
+                UndoState undo = chessboard.makeMove(moves.get(i));
+                checkAccumulator(network, evaluator.getAccumulator(), chessboard);
+                chessboard.unmakeMove(moves.get(i), undo);
+                assertEquals(score, evaluator.evaluate(chessboard.getBitboardPosition()));
+            }
+            chessboard.makeMove(moves.get(random.nextInt(moves.size())));
+        }
+        evaluator.searchFinished();
+        assertNull(chessboard.getBitboardPosition().getPieceListener());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void checkSingleListener() throws ReadGameError
+    {
+        NnueNetwork network = createRandomNetwork();
+        BitboardPosition position = new FenNotation().importData(KIWIPETE).getChessboard().getBitboardPosition();
+        new NnueEvaluator(network, position).newSearch();
+        new NnueEvaluator(network, position).newSearch();
+    }
+
+    @Test
+    public void checkSearch() throws ReadGameError
+    {
+        assertTrue(EvaluatorFactory.createEvaluator(new BitboardPosition()) instanceof ClassicalEvaluator);
+        NnueNetwork.setDefault(createRandomNetwork());
+        Chessboard chessboard = new FenNotation().importData(KIWIPETE).getChessboard();
+        Search search = new Search(chessboard, new TranspositionTable(1));
+        assertTrue(search.getEvaluator() instanceof NnueEvaluator);
+        long key = chessboard.getZobristKey();
+        int move = search.search(TIME, SEARCH_DEPTH);
+        assertTrue(chessboard.getLegalMoves().contains(move));
+        assertNotEquals(PackedMove.NO_MOVE, move);
+        assertEquals(key, chessboard.getZobristKey());
+        assertNull(chessboard.getBitboardPosition().getPieceListener());
+    }
+
+    private static void checkAccumulator(NnueNetwork network, NnueAccumulator accumulator, Chessboard chessboard)
+    {
+        BitboardPosition computed = chessboard.createCopy().getBitboardPosition();
+        NnueAccumulator expected = new NnueAccumulator(network, computed);
+        for (int color = BitboardPosition.WHITE; color <= BitboardPosition.BLACK; color++)
+        {
+            assertArrayEquals(expected.getValues(color), accumulator.getValues(color));
+        }
+    }
+
+    private static NnueNetwork createRandomNetwork()
+    {
+        Random random = new Random(3L);
+        short[] featureWeights = new short[NnueNetwork.INPUTS * HIDDEN_SIZE];
+        for (int i = 0; i < featureWeights.length; i++)
+        {
+            featureWeights[i] = (short) (random.nextInt(2 * MAX_WEIGHT + 1) - MAX_WEIGHT);
+        }
+        short[] featureBiases = new short[HIDDEN_SIZE];
+        for (int i = 0; i < featureBiases.length; i++)
+        {
+            featureBiases[i] = (short) random.nextInt(MAX_WEIGHT);
+        }
+        short[] outputWeights = new short[2 * HIDDEN_SIZE];
+        for (int i = 0; i < outputWeights.length; i++)
+        {
+            outputWeights[i] = (short) (random.nextInt(2 * MAX_WEIGHT + 1) - MAX_WEIGHT);
+        }
+        return new NnueNetwork(HIDDEN_SIZE, featureWeights, featureBiases, outputWeights, 0);
+    }
+}
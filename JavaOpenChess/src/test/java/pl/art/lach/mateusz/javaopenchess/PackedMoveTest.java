@@ -0,0 +1,147 @@
+/*
+#    This program is free software: you can redistribute it and/or modify
+#    it under the terms of the GNU General Public License as published by
+#    the Free Software Foundation, either version 3 of the License, or
+#    (at your option) any later version.
+#
+#    This program is distributed in the hope that it will be useful,
+#    but WITHOUT ANY WARRANTY; without even the implied warranty of
+#    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+#    GNU General Public License for more details.
+#
+#    You should have received a copy of the GNU General Public License
+#    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package pl.art.lach.mateusz.javaopenchess;
+
+import org.junit.Test;
+import pl.art.lach.mateusz.javaopenchess.core.BitboardPosition;
+import pl.art.lach.mateusz.javaopenchess.core.Chessboard;
+import pl.art.lach.mateusz.javaopenchess.core.Game;
+import pl.art.lach.mateusz.javaopenchess.core.ai.search.MoveOrdering;
+import pl.art.lach.mateusz.javaopenchess.core.data_transfer.implementations.FenNotation;
+import pl.art.lach.mateusz.javaopenchess.core.exceptions.ReadGameError;
+import pl.art.lach.mateusz.javaopenchess.core.moves.Castling;
+import pl.art.lach.mateusz.javaopenchess.core.moves.Move;
+import pl.art.lach.mateusz.javaopenchess.core.moves.MoveList;
+import pl.art.lach.mateusz.javaopenchess.core.moves.PackedMove;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests of packed move encoding, MoveList and conversion to Move objects.
+ */
+public class PackedMoveTest
+{
+    private static final String KIWIPETE = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1";
+
+    private static final String PROMOTIONS = "n1n5/PPPk4/8/8/8/8/4Kppp/5N1N b - - 0 1";
+
+    /**
+     * moves from initial position after which white can capture en passant
+     */
+    private static final String[] EN_PASSANT = {"e2e4", "a7a6", "e4e5", "d7d5"};
+
+    private static final String CHECK = "4k3/8/8/8/1b6/8/3P4/4K2R w K - 0 1";
+
+    @Test
+    public void checkEncoding()
+    {
+        int move = PackedMove.create(12, 4, 5, BitboardPosition.NO_PIECE, BitboardPosition.QUEEN, PackedMove.FLAG_EN_PASSANT);
+        assertEquals(12, PackedMove.getFrom(move));
+        assertEquals(4, PackedMove.getTo(move));
+        assertEquals(5, PackedMove.getMovedPiece(move));
+        assertEquals(BitboardPosition.NO_PIECE, PackedMove.getCapturedPiece(move));
+        assertEquals(BitboardPosition.QUEEN, PackedMove.getPromotion(move));
+        assertFalse(PackedMove.isCapture(move));
+        assertTrue(PackedMove.isPromotion(move));
+        assertTrue(PackedMove.isEnPassant(move));
+        assertEquals("e7e8q", PackedMove.toString(move));
+
+        move = PackedMove.create(63, 0, 11, 0, BitboardPosition.NO_PIECE, PackedMove.FLAG_LONG_CASTLING);
+        assertEquals(11, PackedMove.getMovedPiece(move));
+        assertEquals(0, PackedMove.getCapturedPiece(move));
+        assertTrue(PackedMove.isCapture(move));
+        assertFalse(PackedMove.isPromotion(move));
+        assertEquals(Castling.LONG_CASTLING, PackedMove.getCastling(move));
+        assertNotEquals(PackedMove.NO_MOVE, move);
+    }
+
+    @Test
+    public void checkMoveList()
+    {
+        MoveList list = new MoveList(2);
+        for (int i = 1; i <= 100; i++)
+        {
+            list.add(i);
+        }
+        assertEquals(100, list.size());
+        assertTrue(list.contains(50));
+        list.swap(0, 99);
+        assertEquals(100, list.get(0));
+        list.clear();
+        assertTrue(list.isEmpty());
+        assertFalse(list.contains(50));
+    }
+
+    @Test
+    public void checkGeneratedMoves() throws ReadGameError
+    {
+        Game game = new FenNotation().importData(KIWIPETE);
+        Chessboard chessboard = game.getChessboard();
+        BitboardPosition position = chessboard.getBitboardPosition();
+        MoveList list = new MoveList();
+        position.getLegalMoveGenerator().generateLegalMoves(position.getSideToMove(), list);
+        assertEquals(48, list.size());
+        int captures = 0;
+        int castlings = 0;
+        for (int i = 0; i < list.size(); i++)
+        {
+            int packed = list.get(i);
+            captures += PackedMove.isCapture(packed) ? 1 : 0;
+            castlings += Castling.NONE != PackedMove.getCastling(packed) ? 1 : 0;
+            Move move = PackedMove.toMove(packed, chessboard);
+            assertEquals(packed, PackedMove.fromMove(move));
+        }
+        assertEquals(8, captures);
+        assertEquals(2, castlings);
+    }
+
+    @Test
+    public void checkGeneratedCaptures() throws ReadGameError
+    {
+        Chessboard enPassant = new FenNotation().importData(FenNotation.INITIAL_STATE).getChessboard();
+        for (String move : EN_PASSANT)
+        {
+            MoveList moves = enPassant.getLegalMoves();
+            for (int i = 0; i < moves.size(); i++)
+            {
+                if (move.equals(PackedMove.toString(moves.get(i))))
+                {
+                    enPassant.makeMove(moves.get(i));
+                    break;
+                }
+            }
+        }
+        assertNotEquals(BitboardPosition.NO_SQUARE, enPassant.getBitboardPosition().getEnPassantSquare());
+        for (String fen : new String[] {KIWIPETE, PROMOTIONS, CHECK, null})
+        {
+            BitboardPosition position = null == fen ? enPassant.getBitboardPosition()
+                    : new FenNotation().importData(fen).getChessboard().getBitboardPosition();
+            MoveList legal = new MoveList();
+            position.getLegalMoveGenerator().generateLegalMoves(position.getSideToMove(), legal);
+            MoveList captures = new MoveList();
+            position.getLegalMoveGenerator().generateCaptures(position.getSideToMove(), captures);
+            int tactical = 0;
+            for (int i = 0; i < legal.size(); i++)
+            {
+                if (MoveOrdering.isTactical(legal.get(i)))
+                {
+                    tactical++;
+                    assertTrue(fen, captures.contains(legal.get(i)));
+                }
+            }
+            assertEquals(fen, tactical, captures.size());
+        }
+    }
+}
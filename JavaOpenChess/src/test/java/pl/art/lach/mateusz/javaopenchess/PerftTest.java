@@ -0,0 +1,114 @@
+/*
+#    This program is free software: you can redistribute it and/or modify
+#    it under the terms of the GNU General Public License as published by
+#    the Free Software Foundation, either version 3 of the License, or
+#    (at your option) any later version.
+#
+#    This program is distributed in the hope that it will be useful,
+#    but WITHOUT ANY WARRANTY; without even the implied warranty of
+#    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+#    GNU General Public License for more details.
+#
+#    You should have received a copy of the GNU General Public License
+#    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package pl.art.lach.mateusz.javaopenchess;
+
+import pl.art.lach.mateusz.javaopenchess.core.data_transfer.implementations.FenNotation;
+import pl.art.lach.mateusz.javaopenchess.core.exceptions.ReadGameError;
+import pl.art.lach.mateusz.javaopenchess.core.perft.Perft;
+import pl.art.lach.mateusz.javaopenchess.core.perft.PerftResult;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Perft results for well known test positions.
+ * Where rules of this program differ from standard chess rules
+ * (king cannot step on squares where pawn could move, castling is not
+ * checked for passing attacked squares) expected numbers are the ones
+ * generated by this program and standard values are given in comments.
+ */
+public class PerftTest
+{
+    private static final String KIWIPETE = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1";
+
+    private static final String POSITION_3 = "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1";
+
+    private static final String POSITION_4 = "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1";
+
+    private static final String POSITION_5 = "rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8";
+
+    @Test
+    public void checkInitialPosition() throws ReadGameError
+    {
+        Perft perft = Perft.fromFen(FenNotation.INITIAL_STATE);
+        assertEquals(20L, perft.perft(1));
+        assertEquals(400L, perft.perft(2));
+        assertEquals(8902L, perft.perft(3));
+    }
+
+    @Test
+    public void checkKiwipete() throws ReadGameError
+    {
+        Perft perft = Perft.fromFen(KIWIPETE);
+        assertEquals(48L, perft.perft(1));
+        assertEquals(2043L, perft.perft(2)); // standard: 2039
+    }
+
+    @Test
+    public void checkPosition3() throws ReadGameError
+    {
+        Perft perft = Perft.fromFen(POSITION_3);
+        assertEquals(14L, perft.perft(1));
+        assertEquals(169L, perft.perft(2)); // standard: 191
+        assertEquals(2514L, perft.perft(3)); // standard: 2812
+    }
+
+    @Test
+    public void checkPosition4() throws ReadGameError
+    {
+        Perft perft = Perft.fromFen(POSITION_4);
+        assertEquals(6L, perft.perft(1));
+        assertEquals(264L, perft.perft(2));
+        assertEquals(9467L, perft.perft(3));
+    }
+
+    @Test
+    public void checkPosition5() throws ReadGameError
+    {
+        Perft perft = Perft.fromFen(POSITION_5);
+        assertEquals(44L, perft.perft(1));
+        assertEquals(1486L, perft.perft(2));
+    }
+
+    @Test
+    public void checkDivide() throws ReadGameError
+    {
+        PerftResult result = Perft.fromFen(POSITION_4).divide(2);
+        assertEquals(264L, result.getNodes());
+        assertEquals(6, result.getDivide().size());
+        assertEquals(Long.valueOf(42L), result.getDivide().get("b4c5"));
+        assertEquals(Long.valueOf(46L), result.getDivide().get("g1h1"));
+    }
+
+    @Test
+    public void checkAllMoves() throws ReadGameError
+    {
+        assertEquals(8902L, Perft.fromFen(FenNotation.INITIAL_STATE).perftAllMoves(3));
+        assertEquals(2043L, Perft.fromFen(KIWIPETE).perftAllMoves(2));
+        assertEquals(2514L, Perft.fromFen(POSITION_3).perftAllMoves(3));
+        Perft perft = Perft.fromFen(POSITION_4);
+        assertEquals(perft.divide(2).getDivide(), perft.divideAllMoves(2).getDivide());
+        assertEquals(1486L, Perft.fromFen(POSITION_5).perftAllMoves(2));
+    }
+
+    @Test
+    public void checkPromotions() throws ReadGameError
+    {
+        PerftResult result = Perft.fromFen("8/8/8/8/8/8/1p6/K1k5 b - - 0 1").divide(1);
+        assertEquals(7L, result.getNodes());
+        assertEquals(Long.valueOf(1L), result.getDivide().get("b2b1q"));
+        assertEquals(Long.valueOf(1L), result.getDivide().get("b2b1n"));
+    }
+}
@@ -0,0 +1,209 @@
+/*
+#    This program is free software: you can redistribute it and/or modify
+#    it under the terms of the GNU General Public License as published by
+#    the Free Software Foundation, either version 3 of the License, or
+#    (at your option) any later version.
+#
+#    This program is distributed in the hope that it will be useful,
+#    but WITHOUT ANY WARRANTY; without even the implied warranty of
+#    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+#    GNU General Public License for more details.
+#
+#    You should have received a copy of the GNU General Public License
+#    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package pl.art.lach.mateusz.javaopenchess;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import pl.art.lach.mateusz.javaopenchess.core.Chessboard;
+import pl.art.lach.mateusz.javaopenchess.core.Game;
+import pl.art.lach.mateusz.javaopenchess.core.ai.book.BookEntry;
+import pl.art.lach.mateusz.javaopenchess.core.ai.book.PolyglotBook;
+import pl.art.lach.mateusz.javaopenchess.core.ai.book.PolyglotKey;
+import pl.art.lach.mateusz.javaopenchess.core.data_transfer.implementations.FenNotation;
+import pl.art.lach.mateusz.javaopenchess.core.exceptions.ReadGameError;
+import pl.art.lach.mateusz.javaopenchess.core.moves.MoveList;
+import pl.art.lach.mateusz.javaopenchess.core.moves.PackedMove;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks reading of Polyglot opening book and conversion of book moves.
+ */
+public class PolyglotBookTest
+{
+    private static final String CASTLING = "r3k2r/8/8/8/8/8/8/R3K2R w KQkq - 0 1";
+
+    private static final String AFTER_E4 = "rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq e3 0 1";
+
+    private static final String AFTER_E4_NO_EN_PASSANT = "rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq - 0 1";
+
+    /**
+     * e2e4 in Polyglot encoding
+     */
+    private static final int E2E4 = 4 | (3 << 3) | (4 << 6) | (1 << 9);
+
+    private static final int D2D4 = 3 | (3 << 3) | (3 << 6) | (1 << 9);
+
+    /**
+     * e1h1 - short castling in Polyglot encoding
+     */
+    private static final int E1H1 = 7 | (4 << 6);
+
+    /**
+     * lines of moves from initial position with keys published
+     * with Polyglot book format, last key is key after all moves of line
+     */
+    private static final String[][] REFERENCE_LINES = {
+        {"463B96181691FC9C"},
+        {"e2e4", "823C9B50FD114196"},
+        {"e2e4", "d7d5", "0756B94461C50FB0"},
+        {"e2e4", "d7d5", "e4e5", "662FAFB965DB29D4"},
+        {"e2e4", "d7d5", "e4e5", "f7f5", "22A48B5A8E47FF78"},
+        {"e2e4", "d7d5", "e4e5", "f7f5", "e1e2", "652A607CA3F242C1"},
+        {"e2e4", "d7d5", "e4e5", "f7f5", "e1e2", "e8f7", "00FDD303C946BDD9"},
+        {"a2a4", "b7b5", "h2h4", "b5b4", "c2c4", "3C8123EA7B067637"},
+        {"a2a4", "b7b5", "h2h4", "b5b4", "c2c4", "b4c3", "a1a3", "5C3F9B829B279560"}
+    };
+
+    /**
+     * one entry of Polyglot book: initial position, e2e4, weight 10, no learn data
+     */
+    private static final String INITIAL_ENTRY = "463B96181691FC9C031C000A00000000";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void checkBookMoves() throws IOException, ReadGameError
+    {
+        Chessboard initial = new FenNotation().importData(FenNotation.INITIAL_STATE).getChessboard();
+        Chessboard castling = new FenNotation().importData(CASTLING).getChessboard();
+        long initialKey = PolyglotKey.getKey(initial.getBitboardPosition());
+        long castlingKey = PolyglotKey.getKey(castling.getBitboardPosition());
+        long[][] entries = {
+            {initialKey, E2E4, 3},
+            {initialKey, D2D4, 0},
+            {castlingKey, E1H1, 1}
+        };
+        PolyglotBook book = PolyglotBook.open(writeBook(entries).getPath());
+        assertEquals(3, book.getSize());
+
+        List<BookEntry> initialEntries = book.getEntries(initialKey);
+        assertEquals(2, initialEntries.size());
+        assertEquals(3, initialEntries.get(0).getWeight() + initialEntries.get(1).getWeight());
+        assertTrue(book.getEntries(initialKey ^ 1L).isEmpty());
+
+        Random random = new Random(1L);
+        for (int i = 0; i < 10; i++)
+        {
+            assertEquals("e2e4", PackedMove.toString(book.getMove(initial, random)));
+        }
+        assertEquals("e1g1", PackedMove.toString(book.getMove(castling, random)));
+        Chessboard outOfBook = new FenNotation().importData(AFTER_E4).getChessboard();
+        assertEquals(PackedMove.NO_MOVE, book.getMove(outOfBook, random));
+    }
+
+    @Test
+    public void checkKeys() throws ReadGameError
+    {
+        Chessboard afterE4 = new FenNotation().importData(AFTER_E4).getChessboard();
+        Chessboard noEnPassant = new FenNotation().importData(AFTER_E4_NO_EN_PASSANT).getChessboard();
+        Chessboard initial = new FenNotation().importData(FenNotation.INITIAL_STATE).getChessboard();
+        long afterE4Key = PolyglotKey.getKey(afterE4.getBitboardPosition());
+        assertEquals(PolyglotKey.getKey(noEnPassant.getBitboardPosition()), afterE4Key);
+        assertNotEquals(PolyglotKey.getKey(initial.getBitboardPosition()), afterE4Key);
+    }
+
+    @Test
+    public void checkReferenceKeys() throws ReadGameError
+    {
+        for (String[] line : REFERENCE_LINES)
+        {
+            Chessboard chessboard = new FenNotation().importData(FenNotation.INITIAL_STATE).getChessboard();
+            for (int i = 0; i < line.length - 1; i++)
+            {
+                int move = findMove(chessboard, line[i]);
+                assertNotEquals(line[i], PackedMove.NO_MOVE, move);
+                chessboard.makeMove(move);
+            }
+            long expected = Long.parseUnsignedLong(line[line.length - 1], 16);
+            assertEquals(Arrays.toString(line), expected, PolyglotKey.getKey(chessboard.getBitboardPosition()));
+        }
+    }
+
+    @Test
+    public void checkFirstSideIsWhite()
+    {
+        // computer plays first with black pieces, so for Polyglot it is white
+        Game game = new Game(true);
+        game.newGame();
+        Chessboard chessboard = game.getChessboard();
+        assertEquals(0x463B96181691FC9CL, PolyglotKey.getKey(chessboard.getBitboardPosition()));
+        chessboard.makeMove(findMove(chessboard, "e2e4"));
+        assertEquals(0x823C9B50FD114196L, PolyglotKey.getKey(chessboard.getBitboardPosition()));
+    }
+
+    @Test
+    public void checkBookEntry() throws IOException, ReadGameError
+    {
+        File file = folder.newFile("entry.bin");
+        Files.write(file.toPath(), toBytes(INITIAL_ENTRY));
+        PolyglotBook book = PolyglotBook.open(file.getPath());
+        assertEquals(1, book.getSize());
+        Chessboard initial = new FenNotation().importData(FenNotation.INITIAL_STATE).getChessboard();
+        List<BookEntry> entries = book.getEntries(PolyglotKey.getKey(initial.getBitboardPosition()));
+        assertEquals(1, entries.size());
+        assertEquals(E2E4, entries.get(0).getMove());
+        assertEquals(10, entries.get(0).getWeight());
+        assertEquals("e2e4", PackedMove.toString(book.getMove(initial, new Random(1L))));
+    }
+
+    private static int findMove(Chessboard chessboard, String move)
+    {
+        MoveList moves = chessboard.getLegalMoves();
+        for (int i = 0; i < moves.size(); i++)
+        {
+            if (move.equals(PackedMove.toString(moves.get(i))))
+            {
+                return moves.get(i);
+            }
+        }
+        return PackedMove.NO_MOVE;
+    }
+
+    private static byte[] toBytes(String hex)
+    {
+        byte[] result = new byte[hex.length() / 2];
+        for (int i = 0; i < result.length; i++)
+        {
+            result[i] = (byte) Integer.parseInt(hex.substring(2 * i, 2 * i + 2), 16);
+        }
+        return result;
+    }
+
+    private File writeBook(long[][] entries) throws IOException
+    {
+        ByteBuffer buffer = ByteBuffer.allocate(entries.length * PolyglotBook.ENTRY_SIZE);
+        Arrays.sort(entries, (first, second) -> Long.compareUnsigned(first[0], second[0]));
+        for (long[] entry : entries)
+        {
+            buffer.putLong(entry[0]);
+            buffer.putShort((short) entry[1]);
+            buffer.putShort((short) entry[2]);
+            buffer.putInt(0);
+        }
+        File file = folder.newFile("book.bin");
+        Files.write(file.toPath(), buffer.array());
+        return file;
+    }
+}
@@ -0,0 +1,323 @@
+/*
+#    This program is free software: you can redistribute it and/or modify
+#    it under the terms of the GNU General Public License as published by
+#    the Free Software Foundation, either version 3 of the License, or
+#    (at your option) any later version.
+#
+#    This program is distributed in the hope that it will be useful,
+#    but WITHOUT ANY WARRANTY; without even the implied warranty of
+#    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+#    GNU General Public License for more details.
+#
+#    You should have received a copy of the GNU General Public License
+#    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package pl.art.lach.mateusz.javaopenchess;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+import pl.art.lach.mateusz.javaopenchess.core.BitboardPosition;
+import pl.art.lach.mateusz.javaopenchess.core.Chessboard;
+import pl.art.lach.mateusz.javaopenchess.core.UndoState;
+import pl.art.lach.mateusz.javaopenchess.core.ai.search.Evaluation;
+import pl.art.lach.mateusz.javaopenchess.core.ai.search.MoveOrdering;
+import pl.art.lach.mateusz.javaopenchess.core.ai.search.ParallelSearch;
+import pl.art.lach.mateusz.javaopenchess.core.ai.search.PawnHashTable;
+import pl.art.lach.mateusz.javaopenchess.core.ai.search.Ponder;
+import pl.art.lach.mateusz.javaopenchess.core.ai.search.Search;
+import pl.art.lach.mateusz.javaopenchess.core.ai.search.SearchInfo;
+import pl.art.lach.mateusz.javaopenchess.core.ai.search.SearchOptions;
+import pl.art.lach.mateusz.javaopenchess.core.ai.search.StaticExchange;
+import pl.art.lach.mateusz.javaopenchess.core.ai.search.TranspositionTable;
+import pl.art.lach.mateusz.javaopenchess.core.data_transfer.implementations.FenNotation;
+import pl.art.lach.mateusz.javaopenchess.core.exceptions.ReadGameError;
+import pl.art.lach.mateusz.javaopenchess.core.moves.MoveList;
+import pl.art.lach.mateusz.javaopenchess.core.moves.PackedMove;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that alpha-beta search finds obvious moves
+ * and leaves chessboard unchanged.
+ */
+public class SearchTest
+{
+    private static final String BACK_RANK_MATE = "6k1/5ppp/8/8/8/8/8/R5K1 w - - 0 1";
+
+    private static final String HANGING_QUEEN = "4k3/8/8/3q4/8/8/8/3RK3 w - - 0 1";
+
+    private static final String KIWIPETE = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1";
+
+    private static final String DEFENDED_PAWN = "4k3/2p5/3p4/8/8/8/8/3RK3 w - - 0 1";
+
+    private static final String X_RAY = "3rk3/8/3p4/8/8/8/3R4/3RK3 w - - 0 1";
+
+    /**
+     * knight moved to c6 is taken by pawn, which is recaptured
+     */
+    private static final String RECAPTURE = "4k3/3p4/8/3PN3/8/8/8/4K3 w - - 0 1";
+
+    private static final long TIME = 5000L;
+
+    private static final int THREADS = 4;
+
+    private static final long PONDER_TIME = 200L;
+
+    private static final int MAX_PLIES = 100;
+
+    private static final int PAWN_HASH_DEPTH = 5;
+
+    private static final int MIN_PAWN_HASH_HIT_RATE = 900;
+
+    @Test
+    public void checkMateInOne() throws ReadGameError
+    {
+        Chessboard chessboard = new FenNotation().importData(BACK_RANK_MATE).getChessboard();
+        long key = chessboard.getZobristKey();
+        Search search = new Search(chessboard);
+        int move = search.search(TIME, 3);
+        assertEquals("a1a8", PackedMove.toString(move));
+        assertTrue(search.getBestScore() >= Search.MATE_BOUND);
+        assertEquals(key, chessboard.getZobristKey());
+    }
+
+    @Test
+    public void checkCaptureOfHangingQueen() throws ReadGameError
+    {
+        Chessboard chessboard = new FenNotation().importData(HANGING_QUEEN).getChessboard();
+        Search search = new Search(chessboard);
+        int move = search.search(TIME, 4);
+        assertEquals("d1d5", PackedMove.toString(move));
+        assertEquals(4, search.getCompletedDepth());
+        assertTrue(search.getNodes() > 0L);
+    }
+
+    @Test
+    public void checkCopyOfChessboard() throws ReadGameError
+    {
+        Chessboard chessboard = new FenNotation().importData(KIWIPETE).getChessboard();
+        Chessboard copy = chessboard.createCopy();
+        assertEquals(chessboard.getZobristKey(), copy.getZobristKey());
+        assertEquals(chessboard.getLegalMoves().toString(), copy.getLegalMoves().toString());
+        copy.makeMove(copy.getLegalMoves().get(0));
+        assertNotEquals(chessboard.getZobristKey(), copy.getZobristKey());
+        assertEquals(48, chessboard.getLegalMoves().size());
+    }
+
+    @Test
+    public void checkParallelSearch() throws ReadGameError
+    {
+        Chessboard chessboard = new FenNotation().importData(HANGING_QUEEN).getChessboard();
+        long key = chessboard.getZobristKey();
+        PawnHashTable[] pawnHashTables = ParallelSearch.createPawnHashTables(THREADS);
+        ParallelSearch search = new ParallelSearch(chessboard, new TranspositionTable(1), pawnHashTables);
+        int move = search.search(TIME, 5);
+        assertEquals("d1d5", PackedMove.toString(move));
+        assertTrue(search.getCompletedDepth() >= 5);
+        assertEquals(key, chessboard.getZobristKey());
+        assertTrue(pawnHashTables[0].getHits() > 0L);
+    }
+
+    @Test
+    public void checkPonder() throws ReadGameError, InterruptedException
+    {
+        Chessboard chessboard = new FenNotation().importData(KIWIPETE).getChessboard();
+        long key = chessboard.getZobristKey();
+        TranspositionTable transpositionTable = new TranspositionTable(1);
+        Search search = new Search(chessboard, transpositionTable);
+        int move = search.search(TIME, 4);
+        Ponder ponder = new Ponder(transpositionTable);
+        assertTrue(ponder.start(chessboard, move, 64));
+        assertTrue(ponder.isRunning());
+        Thread.sleep(PONDER_TIME);
+        ponder.stop();
+        assertFalse(ponder.isRunning());
+        assertTrue(ponder.isHit(ponder.getPredictedMove()));
+        assertFalse(ponder.isHit(move));
+        assertTrue(ponder.getCompletedDepth() > 0);
+        assertNotEquals(PackedMove.NO_MOVE, ponder.getBestMove());
+        assertTrue(ponder.getElapsedMillis() >= PONDER_TIME);
+        assertEquals(key, chessboard.getZobristKey());
+    }
+
+    @Test
+    public void checkSearchListener() throws ReadGameError
+    {
+        Chessboard chessboard = new FenNotation().importData(KIWIPETE).getChessboard();
+        List<SearchInfo> infos = new ArrayList<>();
+        Search search = new Search(chessboard, new TranspositionTable(1));
+        search.addListener(infos::add);
+        int move = search.search(TIME, 4);
+        assertEquals(4, infos.size());
+        for (int i = 0; i < infos.size(); i++)
+        {
+            SearchInfo info = infos.get(i);
+            assertEquals(i + 1, info.getDepth());
+            assertTrue(info.getSelectiveDepth() >= info.getDepth());
+            assertTrue(info.getNodes() > 0L);
+            assertTrue(info.getPrincipalVariation().length > 0);
+        }
+        SearchInfo last = infos.get(infos.size() - 1);
+        int[] principalVariation = last.getPrincipalVariation();
+        assertEquals(move, principalVariation[0]);
+        assertEquals(search.getBestScore(), last.getScore());
+        assertTrue(last.toString().contains("pv=" + PackedMove.toString(move)));
+        long key = chessboard.getZobristKey();
+        UndoState[] undoStates = new UndoState[principalVariation.length];
+        for (int i = 0; i < principalVariation.length; i++)
+        {
+            assertTrue(chessboard.getLegalMoves().contains(principalVariation[i]));
+            undoStates[i] = chessboard.makeMove(principalVariation[i]);
+        }
+        for (int i = principalVariation.length - 1; i >= 0; i--)
+        {
+            chessboard.unmakeMove(principalVariation[i], undoStates[i]);
+        }
+        assertEquals(key, chessboard.getZobristKey());
+    }
+
+    @Test
+    public void checkSelectiveSearch() throws ReadGameError
+    {
+        Chessboard chessboard = new FenNotation().importData(KIWIPETE).getChessboard();
+        Search fullWidth = new Search(chessboard, new TranspositionTable(1));
+        fullWidth.setOptions(SearchOptions.fullWidth());
+        fullWidth.search(TIME * 10, 5);
+        Search selective = new Search(chessboard, new TranspositionTable(1));
+        selective.search(TIME * 10, 5);
+        assertEquals(5, selective.getCompletedDepth());
+        assertTrue(selective.getNodes() < fullWidth.getNodes());
+
+        SearchOptions nullMoveOnly = SearchOptions.fullWidth();
+        nullMoveOnly.setNullMove(true);
+        SearchOptions reductionsOnly = SearchOptions.fullWidth();
+        reductionsOnly.setLateMoveReductions(true);
+        reductionsOnly.setPrincipalVariationSearch(true);
+        for (SearchOptions options : new SearchOptions[] {nullMoveOnly, reductionsOnly, new SearchOptions()})
+        {
+            chessboard = new FenNotation().importData(HANGING_QUEEN).getChessboard();
+            Search search = new Search(chessboard, new TranspositionTable(1));
+            search.setOptions(options);
+            assertEquals("d1d5", PackedMove.toString(search.search(TIME, 6)));
+        }
+    }
+
+    @Test
+    public void checkMoveOrdering() throws ReadGameError
+    {
+        Chessboard chessboard = new FenNotation().importData(KIWIPETE).getChessboard();
+        MoveList moves = new MoveList();
+        for (int i = 0; i < chessboard.getLegalMoves().size(); i++)
+        {
+            moves.add(chessboard.getLegalMoves().get(i));
+        }
+        int hashMove = PackedMove.NO_MOVE;
+        int killer = PackedMove.NO_MOVE;
+        for (int i = 0; i < moves.size(); i++)
+        {
+            if ("a2a3".equals(PackedMove.toString(moves.get(i))))
+            {
+                hashMove = moves.get(i);
+            }
+            else if ("g2g3".equals(PackedMove.toString(moves.get(i))))
+            {
+                killer = moves.get(i);
+            }
+        }
+        MoveOrdering ordering = new MoveOrdering(Search.MAX_PLY);
+        MoveList cutoff = new MoveList();
+        cutoff.add(killer);
+        ordering.updateCutoff(cutoff, 0, 1, 3, PackedMove.NO_MOVE);
+        assertTrue(ordering.isKiller(killer, 1));
+        assertTrue(ordering.getHistory(killer) > 0);
+
+        ordering.scoreMoves(moves, 1, hashMove, PackedMove.NO_MOVE);
+        assertEquals("a2a3", PackedMove.toString(ordering.next(moves, 1, 0)));
+        assertEquals("e2a6", PackedMove.toString(ordering.next(moves, 1, 1)));
+        for (int i = 2; i < 9; i++)
+        {
+            assertTrue(PackedMove.isCapture(ordering.next(moves, 1, i)));
+        }
+        assertEquals("g2g3", PackedMove.toString(ordering.next(moves, 1, 9)));
+    }
+
+    @Test
+    public void checkStaticExchange() throws ReadGameError
+    {
+        Chessboard chessboard = new FenNotation().importData(DEFENDED_PAWN).getChessboard();
+        assertEquals(-4, StaticExchange.evaluate(chessboard.getBitboardPosition(), findMove(chessboard, "d1d6")));
+        chessboard = new FenNotation().importData(X_RAY).getChessboard();
+        assertEquals(1, StaticExchange.evaluate(chessboard.getBitboardPosition(), findMove(chessboard, "d2d6")));
+        assertEquals(0, StaticExchange.evaluate(chessboard.getBitboardPosition(), findMove(chessboard, "d2e2")));
+        chessboard = new FenNotation().importData(RECAPTURE).getChessboard();
+        assertEquals(-2, StaticExchange.evaluate(chessboard.getBitboardPosition(), findMove(chessboard, "e5c6")));
+    }
+
+    @Test
+    public void checkQuiescence() throws ReadGameError
+    {
+        Chessboard chessboard = new FenNotation().importData(DEFENDED_PAWN).getChessboard();
+        Search search = new Search(chessboard);
+        int move = search.search(TIME, 1);
+        assertNotEquals("d1d6", PackedMove.toString(move));
+        assertTrue(search.getBestScore() >= 0);
+    }
+
+    @Test
+    public void checkEvaluation() throws ReadGameError
+    {
+        Chessboard chessboard = new FenNotation().importData(FenNotation.INITIAL_STATE).getChessboard();
+        assertEquals(0, Evaluation.evaluate(chessboard.getBitboardPosition()));
+        chessboard = new FenNotation().importData(HANGING_QUEEN).getChessboard();
+        assertTrue(Evaluation.evaluate(chessboard.getBitboardPosition()) < -400);
+    }
+
+    @Test
+    public void checkIncrementalEvaluation() throws ReadGameError
+    {
+        Random random = new Random(7L);
+        Chessboard chessboard = new FenNotation().importData(KIWIPETE).getChessboard();
+        PawnHashTable pawnHashTable = new PawnHashTable();
+        for (int ply = 0; ply < MAX_PLIES && !chessboard.getLegalMoves().isEmpty(); ply++)
+        {
+            MoveList moves = chessboard.getLegalMoves();
+            chessboard.makeMove(moves.get(random.nextInt(moves.size())));
+            BitboardPosition position = chessboard.getBitboardPosition();
+            BitboardPosition computed = chessboard.createCopy().getBitboardPosition();
+            for (int color = BitboardPosition.WHITE; color <= BitboardPosition.BLACK; color++)
+            {
+                assertEquals(computed.getMidgameScore(color), position.getMidgameScore(color));
+                assertEquals(computed.getEndgameScore(color), position.getEndgameScore(color));
+            }
+            assertEquals(computed.getPhase(), position.getPhase());
+            assertEquals(Evaluation.evaluate(computed), Evaluation.evaluate(position));
+            assertEquals(Evaluation.evaluate(computed), Evaluation.evaluate(position, pawnHashTable));
+            assertEquals(Evaluation.evaluate(computed), Evaluation.evaluate(position, pawnHashTable));
+        }
+        assertTrue(pawnHashTable.getHits() > 0L);
+    }
+
+    @Test
+    public void checkPawnHashHitRate() throws ReadGameError
+    {
+        Chessboard chessboard = new FenNotation().importData(KIWIPETE).getChessboard();
+        Search search = new Search(chessboard, new TranspositionTable(1));
+        search.search(TIME, PAWN_HASH_DEPTH);
+        assertTrue(search.getPawnHashHitRate() > MIN_PAWN_HASH_HIT_RATE);
+    }
+
+    private static int findMove(Chessboard chessboard, String move)
+    {
+        MoveList moves = chessboard.getLegalMoves();
+        for (int i = 0; i < moves.size(); i++)
+        {
+            if (move.equals(PackedMove.toString(moves.get(i))))
+            {
+                return moves.get(i);
+            }
+        }
+        return PackedMove.NO_MOVE;
+    }
+}
@@ -0,0 +1,165 @@
+/*
+#    This program is free software: you can redistribute it and/or modify
+#    it under the terms of the GNU General Public License as published by
+#    the Free Software Foundation, either version 3 of the License, or
+#    (at your option) any later version.
+#
+#    This program is distributed in the hope that it will be useful,
+#    but WITHOUT ANY WARRANTY; without even the implied warranty of
+#    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+#    GNU General Public License for more details.
+#
+#    You should have received a copy of the GNU General Public License
+#    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package pl.art.lach.mateusz.javaopenchess;
+
+import java.io.IOException;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import pl.art.lach.mateusz.javaopenchess.core.BitboardPosition;
+import pl.art.lach.mateusz.javaopenchess.core.Chessboard;
+import pl.art.lach.mateusz.javaopenchess.core.ai.tablebase.Signature;
+import pl.art.lach.mateusz.javaopenchess.core.ai.tablebase.TablebaseGenerator;
+import pl.art.lach.mateusz.javaopenchess.core.ai.tablebase.Tablebases;
+import pl.art.lach.mateusz.javaopenchess.core.data_transfer.implementations.FenNotation;
+import pl.art.lach.mateusz.javaopenchess.core.exceptions.ReadGameError;
+import pl.art.lach.mateusz.javaopenchess.core.moves.MoveList;
+import pl.art.lach.mateusz.javaopenchess.core.moves.PackedMove;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks generation and probing of endgame tables.
+ */
+public class TablebaseTest
+{
+    private static final String MATED = "7k/6Q1/6K1/8/8/8/8/8 b - - 0 1";
+
+    private static final String STALEMATE = "7k/5Q2/6K1/8/8/8/8/8 b - - 0 1";
+
+    private static final String MATE_IN_ONE = "7k/8/6K1/8/8/8/8/5Q2 w - - 0 1";
+
+    private static final String MATED_BY_BLACK = "8/8/8/8/8/6k1/6q1/7K w - - 0 1";
+
+    private static final String PAWN_WINS = "4k3/8/4K3/4P3/8/8/8/8 b - - 0 1";
+
+    private static final String PAWN_STALEMATE = "4k3/4P3/4K3/8/8/8/8/8 b - - 0 1";
+
+    private static final String KINGS_ONLY = "8/8/3k4/8/8/3K4/8/8 w - - 0 1";
+
+    private static final String PAWN_ON_START_ROW = "4k3/8/8/8/8/3K4/4P3/8 w - - 0 1";
+
+    private static final int MAX_PLIES = 100;
+
+    @ClassRule
+    public static TemporaryFolder folder = new TemporaryFolder();
+
+    @BeforeClass
+    public static void generateTables() throws IOException
+    {
+        TablebaseGenerator generator = new TablebaseGenerator(folder.getRoot().toPath());
+        generator.generate("KQvK");
+        generator.generate("KPvK");
+    }
+
+    @AfterClass
+    public static void clearTables()
+    {
+        Tablebases.clear();
+    }
+
+    @Test
+    public void checkProbe() throws ReadGameError
+    {
+        assertTrue(Tablebases.contains("KRvK"));
+        int mated = probe(MATED);
+        assertTrue(Tablebases.isLoss(mated));
+        assertEquals(0, Tablebases.getPlies(mated));
+        assertEquals(Tablebases.DRAW, probe(STALEMATE));
+        int mateInOne = probe(MATE_IN_ONE);
+        assertTrue(Tablebases.isWin(mateInOne));
+        assertEquals(1, Tablebases.getPlies(mateInOne));
+        assertTrue(Tablebases.isLoss(probe(MATED_BY_BLACK)));
+        assertTrue(Tablebases.isLoss(probe(PAWN_WINS)));
+        assertEquals(Tablebases.DRAW, probe(PAWN_STALEMATE));
+        assertEquals(Tablebases.DRAW, probe(KINGS_ONLY));
+        assertEquals(Tablebases.NOT_FOUND, probe(FenNotation.INITIAL_STATE));
+    }
+
+    @Test
+    public void checkMaterialKey()
+    {
+        int krk = Signature.parse("KRvK").getMaterialKey();
+        assertEquals(krk, Signature.getFlippedKey(Signature.parse("KvKR").getMaterialKey()));
+        assertNotEquals(krk, Signature.parse("KvKR").getMaterialKey());
+        assertNotEquals(krk, Signature.parse("KRRvK").getMaterialKey());
+        assertTrue(Signature.isTriviallyDrawn(Signature.parse("KvKN").getMaterialKey()));
+        assertFalse(Signature.isTriviallyDrawn(Signature.parse("KNvKN").getMaterialKey()));
+    }
+
+    @Test
+    public void checkBestMove() throws ReadGameError
+    {
+        Chessboard chessboard = new FenNotation().importData(MATE_IN_ONE).getChessboard();
+        assertEquals("f1f8", PackedMove.toString(Tablebases.getBestMove(chessboard)));
+        chessboard = new FenNotation().importData(FenNotation.INITIAL_STATE).getChessboard();
+        assertEquals(PackedMove.NO_MOVE, Tablebases.getBestMove(chessboard));
+    }
+
+    @Test
+    public void checkDoublePush() throws ReadGameError
+    {
+        Chessboard chessboard = new FenNotation().importData(PAWN_ON_START_ROW).getChessboard();
+        assertNotEquals(PackedMove.NO_MOVE, Tablebases.getBestMove(chessboard));
+        chessboard.makeMove(findMove(chessboard, "e2e4"));
+        BitboardPosition position = chessboard.getBitboardPosition();
+        assertNotEquals(BitboardPosition.NO_SQUARE, position.getEnPassantSquare());
+        assertNotEquals(Tablebases.NOT_FOUND, Tablebases.probe(position));
+        assertNotEquals(PackedMove.NO_MOVE, Tablebases.getBestMove(chessboard));
+    }
+
+    @Test
+    public void checkWinIsConverted() throws ReadGameError
+    {
+        Chessboard chessboard = new FenNotation().importData(PAWN_ON_START_ROW).getChessboard();
+        int value = Tablebases.probe(chessboard.getBitboardPosition());
+        assertTrue(Tablebases.isWin(value));
+        int plies = 0;
+        while (!chessboard.getLegalMoves().isEmpty())
+        {
+            assertTrue(plies < MAX_PLIES);
+            int move = Tablebases.getBestMove(chessboard);
+            // tables use standard rules, moves must be legal also under rules of the game
+            assertTrue(chessboard.getLegalMoves().contains(move));
+            chessboard.makeMove(move);
+            plies++;
+        }
+        BitboardPosition position = chessboard.getBitboardPosition();
+        int side = position.getSideToMove();
+        int king = position.getKingSquare(side);
+        assertTrue(position.isAttacked(king, 1 - side, position.getOccupancy(), 0L));
+        assertEquals(1, plies % 2);
+    }
+
+    private static int findMove(Chessboard chessboard, String move)
+    {
+        MoveList moves = chessboard.getLegalMoves();
+        for (int i = 0; i < moves.size(); i++)
+        {
+            if (move.equals(PackedMove.toString(moves.get(i))))
+            {
+                return moves.get(i);
+            }
+        }
+        return PackedMove.NO_MOVE;
+    }
+
+    private static int probe(String fen) throws ReadGameError
+    {
+        return Tablebases.probe(new FenNotation().importData(fen).getChessboard().getBitboardPosition());
+    }
+}
@@ -0,0 +1,173 @@
+/*
+#    This program is free software: you can redistribute it and/or modify
+#    it under the terms of the GNU General Public License as published by
+#    the Free Software Foundation, either version 3 of the License, or
+#    (at your option) any later version.
+#
+#    This program is distributed in the hope that it will be useful,
+#    but WITHOUT ANY WARRANTY; without even the implied warranty of
+#    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+#    GNU General Public License for more details.
+#
+#    You should have received a copy of the GNU General Public License
+#    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package pl.art.lach.mateusz.javaopenchess;
+
+import org.junit.Test;
+import pl.art.lach.mateusz.javaopenchess.core.Chessboard;
+import pl.art.lach.mateusz.javaopenchess.core.Game;
+import pl.art.lach.mateusz.javaopenchess.core.GameClock;
+import pl.art.lach.mateusz.javaopenchess.core.ai.search.Search;
+import pl.art.lach.mateusz.javaopenchess.core.ai.search.TimeManager;
+import pl.art.lach.mateusz.javaopenchess.core.ai.search.TranspositionTable;
+import pl.art.lach.mateusz.javaopenchess.core.data_transfer.implementations.FenNotation;
+import pl.art.lach.mateusz.javaopenchess.core.exceptions.ReadGameError;
+import pl.art.lach.mateusz.javaopenchess.core.players.Player;
+import pl.art.lach.mateusz.javaopenchess.utils.Settings;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks budgets of time manager, that search keeps its hard limit
+ * and that computer uses game clock when time limit is set.
+ */
+public class TimeManagerTest
+{
+    private static final String KIWIPETE = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1";
+
+    private static final long MINUTE = 60000L;
+
+    private static final long INCREMENT = 2000L;
+
+    /**
+     * time which search may need after hard limit to return
+     */
+    private static final long TOLERANCE = 300L;
+
+    private static final int FIRST_MOVE = 1;
+
+    private static final int MAX_DEPTH = 64;
+
+    private static final int LEVEL3 = 3;
+
+    /**
+     * seconds of game clock, clock ticks once per second
+     */
+    private static final int GAME_SECONDS = 60;
+
+    private static final int INCREMENT_SECONDS = 5;
+
+    private static final int SHORT_GAME_SECONDS = 5;
+
+    private static final int FIRST_MOVE_CODE = 1;
+
+    private static final int SECOND_MOVE_CODE = 2;
+
+    @Test
+    public void checkClockBudget()
+    {
+        TimeManager timeManager = TimeManager.forClock(MINUTE, 0L, FIRST_MOVE);
+        assertTrue(timeManager.getSoftMillis() > 0L);
+        assertTrue(timeManager.getSoftMillis() < timeManager.getHardMillis());
+        assertTrue(timeManager.getHardMillis() < MINUTE / 2);
+
+        TimeManager withIncrement = TimeManager.forClock(MINUTE, INCREMENT, FIRST_MOVE);
+        assertTrue(withIncrement.getSoftMillis() > timeManager.getSoftMillis());
+
+        TimeManager lowOnTime = TimeManager.forClock(1000L, 0L, 30);
+        assertTrue(lowOnTime.getHardMillis() < 1000L - TimeManager.MOVE_OVERHEAD);
+
+        TimeManager untimed = TimeManager.forMoveTime(1000L);
+        assertEquals(1000L, untimed.getHardMillis());
+        assertEquals(500L, untimed.getSoftMillis());
+
+        TimeManager limited = TimeManager.forClock(MINUTE, 0L, FIRST_MOVE, 200L);
+        assertEquals(200L, limited.getHardMillis());
+        assertEquals(100L, limited.getSoftMillis());
+        TimeManager notLimited = TimeManager.forClock(MINUTE, 0L, FIRST_MOVE, MINUTE);
+        assertEquals(timeManager.getHardMillis(), notLimited.getHardMillis());
+        assertEquals(timeManager.getSoftMillis(), notLimited.getSoftMillis());
+    }
+
+    @Test
+    public void checkStability()
+    {
+        TimeManager timeManager = new TimeManager(100L, 1000L);
+        timeManager.iterationCompleted(FIRST_MOVE_CODE, 0);
+        assertEquals(100L, timeManager.getSoftMillis());
+        timeManager.iterationCompleted(SECOND_MOVE_CODE, 0);
+        assertTrue(timeManager.getSoftMillis() > 100L);
+        for (int i = 0; i < 3; i++)
+        {
+            timeManager.iterationCompleted(SECOND_MOVE_CODE, 0);
+        }
+        assertTrue(timeManager.getSoftMillis() < 100L);
+        timeManager.iterationCompleted(SECOND_MOVE_CODE, -100);
+        assertTrue(timeManager.getSoftMillis() > 100L);
+    }
+
+    @Test
+    public void checkHardLimit() throws ReadGameError
+    {
+        Chessboard chessboard = new FenNotation().importData(KIWIPETE).getChessboard();
+        TimeManager timeManager = new TimeManager(100L, 200L);
+        Search search = new Search(chessboard, new TranspositionTable(1));
+        // attack tables are initialized with first generated moves, it must not count to search time
+        assertFalse(chessboard.getLegalMoves().isEmpty());
+        long start = System.currentTimeMillis();
+        search.search(timeManager, MAX_DEPTH);
+        assertTrue(System.currentTimeMillis() - start < timeManager.getHardMillis() + TOLERANCE);
+        assertTrue(search.getCompletedDepth() > 0);
+    }
+
+    @Test
+    public void checkGameClock()
+    {
+        Game game = new Game(false, LEVEL3);
+        Settings settings = game.getSettings();
+        settings.setTimeForGame(GAME_SECONDS);
+        settings.setTimeIncrement(INCREMENT_SECONDS);
+        game.newGame();
+        GameClock clock = game.getGameClock();
+        assertNotNull(clock);
+        Player white = settings.getPlayerWhite();
+        Player black = settings.getPlayerBlack();
+        assertEquals(GAME_SECONDS, clock.getLeftTime(black));
+        int whiteTime = clock.getLeftTime(white);
+        assertTrue(whiteTime <= GAME_SECONDS && whiteTime >= GAME_SECONDS - 2);
+
+        game.nextMove();
+        assertSame(black, game.getActivePlayer());
+        int whiteAfterMove = clock.getLeftTime(white);
+        assertTrue(whiteAfterMove <= whiteTime + INCREMENT_SECONDS);
+        assertTrue(whiteAfterMove >= whiteTime + INCREMENT_SECONDS - 1);
+        assertTrue(clock.getLeftTime(black) <= GAME_SECONDS);
+        game.endGame("test finished");
+
+        Game withoutClock = new Game(false);
+        withoutClock.newGame();
+        assertNull(withoutClock.getGameClock());
+        assertEquals(Settings.DEFAULT_COMPUTER_LEVEL, withoutClock.getSettings().getComputerLevel());
+        assertEquals(LEVEL3, settings.getComputerLevel());
+    }
+
+    @Test
+    public void checkComputerMoveOnClock()
+    {
+        Game game = new Game(true, LEVEL3);
+        Settings settings = game.getSettings();
+        settings.setComputerMoveTime(MINUTE);
+        settings.setTimeForGame(SHORT_GAME_SECONDS);
+        game.newGame();
+        Player computer = settings.getPlayerWhite();
+        long start = System.currentTimeMillis();
+        assertNotNull(game.doComputerMove());
+        long elapsed = System.currentTimeMillis() - start;
+        // move time of settings is a minute, so only clock could end search that early
+        assertTrue(elapsed < SHORT_GAME_SECONDS * 1000L);
+        assertTrue(game.getGameClock().getLeftTime(computer) <= SHORT_GAME_SECONDS);
+        assertNotSame(computer, game.getActivePlayer());
+        game.endGame("test finished");
+    }
+}
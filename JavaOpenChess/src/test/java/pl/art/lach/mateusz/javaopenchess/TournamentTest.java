@@ -0,0 +1,124 @@
+/*
+#    This program is free software: you can redistribute it and/or modify
+#    it under the terms of the GNU General Public License as published by
+#    the Free Software Foundation, either version 3 of the License, or
+#    (at your option) any later version.
+#
+#    This program is distributed in the hope that it will be useful,
+#    but WITHOUT ANY WARRANTY; without even the implied warranty of
+#    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+#    GNU General Public License for more details.
+#
+#    You should have received a copy of the GNU General Public License
+#    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package pl.art.lach.mateusz.javaopenchess;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import pl.art.lach.mateusz.javaopenchess.core.tournament.Adjudication;
+import pl.art.lach.mateusz.javaopenchess.core.tournament.EngineConfig;
+import pl.art.lach.mateusz.javaopenchess.core.tournament.Sprt;
+import pl.art.lach.mateusz.javaopenchess.core.tournament.Tournament;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks SPRT statistics, reading of openings and short tournament
+ * of instant AIs.
+ */
+public class TournamentTest
+{
+    private static final String EPD_LINE = "4k3/8/8/8/8/8/4P3/4K3 w - - bm e4; id \"pawn\";";
+
+    private static final String FEN_LINE = "rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq e3 0 1";
+
+    private static final double DELTA = 0.1;
+
+    private static final int GAMES = 4;
+
+    private static final int CONCURRENCY = 2;
+
+    private static final int MAX_PLIES = 100;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void checkSprt()
+    {
+        Sprt sprt = new Sprt();
+        assertEquals(0.0, sprt.getElo(), DELTA);
+        assertEquals(190.8, Sprt.getElo(0.75), DELTA);
+        assertEquals(0.75, Sprt.getExpectedScore(190.8), 0.001);
+        for (int i = 0; i < 100; i++)
+        {
+            sprt.addResult(0.5);
+        }
+        assertEquals(0.0, sprt.getLlr(), DELTA);
+        assertEquals(Sprt.Status.RUNNING, sprt.getStatus());
+
+        Sprt passed = new Sprt(0.0, 10.0, 0.05, 0.05);
+        Sprt failed = new Sprt(0.0, 10.0, 0.05, 0.05);
+        for (int i = 0; i < 200; i++)
+        {
+            passed.addResult(i % 3 == 0 ? 0.5 : 1.0);
+            failed.addResult(i % 3 == 0 ? 0.5 : 0.0);
+        }
+        assertEquals(Sprt.Status.PASSED, passed.getStatus());
+        assertTrue(passed.getElo() > 0.0);
+        assertEquals(Sprt.Status.FAILED, failed.getStatus());
+        assertTrue(failed.getElo() < 0.0);
+        assertEquals(200, failed.getGames());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void checkInvalidSprt()
+    {
+        new Sprt(5.0, 0.0, 0.05, 0.05);
+    }
+
+    @Test
+    public void checkEngineConfig()
+    {
+        EngineConfig config = EngineConfig.parse("level=2, time=150, threads=2");
+        assertEquals(2, config.getLevel());
+        assertEquals(150L, config.getMoveTime());
+        assertEquals(2, config.getThreads());
+        assertEquals("Level2", config.getName());
+        assertNull(config.getBookPath());
+    }
+
+    @Test
+    public void checkTournament() throws IOException, InterruptedException
+    {
+        Path openingsFile = folder.newFile("openings.epd").toPath();
+        Files.write(openingsFile, Arrays.asList("# openings", EPD_LINE, "", FEN_LINE), StandardCharsets.UTF_8);
+        List<String> openings = Tournament.loadOpenings(openingsFile);
+        assertEquals(Arrays.asList("4k3/8/8/8/8/8/4P3/4K3 w - - 0 1", FEN_LINE), openings);
+
+        Adjudication adjudication = new Adjudication();
+        adjudication.setMaxPlies(MAX_PLIES);
+        Tournament tournament = new Tournament(
+            EngineConfig.parse("name=first,level=2"), EngineConfig.parse("name=second,level=1"),
+            openings, GAMES, CONCURRENCY, new Sprt(), adjudication
+        );
+        Path pgnFile = folder.newFile("games.pgn").toPath();
+        tournament.setPgnFile(pgnFile);
+        Sprt result = tournament.run();
+        assertEquals(GAMES, result.getGames());
+
+        String pgn = new String(Files.readAllBytes(pgnFile), StandardCharsets.UTF_8);
+        assertEquals(GAMES, pgn.split("\\[Result ", -1).length - 1);
+        assertTrue(pgn.contains("[White \"first\"]"));
+        assertTrue(pgn.contains("[Black \"first\"]"));
+        assertTrue(pgn.contains("[FEN \"" + FEN_LINE + "\"]"));
+    }
+}
@@ -0,0 +1,115 @@
+/*
+#    This program is free software: you can redistribute it and/or modify
+#    it under the terms of the GNU General Public License as published by
+#    the Free Software Foundation, either version 3 of the License, or
+#    (at your option) any later version.
+#
+#    This program is distributed in the hope that it will be useful,
+#    but WITHOUT ANY WARRANTY; without even the implied warranty of
+#    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+#    GNU General Public License for more details.
+#
+#    You should have received a copy of the GNU General Public License
+#    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package pl.art.lach.mateusz.javaopenchess;
+
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+import pl.art.lach.mateusz.javaopenchess.core.ai.search.TranspositionTable;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks storing, replacing and concurrent use of transposition table.
+ */
+public class TranspositionTableTest
+{
+    private static final int THREADS = 4;
+
+    private static final int OPERATIONS = 200000;
+
+    @Test
+    public void checkStoreAndProbe()
+    {
+        TranspositionTable table = new TranspositionTable(1);
+        long key = 0x123456789ABCDEFL;
+        assertEquals(TranspositionTable.NO_ENTRY, table.probe(key));
+        table.store(key, 0x1234567, -99990, 7, TranspositionTable.BOUND_LOWER);
+        long data = table.probe(key);
+        assertEquals(0x1234567, TranspositionTable.getMove(data));
+        assertEquals(-99990, TranspositionTable.getScore(data));
+        assertEquals(7, TranspositionTable.getDepth(data));
+        assertEquals(TranspositionTable.BOUND_LOWER, TranspositionTable.getBound(data));
+        assertEquals(TranspositionTable.NO_ENTRY, table.probe(key + 1));
+    }
+
+    @Test
+    public void checkScoreRange()
+    {
+        TranspositionTable table = new TranspositionTable(1);
+        table.store(1L, 1, TranspositionTable.MAX_SCORE, 1, TranspositionTable.BOUND_EXACT);
+        table.store(2L, 2, -TranspositionTable.MAX_SCORE, 1, TranspositionTable.BOUND_EXACT);
+        assertEquals(TranspositionTable.MAX_SCORE, TranspositionTable.getScore(table.probe(1L)));
+        assertEquals(-TranspositionTable.MAX_SCORE, TranspositionTable.getScore(table.probe(2L)));
+    }
+
+    @Test
+    public void checkReplacement()
+    {
+        TranspositionTable table = new TranspositionTable(1);
+        long deep = 5L;
+        long shallow = deep + ((long) table.getCapacity() << 4);
+        long other = deep + ((long) table.getCapacity() << 5);
+        table.store(deep, 1, 10, 10, TranspositionTable.BOUND_EXACT);
+        table.store(shallow, 2, 20, 2, TranspositionTable.BOUND_EXACT);
+        table.store(other, 3, 30, 3, TranspositionTable.BOUND_EXACT);
+        assertEquals(1, TranspositionTable.getMove(table.probe(deep)));
+        assertEquals(TranspositionTable.NO_ENTRY, table.probe(shallow));
+        assertEquals(3, TranspositionTable.getMove(table.probe(other)));
+        table.newSearch();
+        table.store(shallow, 2, 20, 2, TranspositionTable.BOUND_EXACT);
+        assertEquals(TranspositionTable.NO_ENTRY, table.probe(deep));
+        assertEquals(2, TranspositionTable.getMove(table.probe(shallow)));
+    }
+
+    @Test
+    public void checkConcurrentAccess() throws InterruptedException
+    {
+        final TranspositionTable table = new TranspositionTable(1);
+        final AtomicInteger errors = new AtomicInteger();
+        Thread[] threads = new Thread[THREADS];
+        for (int i = 0; i < THREADS; i++)
+        {
+            final long seed = i;
+            threads[i] = new Thread(() ->
+            {
+                Random random = new Random(seed);
+                for (int j = 0; j < OPERATIONS; j++)
+                {
+                    long key = random.nextInt(1 << 16) * 0x9E3779B97F4A7C15L;
+                    long data = table.probe(key);
+                    if (TranspositionTable.NO_ENTRY != data
+                            && TranspositionTable.getScore(data) != getScore(key))
+                    {
+                        errors.incrementAndGet();
+                    }
+                    table.store(key, j & 0xFFFF, getScore(key), j & 0x3F, TranspositionTable.BOUND_EXACT);
+                }
+            });
+            threads[i].start();
+        }
+        for (Thread thread : threads)
+        {
+            thread.join();
+        }
+        assertEquals(0, errors.get());
+        assertTrue(table.getHashfull() > 0);
+    }
+
+    private static int getScore(long key)
+    {
+        return (int) (key >>> 48) - 30000;
+    }
+}
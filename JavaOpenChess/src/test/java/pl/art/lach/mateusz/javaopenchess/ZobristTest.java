@@ -0,0 +1,89 @@
+/*
+#    This program is free software: you can redistribute it and/or modify
+#    it under the terms of the GNU General Public License as published by
+#    the Free Software Foundation, either version 3 of the License, or
+#    (at your option) any later version.
+#
+#    This program is distributed in the hope that it will be useful,
+#    but WITHOUT ANY WARRANTY; without even the implied warranty of
+#    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+#    GNU General Public License for more details.
+#
+#    You should have received a copy of the GNU General Public License
+#    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package pl.art.lach.mateusz.javaopenchess;
+
+import java.util.Random;
+import org.junit.Test;
+import pl.art.lach.mateusz.javaopenchess.core.BitboardPosition;
+import pl.art.lach.mateusz.javaopenchess.core.Chessboard;
+import pl.art.lach.mateusz.javaopenchess.core.UndoState;
+import pl.art.lach.mateusz.javaopenchess.core.data_transfer.implementations.FenNotation;
+import pl.art.lach.mateusz.javaopenchess.core.exceptions.ReadGameError;
+import pl.art.lach.mateusz.javaopenchess.core.moves.MoveList;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that incrementally updated Zobrist key is equal to key
+ * computed from scratch and identifies positions.
+ */
+public class ZobristTest
+{
+    private static final String KIWIPETE = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1";
+
+    private static final String AFTER_E4 = "rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq e3 0 1";
+
+    private static final int MAX_PLIES = 150;
+
+    @Test
+    public void checkIncrementalKey() throws ReadGameError
+    {
+        Random random = new Random(5L);
+        Chessboard chessboard = new FenNotation().importData(KIWIPETE).getChessboard();
+        MoveList moves = new MoveList();
+        for (int ply = 0; ply < MAX_PLIES; ply++)
+        {
+            BitboardPosition position = chessboard.getBitboardPosition();
+            long key = chessboard.getZobristKey();
+            assertEquals(position.computeZobristKey(), key);
+            assertEquals(position.computePawnKey(), position.getPawnKey());
+            moves.clear();
+            position.getLegalMoveGenerator().generateLegalMoves(position.getSideToMove(), moves);
+            if (moves.isEmpty())
+            {
+                break;
+            }
+            for (int i = 0; i < moves.size(); i++)
+            {
+                UndoState undo = chessboard.makeMove(moves.get(i));
+                assertNotEquals(key, chessboard.getZobristKey());
+                assertEquals(chessboard.getBitboardPosition().computeZobristKey(), chessboard.getZobristKey());
+                assertEquals(
+                    chessboard.getBitboardPosition().computePawnKey(), chessboard.getBitboardPosition().getPawnKey()
+                );
+                chessboard.unmakeMove(moves.get(i), undo);
+                assertEquals(key, chessboard.getZobristKey());
+            }
+            chessboard.makeMove(moves.get(random.nextInt(moves.size())));
+        }
+    }
+
+    @Test
+    public void checkKeyAfterMoves() throws ReadGameError
+    {
+        Chessboard chessboard = new FenNotation().importData(FenNotation.INITIAL_STATE).getChessboard();
+        long initialKey = chessboard.getZobristKey();
+        chessboard.move(6, 7, 5, 5);
+        chessboard.move(6, 0, 5, 2);
+        chessboard.move(5, 5, 6, 7);
+        chessboard.move(5, 2, 6, 0);
+        assertEquals(initialKey, chessboard.getZobristKey());
+
+        chessboard.move(4, 6, 4, 4);
+        long keyAfterE4 = chessboard.getZobristKey();
+        assertEquals(new FenNotation().importData(AFTER_E4).getChessboard().getZobristKey(), keyAfterE4);
+        assertNotEquals(initialKey, keyAfterE4);
+    }
+}